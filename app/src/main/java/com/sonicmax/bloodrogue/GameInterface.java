@@ -10,23 +10,28 @@ import android.view.ScaleGestureDetector;
 
 import com.sonicmax.bloodrogue.audio.MusicFilePaths;
 import com.sonicmax.bloodrogue.audio.AudioPlayer;
+import com.sonicmax.bloodrogue.data.AndroidAssetSource;
+import com.sonicmax.bloodrogue.data.AssetSource;
+import com.sonicmax.bloodrogue.data.save.SaveCodec;
+import com.sonicmax.bloodrogue.data.save.SaveFormatException;
+import com.sonicmax.bloodrogue.data.save.SaveManager;
 import com.sonicmax.bloodrogue.engine.environment.TimeManager;
 import com.sonicmax.bloodrogue.engine.GameEngine;
+import com.sonicmax.bloodrogue.engine.GameHost;
 import com.sonicmax.bloodrogue.engine.GameState;
 import com.sonicmax.bloodrogue.engine.environment.WeatherManager;
 import com.sonicmax.bloodrogue.engine.components.Position;
 import com.sonicmax.bloodrogue.renderer.GameRenderer3D;
 import com.sonicmax.bloodrogue.renderer.text.NarrationManager;
 import com.sonicmax.bloodrogue.renderer.ui.InventoryCard;
+import com.sonicmax.bloodrogue.utils.AndroidLogSink;
 import com.sonicmax.bloodrogue.utils.maths.Vector2D;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -35,7 +40,7 @@ import java.util.HashMap;
  * Class which links together the different parts of the engine and handles user input/other Android events.
  */
 
-public class GameInterface {
+public class GameInterface implements GameHost {
     private final String LOG_TAG = this.getClass().getSimpleName();
     private Context context;
     private AudioPlayer audioPlayer;
@@ -44,6 +49,8 @@ public class GameInterface {
     private NarrationManager narrationManager;
     private TimeManager timeManager;
     private WeatherManager weatherManager;
+    private SaveManager saveManager;
+    private AssetSource assetSource;
 
     // User input
     private Vector2D lastMapTouch;
@@ -68,6 +75,12 @@ public class GameInterface {
     public GameInterface(Context context, GameRenderer3D renderer) {
         this.context = context;
 
+        // Engine code logs through utils.Log - make sure messages end up in logcat
+        com.sonicmax.bloodrogue.utils.Log.setSink(new AndroidLogSink());
+
+        this.assetSource = new AndroidAssetSource(context.getAssets());
+        this.saveManager = new SaveManager(context.getFilesDir());
+
         // Initialise game components. (note: order is important)
         this.narrationManager = new NarrationManager();
         this.timeManager = new TimeManager();
@@ -148,6 +161,11 @@ public class GameInterface {
         return context.getAssets();
     }
 
+    @Override
+    public AssetSource getAssetSource() {
+        return assetSource;
+    }
+
     public void startGame() {
         GameState state = loadState();
 
@@ -161,62 +179,120 @@ public class GameInterface {
         }
     }
 
+    // Saves written before SaveManager was added. These are migrated when loaded
+    private static final String BINARY_SAVE_FILENAME = "save_data.bin";
+    private static final String LEGACY_SAVE_FILENAME = "save_data.sav";
+
     /**
-     * Saves game state to disk. Currently the component classes are serializable, so we
-     * can just use an ObjectOutputStream to write the GameState to disk. Ideally we would be using
-     * something like protobuf instead.
+     * Saves game state to disk. Only floors that have changed since the last save are encoded,
+     * and files are written on a background thread (see SaveManager).
      */
 
+    @Override
     public void saveState(GameState state) {
-        String FILENAME = "save_data.sav";
+        saveManager.save(state);
+    }
+
+    public void saveState() {
+        saveState(gameEngine.getGameState());
+    }
+
+    /**
+     * Attempts to load saved state from disk and returns GameState object (if no exceptions were thrown).
+     * Falls back to saves written in older formats if SaveManager has no save - these will be
+     * migrated the next time the game is saved.
+     *
+     * @return GameState that was saved to disk
+     */
+
+    private GameState loadState() {
+        try {
+            if (saveManager.hasSave()) {
+                return saveManager.load();
+            }
+
+        } catch (SaveFormatException e) {
+            // Game starts over. Unreadable save stays on disk until the next save replaces its
+            // manifest, at which point its segments are deleted as unreferenced
+            Log.e(LOG_TAG, "Save data is corrupted or from newer version", e);
+            return null;
+
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Error while loading from disk", e);
+            return null;
+        }
+
+        GameState state = loadBinaryState();
+
+        if (state == null) {
+            state = loadLegacyState();
+        }
 
-        FileOutputStream fos = null;
-        ObjectOutputStream oos = null;
+        return state;
+    }
+
+    /**
+     * Loads save written to a single file using SaveCodec.encode().
+     */
+
+    private GameState loadBinaryState() {
+        File file = new File(context.getFilesDir(), BINARY_SAVE_FILENAME);
+
+        if (!file.exists()) {
+            return null;
+        }
+
+        FileInputStream fis = null;
 
         try {
-            File file = new File(context.getFilesDir(), FILENAME);
-            file.createNewFile();
-            fos = context.openFileOutput(FILENAME, Context.MODE_PRIVATE);
-            oos = new ObjectOutputStream(fos);
-            oos.writeObject(state);
+            byte[] data = new byte[(int) file.length()];
+            fis = context.openFileInput(BINARY_SAVE_FILENAME);
+
+            int read = 0;
+            while (read < data.length) {
+                int count = fis.read(data, read, data.length - read);
+                if (count < 0) break;
+                read += count;
+            }
+
+            GameState state = SaveCodec.decode(data);
+            saveManager.deleteAfterNextSave(file);
+            return state;
+
+        } catch (SaveFormatException e) {
+            Log.e(LOG_TAG, "Save data is corrupted or from newer version", e);
 
         } catch (IOException e) {
-            Log.e(LOG_TAG, "Error while writing to disk", e);
+            Log.e(LOG_TAG, "Error while loading from disk", e);
+
         } finally {
             try {
-                if (fos != null) {
-                    fos.close();
-                }
-                if (oos != null) {
-                    oos.close();
+                if (fis != null) {
+                    fis.close();
                 }
             } catch (IOException e) {
-                Log.e(LOG_TAG, "Error closing output streams", e);
+                Log.e(LOG_TAG, "Error closing input streams", e);
             }
         }
-    }
 
-    public void saveState() {
-        saveState(gameEngine.getGameState());
+        return null;
     }
 
     /**
-     * Attempts to load saved state from disk and returns GameState object (if no exceptions were thrown)
-     *
-     * @return GameState that was saved to disk
+     * Loads save written by older versions using ObjectOutputStream.
      */
 
-    private GameState loadState() {
+    private GameState loadLegacyState() {
         GameState state = null;
-        String FILENAME = "save_data.sav";
 
         FileInputStream fis = null;
         ObjectInputStream ois = null;
 
         try {
-            fis = context.openFileInput(FILENAME);
+            fis = context.openFileInput(LEGACY_SAVE_FILENAME);
             ois = new ObjectInputStream(fis);
             state = (GameState) ois.readObject();
+            saveManager.deleteAfterNextSave(new File(context.getFilesDir(), LEGACY_SAVE_FILENAME));
 
         } catch (FileNotFoundException notFound) {
             // We don't really have to do anything here apart from notify the user?
@@ -224,7 +300,7 @@ public class GameInterface {
 
         } catch (ClassNotFoundException e1) {
             Log.e(LOG_TAG, "Error while loading state", e1);
-            File file = new File(context.getFilesDir(), FILENAME);
+            File file = new File(context.getFilesDir(), LEGACY_SAVE_FILENAME);
             file.delete();
 
         } catch (IOException e2) {
@@ -233,7 +309,7 @@ public class GameInterface {
         } catch (IllegalArgumentException e3) {
             // Probably made a change to the GameState class without incrementing serialVersionUID.
             Log.e(LOG_TAG, "Error while loading state", e3);
-            File file = new File(context.getFilesDir(), FILENAME);
+            File file = new File(context.getFilesDir(), LEGACY_SAVE_FILENAME);
             file.delete();
 
         } finally {
@@ -478,18 +554,22 @@ public class GameInterface {
         return gameEngine.getEntityDetails(entity);
     }
 
+    @Override
     public void passDataToRenderer() {
         gameRenderer3D.setFrame(gameEngine.getCurrentFrameData());
     }
 
+    @Override
     public void setMoveLock(boolean value) {
         inputLock = value;
     }
 
+    @Override
     public void addNarration(String narration) {
         narrationManager.addToQueue(narration);
     }
 
+    @Override
     public void addNarration(String narration, float[] colour) {
         narrationManager.addToQueue(narration, colour);
     }
@@ -499,6 +579,7 @@ public class GameInterface {
         gameRenderer3D.queueNarrationUpdate(narrationManager.getTextObjects());
     }
 
+    @Override
     public void displayStatus(Position position, String message, float[] color) {
         /*Vector vector = new Vector(position.x, position.y);
         float[] coords = gameRenderer.getRenderCoordsForObject(vector, true);
@@ -506,6 +587,7 @@ public class GameInterface {
         gameRenderer3D.queueNewStatus(status);*/
     }
 
+    @Override
     public void startFloorChange() {
         // gameRenderer.fadeOutAndDisplaySplash();
         narrationManager.clearAll();
@@ -515,26 +597,35 @@ public class GameInterface {
         return gameRenderer.getVisibleChunk();
     }*/
 
+    @Override
     public void transitionToNewContent() {
         // gameRenderer.startNewFloor();
     }
 
     public void freeResources() {
         // gameRenderer.freeBuffers();
+
+        gameEngine.shutdown();
+
+        // Make sure any queued saves have been written before we let go of the writer thread
+        saveManager.shutdown();
     }
 
     public void haltAudio() {
         audioPlayer.stopAndReleaseResources();
     }
 
+    @Override
     public void triggerSoundEffect(String fx) {
         audioPlayer.playSound(fx);
     }
 
+    @Override
     public TimeManager getTimeManager() {
         return timeManager;
     }
 
+    @Override
     public WeatherManager getWeatherManager() {
         return weatherManager;
     }
@@ -0,0 +1,23 @@
+package com.sonicmax.bloodrogue.data;
+
+import android.content.res.AssetManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ *  Reads assets from the APK using AssetManager.
+ */
+
+public class AndroidAssetSource implements AssetSource {
+    private final AssetManager assetManager;
+
+    public AndroidAssetSource(AssetManager assetManager) {
+        this.assetManager = assetManager;
+    }
+
+    @Override
+    public InputStream open(String path) throws IOException {
+        return assetManager.open(path);
+    }
+}
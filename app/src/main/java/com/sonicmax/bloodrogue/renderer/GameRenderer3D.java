@@ -40,6 +40,7 @@ import com.sonicmax.bloodrogue.renderer.text.TextObject;
 import com.sonicmax.bloodrogue.renderer.textures.UvHelper;
 import com.sonicmax.bloodrogue.tilesets.ExteriorTileset;
 import com.sonicmax.bloodrogue.ui.UserInterfaceController;
+import com.sonicmax.bloodrogue.utils.collections.TileStack;
 import com.sonicmax.bloodrogue.utils.maths.RandomNumberGenerator;
 
 public class GameRenderer3D implements GLSurfaceView.Renderer {
@@ -207,6 +208,9 @@ public class GameRenderer3D implements GLSurfaceView.Renderer {
 
     private boolean renderDataReady;
 
+    // Map revision that geometry was last generated for (see Frame.mapRevision)
+    private int renderedMapRevision;
+
     private int timeInMinutes;
 
     public GameRenderer3D(GameSurfaceView gameSurfaceView, Context context) {
@@ -1252,6 +1256,8 @@ public class GameRenderer3D implements GLSurfaceView.Renderer {
     */
 
     private void generateRendererData() {
+        renderedMapRevision = currentFloorData.mapRevision;
+        TileStack<Sprite> objectGrid = currentFloorData.getObjects();
         entityBufferIndices = new HashMap<>();
         terrainCount = 0;
         cubeCount = 0;
@@ -1271,7 +1277,8 @@ public class GameRenderer3D implements GLSurfaceView.Renderer {
                         terrainCount++;
                     }
 
-                    for (Sprite object : currentFloorData.getObjects()[gridX][gridY]) {
+                    for (int node = objectGrid.first(gridX, gridY); node != TileStack.NONE; node = objectGrid.next(node)) {
+                        Sprite object = objectGrid.get(node);
                         if (object.wrapToCube) {
                             cubeCount++;
                         }
@@ -1386,7 +1393,8 @@ public class GameRenderer3D implements GLSurfaceView.Renderer {
                         terrainUvDataOffset += thisSpriteUvData.length;
                     }
 
-                    for (Sprite object : currentFloorData.getObjects()[gridX][gridY]) {
+                    for (int node = objectGrid.first(gridX, gridY); node != TileStack.NONE; node = objectGrid.next(node)) {
+                        Sprite object = objectGrid.get(node);
                         z = (object.zLayer * worldGridSize) + elevation;
 
                         if (object.wrapToCube) {
@@ -2376,6 +2384,11 @@ public class GameRenderer3D implements GLSurfaceView.Renderer {
 
         camera.setLookAt(playerWorldPos);
 
+        if (renderDataReady && floorData.mapRevision != renderedMapRevision) {
+            // Map grids were rebuilt (eg. streamed exterior moved), so geometry is out of date
+            renderDataReady = false;
+        }
+
         if (!renderDataReady) {
             singleThreadedExecutor.submit(new Runnable() {
                 @Override
@@ -2410,6 +2423,7 @@ public class GameRenderer3D implements GLSurfaceView.Renderer {
 
     private void updateSpritePositions() {
         // Todo: would be much better if we specified which objects needed to be updated in engine
+        TileStack<Sprite> objectGrid = currentFloorData.getObjects();
 
         for (int gridX = 0; gridX < visibleGridWidth; gridX++) {
             for (int gridY = 0; gridY < visibleGridHeight; gridY++) {
@@ -2425,7 +2439,8 @@ public class GameRenderer3D implements GLSurfaceView.Renderer {
                 float elevation = worldGridSize * (averageHeight * 8);
 
                 // Iterate over objects and find any which need updating
-                for (Sprite object : currentFloorData.getObjects()[gridX][gridY]) {
+                for (int node = objectGrid.first(gridX, gridY); node != TileStack.NONE; node = objectGrid.next(node)) {
+                    Sprite object = objectGrid.get(node);
                     if (!object.dirty) continue;
 
                     object.dirty = false;
@@ -2476,6 +2491,10 @@ public class GameRenderer3D implements GLSurfaceView.Renderer {
         String cameraPos = ((int) cameraPosInModelSpace[0]) + ", " + ((int) cameraPosInModelSpace[1]) + ", " + ((int) cameraPosInModelSpace[2]);
         String fps = fpsCount + " fps";
 
+        if (currentFloorData != null) {
+            fps += String.format(" (fov %.2fms)", currentFloorData.fovTime);
+        }
+
         uiController.setUiText(hp, worldState, cameraPos, fps);
     }
 
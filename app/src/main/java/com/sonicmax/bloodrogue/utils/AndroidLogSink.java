@@ -0,0 +1,17 @@
+package com.sonicmax.bloodrogue.utils;
+
+/**
+ *  Forwards messages from engine code to android.util.Log so that they show up in logcat.
+ */
+
+public class AndroidLogSink implements LogSink {
+
+    @Override
+    public void log(int priority, String tag, String message, Throwable throwable) {
+        if (throwable != null) {
+            message = message + '\n' + android.util.Log.getStackTraceString(throwable);
+        }
+
+        android.util.Log.println(priority, tag, message);
+    }
+}
@@ -0,0 +1,312 @@
+package com.sonicmax.bloodrogue.benchmarks;
+
+import com.sonicmax.bloodrogue.engine.ComponentManager;
+import com.sonicmax.bloodrogue.engine.ComponentQuery;
+import com.sonicmax.bloodrogue.engine.ComponentTypes;
+import com.sonicmax.bloodrogue.engine.GameEngine;
+import com.sonicmax.bloodrogue.engine.collisions.TileFlags;
+import com.sonicmax.bloodrogue.engine.components.AI;
+import com.sonicmax.bloodrogue.engine.components.Barrier;
+import com.sonicmax.bloodrogue.engine.components.Portal;
+import com.sonicmax.bloodrogue.engine.components.Position;
+import com.sonicmax.bloodrogue.utils.maths.Vector2D;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ *  Scripted player for soak runs. Each turn it picks a single step for the player:
+ *
+ *  1. Attack any enemy standing next to the player
+ *  2. Otherwise, until minTurnsPerFloor have been taken, walk to nearby items or wander between
+ *     random reachable tiles
+ *  3. After that, walk to the stairs leading down (bumping into closed doors opens them)
+ *
+ *  Paths come from a breadth-first search over TileFlags, so the bot only needs the same data the
+ *  engine uses for collisions. Tiles which the player repeatedly fails to enter are avoided for the
+ *  rest of the floor.
+ */
+
+public class AutoplayBot {
+    private static final int ITEM_RANGE = 12;
+    private static final int MAX_FAILED_STEPS = 3;
+
+    // What bot knows about each tile this turn
+    private static final byte EMPTY = 0;
+    private static final byte ENEMY = 1;
+    private static final byte DOOR = 2;
+    private static final byte ITEM = 3;
+    private static final byte EXIT = 4;
+    private static final byte STAIRS_UP = 5;
+
+    private static final int[] DX = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final int[] DY = {-1, -1, -1, 0, 0, 1, 1, 1};
+
+    private final GameEngine engine;
+    private final Random random;
+    private final int minTurnsPerFloor;
+
+    private int width;
+    private int height;
+    private byte[] tiles;
+    private boolean[] itemsVisited;
+    private int[] failedSteps;
+
+    // BFS state. Distance of -1 means tile wasn't reached
+    private int[] distance;
+    private int[] parent;
+    private int[] queue;
+    private int reachedCount;
+
+    private int floorTurns;
+    private int waypoint;
+    private int lastPosition;
+    private int lastStep;
+
+    private int attacks;
+    private int itemsCollected;
+
+    public AutoplayBot(GameEngine engine, long seed, int minTurnsPerFloor) {
+        this.engine = engine;
+        this.random = new Random(seed);
+        this.minTurnsPerFloor = minTurnsPerFloor;
+        onFloorChanged();
+    }
+
+    /**
+     * Resets everything bot learned about previous floor. Call after player changes floor.
+     */
+
+    public void onFloorChanged() {
+        int[] mapSize = engine.getMapSize();
+
+        if (tiles == null || width != mapSize[0] || height != mapSize[1]) {
+            width = mapSize[0];
+            height = mapSize[1];
+            tiles = new byte[width * height];
+            itemsVisited = new boolean[width * height];
+            failedSteps = new int[width * height];
+            distance = new int[width * height];
+            parent = new int[width * height];
+            queue = new int[width * height];
+        }
+        else {
+            Arrays.fill(itemsVisited, false);
+            Arrays.fill(failedSteps, 0);
+        }
+
+        floorTurns = 0;
+        waypoint = -1;
+        lastPosition = -1;
+        lastStep = -1;
+    }
+
+    public int getFloorTurns() {
+        return floorTurns;
+    }
+
+    public int getAttacks() {
+        return attacks;
+    }
+
+    public int getItemsCollected() {
+        return itemsCollected;
+    }
+
+    /**
+     * Picks next move for player. Returned tile is always adjacent to player, or is the player's
+     * own tile if there is nothing useful to do (which passes the turn).
+     */
+
+    public Vector2D chooseMove() {
+        Vector2D player = engine.getPlayerVector();
+        int start = player.y * width + player.x;
+
+        floorTurns++;
+
+        // If last step didn't move player, count it as failed so that we stop walking into it
+        if (start == lastPosition && lastStep != -1 && tiles[lastStep] != ENEMY) {
+            failedSteps[lastStep]++;
+        }
+
+        scanEntities();
+
+        if (tiles[start] == ITEM && !itemsVisited[start]) {
+            itemsVisited[start] = true;
+            itemsCollected++;
+        }
+
+        int step = findAdjacentEnemy(player.x, player.y);
+
+        if (step != -1) {
+            attacks++;
+        }
+        else {
+            search(start);
+            step = firstStep(start, chooseTarget(start));
+        }
+
+        lastPosition = start;
+        lastStep = (step == start) ? -1 : step;
+
+        return new Vector2D(step % width, step / width);
+    }
+
+    /*
+    ---------------------------------------------
+     World scanning
+    ---------------------------------------------
+    */
+
+    private void scanEntities() {
+        ComponentManager componentManager = engine.getWorld().getComponentManager();
+        long playerEntity = engine.getPlayer()[0].id;
+        int nextFloor = engine.getCurrentFloorIndex() + 1;
+
+        Arrays.fill(tiles, EMPTY);
+
+        ComponentQuery items = componentManager.query(ComponentTypes.COLLECTABLE, ComponentTypes.POSITION);
+        for (int i = 0; i < items.size(); i++) {
+            mark((Position) items.get(i, ComponentTypes.POSITION), ITEM);
+        }
+
+        ComponentQuery doors = componentManager.query(ComponentTypes.BARRIER, ComponentTypes.POSITION);
+        for (int i = 0; i < doors.size(); i++) {
+            if (!((Barrier) doors.get(i, ComponentTypes.BARRIER)).open) {
+                mark((Position) doors.get(i, ComponentTypes.POSITION), DOOR);
+            }
+        }
+
+        ComponentQuery portals = componentManager.query(ComponentTypes.PORTAL, ComponentTypes.POSITION);
+        for (int i = 0; i < portals.size(); i++) {
+            byte type = (((Portal) portals.get(i, ComponentTypes.PORTAL)).destFloor == nextFloor) ? EXIT : STAIRS_UP;
+            mark((Position) portals.get(i, ComponentTypes.POSITION), type);
+        }
+
+        ComponentQuery actors = componentManager.query(ComponentTypes.AI, ComponentTypes.POSITION, ComponentTypes.VITALITY);
+        for (int i = 0; i < actors.size(); i++) {
+            AI ai = (AI) actors.get(i, ComponentTypes.AI);
+
+            if (actors.getEntity(i) != playerEntity && ai.computerControlled) {
+                mark((Position) actors.get(i, ComponentTypes.POSITION), ENEMY);
+            }
+        }
+    }
+
+    private void mark(Position position, byte type) {
+        if (position.x >= 0 && position.x < width && position.y >= 0 && position.y < height) {
+            tiles[position.y * width + position.x] = type;
+        }
+    }
+
+    private int findAdjacentEnemy(int x, int y) {
+        for (int i = 0; i < DX.length; i++) {
+            int nx = x + DX[i];
+            int ny = y + DY[i];
+
+            if (nx >= 0 && nx < width && ny >= 0 && ny < height && tiles[ny * width + nx] == ENEMY) {
+                return ny * width + nx;
+            }
+        }
+
+        return -1;
+    }
+
+    /*
+    ---------------------------------------------
+     Pathing
+    ---------------------------------------------
+    */
+
+    private boolean canEnter(TileFlags tileFlags, int tile) {
+        if (failedSteps[tile] >= MAX_FAILED_STEPS) return false;
+
+        // Doors open and enemies are attacked when player bumps into them. Stairs up are avoided, as
+        // stepping on them would take player back to previous floor
+        byte type = tiles[tile];
+        if (type == STAIRS_UP) return false;
+
+        return type == DOOR || type == ENEMY || !tileFlags.blocksMovement(tile % width, tile / width);
+    }
+
+    private void search(int start) {
+        TileFlags tileFlags = engine.getTileFlags();
+        Arrays.fill(distance, -1);
+
+        int head = 0;
+        int tail = 0;
+
+        distance[start] = 0;
+        parent[start] = start;
+        queue[tail++] = start;
+
+        while (head < tail) {
+            int tile = queue[head++];
+            int x = tile % width;
+            int y = tile / width;
+
+            for (int i = 0; i < DX.length; i++) {
+                int nx = x + DX[i];
+                int ny = y + DY[i];
+
+                if (nx < 0 || nx >= width || ny < 0 || ny >= height) continue;
+
+                int next = ny * width + nx;
+
+                if (distance[next] == -1 && canEnter(tileFlags, next)) {
+                    distance[next] = distance[tile] + 1;
+                    parent[next] = tile;
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        reachedCount = tail;
+    }
+
+    private int chooseTarget(int start) {
+        boolean exploring = floorTurns < minTurnsPerFloor;
+
+        if (!exploring) {
+            int exit = findNearest(EXIT, Integer.MAX_VALUE);
+            if (exit != -1) return exit;
+        }
+
+        int item = findNearest(ITEM, ITEM_RANGE);
+        if (item != -1) return item;
+
+        // Wander between random reachable tiles
+        if (waypoint == -1 || waypoint == start || distance[waypoint] == -1) {
+            waypoint = (reachedCount > 1) ? queue[1 + random.nextInt(reachedCount - 1)] : start;
+        }
+
+        return waypoint;
+    }
+
+    private int findNearest(byte type, int maxDistance) {
+        // Queue holds reached tiles in order of distance, so first match is nearest
+        for (int i = 0; i < reachedCount; i++) {
+            int tile = queue[i];
+
+            if (distance[tile] > maxDistance) break;
+
+            if (tiles[tile] == type && !(type == ITEM && itemsVisited[tile])) {
+                return tile;
+            }
+        }
+
+        return -1;
+    }
+
+    private int firstStep(int start, int target) {
+        if (target == start || distance[target] == -1) return start;
+
+        int tile = target;
+
+        while (parent[tile] != start) {
+            tile = parent[tile];
+        }
+
+        return tile;
+    }
+}
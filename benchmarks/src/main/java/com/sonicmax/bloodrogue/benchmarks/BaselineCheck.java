@@ -0,0 +1,163 @@
+package com.sonicmax.bloodrogue.benchmarks;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ *  Compares JMH results (written with -rf json) against the checked-in baseline, and exits with
+ *  status 1 if any benchmark got slower or allocates more than the tolerance allows.
+ *
+ *  Usage: BaselineCheck baseline.json results.json [time tolerance] [allocation tolerance]
+ *  Tolerances are fractions, eg. 0.15 allows benchmarks to be up to 15% slower than baseline.
+ */
+
+public class BaselineCheck {
+    private static final double DEFAULT_TIME_TOLERANCE = 0.15;
+    private static final double DEFAULT_ALLOCATION_TOLERANCE = 0.10;
+
+    // Allocation differences smaller than this are ignored, so that near-zero baselines don't fail
+    // on profiler noise
+    private static final double MIN_ALLOCATION_DIFFERENCE = 16;
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineCheck <baseline.json> <results.json> [time tolerance] [allocation tolerance]");
+            System.exit(2);
+        }
+
+        double timeTolerance = (args.length > 2) ? Double.parseDouble(args[2]) : DEFAULT_TIME_TOLERANCE;
+        double allocationTolerance = (args.length > 3) ? Double.parseDouble(args[3]) : DEFAULT_ALLOCATION_TOLERANCE;
+
+        HashMap<String, Result> baseline = load(new File(args[0]));
+        HashMap<String, Result> results = load(new File(args[1]));
+
+        ArrayList<String> keys = new ArrayList<>(results.keySet());
+        Collections.sort(keys);
+
+        int regressions = 0;
+
+        System.out.println(String.format(Locale.US, "%-70s %14s %14s %8s %12s %12s %8s",
+                "Benchmark", "Baseline", "Result", "Change", "Base B/op", "B/op", "Change"));
+
+        for (String key : keys) {
+            Result result = results.get(key);
+            Result base = baseline.get(key);
+
+            if (base == null) {
+                System.out.println(String.format(Locale.US, "%-70s %14s %14s", key, "-", format(result.score, result.unit)));
+                continue;
+            }
+
+            if (!base.unit.equals(result.unit)) {
+                System.out.println(key + ": units differ (" + base.unit + " vs " + result.unit + "), skipping");
+                continue;
+            }
+
+            double timeChange = change(base.score, result.score);
+            double allocationChange = change(base.allocation, result.allocation);
+
+            boolean slower = timeChange > timeTolerance;
+            boolean allocates = allocationChange > allocationTolerance
+                    && result.allocation - base.allocation > MIN_ALLOCATION_DIFFERENCE;
+
+            if (slower || allocates) {
+                regressions++;
+            }
+
+            System.out.println(String.format(Locale.US, "%-70s %14s %14s %+7.1f%%%s %12.0f %12.0f %+7.1f%%%s",
+                    key, format(base.score, base.unit), format(result.score, result.unit),
+                    timeChange * 100, slower ? "!" : " ",
+                    base.allocation, result.allocation,
+                    allocationChange * 100, allocates ? "!" : " "));
+        }
+
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmark(s) regressed against baseline");
+            System.exit(1);
+        }
+
+        System.out.println("No regressions against baseline");
+    }
+
+    private static double change(double base, double result) {
+        if (base == 0) return (result == 0) ? 0 : Double.POSITIVE_INFINITY;
+        return (result - base) / base;
+    }
+
+    private static String format(double score, String unit) {
+        return String.format(Locale.US, "%.3f %s", score, unit);
+    }
+
+    private static HashMap<String, Result> load(File file) throws IOException {
+        String json = new String(Files.readAllBytes(file.toPath()), Charset.forName("UTF-8"));
+        JSONArray runs = new JSONArray(json);
+        HashMap<String, Result> results = new HashMap<>();
+
+        for (int i = 0; i < runs.length(); i++) {
+            JSONObject run = runs.getJSONObject(i);
+            JSONObject primary = run.getJSONObject("primaryMetric");
+
+            Result result = new Result();
+            result.score = primary.getDouble("score");
+            result.unit = primary.getString("scoreUnit");
+
+            JSONObject secondary = run.optJSONObject("secondaryMetrics");
+
+            if (secondary != null) {
+                Iterator<String> metrics = secondary.keys();
+
+                while (metrics.hasNext()) {
+                    String metric = metrics.next();
+
+                    if (metric.endsWith(ALLOCATION_METRIC)) {
+                        result.allocation = secondary.getJSONObject(metric).getDouble("score");
+                    }
+                }
+            }
+
+            results.put(getKey(run), result);
+        }
+
+        return results;
+    }
+
+    /**
+     * Returns short benchmark name with parameters, eg. "GameTurnBenchmark.advanceFrame:actors=200"
+     */
+
+    private static String getKey(JSONObject run) {
+        String name = run.getString("benchmark");
+        StringBuilder key = new StringBuilder(name.substring(name.lastIndexOf('.', name.lastIndexOf('.') - 1) + 1));
+
+        JSONObject params = run.optJSONObject("params");
+
+        if (params != null) {
+            ArrayList<String> names = new ArrayList<>(params.keySet());
+            Collections.sort(names);
+
+            for (String param : names) {
+                key.append(':').append(param).append('=').append(params.getString(param));
+            }
+        }
+
+        return key.toString();
+    }
+
+    private static class Result {
+        double score;
+        String unit;
+        double allocation;
+    }
+}
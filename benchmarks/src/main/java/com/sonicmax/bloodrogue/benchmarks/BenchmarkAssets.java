@@ -0,0 +1,82 @@
+package com.sonicmax.bloodrogue.benchmarks;
+
+import com.sonicmax.bloodrogue.data.AssetSource;
+import com.sonicmax.bloodrogue.data.FileAssetSource;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ *  Locates the app's assets folder so that benchmarks can load blueprints without Android. Uses the
+ *  bloodrogue.assets system property if set, otherwise looks for app/src/main/assets relative to
+ *  the working directory.
+ */
+
+public class BenchmarkAssets {
+    private static final String ASSETS_PROPERTY = "bloodrogue.assets";
+    private static final String[] SEARCH_PATHS = {"app/src/main/assets", "../app/src/main/assets"};
+
+    private static File assetsDir;
+    private static HashMap<String, Integer> spriteIndexes;
+
+    public static synchronized File getAssetsDir() {
+        if (assetsDir == null) {
+            assetsDir = findAssetsDir();
+        }
+
+        return assetsDir;
+    }
+
+    public static AssetSource getAssetSource() {
+        return new FileAssetSource(getAssetsDir());
+    }
+
+    /**
+     * Builds same sprite indexes as TextureLoader: sprite sheet is ordered alphabetically, so each
+     * sprite's index is its position in the sorted list of files.
+     */
+
+    public static synchronized HashMap<String, Integer> getSpriteIndexes() {
+        if (spriteIndexes == null) {
+            String[] sprites = new File(getAssetsDir(), "sprites").list();
+
+            if (sprites == null) {
+                throw new Error("No sprites found in " + getAssetsDir());
+            }
+
+            Arrays.sort(sprites);
+            spriteIndexes = new HashMap<>();
+
+            for (int i = 0; i < sprites.length; i++) {
+                spriteIndexes.put("sprites/" + sprites[i], i);
+            }
+        }
+
+        return spriteIndexes;
+    }
+
+    private static File findAssetsDir() {
+        String path = System.getProperty(ASSETS_PROPERTY);
+
+        if (path != null) {
+            File dir = new File(path);
+
+            if (!dir.isDirectory()) {
+                throw new Error(ASSETS_PROPERTY + " is not a directory: " + path);
+            }
+
+            return dir;
+        }
+
+        for (String searchPath : SEARCH_PATHS) {
+            File dir = new File(searchPath);
+
+            if (dir.isDirectory()) {
+                return dir;
+            }
+        }
+
+        throw new Error("Couldn't find assets folder. Set -D" + ASSETS_PROPERTY + "=<path to app/src/main/assets>");
+    }
+}
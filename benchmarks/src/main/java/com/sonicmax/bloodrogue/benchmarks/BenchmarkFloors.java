@@ -0,0 +1,224 @@
+package com.sonicmax.bloodrogue.benchmarks;
+
+import com.sonicmax.bloodrogue.data.BlueprintParser;
+import com.sonicmax.bloodrogue.data.JSONLoader;
+import com.sonicmax.bloodrogue.engine.Component;
+import com.sonicmax.bloodrogue.engine.FloorData;
+import com.sonicmax.bloodrogue.engine.GameState;
+import com.sonicmax.bloodrogue.engine.ai.EnemyState;
+import com.sonicmax.bloodrogue.engine.collisions.TileFlags;
+import com.sonicmax.bloodrogue.engine.components.AI;
+import com.sonicmax.bloodrogue.engine.components.Position;
+import com.sonicmax.bloodrogue.engine.components.Vitality;
+import com.sonicmax.bloodrogue.generator.MapData;
+import com.sonicmax.bloodrogue.generator.ProceduralGenerator;
+import com.sonicmax.bloodrogue.generator.enemies.EnemyBlueprintKeys;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ *  Helpers for generating and populating floors used by benchmarks. Everything is seeded, so each
+ *  run benchmarks the same floors.
+ */
+
+public class BenchmarkFloors {
+    public static final long SEED = 42L;
+    public static final int MAP_SIZE = 128;
+
+    public static int parseType(String name) {
+        switch (name) {
+            case "DUNGEON":
+                return ProceduralGenerator.DUNGEON;
+
+            case "RUINS":
+                return ProceduralGenerator.RUINS;
+
+            case "MANSION":
+                return ProceduralGenerator.MANSION;
+
+            case "EXTERIOR":
+                return ProceduralGenerator.EXTERIOR;
+
+            default:
+                throw new Error("Undefined map type: " + name);
+        }
+    }
+
+    public static ProceduralGenerator createGenerator(int floor) {
+        ProceduralGenerator generator = new ProceduralGenerator(MAP_SIZE, MAP_SIZE, BenchmarkAssets.getAssetSource());
+        generator.setFloor(floor);
+        generator.setSeed(SEED);
+        generator.setSpriteIndexes(BenchmarkAssets.getSpriteIndexes());
+        return generator;
+    }
+
+    public static ProceduralGenerator generate(int type) {
+        ProceduralGenerator generator = createGenerator(1);
+        generator.generate(type);
+        return generator;
+    }
+
+    /**
+     * Builds tile flags for generated floor, the same way GameEngine does when floor is entered.
+     */
+
+    public static TileFlags buildTileFlags(ProceduralGenerator generator) {
+        MapData mapData = generator.getMapData();
+        TileFlags tileFlags = new TileFlags(generator.getWorld().getComponentManager(), MAP_SIZE, MAP_SIZE);
+        tileFlags.build(mapData.getTerrainEntities(), mapData.getObjectEntities(),
+                generator.getIndoorRegions(), generator.getWaterRegions());
+
+        return tileFlags;
+    }
+
+    /**
+     * Picks random walkable tiles from floor.
+     *
+     * @return Array of tile indexes (y * width + x)
+     */
+
+    public static int[] getOpenTiles(TileFlags tileFlags, int count) {
+        int width = tileFlags.getWidth();
+        int height = tileFlags.getHeight();
+        int[] open = new int[width * height];
+        int openCount = 0;
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (!tileFlags.blocksMovement(x, y)) {
+                    open[openCount++] = y * width + x;
+                }
+            }
+        }
+
+        if (openCount == 0) {
+            throw new Error("Floor has no walkable tiles");
+        }
+
+        Random random = new Random(SEED);
+        int[] tiles = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            tiles[i] = open[random.nextInt(openCount)];
+        }
+
+        return tiles;
+    }
+
+    /**
+     * Replaces computer-controlled actors on current floor with given number of seeking enemies,
+     * placed on the empty tiles closest to the player. Player is made immortal so that turns can be
+     * repeated without the game ending.
+     */
+
+    public static void populateCurrentFloor(GameState state, int actorCount) {
+        FloorData floor = state.getCurrentFloor();
+        ArrayList<Component[]>[][] objects = floor.getObjects();
+        Component[] player = state.getPlayer();
+        long playerEntity = player[0].id;
+        Position playerPosition = null;
+
+        makePlayerImmortal(player);
+
+        for (Component component : player) {
+            if (component instanceof Position) {
+                playerPosition = (Position) component;
+            }
+        }
+
+        if (playerPosition == null) {
+            throw new Error("Player entity didn't have position component");
+        }
+
+        int width = objects.length;
+        int height = objects[0].length;
+
+        // Remove actors placed by generator, so that actor count is exactly what was asked for
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                Iterator<Component[]> it = objects[x][y].iterator();
+
+                while (it.hasNext()) {
+                    Component[] object = it.next();
+
+                    if (object[0].id != playerEntity && findAI(object) != null) {
+                        it.remove();
+                    }
+                }
+            }
+        }
+
+        // Sort empty tiles by distance from player. Packing distance into the high bits keeps
+        // the order stable for tiles at same distance.
+        long[] candidates = new long[width * height];
+        int candidateCount = 0;
+
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (!objects[x][y].isEmpty()) continue;
+
+                long dx = x - playerPosition.x;
+                long dy = y - playerPosition.y;
+                candidates[candidateCount++] = ((dx * dx + dy * dy) << 32) | (y * width + x);
+            }
+        }
+
+        if (candidateCount < actorCount) {
+            throw new Error("Not enough space for " + actorCount + " actors");
+        }
+
+        Arrays.sort(candidates, 0, candidateCount);
+
+        JSONObject enemyBlueprints = JSONLoader.loadEnemies(BenchmarkAssets.getAssetSource());
+
+        for (int i = 0; i < actorCount; i++) {
+            int tile = (int) candidates[i];
+            int x = tile % width;
+            int y = tile / width;
+
+            Component[] enemy = BlueprintParser.getComponentArrayForBlueprint(enemyBlueprints, EnemyBlueprintKeys.GOAT);
+
+            for (Component component : enemy) {
+                if (component instanceof Position) {
+                    ((Position) component).x = x;
+                    ((Position) component).y = y;
+                }
+                else if (component instanceof AI) {
+                    ((AI) component).state = EnemyState.SEEKING;
+                }
+            }
+
+            objects[x][y].add(enemy);
+        }
+    }
+
+    /**
+     * Gives player enough hp that it can't realistically be killed, so runs aren't cut short by
+     * the game ending.
+     */
+
+    public static void makePlayerImmortal(Component[] player) {
+        for (Component component : player) {
+            if (component instanceof Vitality) {
+                Vitality vitality = (Vitality) component;
+                vitality.maxHp = Integer.MAX_VALUE / 2;
+                vitality.hp = vitality.maxHp;
+            }
+        }
+    }
+
+    private static AI findAI(Component[] object) {
+        for (Component component : object) {
+            if (component instanceof AI) {
+                return (AI) component;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,84 @@
+package com.sonicmax.bloodrogue.benchmarks;
+
+import com.sonicmax.bloodrogue.engine.Component;
+import com.sonicmax.bloodrogue.engine.ComponentManager;
+import com.sonicmax.bloodrogue.engine.ComponentTypes;
+import com.sonicmax.bloodrogue.engine.components.Physics;
+import com.sonicmax.bloodrogue.engine.components.Position;
+import com.sonicmax.bloodrogue.generator.ProceduralGenerator;
+import com.sonicmax.bloodrogue.utils.collections.TileOccupancy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Cost of looking up Physics and Position for every object on a 128x128 exterior floor (roughly
+ *  what rebuilding tile flags costs each turn). hashMapBaseline does the same lookups using one
+ *  HashMap<Long, Component> per type, which is how ComponentManager used to store components.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ComponentLookupBenchmark {
+    private ComponentManager componentManager;
+    private long[] entities;
+    private HashMap<Long, Component> physicsMap;
+    private HashMap<Long, Component> positionMap;
+
+    @Setup(Level.Trial)
+    public void generateFloor() {
+        ProceduralGenerator generator = BenchmarkFloors.generate(ProceduralGenerator.EXTERIOR);
+        TileOccupancy objectEntities = generator.getMapData().getObjectEntities();
+        componentManager = generator.getWorld().getComponentManager();
+
+        int size = BenchmarkFloors.MAP_SIZE;
+        entities = new long[objectEntities.size()];
+        objectEntities.exportTo(entities, new int[size * size]);
+
+        physicsMap = new HashMap<>();
+        positionMap = new HashMap<>();
+
+        for (long entity : entities) {
+            physicsMap.put(entity, componentManager.getEntityComponent(entity, ComponentTypes.PHYSICS));
+            positionMap.put(entity, componentManager.getEntityComponent(entity, ComponentTypes.POSITION));
+        }
+    }
+
+    @Benchmark
+    public int componentStore() {
+        int blocking = 0;
+
+        for (long entity : entities) {
+            Physics physics = (Physics) componentManager.getEntityComponent(entity, ComponentTypes.PHYSICS);
+            Position position = (Position) componentManager.getEntityComponent(entity, ComponentTypes.POSITION);
+
+            if (physics != null && position != null && !physics.isTraversable) blocking++;
+        }
+
+        return blocking;
+    }
+
+    @Benchmark
+    public int hashMapBaseline() {
+        int blocking = 0;
+
+        for (long entity : entities) {
+            Physics physics = (Physics) physicsMap.get(entity);
+            Position position = (Position) positionMap.get(entity);
+
+            if (physics != null && position != null && !physics.isTraversable) blocking++;
+        }
+
+        return blocking;
+    }
+}
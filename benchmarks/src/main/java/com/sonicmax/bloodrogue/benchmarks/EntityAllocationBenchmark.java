@@ -0,0 +1,45 @@
+package com.sonicmax.bloodrogue.benchmarks;
+
+import com.sonicmax.bloodrogue.engine.EntityAllocator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Cost of creating an entity id. Allocated ids are freed again straight away, so that allocator
+ *  works from its free list rather than growing for the whole run. uuidBaseline is how Entity
+ *  used to create ids.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EntityAllocationBenchmark {
+    private EntityAllocator allocator;
+
+    @Setup(Level.Iteration)
+    public void createAllocator() {
+        allocator = new EntityAllocator();
+    }
+
+    @Benchmark
+    public long entityAllocator() {
+        long entity = allocator.allocate();
+        allocator.free(entity);
+        return entity;
+    }
+
+    @Benchmark
+    public long uuidBaseline() {
+        return UUID.randomUUID().getMostSignificantBits() & Long.MAX_VALUE;
+    }
+}
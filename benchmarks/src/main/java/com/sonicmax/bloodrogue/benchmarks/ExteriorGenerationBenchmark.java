@@ -0,0 +1,50 @@
+package com.sonicmax.bloodrogue.benchmarks;
+
+import com.sonicmax.bloodrogue.generator.ProceduralGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Exterior floor generation with different numbers of chunk planning threads. Floors are identical
+ *  for every worker count, so only the time should change.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ExteriorGenerationBenchmark {
+
+    @Param({"1", "4"})
+    public int workers;
+
+    private ProceduralGenerator generator;
+
+    @Setup(Level.Invocation)
+    public void createGenerator() {
+        generator = BenchmarkFloors.createGenerator(1);
+        generator.setWorkerCount(workers);
+    }
+
+    @TearDown(Level.Invocation)
+    public void discardFloor() {
+        // Return entity ids to live world, otherwise every call allocates a fresh block
+        generator.getWorld().discard();
+    }
+
+    @Benchmark
+    public ProceduralGenerator generate() {
+        generator.generate(ProceduralGenerator.EXTERIOR);
+        return generator;
+    }
+}
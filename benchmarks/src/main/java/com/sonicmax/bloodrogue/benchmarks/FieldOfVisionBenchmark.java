@@ -0,0 +1,58 @@
+package com.sonicmax.bloodrogue.benchmarks;
+
+import com.sonicmax.bloodrogue.engine.collisions.FieldOfVisionCalculator;
+import com.sonicmax.bloodrogue.engine.collisions.TileFlags;
+import com.sonicmax.bloodrogue.generator.ProceduralGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Player field of vision (FieldOfVisionCalculator.calculate) at several radii. Origin moves to a
+ *  different tile on each call, as calculator skips recasting when nothing has changed.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FieldOfVisionBenchmark {
+    private static final int ORIGIN_COUNT = 1024;
+
+    @Param({"MANSION", "EXTERIOR"})
+    public String floorType;
+
+    @Param({"5", "10", "15", "20"})
+    public int radius;
+
+    private FieldOfVisionCalculator calculator;
+    private TileFlags tileFlags;
+    private int[] origins;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void generateFloor() {
+        ProceduralGenerator generator = BenchmarkFloors.generate(BenchmarkFloors.parseType(floorType));
+        tileFlags = BenchmarkFloors.buildTileFlags(generator);
+        origins = BenchmarkFloors.getOpenTiles(tileFlags, ORIGIN_COUNT);
+        calculator = new FieldOfVisionCalculator();
+        next = 0;
+    }
+
+    @Benchmark
+    public float[] calculate() {
+        int tile = origins[next];
+        next = (next + 1) % ORIGIN_COUNT;
+
+        calculator.setValues(tileFlags, tile % tileFlags.getWidth(), tile / tileFlags.getWidth(), radius);
+        return calculator.calculate();
+    }
+}
@@ -0,0 +1,59 @@
+package com.sonicmax.bloodrogue.benchmarks;
+
+import com.sonicmax.bloodrogue.generator.ProceduralGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Full floor generation (ProceduralGenerator.generate). Generators are created outside the measured
+ *  call, as constructor is mostly spent loading blueprints. Same seed is used for every call, so
+ *  each call generates an identical floor.
+ *
+ *  Note that DUNGEON only places rooms at the moment - its room and corridor carving is disabled, so
+ *  it's mostly a measure of room placement and goal calculation.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FloorGenerationBenchmark {
+
+    @Param({"DUNGEON", "MANSION", "RUINS", "EXTERIOR"})
+    public String floorType;
+
+    private int type;
+    private ProceduralGenerator generator;
+
+    @Setup(Level.Trial)
+    public void parseType() {
+        type = BenchmarkFloors.parseType(floorType);
+    }
+
+    @Setup(Level.Invocation)
+    public void createGenerator() {
+        generator = BenchmarkFloors.createGenerator(1);
+    }
+
+    @TearDown(Level.Invocation)
+    public void discardFloor() {
+        // Return entity ids to live world, otherwise every call allocates a fresh block
+        generator.getWorld().discard();
+    }
+
+    @Benchmark
+    public ProceduralGenerator generate() {
+        generator.generate(type);
+        return generator;
+    }
+}
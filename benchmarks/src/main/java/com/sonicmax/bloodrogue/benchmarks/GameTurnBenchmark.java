@@ -0,0 +1,65 @@
+package com.sonicmax.bloodrogue.benchmarks;
+
+import com.sonicmax.bloodrogue.data.save.SaveCodec;
+import com.sonicmax.bloodrogue.data.save.SaveFormatException;
+import com.sonicmax.bloodrogue.engine.GameEngine;
+import com.sonicmax.bloodrogue.engine.GameState;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Turn latency (GameEngine.advanceFrame) on an exterior floor with a fixed number of seeking
+ *  enemies around the player. Game is restored from the same save before each iteration, so every
+ *  iteration plays out the same turns.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GameTurnBenchmark {
+
+    @Param({"50", "200", "1000"})
+    public int actors;
+
+    private GameEngine engine;
+    private byte[] initialState;
+
+    @Setup(Level.Trial)
+    public void createGame() {
+        engine = new GameEngine(new HeadlessHost());
+        engine.setSeed(BenchmarkFloors.SEED);
+        engine.setFloorPrefetchEnabled(false);
+        engine.setSpriteIndexes(BenchmarkAssets.getSpriteIndexes());
+        engine.startNewGame();
+
+        GameState state = engine.getGameState();
+        BenchmarkFloors.populateCurrentFloor(state, actors);
+        initialState = SaveCodec.encode(state);
+    }
+
+    @Setup(Level.Iteration)
+    public void restoreGame() throws SaveFormatException {
+        engine.restoreGameState(SaveCodec.decode(initialState));
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public void advanceFrame() {
+        engine.advanceFrame();
+    }
+}
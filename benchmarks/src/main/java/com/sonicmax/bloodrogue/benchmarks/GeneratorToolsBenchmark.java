@@ -0,0 +1,115 @@
+package com.sonicmax.bloodrogue.benchmarks;
+
+import com.sonicmax.bloodrogue.generator.Chunk;
+import com.sonicmax.bloodrogue.generator.MapRegion;
+import com.sonicmax.bloodrogue.generator.tools.BitGrid;
+import com.sonicmax.bloodrogue.generator.tools.CellularAutomata;
+import com.sonicmax.bloodrogue.generator.tools.GridGeometryHelper;
+import com.sonicmax.bloodrogue.generator.tools.PoissonDiskSampler;
+import com.sonicmax.bloodrogue.generator.tools.RegionLabeler;
+import com.sonicmax.bloodrogue.generator.tools.SimplexNoiseGenerator;
+import com.sonicmax.bloodrogue.utils.maths.RandomNumberGenerator;
+import com.sonicmax.bloodrogue.utils.maths.Vector2D;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Building blocks used by ProceduralGenerator, on a full 128x128 map.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GeneratorToolsBenchmark {
+    private static final int SIZE = BenchmarkFloors.MAP_SIZE;
+
+    private RandomNumberGenerator rng;
+    private CellularAutomata automata;
+    private CellularAutomata lakeAutomata;
+    private PoissonDiskSampler sampler;
+    private SimplexNoiseGenerator noise;
+    private int noiseIndex;
+    private BitGrid lakeMask;
+    private RegionLabeler labeler;
+    private BitGrid roomMask;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        rng = new RandomNumberGenerator(BenchmarkFloors.SEED);
+
+        // Same parameters used for hourly snow cover steps. Random births mean that every cell is
+        // stepped each time, so cost doesn't drop as map settles
+        automata = new CellularAutomata(rng);
+        automata.setChanceToStartAlive(0.1f);
+        automata.prepareSimulation(new Chunk(0, 0, SIZE, SIZE));
+        automata.setBirthLimit(2)
+                .setDeathLimit(-1)
+                .setChanceToResurrect(0.05f)
+                .setBringAlive(true)
+                .setKillAlive(false);
+
+        sampler = new PoissonDiskSampler(rng);
+        noise = new SimplexNoiseGenerator(BenchmarkFloors.SEED);
+        noiseIndex = 0;
+
+        // Same parameters used for exterior lakes
+        lakeAutomata = new CellularAutomata(rng);
+        lakeAutomata.setParams(4, 3, 3, 0.3f);
+        lakeMask = BitGrid.fromArray(lakeAutomata.generate(new Chunk(0, 0, SIZE, SIZE)));
+        labeler = new RegionLabeler();
+
+        // L-shaped room made from two overlapping chunks, like merged mansion rooms
+        MapRegion room = new MapRegion();
+        room.addChunk(new Chunk(10, 10, 24, 12));
+        room.addChunk(new Chunk(10, 10, 10, 30));
+        roomMask = room.getMask();
+    }
+
+    @Benchmark
+    public int[][] cellularAutomataStep() {
+        automata.doSimulationStep();
+        return automata.getEdgeMap();
+    }
+
+    @Benchmark
+    public boolean[][] cellularAutomataGenerate() {
+        // Same parameters used for exterior lakes
+        lakeAutomata.setParams(4, 3, 3, 0.3f);
+        return lakeAutomata.generate(new Chunk(0, 0, SIZE, SIZE));
+    }
+
+    @Benchmark
+    public ArrayList<Vector2D> poissonDiskNoise() {
+        // Same arguments used for placing trees on exterior floors
+        int minDistance = 3;
+        int treeCount = (int) ((SIZE / minDistance) * (SIZE / minDistance) * 0.7);
+        return sampler.generateNoise(SIZE, SIZE, minDistance, treeCount);
+    }
+
+    @Benchmark
+    public int labelLakeRegions() {
+        return labeler.label(lakeMask, false);
+    }
+
+    @Benchmark
+    public int roomCornersAndSides() {
+        return GridGeometryHelper.findCorners(roomMask).size() + GridGeometryHelper.findSides(roomMask).size();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public float simplexNoise2D() {
+        int index = noiseIndex++ & (SIZE * SIZE - 1);
+        return noise.noise2D((index % SIZE) / 32f, (index / SIZE) / 32f);
+    }
+}
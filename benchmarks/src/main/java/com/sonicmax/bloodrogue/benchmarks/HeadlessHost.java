@@ -0,0 +1,67 @@
+package com.sonicmax.bloodrogue.benchmarks;
+
+import com.sonicmax.bloodrogue.data.AssetSource;
+import com.sonicmax.bloodrogue.engine.GameHost;
+import com.sonicmax.bloodrogue.engine.GameState;
+import com.sonicmax.bloodrogue.engine.components.Position;
+import com.sonicmax.bloodrogue.engine.environment.TimeManager;
+import com.sonicmax.bloodrogue.engine.environment.WeatherManager;
+
+/**
+ *  GameHost for running GameEngine without a renderer, audio or save files. Calls which would
+ *  update the UI are ignored.
+ */
+
+public class HeadlessHost implements GameHost {
+    private final AssetSource assetSource;
+    private final TimeManager timeManager;
+    private final WeatherManager weatherManager;
+
+    public HeadlessHost() {
+        this.assetSource = BenchmarkAssets.getAssetSource();
+        this.timeManager = new TimeManager();
+        this.weatherManager = new WeatherManager();
+    }
+
+    @Override
+    public AssetSource getAssetSource() {
+        return assetSource;
+    }
+
+    @Override
+    public void saveState(GameState state) {}
+
+    @Override
+    public void passDataToRenderer() {}
+
+    @Override
+    public void setMoveLock(boolean value) {}
+
+    @Override
+    public void addNarration(String narration) {}
+
+    @Override
+    public void addNarration(String narration, float[] colour) {}
+
+    @Override
+    public void displayStatus(Position position, String message, float[] color) {}
+
+    @Override
+    public void startFloorChange() {}
+
+    @Override
+    public void transitionToNewContent() {}
+
+    @Override
+    public void triggerSoundEffect(String fx) {}
+
+    @Override
+    public TimeManager getTimeManager() {
+        return timeManager;
+    }
+
+    @Override
+    public WeatherManager getWeatherManager() {
+        return weatherManager;
+    }
+}
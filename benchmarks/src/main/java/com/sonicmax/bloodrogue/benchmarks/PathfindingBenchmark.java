@@ -0,0 +1,99 @@
+package com.sonicmax.bloodrogue.benchmarks;
+
+import com.sonicmax.bloodrogue.engine.collisions.TileFlags;
+import com.sonicmax.bloodrogue.engine.pathfinding.DesireMap;
+import com.sonicmax.bloodrogue.engine.pathfinding.PathFinder;
+import com.sonicmax.bloodrogue.generator.ProceduralGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Path queries between random pairs of walkable tiles (PathFinder.search, used by
+ *  GameEngine.findShortestPath), and flooding of player desire map from a moving goal. Path
+ *  queries per second is 1 / score.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PathfindingBenchmark {
+    private static final int QUERY_COUNT = 1024;
+
+    // Same values that GameEngine uses for player desire map
+    private static final int DIJKSTRA_MAX = 20;
+
+    @Param({"MANSION", "EXTERIOR"})
+    public String floorType;
+
+    private TileFlags tileFlags;
+    private PathFinder aStar;
+    private PathFinder jumpPoint;
+    private DesireMap desireMap;
+    private int[] starts;
+    private int[] goals;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void generateFloor() {
+        ProceduralGenerator generator = BenchmarkFloors.generate(BenchmarkFloors.parseType(floorType));
+        tileFlags = BenchmarkFloors.buildTileFlags(generator);
+
+        int[] tiles = BenchmarkFloors.getOpenTiles(tileFlags, QUERY_COUNT * 2);
+        starts = new int[QUERY_COUNT];
+        goals = new int[QUERY_COUNT];
+
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            starts[i] = tiles[i * 2];
+            goals[i] = tiles[i * 2 + 1];
+        }
+
+        aStar = new PathFinder(tileFlags);
+        jumpPoint = new PathFinder(tileFlags);
+        jumpPoint.setJumpPointSearch(true);
+        desireMap = new DesireMap(tileFlags, DIJKSTRA_MAX);
+        next = 0;
+    }
+
+    private int nextQuery() {
+        int query = next;
+        next = (next + 1) % QUERY_COUNT;
+        return query;
+    }
+
+    @Benchmark
+    public boolean findPathAStar() {
+        return search(aStar, nextQuery());
+    }
+
+    @Benchmark
+    public boolean findPathJumpPoint() {
+        return search(jumpPoint, nextQuery());
+    }
+
+    @Benchmark
+    public int desireMap() {
+        int goal = goals[nextQuery()];
+        int width = tileFlags.getWidth();
+
+        desireMap.clearGoals();
+        desireMap.addGoal(goal % width, goal / width, 0);
+        desireMap.compute();
+
+        return desireMap.get(goal % width, goal / width);
+    }
+
+    private boolean search(PathFinder pathFinder, int query) {
+        int width = tileFlags.getWidth();
+        return pathFinder.search(starts[query] % width, starts[query] / width, goals[query] % width, goals[query] / width);
+    }
+}
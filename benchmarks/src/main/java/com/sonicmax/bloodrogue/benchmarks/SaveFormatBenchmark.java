@@ -0,0 +1,128 @@
+package com.sonicmax.bloodrogue.benchmarks;
+
+import com.sonicmax.bloodrogue.data.save.SaveCodec;
+import com.sonicmax.bloodrogue.data.save.SaveFormatException;
+import com.sonicmax.bloodrogue.engine.Component;
+import com.sonicmax.bloodrogue.engine.ComponentManager;
+import com.sonicmax.bloodrogue.engine.FloorData;
+import com.sonicmax.bloodrogue.engine.GameState;
+import com.sonicmax.bloodrogue.generator.MapData;
+import com.sonicmax.bloodrogue.generator.ProceduralGenerator;
+import com.sonicmax.bloodrogue.generator.factories.PlayerFactory;
+import com.sonicmax.bloodrogue.utils.Array2DHelper;
+import com.sonicmax.bloodrogue.utils.Log;
+import com.sonicmax.bloodrogue.utils.collections.TileOccupancy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Save and load time for a 10 floor game, using SaveCodec and the Java serialization format that
+ *  saves used to be written in. File sizes are logged when benchmark starts.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SaveFormatBenchmark {
+    private static final String LOG_TAG = "SaveFormatBenchmark";
+    private static final int FLOOR_COUNT = 10;
+
+    private GameState state;
+    private byte[] binarySave;
+    private byte[] serializedSave;
+
+    @Setup(Level.Trial)
+    public void createGame() throws IOException {
+        state = new GameState();
+        Component[] player = PlayerFactory.getPlayer(0, 0);
+        state.setPlayer(player);
+
+        for (int floor = 1; floor <= FLOOR_COUNT; floor++) {
+            ProceduralGenerator generator = BenchmarkFloors.createGenerator(floor);
+            generator.generate(ProceduralGenerator.EXTERIOR);
+            state.addFloor(createFloorData(floor, generator, player));
+        }
+
+        state.updateFloorIndex(1);
+
+        binarySave = SaveCodec.encode(state);
+        serializedSave = serialize(state);
+
+        Log.i(LOG_TAG, "Binary save: " + binarySave.length + " bytes, serialized save: "
+                + serializedSave.length + " bytes");
+    }
+
+    /**
+     * Converts generated floor to raw components, the same way GameEngine does when saving floor.
+     */
+
+    private FloorData createFloorData(int index, ProceduralGenerator generator, Component[] player) {
+        MapData mapData = generator.getMapData();
+        TileOccupancy objectEntities = mapData.getObjectEntities();
+        ComponentManager componentManager = generator.getWorld().getComponentManager();
+
+        int size = BenchmarkFloors.MAP_SIZE;
+        ArrayList<Component[]>[][] objects = Array2DHelper.createComponentGrid(size, size);
+
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                for (int node = objectEntities.first(x, y); node != TileOccupancy.NONE; node = objectEntities.next(node)) {
+                    ArrayList<Component> components = componentManager.getEntityComponents(objectEntities.get(node));
+                    objects[x][y].add(components.toArray(new Component[components.size()]));
+                }
+            }
+        }
+
+        FloorData floor = new FloorData(index, mapData.getTerrainEntities(), objects, player);
+        floor.setEntrance(mapData.getEntrancePosition());
+        floor.setExit(mapData.getExitPosition());
+
+        return floor;
+    }
+
+    private static byte[] serialize(GameState state) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(state);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return SaveCodec.encode(state);
+    }
+
+    @Benchmark
+    public GameState binaryDecode() throws SaveFormatException {
+        return SaveCodec.decode(binarySave);
+    }
+
+    @Benchmark
+    public byte[] serializedWrite() throws IOException {
+        return serialize(state);
+    }
+
+    @Benchmark
+    public Object serializedRead() throws IOException, ClassNotFoundException {
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serializedSave));
+        Object result = in.readObject();
+        in.close();
+        return result;
+    }
+}
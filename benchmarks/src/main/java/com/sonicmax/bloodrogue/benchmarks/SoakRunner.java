@@ -0,0 +1,391 @@
+package com.sonicmax.bloodrogue.benchmarks;
+
+import com.sonicmax.bloodrogue.engine.GameEngine;
+import com.sonicmax.bloodrogue.utils.Log;
+import com.sonicmax.bloodrogue.utils.LogSink;
+import com.sonicmax.bloodrogue.utils.maths.Vector2D;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ *  Headless soak run: AutoplayBot plays a seeded game through many floors without a renderer, and
+ *  results are written as JSON for each floor (turns/sec, turn latency percentiles, live entities,
+ *  pending animations, stored floors and heap retained after GC).
+ *
+ *  Usage: SoakRunner [key=value ...]
+ *
+ *  floors            Number of floors to descend through (default 30)
+ *  maxTurns          Stop after this many turns, even if floors haven't been reached (default 50000)
+ *  maxTurnsPerFloor  Give up if player hasn't found stairs after this many turns (default 3000)
+ *  minTurnsPerFloor  Turns spent exploring each floor before heading for stairs (default 150)
+ *  seed              Seed for game and bot (default 42)
+ *  out               Result file (default soak-result.json)
+ *
+ *  Optional gates - exit status is 1 if any of these fail, or if run couldn't reach target floor:
+ *
+ *  maxP99Ms                  Turn latency p99 over whole run, in ms
+ *  minTurnsPerSecond         Turns per second over whole run
+ *  maxHeapGrowthPerFloorMb   Growth of retained heap per floor (least squares slope), in MB
+ *
+ *  If run stops early, the floor that player was stuck on is reported as unfinishedFloor. Turns
+ *  which change floor are reported separately (floorChangeMs), as they include floor
+ *  generation and would otherwise dominate p99.
+ */
+
+public class SoakRunner {
+    private static final String LOG_TAG = "SoakRunner";
+    private static final double NANOS_PER_MS = 1000000.0;
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+    private final HashMap<String, String> options;
+    private final MemoryMXBean memory;
+
+    private GameEngine engine;
+    private AutoplayBot bot;
+
+    private ArrayList<JSONObject> floorResults;
+    private long[] allLatencies;
+    private int allLatencyCount;
+
+    // Time spent measuring heap between floors, which isn't counted towards run time
+    private long heapMeasurementNanos;
+
+    public SoakRunner(HashMap<String, String> options) {
+        this.options = options;
+        this.memory = ManagementFactory.getMemoryMXBean();
+        this.floorResults = new ArrayList<>();
+        this.allLatencies = new long[1024];
+    }
+
+    public static void main(String[] args) throws IOException {
+        HashMap<String, String> options = new HashMap<>();
+
+        for (String arg : args) {
+            int split = arg.indexOf('=');
+
+            if (split == -1) {
+                System.err.println("Expected key=value, got " + arg);
+                System.exit(2);
+            }
+
+            options.put(arg.substring(0, split), arg.substring(split + 1));
+        }
+
+        // Generator logs every floor - only keep warnings and errors
+        Log.setMinPriority(LogSink.WARN);
+
+        SoakRunner runner = new SoakRunner(options);
+        JSONObject result = runner.run();
+
+        File out = new File(runner.getString("out", "soak-result.json"));
+        Files.write(out.toPath(), result.toString(2).getBytes(Charset.forName("UTF-8")));
+
+        JSONObject summary = result.getJSONObject("summary");
+        System.out.println(summary.toString(2));
+        System.out.println("Results written to " + out.getAbsolutePath());
+
+        if (!summary.getBoolean("passed")) {
+            System.exit(1);
+        }
+    }
+
+    public JSONObject run() {
+        int targetFloors = getInt("floors", 30);
+        int maxTurns = getInt("maxTurns", 50000);
+        int maxTurnsPerFloor = getInt("maxTurnsPerFloor", 3000);
+        long seed = getLong("seed", BenchmarkFloors.SEED);
+
+        engine = new GameEngine(new HeadlessHost());
+        engine.setSeed(seed);
+        engine.setSpriteIndexes(BenchmarkAssets.getSpriteIndexes());
+        engine.startNewGame();
+        BenchmarkFloors.makePlayerImmortal(engine.getPlayer());
+
+        bot = new AutoplayBot(engine, seed, getInt("minTurnsPerFloor", 150));
+
+        String status = "complete";
+        int totalTurns = 0;
+        long runStart = System.nanoTime();
+
+        FloorRecorder floor = new FloorRecorder(engine.getCurrentFloorIndex());
+
+        while (floorResults.size() < targetFloors) {
+            if (totalTurns >= maxTurns) {
+                status = "turn limit reached";
+                break;
+            }
+
+            if (bot.getFloorTurns() >= maxTurnsPerFloor) {
+                status = "stuck on floor " + floor.index;
+                break;
+            }
+
+            Vector2D move = bot.chooseMove();
+            int floorIndex = engine.getCurrentFloorIndex();
+
+            long start = System.nanoTime();
+            engine.checkUserInput(move);
+            long elapsed = System.nanoTime() - start;
+
+            totalTurns++;
+
+            if (engine.getCurrentFloorIndex() != floorIndex) {
+                floor.floorChangeNanos = elapsed;
+                floorResults.add(floor.finish());
+                bot.onFloorChanged();
+
+                floor = new FloorRecorder(engine.getCurrentFloorIndex());
+            }
+            else {
+                floor.addTurn(elapsed);
+                addLatency(elapsed);
+            }
+        }
+
+        double runSeconds = (System.nanoTime() - runStart - heapMeasurementNanos) / 1000000000.0;
+
+        // Floor that player was on when run stopped early. Reported separately, as it wasn't completed
+        JSONObject unfinishedFloor = (floorResults.size() < targetFloors) ? floor.finish() : null;
+
+        engine.shutdown();
+
+        JSONArray floors = new JSONArray();
+
+        for (JSONObject result : floorResults) {
+            floors.put(result);
+        }
+
+        JSONObject summary = summarise(status, targetFloors, totalTurns, runSeconds, seed);
+        JSONObject result = new JSONObject();
+        result.put("summary", summary);
+        result.put("floors", floors);
+
+        if (unfinishedFloor != null) {
+            result.put("unfinishedFloor", unfinishedFloor);
+        }
+
+        return result;
+    }
+
+    /*
+    ---------------------------------------------
+     Results
+    ---------------------------------------------
+    */
+
+    private JSONObject summarise(String status, int targetFloors, int totalTurns, double runSeconds, long seed) {
+        long[] latencies = Arrays.copyOf(allLatencies, allLatencyCount);
+        Arrays.sort(latencies);
+
+        double turnsPerSecond = totalTurns / runSeconds;
+        double p99Ms = percentile(latencies, 0.99) / NANOS_PER_MS;
+        double heapGrowth = getHeapGrowthPerFloor();
+
+        JSONObject summary = new JSONObject();
+        summary.put("status", status);
+        summary.put("seed", seed);
+        summary.put("floors", floorResults.size());
+        summary.put("turns", totalTurns);
+        summary.put("seconds", runSeconds);
+        summary.put("turnsPerSecond", turnsPerSecond);
+        summary.put("p50Ms", percentile(latencies, 0.5) / NANOS_PER_MS);
+        summary.put("p99Ms", p99Ms);
+        summary.put("maxMs", percentile(latencies, 1.0) / NANOS_PER_MS);
+        summary.put("heapGrowthPerFloorBytes", heapGrowth);
+        summary.put("attacks", bot.getAttacks());
+        summary.put("itemsCollected", bot.getItemsCollected());
+
+        if (!floorResults.isEmpty()) {
+            summary.put("firstRetainedHeapBytes", floorResults.get(0).getLong("retainedHeapBytes"));
+            summary.put("lastRetainedHeapBytes", floorResults.get(floorResults.size() - 1).getLong("retainedHeapBytes"));
+        }
+
+        JSONArray failures = new JSONArray();
+
+        if (floorResults.size() < targetFloors) {
+            failures.put("Reached " + floorResults.size() + " of " + targetFloors + " floors (" + status + ")");
+        }
+
+        if (options.containsKey("maxP99Ms") && p99Ms > getDouble("maxP99Ms")) {
+            failures.put(String.format(Locale.US, "p99 %.3f ms > %s ms", p99Ms, options.get("maxP99Ms")));
+        }
+
+        if (options.containsKey("minTurnsPerSecond") && turnsPerSecond < getDouble("minTurnsPerSecond")) {
+            failures.put(String.format(Locale.US, "%.1f turns/sec < %s", turnsPerSecond, options.get("minTurnsPerSecond")));
+        }
+
+        if (options.containsKey("maxHeapGrowthPerFloorMb")
+                && heapGrowth / BYTES_PER_MB > getDouble("maxHeapGrowthPerFloorMb")) {
+
+            failures.put(String.format(Locale.US, "Heap grew %.2f MB/floor > %s MB/floor",
+                    heapGrowth / BYTES_PER_MB, options.get("maxHeapGrowthPerFloorMb")));
+        }
+
+        summary.put("failures", failures);
+        summary.put("passed", failures.length() == 0);
+
+        return summary;
+    }
+
+    /**
+     * Returns least squares slope of retained heap against floor number, in bytes per floor.
+     */
+
+    private double getHeapGrowthPerFloor() {
+        int n = floorResults.size();
+        if (n < 2) return 0;
+
+        double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
+
+        for (int i = 0; i < n; i++) {
+            double heap = floorResults.get(i).getLong("retainedHeapBytes");
+            sumX += i;
+            sumY += heap;
+            sumXY += i * heap;
+            sumXX += (double) i * i;
+        }
+
+        return (n * sumXY - sumX * sumY) / (n * sumXX - sumX * sumX);
+    }
+
+    private long measureRetainedHeap() {
+        long start = System.nanoTime();
+
+        // A couple of full collections, so that garbage from previous floor isn't counted
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Log.w(LOG_TAG, "Interrupted while waiting for GC", e);
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        long used = memory.getHeapMemoryUsage().getUsed();
+        heapMeasurementNanos += System.nanoTime() - start;
+
+        return used;
+    }
+
+    private void addLatency(long nanos) {
+        if (allLatencyCount == allLatencies.length) {
+            allLatencies = Arrays.copyOf(allLatencies, allLatencies.length << 1);
+        }
+
+        allLatencies[allLatencyCount++] = nanos;
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) return 0;
+
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    /*
+    ---------------------------------------------
+     Options
+    ---------------------------------------------
+    */
+
+    private String getString(String key, String defaultValue) {
+        String value = options.get(key);
+        return (value != null) ? value : defaultValue;
+    }
+
+    private int getInt(String key, int defaultValue) {
+        String value = options.get(key);
+        return (value != null) ? Integer.parseInt(value) : defaultValue;
+    }
+
+    private long getLong(String key, long defaultValue) {
+        String value = options.get(key);
+        return (value != null) ? Long.parseLong(value) : defaultValue;
+    }
+
+    private double getDouble(String key) {
+        return Double.parseDouble(options.get(key));
+    }
+
+    /**
+     * Collects turn timings for a single floor.
+     */
+
+    private class FloorRecorder {
+        final int index;
+        final long start;
+        final int attacksAtStart;
+        final int itemsAtStart;
+
+        long[] latencies;
+        int turns;
+        long floorChangeNanos;
+
+        // Sampled after every turn, so that these are the last values seen before leaving floor
+        int liveEntities;
+        int pendingAnimations;
+
+        FloorRecorder(int index) {
+            this.index = index;
+            this.start = System.nanoTime();
+            this.attacksAtStart = bot.getAttacks();
+            this.itemsAtStart = bot.getItemsCollected();
+            this.latencies = new long[256];
+        }
+
+        void addTurn(long nanos) {
+            if (turns == latencies.length) {
+                latencies = Arrays.copyOf(latencies, latencies.length << 1);
+            }
+
+            latencies[turns++] = nanos;
+
+            liveEntities = engine.getWorld().getComponentManager().getEntityCount();
+            pendingAnimations = engine.getCurrentFrameData().getAnimations().size();
+        }
+
+        /**
+         * Called after player has left floor, so retained heap includes the floor that was just
+         * stored in GameState.
+         */
+
+        JSONObject finish() {
+            double seconds = (System.nanoTime() - start) / 1000000000.0;
+            long[] sorted = Arrays.copyOf(latencies, turns);
+            Arrays.sort(sorted);
+
+            JSONObject result = new JSONObject();
+            result.put("floor", index);
+            result.put("turns", turns);
+            result.put("seconds", seconds);
+            result.put("turnsPerSecond", turns / seconds);
+            result.put("p50Ms", percentile(sorted, 0.5) / NANOS_PER_MS);
+            result.put("p99Ms", percentile(sorted, 0.99) / NANOS_PER_MS);
+            result.put("maxMs", percentile(sorted, 1.0) / NANOS_PER_MS);
+            result.put("floorChangeMs", floorChangeNanos / NANOS_PER_MS);
+            result.put("attacks", bot.getAttacks() - attacksAtStart);
+            result.put("itemsCollected", bot.getItemsCollected() - itemsAtStart);
+            result.put("liveEntities", liveEntities);
+            result.put("pendingAnimations", pendingAnimations);
+            result.put("storedFloors", engine.getGameState().getFloors().size());
+            result.put("retainedHeapBytes", measureRetainedHeap());
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.sonicmax.bloodrogue.benchmarks;
+
+import com.sonicmax.bloodrogue.engine.ComponentManager;
+import com.sonicmax.bloodrogue.engine.ComponentTypes;
+import com.sonicmax.bloodrogue.engine.collisions.SpatialIndex;
+import com.sonicmax.bloodrogue.engine.collisions.TileFlags;
+import com.sonicmax.bloodrogue.generator.ProceduralGenerator;
+import com.sonicmax.bloodrogue.utils.Log;
+import com.sonicmax.bloodrogue.utils.collections.TileOccupancy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Radius queries for AI actors on a generated exterior floor (which has a few hundred goats).
+ *  stackScanBaseline answers the same query by scanning object stacks in the bounding box, which
+ *  is what the engine did before SpatialIndex.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SpatialQueryBenchmark {
+    private static final String LOG_TAG = "SpatialQueryBenchmark";
+    private static final int QUERY_COUNT = 1024;
+
+    @Param({"8", "16"})
+    public int radius;
+
+    private ComponentManager componentManager;
+    private TileOccupancy objectEntities;
+    private SpatialIndex spatialIndex;
+    private int[] origins;
+    private int width;
+    private int height;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void generateFloor() {
+        ProceduralGenerator generator = BenchmarkFloors.generate(ProceduralGenerator.EXTERIOR);
+        TileFlags tileFlags = BenchmarkFloors.buildTileFlags(generator);
+
+        componentManager = generator.getWorld().getComponentManager();
+        objectEntities = generator.getMapData().getObjectEntities();
+        width = tileFlags.getWidth();
+        height = tileFlags.getHeight();
+
+        spatialIndex = new SpatialIndex(componentManager, width, height, ComponentTypes.AI);
+        spatialIndex.build(objectEntities);
+        origins = BenchmarkFloors.getOpenTiles(tileFlags, QUERY_COUNT);
+        next = 0;
+
+        Log.i(LOG_TAG, "AI actors on floor: " + spatialIndex.queryRect(ComponentTypes.AI, 0, 0, width - 1, height - 1));
+    }
+
+    @Benchmark
+    public int spatialIndex() {
+        int origin = nextOrigin();
+        return spatialIndex.queryRadius(ComponentTypes.AI, origin % width, origin / width, radius);
+    }
+
+    @Benchmark
+    public int stackScanBaseline() {
+        int origin = nextOrigin();
+        int originX = origin % width;
+        int originY = origin / width;
+        int found = 0;
+
+        for (int x = Math.max(0, originX - radius); x <= Math.min(width - 1, originX + radius); x++) {
+            for (int y = Math.max(0, originY - radius); y <= Math.min(height - 1, originY + radius); y++) {
+                int dx = x - originX;
+                int dy = y - originY;
+
+                if (dx * dx + dy * dy > radius * radius) continue;
+
+                for (int node = objectEntities.first(x, y); node != TileOccupancy.NONE; node = objectEntities.next(node)) {
+                    if (componentManager.has(objectEntities.get(node), ComponentTypes.AI)) {
+                        found++;
+                    }
+                }
+            }
+        }
+
+        return found;
+    }
+
+    private int nextOrigin() {
+        int origin = origins[next];
+        next = (next + 1) % QUERY_COUNT;
+        return origin;
+    }
+}
@@ -0,0 +1,97 @@
+package com.sonicmax.bloodrogue.benchmarks;
+
+import com.sonicmax.bloodrogue.data.save.ChunkCodec;
+import com.sonicmax.bloodrogue.data.save.SaveFormatException;
+import com.sonicmax.bloodrogue.generator.ProceduralGenerator;
+import com.sonicmax.bloodrogue.generator.streaming.ChunkStreamer;
+import com.sonicmax.bloodrogue.generator.streaming.ExteriorChunk;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Streamed exterior: generating a single chunk, encoding/decoding it, and walking the player in a
+ *  straight line so that new chunks are loaded ahead of them and old ones evicted behind them.
+ *  Walk time is averaged over every step, most of which don't cross a chunk border.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StreamingExteriorBenchmark {
+    private static final int LOAD_RADIUS = 2;
+
+    // Room for load area plus one extra ring of chunks
+    private static final int BUDGET_CHUNKS = (2 * LOAD_RADIUS + 3) * (2 * LOAD_RADIUS + 3);
+
+    private ProceduralGenerator generator;
+    private ExteriorChunk chunk;
+    private byte[] encodedChunk;
+
+    private File directory;
+    private ChunkStreamer streamer;
+    private int playerX;
+    private int playerY;
+
+    @Setup(Level.Trial)
+    public void createGenerator() {
+        generator = BenchmarkFloors.createGenerator(1);
+        chunk = generator.generateExteriorChunk(1, 1);
+        encodedChunk = ChunkCodec.encode(chunk);
+    }
+
+    @Setup(Level.Iteration)
+    public void createStreamer() throws IOException {
+        directory = Files.createTempDirectory("chunks").toFile();
+        streamer = new ChunkStreamer(generator, directory, LOAD_RADIUS, (long) BUDGET_CHUNKS * chunk.estimateSize());
+        playerX = 0;
+        playerY = 0;
+        streamer.update(playerX, playerY);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteChunks() {
+        streamer.clear();
+        streamer.shutdown();
+        directory.delete();
+    }
+
+    @Benchmark
+    public ExteriorChunk generateChunk() {
+        return generator.generateExteriorChunk(1, 1);
+    }
+
+    @Benchmark
+    public byte[] encodeChunk() {
+        return ChunkCodec.encode(chunk);
+    }
+
+    @Benchmark
+    public ExteriorChunk decodeChunk() throws SaveFormatException {
+        return ChunkCodec.decode(encodedChunk);
+    }
+
+    @Benchmark
+    public int walk() {
+        // Change a chunk now and then, so that evictions include writes as well as drops
+        if ((playerX & 63) == 0) {
+            streamer.getChunkAt(playerX, playerY).markChanged();
+        }
+
+        playerX++;
+        streamer.update(playerX, playerY);
+        return streamer.getResidentCount();
+    }
+}
@@ -0,0 +1,18 @@
+package com.sonicmax.bloodrogue.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ *  Opens files bundled with the game (blueprints, etc). The Android app reads them from the APK's
+ *  assets folder - anything running on a plain JVM can read them from disk instead.
+ */
+
+public interface AssetSource {
+
+    /**
+     * @param path Path relative to assets folder (eg. "blueprints/enemies.json")
+     */
+
+    InputStream open(String path) throws IOException;
+}
@@ -1,7 +1,5 @@
 package com.sonicmax.bloodrogue.data;
 
-import android.util.Log;
-
 import com.sonicmax.bloodrogue.engine.Component;
 import com.sonicmax.bloodrogue.engine.Entity;
 import com.sonicmax.bloodrogue.engine.components.AI;
@@ -26,6 +24,7 @@ import com.sonicmax.bloodrogue.engine.components.Usable;
 import com.sonicmax.bloodrogue.engine.components.Vitality;
 import com.sonicmax.bloodrogue.engine.components.Wieldable;
 import com.sonicmax.bloodrogue.generator.enemies.EnemyAnimator;
+import com.sonicmax.bloodrogue.utils.Log;
 
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -197,6 +196,9 @@ public class BlueprintParser {
                 if (object.has("playerInterest"))
                     ai.playerInterest = object.getInt("playerInterest");
 
+                if (object.has("sightRadius"))
+                    ai.sightRadius = object.getInt("sightRadius");
+
                 if (object.has("canInteract"))
                     ai.canInteract = object.getBoolean("canInteract");
 
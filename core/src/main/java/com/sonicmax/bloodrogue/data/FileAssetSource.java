@@ -0,0 +1,24 @@
+package com.sonicmax.bloodrogue.data;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ *  Reads assets from a directory on disk (eg. app/src/main/assets). Used when running engine code
+ *  outside of Android.
+ */
+
+public class FileAssetSource implements AssetSource {
+    private final File root;
+
+    public FileAssetSource(File root) {
+        this.root = root;
+    }
+
+    @Override
+    public InputStream open(String path) throws IOException {
+        return new FileInputStream(new File(root, path));
+    }
+}
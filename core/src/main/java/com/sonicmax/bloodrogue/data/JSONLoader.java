@@ -1,7 +1,5 @@
 package com.sonicmax.bloodrogue.data;
 
-import android.content.res.AssetManager;
-
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -9,9 +7,9 @@ import java.io.IOException;
 import java.io.InputStream;
 
 public class JSONLoader {
-    public static String loadFile(AssetManager assetManager, String file) {
+    public static String loadFile(AssetSource assetSource, String file) {
         try {
-            InputStream is = assetManager.open(file);
+            InputStream is = assetSource.open(file);
             int size = is.available();
             byte[] buffer = new byte[size];
             is.read(buffer);
@@ -24,48 +22,48 @@ public class JSONLoader {
         }
     }
 
-    public static JSONObject loadEnemies(AssetManager assetManager) {
+    public static JSONObject loadEnemies(AssetSource assetSource) {
 
         final String file = "blueprints/enemies.json";
 
         try  {
-            return new JSONObject(loadFile(assetManager, file));
+            return new JSONObject(loadFile(assetSource, file));
 
         } catch (JSONException e) {
             throw new Error("Error parsing enemy blueprints - can't continue", e);
         }
     }
 
-    public static JSONObject loadFurniture(AssetManager assetManager) {
+    public static JSONObject loadFurniture(AssetSource assetSource) {
 
         final String file = "blueprints/furniture.json";
 
         try  {
-            return new JSONObject(loadFile(assetManager, file));
+            return new JSONObject(loadFile(assetSource, file));
 
         } catch (JSONException e) {
             throw new Error("Error parsing furniture blueprints - can't continue", e);
         }
     }
 
-    public static JSONObject loadWeapons(AssetManager assetManager) {
+    public static JSONObject loadWeapons(AssetSource assetSource) {
 
         final String file = "blueprints/weapons.json";
 
         try  {
-            return new JSONObject(loadFile(assetManager, file));
+            return new JSONObject(loadFile(assetSource, file));
 
         } catch (JSONException e) {
             throw new Error("Error parsing weapon blueprints - can't continue", e);
         }
     }
 
-    public static JSONObject loadPotions(AssetManager assetManager) {
+    public static JSONObject loadPotions(AssetSource assetSource) {
 
         final String file = "blueprints/potions.json";
 
         try  {
-            return new JSONObject(loadFile(assetManager, file));
+            return new JSONObject(loadFile(assetSource, file));
 
         } catch (JSONException e) {
             throw new Error("Error parsing item blueprints - can't continue", e);
@@ -0,0 +1,112 @@
+package com.sonicmax.bloodrogue.data.save;
+
+/**
+ *  Reads values written by BinaryWriter. Throws SaveFormatException if data ends unexpectedly or
+ *  a varint is malformed, so that truncated saves can't produce garbage components.
+ */
+
+public class BinaryReader {
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+
+    public BinaryReader(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    public BinaryReader(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    public boolean hasRemaining() {
+        return position < limit;
+    }
+
+    public int readByte() throws SaveFormatException {
+        if (position >= limit) {
+            throw new SaveFormatException("Unexpected end of data");
+        }
+
+        return buffer[position++] & 0xFF;
+    }
+
+    public boolean readBoolean() throws SaveFormatException {
+        return readByte() != 0;
+    }
+
+    public int readVarInt() throws SaveFormatException {
+        int result = 0;
+
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            result |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+
+        throw new SaveFormatException("Malformed varint");
+    }
+
+    public long readVarLong() throws SaveFormatException {
+        long result = 0;
+
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readByte();
+            result |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+
+        throw new SaveFormatException("Malformed varint");
+    }
+
+    public int readSignedInt() throws SaveFormatException {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public long readSignedLong() throws SaveFormatException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public int readInt() throws SaveFormatException {
+        return (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+    }
+
+    public float readFloat() throws SaveFormatException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    public String readUtf8(int length) throws SaveFormatException {
+        checkRemaining(length);
+        String value = new String(buffer, position, length, SaveCodec.UTF_8);
+        position += length;
+        return value;
+    }
+
+    /**
+     * Reads a length-prefixed block written by BinaryWriter.writeBlock() and returns a reader for
+     * its contents. This reader skips past the whole block, even if the caller doesn't read it all.
+     */
+
+    public BinaryReader readBlock() throws SaveFormatException {
+        int length = readVarInt();
+        checkRemaining(length);
+        BinaryReader block = new BinaryReader(buffer, position, length);
+        position += length;
+        return block;
+    }
+
+    private void checkRemaining(int length) throws SaveFormatException {
+        if (length < 0 || position + length > limit) {
+            throw new SaveFormatException("Block length exceeds available data");
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.sonicmax.bloodrogue.data.save;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ *  Growable byte buffer with helpers for writing LEB128 varints. Signed values are zigzag encoded
+ *  first, so that small negative numbers (eg. -1 for "no entity") still take a single byte.
+ */
+
+public class BinaryWriter {
+    private byte[] buffer;
+    private int position;
+
+    public BinaryWriter() {
+        this(1024);
+    }
+
+    public BinaryWriter(int initialCapacity) {
+        this.buffer = new byte[Math.max(initialCapacity, 16)];
+        this.position = 0;
+    }
+
+    public int size() {
+        return position;
+    }
+
+    public void reset() {
+        position = 0;
+    }
+
+    public void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    /**
+     * Writes unsigned varint. Value must not be negative.
+     */
+
+    public void writeVarInt(int value) {
+        ensureCapacity(5);
+
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        buffer[position++] = (byte) value;
+    }
+
+    public void writeVarLong(long value) {
+        ensureCapacity(10);
+
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        buffer[position++] = (byte) value;
+    }
+
+    public void writeSignedInt(int value) {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    public void writeSignedLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public void writeInt(int value) {
+        ensureCapacity(4);
+        buffer[position++] = (byte) (value >>> 24);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    public void writeFloat(float value) {
+        writeInt(Float.floatToIntBits(value));
+    }
+
+    public void writeBytes(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    /**
+     * Writes length of other buffer followed by its contents. Readers can skip blocks they don't
+     * understand using the length prefix.
+     */
+
+    public void writeBlock(BinaryWriter block) {
+        writeVarInt(block.position);
+        writeBytes(block.buffer, 0, block.position);
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    public void writeTo(OutputStream stream) throws IOException {
+        stream.write(buffer, 0, position);
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (position + bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + bytes));
+        }
+    }
+}
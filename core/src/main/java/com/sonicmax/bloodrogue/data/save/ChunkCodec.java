@@ -0,0 +1,163 @@
+package com.sonicmax.bloodrogue.data.save;
+
+import com.sonicmax.bloodrogue.generator.streaming.ExteriorChunk;
+import com.sonicmax.bloodrogue.generator.tools.BitGrid;
+import com.sonicmax.bloodrogue.utils.maths.Vector2D;
+
+/**
+ *  Converts streamed exterior chunks to and from a compact binary format.
+ *
+ *  Layout:
+ *      int magic ("BRCK"), varint schema version
+ *      block: string table
+ *      signed varint chunk x, signed varint chunk y
+ *      terrain: string index for each tile, column by column
+ *      heights: float for each vertex, column by column
+ *      indoor mask, water mask: varlong of bits for each row
+ *      varint object count, then for each object: varint kind, varint local x, varint local y,
+ *      varint texture string index
+ */
+
+public class ChunkCodec {
+    public static final int MAGIC = 0x4252434B;
+    public static final int SCHEMA_VERSION = 1;
+
+    public static byte[] encode(ExteriorChunk chunk) {
+        final int size = ExteriorChunk.SIZE;
+
+        StringTable strings = new StringTable();
+        BinaryWriter body = new BinaryWriter(8 * 1024);
+
+        body.writeSignedInt(chunk.chunkX);
+        body.writeSignedInt(chunk.chunkY);
+
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                body.writeVarInt(strings.indexOf(chunk.terrain[x][y]));
+            }
+        }
+
+        for (int x = 0; x <= size; x++) {
+            for (int y = 0; y <= size; y++) {
+                body.writeFloat(chunk.heights[x][y]);
+            }
+        }
+
+        writeMask(chunk.indoor, body);
+        writeMask(chunk.water, body);
+
+        int count = chunk.objectPositions.size();
+        body.writeVarInt(count);
+
+        for (int i = 0; i < count; i++) {
+            Vector2D position = chunk.objectPositions.get(i);
+            body.writeVarInt(chunk.objectKinds.get(i));
+            body.writeVarInt(position.x - chunk.getOriginX());
+            body.writeVarInt(position.y - chunk.getOriginY());
+            body.writeVarInt(strings.indexOf(chunk.objectTextures.get(i)));
+        }
+
+        BinaryWriter table = new BinaryWriter();
+        strings.write(table);
+
+        BinaryWriter out = new BinaryWriter(body.size() + table.size() + 16);
+        out.writeInt(MAGIC);
+        out.writeVarInt(SCHEMA_VERSION);
+        out.writeBlock(table);
+        out.writeBytes(body.toByteArray(), 0, body.size());
+
+        return out.toByteArray();
+    }
+
+    public static ExteriorChunk decode(byte[] data) throws SaveFormatException {
+        final int size = ExteriorChunk.SIZE;
+
+        BinaryReader in = new BinaryReader(data);
+
+        if (in.readInt() != MAGIC) {
+            throw new SaveFormatException("Not a chunk file");
+        }
+
+        int version = in.readVarInt();
+
+        if (version > SCHEMA_VERSION) {
+            throw new SaveFormatException("Chunk was written by newer version (" + version + ")");
+        }
+
+        String[] strings = StringTable.read(in.readBlock());
+        ExteriorChunk chunk = new ExteriorChunk(in.readSignedInt(), in.readSignedInt());
+
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                chunk.terrain[x][y] = readString(in, strings);
+            }
+        }
+
+        for (int x = 0; x <= size; x++) {
+            for (int y = 0; y <= size; y++) {
+                chunk.heights[x][y] = in.readFloat();
+            }
+        }
+
+        readMask(chunk.indoor, in);
+        readMask(chunk.water, in);
+
+        int count = in.readVarInt();
+
+        for (int i = 0; i < count; i++) {
+            int kind = in.readVarInt();
+            int x = in.readVarInt();
+            int y = in.readVarInt();
+
+            if (x >= size || y >= size) {
+                throw new SaveFormatException("Object outside of chunk: " + x + ", " + y);
+            }
+
+            chunk.addObject(kind, chunk.getOriginX() + x, chunk.getOriginY() + y, readString(in, strings));
+        }
+
+        return chunk;
+    }
+
+    private static void writeMask(BitGrid mask, BinaryWriter out) {
+        int left = mask.getOriginX();
+        int bottom = mask.getOriginY();
+
+        for (int y = 0; y < mask.getHeight(); y++) {
+            long bits = 0;
+
+            for (int x = 0; x < mask.getWidth(); x++) {
+                if (mask.get(left + x, bottom + y)) {
+                    bits |= 1L << x;
+                }
+            }
+
+            out.writeVarLong(bits);
+        }
+    }
+
+    private static void readMask(BitGrid mask, BinaryReader in) throws SaveFormatException {
+        int left = mask.getOriginX();
+        int bottom = mask.getOriginY();
+
+        for (int y = 0; y < mask.getHeight(); y++) {
+            long bits = in.readVarLong();
+
+            for (int x = 0; x < mask.getWidth(); x++) {
+                if ((bits & (1L << x)) != 0) {
+                    mask.set(left + x, bottom + y);
+                }
+            }
+        }
+    }
+
+    private static String readString(BinaryReader in, String[] strings) throws SaveFormatException {
+        int index = in.readVarInt();
+
+        if (index >= strings.length) {
+            throw new SaveFormatException("String index out of range: " + index);
+        }
+
+        return strings[index];
+    }
+}
@@ -0,0 +1,85 @@
+package com.sonicmax.bloodrogue.data.save;
+
+import com.sonicmax.bloodrogue.generator.streaming.ExteriorChunk;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ *  Stores streamed exterior chunks on disk, one file per chunk (see ChunkCodec). Files are written
+ *  to a temporary file and renamed over the old one, so a chunk is never left half written.
+ *
+ *  Not synchronised - ChunkStreamer only calls it from its worker thread.
+ */
+
+public class ChunkStore {
+    private static final String EXTENSION = ".chunk";
+    private static final String TEMP_EXTENSION = ".chunk.tmp";
+
+    private final File directory;
+
+    public ChunkStore(File directory) {
+        this.directory = directory;
+    }
+
+    public boolean contains(int chunkX, int chunkY) {
+        return getFile(chunkX, chunkY, EXTENSION).exists();
+    }
+
+    /**
+     * Returns chunk read from disk, or null if it hasn't been stored.
+     */
+
+    public ExteriorChunk read(int chunkX, int chunkY) throws IOException {
+        File file = getFile(chunkX, chunkY, EXTENSION);
+
+        if (!file.exists()) return null;
+
+        ExteriorChunk chunk = ChunkCodec.decode(SaveManager.readFile(file));
+
+        if (chunk.chunkX != chunkX || chunk.chunkY != chunkY) {
+            throw new SaveFormatException("File " + file.getName() + " contains chunk " + chunk.chunkX + ", " + chunk.chunkY);
+        }
+
+        return chunk;
+    }
+
+    /**
+     * Writes data encoded with ChunkCodec.
+     */
+
+    public void write(int chunkX, int chunkY, byte[] data) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Couldn't create " + directory.getPath());
+        }
+
+        File temp = getFile(chunkX, chunkY, TEMP_EXTENSION);
+        SaveManager.writeFile(temp, data);
+
+        if (!temp.renameTo(getFile(chunkX, chunkY, EXTENSION))) {
+            throw new IOException("Couldn't replace " + temp.getName());
+        }
+    }
+
+    /**
+     * Removes every stored chunk (eg. when starting a new game).
+     */
+
+    public void clear() {
+        File[] files = directory.listFiles();
+
+        if (files == null) return;
+
+        for (File file : files) {
+            String name = file.getName();
+
+            if (name.endsWith(EXTENSION) || name.endsWith(TEMP_EXTENSION)) {
+                file.delete();
+            }
+        }
+    }
+
+    private File getFile(int chunkX, int chunkY, String extension) {
+        return new File(directory, "chunk_" + chunkX + "_" + chunkY + extension);
+    }
+}
@@ -0,0 +1,664 @@
+package com.sonicmax.bloodrogue.data.save;
+
+import com.sonicmax.bloodrogue.engine.Component;
+import com.sonicmax.bloodrogue.engine.ComponentTypes;
+import com.sonicmax.bloodrogue.engine.components.AI;
+import com.sonicmax.bloodrogue.engine.components.Barrier;
+import com.sonicmax.bloodrogue.engine.components.Blood;
+import com.sonicmax.bloodrogue.engine.components.Collectable;
+import com.sonicmax.bloodrogue.engine.components.Container;
+import com.sonicmax.bloodrogue.engine.components.Damage;
+import com.sonicmax.bloodrogue.engine.components.Dexterity;
+import com.sonicmax.bloodrogue.engine.components.Dynamic;
+import com.sonicmax.bloodrogue.engine.components.Energy;
+import com.sonicmax.bloodrogue.engine.components.Experience;
+import com.sonicmax.bloodrogue.engine.components.Input;
+import com.sonicmax.bloodrogue.engine.components.Knowledge;
+import com.sonicmax.bloodrogue.engine.components.Name;
+import com.sonicmax.bloodrogue.engine.components.Physics;
+import com.sonicmax.bloodrogue.engine.components.Portal;
+import com.sonicmax.bloodrogue.engine.components.Position;
+import com.sonicmax.bloodrogue.engine.components.SelfReplicate;
+import com.sonicmax.bloodrogue.engine.components.Sprite;
+import com.sonicmax.bloodrogue.engine.components.Terrain;
+import com.sonicmax.bloodrogue.engine.components.Trap;
+import com.sonicmax.bloodrogue.engine.components.Usable;
+import com.sonicmax.bloodrogue.engine.components.Vitality;
+import com.sonicmax.bloodrogue.engine.components.Wieldable;
+import com.sonicmax.bloodrogue.renderer.Animation;
+import com.sonicmax.bloodrogue.utils.maths.Vector2D;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ *  Field layout for each component type in the binary save format. Each field is written as its
+ *  own column (one value per component), so values of the same kind sit next to each other and
+ *  varints stay small.
+ *
+ *  Column 0 always holds constructor arguments (which may be empty). Fields can be added by
+ *  appending new columns to the end of a type - older saves simply won't have them, and the
+ *  component keeps its constructor default. Never reorder or remove existing columns without
+ *  bumping SaveCodec.SCHEMA_VERSION.
+ */
+
+class ComponentColumns {
+    private StringTable stringTable;
+    private String[] strings;
+
+    // Container contents reference Sprite components which may not have been read yet
+    private ArrayList<Container> pendingContainers;
+    private ArrayList<long[]> pendingContents;
+
+    /**
+     * Creates columns for writing.
+     */
+
+    ComponentColumns(StringTable stringTable) {
+        this.stringTable = stringTable;
+    }
+
+    /**
+     * Creates columns for reading.
+     */
+
+    ComponentColumns(String[] strings) {
+        this.strings = strings;
+        this.pendingContainers = new ArrayList<>();
+        this.pendingContents = new ArrayList<>();
+    }
+
+    /**
+     * Returns number of columns written for type, including constructor column.
+     */
+
+    static int getColumnCount(int type) {
+        switch (type) {
+            case ComponentTypes.BARRIER: return 2;
+            case ComponentTypes.BLOOD: return 1;
+            case ComponentTypes.COLLECTABLE: return 4;
+            case ComponentTypes.CONTAINER: return 6;
+            case ComponentTypes.DAMAGE: return 2;
+            case ComponentTypes.DEXTERITY: return 4;
+            case ComponentTypes.DYNAMIC: return 1;
+            case ComponentTypes.ENERGY: return 4;
+            case ComponentTypes.INPUT: return 1;
+            case ComponentTypes.AI: return 9;
+            case ComponentTypes.KNOWLEDGE: return 2;
+            case ComponentTypes.EXPERIENCE: return 5;
+            case ComponentTypes.NAME: return 1;
+            case ComponentTypes.PHYSICS: return 2;
+            case ComponentTypes.PORTAL: return 4;
+            case ComponentTypes.POSITION: return 3;
+            case ComponentTypes.SELF_REPLICATE: return 3;
+            case ComponentTypes.SPRITE: return 22;
+            case ComponentTypes.TERRAIN: return 1;
+            case ComponentTypes.TRAP: return 2;
+            case ComponentTypes.USABLE: return 3;
+            case ComponentTypes.VITALITY: return 4;
+            case ComponentTypes.WIELDABLE: return 3;
+            default: return 0;
+        }
+    }
+
+    /*
+    ---------------------------------------------
+     Writing
+    ---------------------------------------------
+    */
+
+    void write(int type, int column, Component component, BinaryWriter out) {
+        if (column == 0) {
+            writeConstructorArgs(type, component, out);
+            return;
+        }
+
+        switch (type) {
+            case ComponentTypes.BARRIER:
+                out.writeBoolean(((Barrier) component).open);
+                break;
+
+            case ComponentTypes.COLLECTABLE: {
+                Collectable collectable = (Collectable) component;
+                if (column == 1) out.writeSignedInt(collectable.weight);
+                else if (column == 2) out.writeBoolean(collectable.unknown);
+                else out.writeSignedInt(collectable.identity);
+                break;
+            }
+
+            case ComponentTypes.CONTAINER: {
+                Container container = (Container) component;
+                if (column == 1) {
+                    out.writeVarInt(container.contents.size());
+                    for (Sprite sprite : container.contents) {
+                        out.writeSignedLong(sprite.id);
+                    }
+                }
+                else if (column == 2) out.writeSignedInt(container.totalWeight);
+                else if (column == 3) out.writeSignedInt(container.capacity);
+                else if (column == 4) out.writeBoolean(container.open);
+                else out.writeBoolean(container.empty);
+                break;
+            }
+
+            case ComponentTypes.DAMAGE:
+                out.writeSignedInt(((Damage) component).strength);
+                break;
+
+            case ComponentTypes.DEXTERITY: {
+                Dexterity dexterity = (Dexterity) component;
+                if (column == 1) out.writeSignedInt(dexterity.skill);
+                else if (column == 2) out.writeSignedLong(dexterity.weaponEntity);
+                else out.writeSignedLong(dexterity.armourEntity);
+                break;
+            }
+
+            case ComponentTypes.ENERGY: {
+                Energy energy = (Energy) component;
+                if (column == 1) out.writeSignedInt(energy.agility);
+                else if (column == 2) out.writeSignedInt(energy.energy);
+                else out.writeSignedInt(energy.hunger);
+                break;
+            }
+
+            case ComponentTypes.AI: {
+                AI ai = (AI) component;
+                switch (column) {
+                    case 1: out.writeBoolean(ai.computerControlled); break;
+                    case 2: writePath(ai.path, out); break;
+                    case 3: out.writeBoolean(ai.canInteract); break;
+                    case 4: out.writeSignedInt(ai.dijkstra); break;
+                    case 5: out.writeSignedInt(ai.playerInterest); break;
+                    case 6: out.writeSignedInt(ai.state); break;
+                    case 7: out.writeSignedInt(ai.affinity); break;
+                    default: out.writeSignedInt(ai.sightRadius); break;
+                }
+                break;
+            }
+
+            case ComponentTypes.KNOWLEDGE: {
+                Knowledge knowledge = (Knowledge) component;
+                out.writeVarInt(knowledge.identifiedItems.size());
+                for (Map.Entry<Integer, Integer> entry : knowledge.identifiedItems.entrySet()) {
+                    out.writeSignedInt(entry.getKey());
+                    out.writeSignedInt(entry.getValue());
+                }
+                break;
+            }
+
+            case ComponentTypes.EXPERIENCE: {
+                Experience experience = (Experience) component;
+                if (column == 1) out.writeSignedInt(experience.level);
+                else if (column == 2) out.writeSignedInt(experience.totalXp);
+                else if (column == 3) out.writeSignedInt(experience.xp);
+                else out.writeSignedInt(experience.xpToNextLevel);
+                break;
+            }
+
+            case ComponentTypes.PHYSICS: {
+                Physics physics = (Physics) component;
+                int flags = (physics.isBlocking ? 1 : 0)
+                        | (physics.isTraversable ? 1 << 1 : 0)
+                        | (physics.isGasOrLiquid ? 1 << 2 : 0)
+                        | (physics.activateOnCollide ? 1 << 3 : 0)
+                        | (physics.activateOnMove ? 1 << 4 : 0)
+                        | (physics.isDestructable ? 1 << 5 : 0);
+                out.writeVarInt(flags);
+                break;
+            }
+
+            case ComponentTypes.PORTAL: {
+                Portal portal = (Portal) component;
+                if (column == 1) out.writeSignedInt(portal.destFloor);
+                else if (column == 2) writeVector(portal.destTile, out);
+                else out.writeBoolean(portal.activateOnStep);
+                break;
+            }
+
+            case ComponentTypes.POSITION: {
+                Position position = (Position) component;
+                out.writeSignedInt(column == 1 ? position.x : position.y);
+                break;
+            }
+
+            case ComponentTypes.SELF_REPLICATE: {
+                SelfReplicate selfReplicate = (SelfReplicate) component;
+                if (column == 1) out.writeBoolean(selfReplicate.canSelfReplicate);
+                else out.writeFloat(selfReplicate.chanceToSelfReplicate);
+                break;
+            }
+
+            case ComponentTypes.SPRITE:
+                writeSpriteField((Sprite) component, column, out);
+                break;
+
+            case ComponentTypes.TRAP:
+                out.writeFloat(((Trap) component).chanceToActivate);
+                break;
+
+            case ComponentTypes.USABLE: {
+                Usable usable = (Usable) component;
+                if (column == 1) out.writeVarInt(stringTable.indexOf(usable.effect));
+                else out.writeSignedInt(usable.effectId);
+                break;
+            }
+
+            case ComponentTypes.VITALITY: {
+                Vitality vitality = (Vitality) component;
+                if (column == 1) out.writeSignedInt(vitality.maxHp);
+                else if (column == 2) out.writeSignedInt(vitality.endurance);
+                else out.writeSignedInt(vitality.hp);
+                break;
+            }
+
+            case ComponentTypes.WIELDABLE: {
+                Wieldable wieldable = (Wieldable) component;
+                out.writeSignedInt(column == 1 ? wieldable.type : wieldable.hands);
+                break;
+            }
+        }
+    }
+
+    private void writeConstructorArgs(int type, Component component, BinaryWriter out) {
+        switch (type) {
+            case ComponentTypes.BARRIER:
+                out.writeSignedInt(((Barrier) component).type);
+                break;
+
+            case ComponentTypes.BLOOD:
+                out.writeSignedInt(((Blood) component).type);
+                break;
+
+            case ComponentTypes.CONTAINER:
+                out.writeSignedInt(((Container) component).type);
+                break;
+
+            case ComponentTypes.NAME: {
+                Name name = (Name) component;
+                out.writeVarInt(stringTable.indexOf(name.value));
+                out.writeVarInt(stringTable.indexOf(name.description));
+                break;
+            }
+
+            case ComponentTypes.TERRAIN:
+                out.writeSignedInt(((Terrain) component).type);
+                break;
+        }
+    }
+
+    private void writeSpriteField(Sprite sprite, int column, BinaryWriter out) {
+        switch (column) {
+            case 1: out.writeVarInt(stringTable.indexOf(sprite.path)); break;
+            case 2: out.writeSignedInt(sprite.spriteIndex); break;
+            case 3: out.writeSignedInt(sprite.renderState); break;
+            case 4:
+                out.writeBoolean(sprite.hasIdleAnimation);
+                writeAnimation(sprite.idleAnimation, out);
+                break;
+            case 5:
+                out.writeBoolean(sprite.hasHitAnimation);
+                writeAnimation(sprite.hitAnimation, out);
+                break;
+            case 6: out.writeVarInt(stringTable.indexOf(sprite.overlayPath)); break;
+            case 7: out.writeSignedInt(sprite.overlayIndex); break;
+            case 8: out.writeSignedInt(sprite.overlayRenderState); break;
+            case 9: out.writeVarInt(stringTable.indexOf(sprite.effectPath)); break;
+            case 10: out.writeSignedInt(sprite.effectIndex); break;
+            case 11: out.writeSignedInt(sprite.effectRenderState); break;
+            case 12: out.writeSignedInt(sprite.x); break;
+            case 13: out.writeSignedInt(sprite.y); break;
+            case 14: out.writeSignedInt(sprite.lastX); break;
+            case 15: out.writeSignedInt(sprite.lastY); break;
+            case 16: out.writeSignedInt(sprite.movementStep); break;
+            case 17: out.writeSignedInt(sprite.currentAnimationState); break;
+            case 18: out.writeSignedInt(sprite.nextAnimationState); break;
+            case 19: out.writeSignedInt(sprite.zLayer); break;
+            case 20: out.writeBoolean(sprite.wrapToCube); break;
+            default: out.writeBoolean(sprite.dirty); break;
+        }
+    }
+
+    private void writePath(ArrayList<Vector2D> path, BinaryWriter out) {
+        if (path == null) {
+            out.writeVarInt(0);
+            return;
+        }
+
+        out.writeVarInt(path.size());
+
+        for (Vector2D step : path) {
+            out.writeSignedInt(step.x());
+            out.writeSignedInt(step.y());
+        }
+    }
+
+    private void writeVector(Vector2D vector, BinaryWriter out) {
+        out.writeBoolean(vector != null);
+
+        if (vector != null) {
+            out.writeSignedInt(vector.x());
+            out.writeSignedInt(vector.y());
+        }
+    }
+
+    private void writeAnimation(Animation animation, BinaryWriter out) {
+        out.writeBoolean(animation != null);
+
+        if (animation == null) return;
+
+        out.writeSignedInt(animation.x);
+        out.writeSignedInt(animation.y);
+        out.writeSignedInt(animation.type);
+        out.writeBoolean(animation.isRepeating());
+        out.writeBoolean(animation.destroyable);
+        out.writeFloat(animation.getFrameLength());
+
+        ArrayList<String> frames = animation.getFrames();
+        out.writeVarInt(frames.size());
+
+        for (String frame : frames) {
+            out.writeVarInt(stringTable.indexOf(frame));
+        }
+    }
+
+    /*
+    ---------------------------------------------
+     Reading
+    ---------------------------------------------
+    */
+
+    /**
+     * Creates component from constructor column.
+     */
+
+    Component create(int type, long id, BinaryReader in) throws SaveFormatException {
+        switch (type) {
+            case ComponentTypes.BARRIER: return new Barrier(in.readSignedInt(), id);
+            case ComponentTypes.BLOOD: return new Blood(in.readSignedInt(), id);
+            case ComponentTypes.COLLECTABLE: return new Collectable(id);
+            case ComponentTypes.CONTAINER: return new Container(in.readSignedInt(), id);
+            case ComponentTypes.DAMAGE: return new Damage(id);
+            case ComponentTypes.DEXTERITY: return new Dexterity(id);
+            case ComponentTypes.DYNAMIC: return new Dynamic(id);
+            case ComponentTypes.ENERGY: return new Energy(id);
+            case ComponentTypes.INPUT: return new Input(id);
+            case ComponentTypes.AI: return new AI(id);
+            case ComponentTypes.KNOWLEDGE: return new Knowledge(id);
+            case ComponentTypes.EXPERIENCE: return new Experience(id);
+            case ComponentTypes.NAME: {
+                String value = readString(in);
+                String description = readString(in);
+                return new Name(value, description, id);
+            }
+            case ComponentTypes.PHYSICS: return new Physics(id);
+            case ComponentTypes.PORTAL: return new Portal(id);
+            case ComponentTypes.POSITION: return new Position(id);
+            case ComponentTypes.SELF_REPLICATE: return new SelfReplicate(id);
+            case ComponentTypes.SPRITE: return new Sprite(id);
+            case ComponentTypes.TERRAIN: return new Terrain(in.readSignedInt(), id);
+            case ComponentTypes.TRAP: return new Trap(id);
+            case ComponentTypes.USABLE: return new Usable(id);
+            case ComponentTypes.VITALITY: return new Vitality(id);
+            case ComponentTypes.WIELDABLE: return new Wieldable(id);
+            default: throw new SaveFormatException("Unknown component type " + type);
+        }
+    }
+
+    void read(int type, int column, Component component, BinaryReader in) throws SaveFormatException {
+        switch (type) {
+            case ComponentTypes.BARRIER:
+                ((Barrier) component).open = in.readBoolean();
+                break;
+
+            case ComponentTypes.COLLECTABLE: {
+                Collectable collectable = (Collectable) component;
+                if (column == 1) collectable.weight = in.readSignedInt();
+                else if (column == 2) collectable.unknown = in.readBoolean();
+                else collectable.identity = in.readSignedInt();
+                break;
+            }
+
+            case ComponentTypes.CONTAINER: {
+                Container container = (Container) component;
+                if (column == 1) {
+                    long[] contents = new long[in.readVarInt()];
+                    for (int i = 0; i < contents.length; i++) {
+                        contents[i] = in.readSignedLong();
+                    }
+                    pendingContainers.add(container);
+                    pendingContents.add(contents);
+                }
+                else if (column == 2) container.totalWeight = in.readSignedInt();
+                else if (column == 3) container.capacity = in.readSignedInt();
+                else if (column == 4) container.open = in.readBoolean();
+                else container.empty = in.readBoolean();
+                break;
+            }
+
+            case ComponentTypes.DAMAGE:
+                ((Damage) component).strength = in.readSignedInt();
+                break;
+
+            case ComponentTypes.DEXTERITY: {
+                Dexterity dexterity = (Dexterity) component;
+                if (column == 1) dexterity.skill = in.readSignedInt();
+                else if (column == 2) dexterity.weaponEntity = in.readSignedLong();
+                else dexterity.armourEntity = in.readSignedLong();
+                break;
+            }
+
+            case ComponentTypes.ENERGY: {
+                Energy energy = (Energy) component;
+                if (column == 1) energy.agility = in.readSignedInt();
+                else if (column == 2) energy.energy = in.readSignedInt();
+                else energy.hunger = in.readSignedInt();
+                break;
+            }
+
+            case ComponentTypes.AI: {
+                AI ai = (AI) component;
+                switch (column) {
+                    case 1: ai.computerControlled = in.readBoolean(); break;
+                    case 2: ai.path = readPath(in); break;
+                    case 3: ai.canInteract = in.readBoolean(); break;
+                    case 4: ai.dijkstra = in.readSignedInt(); break;
+                    case 5: ai.playerInterest = in.readSignedInt(); break;
+                    case 6: ai.state = in.readSignedInt(); break;
+                    case 7: ai.affinity = in.readSignedInt(); break;
+                    default: ai.sightRadius = in.readSignedInt(); break;
+                }
+                break;
+            }
+
+            case ComponentTypes.KNOWLEDGE: {
+                Knowledge knowledge = (Knowledge) component;
+                int count = in.readVarInt();
+                for (int i = 0; i < count; i++) {
+                    int key = in.readSignedInt();
+                    knowledge.identifiedItems.put(key, in.readSignedInt());
+                }
+                break;
+            }
+
+            case ComponentTypes.EXPERIENCE: {
+                Experience experience = (Experience) component;
+                if (column == 1) experience.level = in.readSignedInt();
+                else if (column == 2) experience.totalXp = in.readSignedInt();
+                else if (column == 3) experience.xp = in.readSignedInt();
+                else experience.xpToNextLevel = in.readSignedInt();
+                break;
+            }
+
+            case ComponentTypes.PHYSICS: {
+                Physics physics = (Physics) component;
+                int flags = in.readVarInt();
+                physics.isBlocking = (flags & 1) != 0;
+                physics.isTraversable = (flags & (1 << 1)) != 0;
+                physics.isGasOrLiquid = (flags & (1 << 2)) != 0;
+                physics.activateOnCollide = (flags & (1 << 3)) != 0;
+                physics.activateOnMove = (flags & (1 << 4)) != 0;
+                physics.isDestructable = (flags & (1 << 5)) != 0;
+                break;
+            }
+
+            case ComponentTypes.PORTAL: {
+                Portal portal = (Portal) component;
+                if (column == 1) portal.destFloor = in.readSignedInt();
+                else if (column == 2) portal.destTile = readVector(in);
+                else portal.activateOnStep = in.readBoolean();
+                break;
+            }
+
+            case ComponentTypes.POSITION: {
+                Position position = (Position) component;
+                if (column == 1) position.x = in.readSignedInt();
+                else position.y = in.readSignedInt();
+                break;
+            }
+
+            case ComponentTypes.SELF_REPLICATE: {
+                SelfReplicate selfReplicate = (SelfReplicate) component;
+                if (column == 1) selfReplicate.canSelfReplicate = in.readBoolean();
+                else selfReplicate.chanceToSelfReplicate = in.readFloat();
+                break;
+            }
+
+            case ComponentTypes.SPRITE:
+                readSpriteField((Sprite) component, column, in);
+                break;
+
+            case ComponentTypes.TRAP:
+                ((Trap) component).chanceToActivate = in.readFloat();
+                break;
+
+            case ComponentTypes.USABLE: {
+                Usable usable = (Usable) component;
+                if (column == 1) usable.effect = readString(in);
+                else usable.effectId = in.readSignedInt();
+                break;
+            }
+
+            case ComponentTypes.VITALITY: {
+                Vitality vitality = (Vitality) component;
+                if (column == 1) vitality.maxHp = in.readSignedInt();
+                else if (column == 2) vitality.endurance = in.readSignedInt();
+                else vitality.hp = in.readSignedInt();
+                break;
+            }
+
+            case ComponentTypes.WIELDABLE: {
+                Wieldable wieldable = (Wieldable) component;
+                if (column == 1) wieldable.type = in.readSignedInt();
+                else wieldable.hands = in.readSignedInt();
+                break;
+            }
+        }
+    }
+
+    /**
+     * Fills container contents once all Sprite components have been read.
+     */
+
+    void resolveContainers(SaveCodec.ComponentLookup lookup) throws SaveFormatException {
+        for (int i = 0; i < pendingContainers.size(); i++) {
+            Container container = pendingContainers.get(i);
+            long[] contents = pendingContents.get(i);
+
+            for (long entity : contents) {
+                Sprite sprite = (Sprite) lookup.get(entity, ComponentTypes.SPRITE);
+
+                if (sprite == null) {
+                    throw new SaveFormatException("Container " + container.id + " references missing sprite " + entity);
+                }
+
+                container.contents.add(sprite);
+            }
+        }
+
+        pendingContainers.clear();
+        pendingContents.clear();
+    }
+
+    private void readSpriteField(Sprite sprite, int column, BinaryReader in) throws SaveFormatException {
+        switch (column) {
+            case 1: sprite.path = readString(in); break;
+            case 2: sprite.spriteIndex = in.readSignedInt(); break;
+            case 3: sprite.renderState = in.readSignedInt(); break;
+            case 4:
+                sprite.hasIdleAnimation = in.readBoolean();
+                sprite.idleAnimation = readAnimation(in);
+                break;
+            case 5:
+                sprite.hasHitAnimation = in.readBoolean();
+                sprite.hitAnimation = readAnimation(in);
+                break;
+            case 6: sprite.overlayPath = readString(in); break;
+            case 7: sprite.overlayIndex = in.readSignedInt(); break;
+            case 8: sprite.overlayRenderState = in.readSignedInt(); break;
+            case 9: sprite.effectPath = readString(in); break;
+            case 10: sprite.effectIndex = in.readSignedInt(); break;
+            case 11: sprite.effectRenderState = in.readSignedInt(); break;
+            case 12: sprite.x = in.readSignedInt(); break;
+            case 13: sprite.y = in.readSignedInt(); break;
+            case 14: sprite.lastX = in.readSignedInt(); break;
+            case 15: sprite.lastY = in.readSignedInt(); break;
+            case 16: sprite.movementStep = in.readSignedInt(); break;
+            case 17: sprite.currentAnimationState = in.readSignedInt(); break;
+            case 18: sprite.nextAnimationState = in.readSignedInt(); break;
+            case 19: sprite.zLayer = in.readSignedInt(); break;
+            case 20: sprite.wrapToCube = in.readBoolean(); break;
+            default: sprite.dirty = in.readBoolean(); break;
+        }
+    }
+
+    private String readString(BinaryReader in) throws SaveFormatException {
+        int index = in.readVarInt();
+
+        if (index >= strings.length) {
+            throw new SaveFormatException("String index out of range: " + index);
+        }
+
+        return strings[index];
+    }
+
+    private ArrayList<Vector2D> readPath(BinaryReader in) throws SaveFormatException {
+        int length = in.readVarInt();
+        ArrayList<Vector2D> path = new ArrayList<>(length);
+
+        for (int i = 0; i < length; i++) {
+            int x = in.readSignedInt();
+            path.add(new Vector2D(x, in.readSignedInt()));
+        }
+
+        return path;
+    }
+
+    private Vector2D readVector(BinaryReader in) throws SaveFormatException {
+        if (!in.readBoolean()) return null;
+
+        int x = in.readSignedInt();
+        return new Vector2D(x, in.readSignedInt());
+    }
+
+    private Animation readAnimation(BinaryReader in) throws SaveFormatException {
+        if (!in.readBoolean()) return null;
+
+        int x = in.readSignedInt();
+        int y = in.readSignedInt();
+        Animation animation = new Animation(x, y);
+        animation.type = in.readSignedInt();
+        animation.setRepeating(in.readBoolean());
+        animation.setDestroyable(in.readBoolean());
+        animation.setFrameLength(in.readFloat());
+
+        int frameCount = in.readVarInt();
+        ArrayList<String> frames = new ArrayList<>(frameCount);
+
+        for (int i = 0; i < frameCount; i++) {
+            frames.add(readString(in));
+        }
+
+        animation.setFrames(frames);
+        return animation;
+    }
+}
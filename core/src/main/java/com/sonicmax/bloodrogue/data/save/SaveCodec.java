@@ -0,0 +1,638 @@
+package com.sonicmax.bloodrogue.data.save;
+
+import com.sonicmax.bloodrogue.engine.Component;
+import com.sonicmax.bloodrogue.engine.ComponentTypes;
+import com.sonicmax.bloodrogue.engine.FloorData;
+import com.sonicmax.bloodrogue.engine.GameState;
+import com.sonicmax.bloodrogue.engine.components.Container;
+import com.sonicmax.bloodrogue.engine.components.Sprite;
+import com.sonicmax.bloodrogue.utils.Array2DHelper;
+import com.sonicmax.bloodrogue.utils.collections.LongIntMap;
+import com.sonicmax.bloodrogue.utils.maths.Vector2D;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ *  Converts GameState to and from a compact binary format.
+ *
+ *  Layout:
+ *      int magic ("BRSV"), varint schema version
+ *      block: string table
+ *      varint current floor
+ *      varint section count, then for each component type: varint type, block: section
+ *          section = varint count, entity ids (sorted, delta encoded), varint column count,
+ *          then one block per column (see ComponentColumns)
+ *      entity list: player
+ *      varint floor count, then for each floor: block: floor
+ *          floor = varint index, varint width, varint height, terrain, entrance, exit, object
+ *          stacks, entity list: player, streamed origin (schema version 2+), parked objects
+ *          (schema version 3+)
+ *
+ *  Saves can also be split into segments (see SaveManager). Player segment contains header, string
+ *  table, current floor, sections for player components and player entity list. Each floor segment
+ *  contains header, string table, sections for the floor's components (excluding those stored in
+ *  player segment) and the floor itself.
+ *
+ *  Each component instance is written once, even if it appears on several floors (eg. the player),
+ *  and is shared again after loading - the same as Java serialization would do. Entities in floor
+ *  grids and component arrays are written as an entity id plus the list of component types, in the
+ *  order they appeared in the original array.
+ */
+
+public class SaveCodec {
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    public static final int MAGIC = 0x42525356;
+    // 2: floors end with streamed exterior origin
+    // 3: floors end with entities parked outside streamed exterior window
+    public static final int SCHEMA_VERSION = 3;
+
+    /**
+     * Used by ComponentColumns to resolve references between components.
+     */
+
+    interface ComponentLookup {
+        Component get(long entity, int type);
+    }
+
+    /**
+     * Returns true if data starts with binary save header. Used to tell binary saves apart from
+     * older saves written with ObjectOutputStream.
+     */
+
+    public static boolean isBinarySave(byte[] data) {
+        if (data.length < 4) return false;
+
+        int magic = ((data[0] & 0xFF) << 24) | ((data[1] & 0xFF) << 16) | ((data[2] & 0xFF) << 8) | (data[3] & 0xFF);
+        return magic == MAGIC;
+    }
+
+    /*
+    ---------------------------------------------
+     Encoding
+    ---------------------------------------------
+    */
+
+    public static byte[] encode(GameState state) {
+        ComponentSet components = new ComponentSet(null);
+        ArrayList<FloorData> floors = state.getFloors();
+
+        components.addAll(state.getPlayer());
+
+        for (FloorData floor : floors) {
+            components.addAll(floor.getPlayer());
+            addFloorObjects(floor, components);
+        }
+
+        addContainerContents(components);
+
+        StringTable strings = new StringTable();
+        BinaryWriter body = new BinaryWriter(64 * 1024);
+        BinaryWriter block = new BinaryWriter();
+
+        body.writeVarInt(state.getCurrentFloorIndex());
+        writeSections(components, new ComponentColumns(strings), body);
+        writeEntityList(state.getPlayer(), body);
+
+        body.writeVarInt(floors.size());
+
+        for (FloorData floor : floors) {
+            block.reset();
+            writeFloor(floor, block);
+            body.writeBlock(block);
+        }
+
+        return finish(strings, body);
+    }
+
+    /**
+     * Encodes player segment: player components, inventory and current floor index. Floors are
+     * encoded separately using encodeFloor(), so that unchanged floors don't have to be rewritten.
+     */
+
+    public static byte[] encodePlayer(GameState state) {
+        ComponentSet components = collectPlayer(state);
+        StringTable strings = new StringTable();
+        BinaryWriter body = new BinaryWriter(4096);
+
+        body.writeVarInt(state.getCurrentFloorIndex());
+        writeSections(components, new ComponentColumns(strings), body);
+        writeEntityList(state.getPlayer(), body);
+
+        return finish(strings, body);
+    }
+
+    /**
+     * Encodes floor segment. Components belonging to player segment are referenced by entity id,
+     * but aren't written again.
+     */
+
+    public static byte[] encodeFloor(GameState state, FloorData floor) {
+        ComponentSet components = new ComponentSet(collectPlayer(state));
+        addFloorObjects(floor, components);
+        addContainerContents(components);
+
+        StringTable strings = new StringTable();
+        BinaryWriter body = new BinaryWriter(64 * 1024);
+
+        writeSections(components, new ComponentColumns(strings), body);
+        writeFloor(floor, body);
+
+        return finish(strings, body);
+    }
+
+    private static ComponentSet collectPlayer(GameState state) {
+        ComponentSet components = new ComponentSet(null);
+        components.addAll(state.getPlayer());
+        addContainerContents(components);
+        return components;
+    }
+
+    private static void addFloorObjects(FloorData floor, ComponentSet components) {
+        ArrayList<Component[]>[][] objects = floor.getObjects();
+
+        for (int x = 0; x < objects.length; x++) {
+            for (int y = 0; y < objects[x].length; y++) {
+                for (Component[] object : objects[x][y]) {
+                    components.addAll(object);
+                }
+            }
+        }
+
+        for (Component[] object : floor.getParkedObjects()) {
+            components.addAll(object);
+        }
+    }
+
+    private static void addContainerContents(ComponentSet components) {
+        // Sprites of items stored in containers (eg. player inventory) aren't in any floor grid
+        ArrayList<Component> containers = components.byType.get(ComponentTypes.CONTAINER);
+
+        for (int i = 0; i < containers.size(); i++) {
+            for (Sprite sprite : ((Container) containers.get(i)).contents) {
+                components.add(sprite);
+            }
+        }
+    }
+
+    private static void writeSections(ComponentSet components, ComponentColumns columns, BinaryWriter out) {
+        BinaryWriter block = new BinaryWriter();
+        int sectionCount = 0;
+
+        for (int type = 0; type < ComponentTypes.COUNT; type++) {
+            if (components.byType.get(type).size() > 0) sectionCount++;
+        }
+
+        out.writeVarInt(sectionCount);
+
+        for (int type = 0; type < ComponentTypes.COUNT; type++) {
+            ArrayList<Component> list = components.byType.get(type);
+            if (list.size() == 0) continue;
+
+            Collections.sort(list, BY_ENTITY);
+
+            block.reset();
+            writeSection(type, list, columns, block);
+            out.writeVarInt(type);
+            out.writeBlock(block);
+        }
+    }
+
+    /**
+     * Prepends header and string table to body. String table can only be written once body has
+     * been encoded.
+     */
+
+    private static byte[] finish(StringTable strings, BinaryWriter body) {
+        BinaryWriter table = new BinaryWriter();
+        strings.write(table);
+
+        BinaryWriter out = new BinaryWriter(body.size() + table.size() + 16);
+        out.writeInt(MAGIC);
+        out.writeVarInt(SCHEMA_VERSION);
+        out.writeBlock(table);
+        out.writeBytes(body.toByteArray(), 0, body.size());
+
+        return out.toByteArray();
+    }
+
+    private static void writeSection(int type, ArrayList<Component> list, ComponentColumns columns, BinaryWriter out) {
+        int count = list.size();
+        out.writeVarInt(count);
+
+        long previous = 0;
+
+        for (int i = 0; i < count; i++) {
+            long id = list.get(i).id;
+            out.writeSignedLong(id - previous);
+            previous = id;
+        }
+
+        int columnCount = ComponentColumns.getColumnCount(type);
+        out.writeVarInt(columnCount);
+
+        BinaryWriter column = new BinaryWriter(count * 2);
+
+        for (int c = 0; c < columnCount; c++) {
+            column.reset();
+
+            for (int i = 0; i < count; i++) {
+                columns.write(type, c, list.get(i), column);
+            }
+
+            out.writeBlock(column);
+        }
+    }
+
+    private static void writeFloor(FloorData floor, BinaryWriter out) {
+        int[][] terrain = floor.getTerrain();
+        ArrayList<Component[]>[][] objects = floor.getObjects();
+        int width = terrain.length;
+        int height = terrain[0].length;
+
+        out.writeVarInt(floor.getIndex());
+        out.writeVarInt(width);
+        out.writeVarInt(height);
+
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                out.writeSignedInt(terrain[x][y]);
+            }
+        }
+
+        writeVector(floor.entrancePosition, out);
+        writeVector(floor.exitPosition, out);
+
+        long previous = 0;
+
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                ArrayList<Component[]> stack = objects[x][y];
+                out.writeVarInt(stack.size());
+
+                for (Component[] object : stack) {
+                    long entity = object[0].id;
+                    out.writeSignedLong(entity - previous);
+                    writeTypes(object, out);
+                    previous = entity;
+                }
+            }
+        }
+
+        writeEntityList(floor.getPlayer(), out);
+        writeVector(floor.streamedOrigin, out);
+
+        ArrayList<Component[]> parked = floor.getParkedObjects();
+        out.writeVarInt(parked.size());
+
+        for (Component[] object : parked) {
+            out.writeSignedLong(object[0].id);
+            writeTypes(object, out);
+        }
+    }
+
+    /**
+     * Writes component arrays belonging to a single entity (eg. player) as entity id + type mask.
+     */
+
+    private static void writeEntityList(Component[] components, BinaryWriter out) {
+        if (components == null || components.length == 0) {
+            out.writeBoolean(false);
+            return;
+        }
+
+        out.writeBoolean(true);
+        out.writeSignedLong(components[0].id);
+        writeTypes(components, out);
+    }
+
+    private static void writeTypes(Component[] components, BinaryWriter out) {
+        int count = 0;
+
+        for (Component component : components) {
+            if (ComponentTypes.fromTag(component.TAG) != ComponentTypes.NONE) count++;
+        }
+
+        out.writeVarInt(count);
+
+        for (Component component : components) {
+            int type = ComponentTypes.fromTag(component.TAG);
+            if (type != ComponentTypes.NONE) out.writeVarInt(type);
+        }
+    }
+
+    private static void writeVector(Vector2D vector, BinaryWriter out) {
+        out.writeBoolean(vector != null);
+
+        if (vector != null) {
+            out.writeSignedInt(vector.x());
+            out.writeSignedInt(vector.y());
+        }
+    }
+
+    /*
+    ---------------------------------------------
+     Decoding
+    ---------------------------------------------
+    */
+
+    public static GameState decode(byte[] data) throws SaveFormatException {
+        BinaryReader in = new BinaryReader(data);
+        ComponentColumns columns = readHeader(in);
+        ComponentSet components = new ComponentSet(null);
+
+        int currentFloor = in.readVarInt();
+        readSections(in, columns, components);
+
+        GameState state = new GameState();
+        state.setPlayer(readEntityList(in, components));
+
+        int floorCount = in.readVarInt();
+        ArrayList<FloorData> floors = new ArrayList<>(floorCount);
+
+        for (int i = 0; i < floorCount; i++) {
+            floors.add(readFloor(in.readBlock(), components));
+        }
+
+        state.addFloors(floors);
+        state.updateFloorIndex(currentFloor);
+
+        return state;
+    }
+
+    /**
+     * Decodes segments written by encodePlayer() and encodeFloor(). Floor segments should be
+     * ordered by floor index.
+     */
+
+    public static GameState decodeSegments(byte[] playerData, ArrayList<byte[]> floorData) throws SaveFormatException {
+        BinaryReader in = new BinaryReader(playerData);
+        ComponentColumns columns = readHeader(in);
+        ComponentSet playerComponents = new ComponentSet(null);
+
+        int currentFloor = in.readVarInt();
+        readSections(in, columns, playerComponents);
+
+        GameState state = new GameState();
+        state.setPlayer(readEntityList(in, playerComponents));
+
+        ArrayList<FloorData> floors = new ArrayList<>(floorData.size());
+
+        for (byte[] data : floorData) {
+            BinaryReader floorIn = new BinaryReader(data);
+            ComponentColumns floorColumns = readHeader(floorIn);
+            ComponentSet components = new ComponentSet(playerComponents);
+
+            readSections(floorIn, floorColumns, components);
+            floors.add(readFloor(floorIn, components));
+        }
+
+        state.addFloors(floors);
+        state.updateFloorIndex(currentFloor);
+
+        return state;
+    }
+
+    /**
+     * Checks magic number and version, and returns columns for reading the rest of the data.
+     */
+
+    private static ComponentColumns readHeader(BinaryReader in) throws SaveFormatException {
+        if (in.readInt() != MAGIC) {
+            throw new SaveFormatException("Not a binary save file");
+        }
+
+        int version = in.readVarInt();
+
+        if (version > SCHEMA_VERSION) {
+            throw new SaveFormatException("Save was written by newer version (" + version + ")");
+        }
+
+        return new ComponentColumns(StringTable.read(in.readBlock()));
+    }
+
+    private static void readSections(BinaryReader in, ComponentColumns columns, final ComponentSet components)
+            throws SaveFormatException {
+
+        int sectionCount = in.readVarInt();
+
+        for (int i = 0; i < sectionCount; i++) {
+            int type = in.readVarInt();
+            BinaryReader section = in.readBlock();
+
+            // Sections for component types we don't know about are skipped
+            if (type >= 0 && type < ComponentTypes.COUNT) {
+                readSection(type, section, columns, components);
+            }
+        }
+
+        columns.resolveContainers(new ComponentLookup() {
+            @Override
+            public Component get(long entity, int type) {
+                return components.get(entity, type);
+            }
+        });
+    }
+
+    private static void readSection(int type, BinaryReader in, ComponentColumns columns, ComponentSet components)
+            throws SaveFormatException {
+
+        int count = in.readVarInt();
+        long[] ids = new long[count];
+        long previous = 0;
+
+        for (int i = 0; i < count; i++) {
+            previous += in.readSignedLong();
+            ids[i] = previous;
+        }
+
+        int storedColumns = in.readVarInt();
+
+        if (storedColumns == 0) {
+            throw new SaveFormatException("Missing constructor column for type " + type);
+        }
+
+        Component[] created = new Component[count];
+        BinaryReader constructorColumn = in.readBlock();
+
+        for (int i = 0; i < count; i++) {
+            created[i] = columns.create(type, ids[i], constructorColumn);
+            components.add(created[i]);
+        }
+
+        int knownColumns = ComponentColumns.getColumnCount(type);
+
+        for (int c = 1; c < storedColumns; c++) {
+            BinaryReader column = in.readBlock();
+
+            // Columns added by newer versions are skipped. Columns missing from older saves keep
+            // their constructor defaults.
+            if (c >= knownColumns) continue;
+
+            for (int i = 0; i < count; i++) {
+                columns.read(type, c, created[i], column);
+            }
+        }
+    }
+
+    private static FloorData readFloor(BinaryReader in, ComponentSet components) throws SaveFormatException {
+        int index = in.readVarInt();
+        int width = in.readVarInt();
+        int height = in.readVarInt();
+
+        int[][] terrain = new int[width][height];
+
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                terrain[x][y] = in.readSignedInt();
+            }
+        }
+
+        Vector2D entrance = readVector(in);
+        Vector2D exit = readVector(in);
+
+        ArrayList<Component[]>[][] objects = Array2DHelper.createComponentGrid(width, height);
+        long previous = 0;
+
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                int stackSize = in.readVarInt();
+
+                for (int i = 0; i < stackSize; i++) {
+                    previous += in.readSignedLong();
+                    objects[x][y].add(components.getAll(previous, in));
+                }
+            }
+        }
+
+        Component[] player = readEntityList(in, components);
+
+        FloorData floor = new FloorData(index, terrain, objects, player);
+        floor.setEntrance(entrance);
+        floor.setExit(exit);
+
+        // Floors written before schema version 2 end after player
+        if (in.hasRemaining()) {
+            floor.setStreamedOrigin(readVector(in));
+        }
+
+        // Floors written before schema version 3 end after streamed origin
+        if (in.hasRemaining()) {
+            int parkedCount = in.readVarInt();
+            ArrayList<Component[]> parked = new ArrayList<>(parkedCount);
+
+            for (int i = 0; i < parkedCount; i++) {
+                parked.add(components.getAll(in.readSignedLong(), in));
+            }
+
+            floor.setParkedObjects(parked);
+        }
+
+        return floor;
+    }
+
+    private static Component[] readEntityList(BinaryReader in, ComponentSet components) throws SaveFormatException {
+        if (!in.readBoolean()) return null;
+
+        long entity = in.readSignedLong();
+        return components.getAll(entity, in);
+    }
+
+    private static Vector2D readVector(BinaryReader in) throws SaveFormatException {
+        if (!in.readBoolean()) return null;
+
+        int x = in.readSignedInt();
+        return new Vector2D(x, in.readSignedInt());
+    }
+
+    /*
+    ---------------------------------------------
+     Helper classes
+    ---------------------------------------------
+    */
+
+    private static final Comparator<Component> BY_ENTITY = new Comparator<Component>() {
+        @Override
+        public int compare(Component a, Component b) {
+            return (a.id < b.id) ? -1 : ((a.id == b.id) ? 0 : 1);
+        }
+    };
+
+    /**
+     * Unique component instances grouped by type, with lookup by entity. Components already held
+     * by shared set (if any) are not added again, but can still be looked up.
+     */
+
+    private static class ComponentSet {
+        final ComponentSet shared;
+        final ArrayList<ArrayList<Component>> byType;
+        final LongIntMap[] indices;
+
+        ComponentSet(ComponentSet shared) {
+            this.shared = shared;
+            byType = new ArrayList<>(ComponentTypes.COUNT);
+            indices = new LongIntMap[ComponentTypes.COUNT];
+
+            for (int i = 0; i < ComponentTypes.COUNT; i++) {
+                byType.add(new ArrayList<Component>());
+                indices[i] = new LongIntMap();
+            }
+        }
+
+        void addAll(Component[] components) {
+            if (components == null) return;
+
+            for (Component component : components) {
+                add(component);
+            }
+        }
+
+        void add(Component component) {
+            int type = ComponentTypes.fromTag(component.TAG);
+            if (type == ComponentTypes.NONE || indices[type].containsKey(component.id)) return;
+            if (shared != null && shared.get(component.id, type) != null) return;
+
+            indices[type].put(component.id, byType.get(type).size());
+            byType.get(type).add(component);
+        }
+
+        Component get(long entity, int type) {
+            int index = indices[type].get(entity);
+
+            if (index != LongIntMap.NO_VALUE) {
+                return byType.get(type).get(index);
+            }
+
+            return (shared != null) ? shared.get(entity, type) : null;
+        }
+
+        /**
+         * Reads list of types written by writeTypes() and returns matching components for entity.
+         */
+
+        Component[] getAll(long entity, BinaryReader in) throws SaveFormatException {
+            int count = in.readVarInt();
+            ArrayList<Component> result = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                int type = in.readVarInt();
+
+                // Component types we don't know about were skipped when reading sections
+                if (type < 0 || type >= ComponentTypes.COUNT) continue;
+
+                Component component = get(entity, type);
+
+                if (component == null) {
+                    throw new SaveFormatException("Entity " + entity + " references missing component type " + type);
+                }
+
+                result.add(component);
+            }
+
+            return result.toArray(new Component[result.size()]);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.sonicmax.bloodrogue.data.save;
+
+import java.io.IOException;
+
+/**
+ *  Thrown when save data is truncated, corrupted, or was written by a newer version of the game.
+ */
+
+public class SaveFormatException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public SaveFormatException(String message) {
+        super(message);
+    }
+}
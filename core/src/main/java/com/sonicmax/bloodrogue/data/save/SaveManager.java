@@ -0,0 +1,498 @@
+package com.sonicmax.bloodrogue.data.save;
+
+import com.sonicmax.bloodrogue.engine.FloorData;
+import com.sonicmax.bloodrogue.engine.GameState;
+import com.sonicmax.bloodrogue.utils.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+
+/**
+ *  Writes game state to disk incrementally. The save is split into a player segment and one segment
+ *  per floor (see SaveCodec), plus a manifest which lists the segment files making up the save.
+ *
+ *  save() is called from the engine thread. It encodes the player and any floors marked as dirty in
+ *  GameState - the encoded bytes are a snapshot, so the engine is free to keep changing components.
+ *  Writing and syncing the files is done on a background thread. New segments are written to new
+ *  files, and the manifest is replaced by renaming a temporary file over it, so if the game is
+ *  killed mid-write the previous manifest and all the segments it references are still intact.
+ *
+ *  A segment keeps its encoded data until it has been synced, so if a write fails, the next write
+ *  task rewrites it before any manifest referencing it is written.
+ */
+
+public class SaveManager {
+    private static final String LOG_TAG = "SaveManager";
+
+    private static final String MANIFEST = "save.manifest";
+    private static final String MANIFEST_TEMP = "save.manifest.tmp";
+    private static final String SEGMENT_EXTENSION = ".seg";
+
+    private static final int MANIFEST_MAGIC = 0x42524D46; // "BRMF"
+    private static final int MANIFEST_VERSION = 1;
+
+    private final File directory;
+    private final ExecutorService writer;
+
+    // Segments referenced by the most recently queued manifest. Only accessed from save()/load()
+    private Segment playerSegment;
+    private final ArrayList<Segment> floorSegments;
+    private int generation;
+
+    // Files to remove once a manifest has been written successfully (eg. saves in older formats)
+    private final ArrayList<File> obsoleteFiles;
+
+    private Future<?> pendingWrite;
+
+    // Metrics
+    private volatile long lastSnapshotTime;
+    private volatile long lastWriteTime;
+
+    public SaveManager(File directory) {
+        this.directory = directory;
+        this.writer = Executors.newSingleThreadExecutor(new WriterThreadFactory());
+        this.floorSegments = new ArrayList<>();
+        this.obsoleteFiles = new ArrayList<>();
+
+        // Start after any segments already on disk, even if they never get loaded (new game, or
+        // save couldn't be read). Otherwise first save could overwrite files the manifest uses
+        this.generation = findLatestGeneration();
+    }
+
+    public boolean hasSave() {
+        return new File(directory, MANIFEST).exists();
+    }
+
+    /**
+     * Deletes file after next manifest has been written. Used to clean up saves in older formats
+     * once they have been migrated.
+     */
+
+    public synchronized void deleteAfterNextSave(File file) {
+        obsoleteFiles.add(file);
+    }
+
+    /*
+    ---------------------------------------------
+     Saving
+    ---------------------------------------------
+    */
+
+    /**
+     * Snapshots player and dirty floors, then queues them to be written on the writer thread.
+     * Floors which haven't changed since last save keep their existing segment files.
+     */
+
+    public synchronized void save(GameState state) {
+        long start = System.nanoTime();
+
+        generation++;
+
+        ArrayList<FloorData> floors = state.getFloors();
+
+        playerSegment = new Segment("player_" + generation + SEGMENT_EXTENSION, SaveCodec.encodePlayer(state));
+
+        for (int i = 0; i < floors.size(); i++) {
+            int floorNumber = i + 1;
+
+            if (i < floorSegments.size() && !state.isFloorDirty(floorNumber)) {
+                continue;
+            }
+
+            String name = "floor_" + floorNumber + "_" + generation + SEGMENT_EXTENSION;
+            Segment segment = new Segment(name, SaveCodec.encodeFloor(state, floors.get(i)));
+
+            if (i < floorSegments.size()) {
+                floorSegments.set(i, segment);
+            }
+            else {
+                floorSegments.add(segment);
+            }
+        }
+
+        state.clearDirtyFloors();
+
+        WriteTask task = new WriteTask(generation, playerSegment, new ArrayList<>(floorSegments),
+                new ArrayList<>(obsoleteFiles));
+
+        obsoleteFiles.clear();
+
+        lastSnapshotTime = System.nanoTime() - start;
+        pendingWrite = writer.submit(task);
+    }
+
+    /**
+     * Blocks until queued writes have finished. Call before the process is likely to be killed.
+     */
+
+    public void flush() {
+        Future<?> write;
+
+        synchronized (this) {
+            write = pendingWrite;
+        }
+
+        if (write == null) return;
+
+        try {
+            write.get();
+        } catch (Exception e) {
+            Log.e(LOG_TAG, "Error while waiting for save to finish", e);
+        }
+    }
+
+    public void shutdown() {
+        flush();
+        writer.shutdown();
+    }
+
+    public long getLastSnapshotTime() {
+        return lastSnapshotTime;
+    }
+
+    public long getLastWriteTime() {
+        return lastWriteTime;
+    }
+
+    /*
+    ---------------------------------------------
+     Loading
+    ---------------------------------------------
+    */
+
+    /**
+     * Loads save referenced by manifest. Returns null if no save exists.
+     *
+     * @throws SaveFormatException if manifest or segments are corrupted
+     */
+
+    public synchronized GameState load() throws IOException {
+        // Make sure we read whatever was saved last
+        flush();
+
+        File manifestFile = new File(directory, MANIFEST);
+
+        if (!manifestFile.exists()) {
+            return null;
+        }
+
+        BinaryReader manifest = new BinaryReader(readFile(manifestFile));
+
+        if (manifest.readInt() != MANIFEST_MAGIC) {
+            throw new SaveFormatException("Not a save manifest");
+        }
+
+        int version = manifest.readVarInt();
+
+        if (version > MANIFEST_VERSION) {
+            throw new SaveFormatException("Manifest was written by newer version (" + version + ")");
+        }
+
+        int savedGeneration = manifest.readVarInt();
+        Segment player = readSegmentInfo(manifest);
+
+        int floorCount = manifest.readVarInt();
+        ArrayList<Segment> floors = new ArrayList<>(floorCount);
+
+        for (int i = 0; i < floorCount; i++) {
+            floors.add(readSegmentInfo(manifest));
+        }
+
+        ArrayList<byte[]> floorData = new ArrayList<>(floorCount);
+
+        for (Segment floor : floors) {
+            floorData.add(readSegment(floor));
+        }
+
+        GameState state = SaveCodec.decodeSegments(readSegment(player), floorData);
+
+        // Save was loaded successfully, so unchanged floors can keep using these segments
+        this.generation = Math.max(generation, savedGeneration);
+        this.playerSegment = player;
+        this.floorSegments.clear();
+        this.floorSegments.addAll(floors);
+
+        return state;
+    }
+
+    private Segment readSegmentInfo(BinaryReader in) throws SaveFormatException {
+        String name = in.readUtf8(in.readVarInt());
+        int length = in.readVarInt();
+        int checksum = in.readInt();
+
+        return new Segment(name, length, checksum);
+    }
+
+    private byte[] readSegment(Segment segment) throws IOException {
+        byte[] data = readFile(new File(directory, segment.name));
+
+        if (data.length != segment.length || checksum(data) != segment.checksum) {
+            throw new SaveFormatException("Segment " + segment.name + " doesn't match manifest");
+        }
+
+        return data;
+    }
+
+    /*
+    ---------------------------------------------
+     Writer thread
+    ---------------------------------------------
+    */
+
+    private class WriteTask implements Runnable {
+        private final int generation;
+        private final Segment player;
+        private final ArrayList<Segment> floors;
+        private final ArrayList<File> obsoleteFiles;
+
+        WriteTask(int generation, Segment player, ArrayList<Segment> floors, ArrayList<File> obsoleteFiles) {
+            this.generation = generation;
+            this.player = player;
+            this.floors = floors;
+            this.obsoleteFiles = obsoleteFiles;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+
+            try {
+                // Segment names are unique to each generation, so existing files are never overwritten.
+                // This also picks up segments from earlier tasks which failed before syncing them
+                writeSegment(player);
+
+                for (Segment floor : floors) {
+                    writeSegment(floor);
+                }
+
+                writeFile(new File(directory, MANIFEST_TEMP), encodeManifest());
+
+                if (!new File(directory, MANIFEST_TEMP).renameTo(new File(directory, MANIFEST))) {
+                    throw new IOException("Couldn't replace manifest");
+                }
+
+                // Rename isn't durable until directory entry has been synced
+                syncDirectory(directory);
+
+            } catch (IOException e) {
+                // Unsynced segments keep their data, so next task will write them again
+                Log.e(LOG_TAG, "Error while writing save", e);
+                return;
+            }
+
+            deleteUnreferencedSegments();
+
+            for (File file : obsoleteFiles) {
+                if (file.exists() && !file.delete()) {
+                    Log.w(LOG_TAG, "Couldn't delete " + file.getName());
+                }
+            }
+
+            lastWriteTime = System.nanoTime() - start;
+        }
+
+        private void writeSegment(Segment segment) throws IOException {
+            byte[] data = segment.data;
+            if (data == null) return;
+
+            writeFile(new File(directory, segment.name), data);
+            segment.data = null;
+        }
+
+        private byte[] encodeManifest() {
+            BinaryWriter out = new BinaryWriter();
+            out.writeInt(MANIFEST_MAGIC);
+            out.writeVarInt(MANIFEST_VERSION);
+            out.writeVarInt(generation);
+
+            writeSegmentInfo(player, out);
+            out.writeVarInt(floors.size());
+
+            for (Segment floor : floors) {
+                writeSegmentInfo(floor, out);
+            }
+
+            return out.toByteArray();
+        }
+
+        private void writeSegmentInfo(Segment segment, BinaryWriter out) {
+            byte[] name = segment.name.getBytes(SaveCodec.UTF_8);
+            out.writeVarInt(name.length);
+            out.writeBytes(name, 0, name.length);
+            out.writeVarInt(segment.length);
+            out.writeInt(segment.checksum);
+        }
+
+        /**
+         * Removes segments left behind by previous generations (or by writes that were interrupted).
+         */
+
+        private void deleteUnreferencedSegments() {
+            HashSet<String> referenced = new HashSet<>();
+            referenced.add(player.name);
+
+            for (Segment floor : floors) {
+                referenced.add(floor.name);
+            }
+
+            File[] files = directory.listFiles();
+            if (files == null) return;
+
+            for (File file : files) {
+                String name = file.getName();
+
+                if (name.endsWith(SEGMENT_EXTENSION) && !referenced.contains(name)) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    private static class WriterThreadFactory implements ThreadFactory {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "SaveWriter");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /*
+    ---------------------------------------------
+     Helper methods/classes
+    ---------------------------------------------
+    */
+
+    /**
+     * Returns highest generation used by segment files in save directory, or 0 if there aren't any.
+     * Segment names end with "_" followed by their generation (see save()).
+     */
+
+    private int findLatestGeneration() {
+        File[] files = directory.listFiles();
+        if (files == null) return 0;
+
+        int latest = 0;
+
+        for (File file : files) {
+            String name = file.getName();
+
+            if (!name.endsWith(SEGMENT_EXTENSION)) continue;
+
+            int end = name.length() - SEGMENT_EXTENSION.length();
+            int start = name.lastIndexOf('_', end) + 1;
+
+            try {
+                latest = Math.max(latest, Integer.parseInt(name.substring(start, end)));
+            } catch (NumberFormatException e) {
+                Log.w(LOG_TAG, "Unexpected segment name " + name);
+            }
+        }
+
+        return latest;
+    }
+
+    private static class Segment {
+        final String name;
+        final int length;
+        final int checksum;
+
+        // Encoded data waiting to be written. Cleared by writer thread once file has been synced
+        volatile byte[] data;
+
+        Segment(String name, byte[] data) {
+            this.name = name;
+            this.length = data.length;
+            this.checksum = checksum(data);
+            this.data = data;
+        }
+
+        Segment(String name, int length, int checksum) {
+            this.name = name;
+            this.length = length;
+            this.checksum = checksum;
+            this.data = null;
+        }
+    }
+
+    private static int checksum(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Writes data to file and syncs it to disk before returning.
+     */
+
+    static void writeFile(File file, byte[] data) throws IOException {
+        FileOutputStream fos = new FileOutputStream(file);
+
+        try {
+            fos.write(data);
+            fos.flush();
+            fos.getFD().sync();
+        } finally {
+            fos.close();
+        }
+    }
+
+    /**
+     * Syncs directory entries (eg. after renaming a file) to disk. Not every platform can open a
+     * directory for syncing, in which case the rename is still atomic but may not survive power loss.
+     */
+
+    static void syncDirectory(File directory) {
+        FileChannel channel = null;
+
+        try {
+            channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ);
+            channel.force(true);
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Couldn't sync " + directory.getName());
+        } catch (LinkageError e) {
+            // java.nio.file is missing on older Android versions
+            Log.w(LOG_TAG, "Couldn't sync " + directory.getName());
+        } finally {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    Log.w(LOG_TAG, "Couldn't close " + directory.getName());
+                }
+            }
+        }
+    }
+
+    static byte[] readFile(File file) throws IOException {
+        byte[] data = new byte[(int) file.length()];
+        FileInputStream fis = new FileInputStream(file);
+
+        try {
+            int read = 0;
+
+            while (read < data.length) {
+                int count = fis.read(data, read, data.length - read);
+                if (count < 0) {
+                    throw new SaveFormatException("Unexpected end of file " + file.getName());
+                }
+                read += count;
+            }
+        } finally {
+            fis.close();
+        }
+
+        return data;
+    }
+}
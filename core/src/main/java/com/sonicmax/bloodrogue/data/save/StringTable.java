@@ -0,0 +1,59 @@
+package com.sonicmax.bloodrogue.data.save;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ *  Deduplicates strings written to a save (sprite paths, names, etc. repeat across thousands of
+ *  entities). Index 0 is reserved for null.
+ */
+
+class StringTable {
+    private final HashMap<String, Integer> indices;
+    private final ArrayList<String> values;
+
+    StringTable() {
+        this.indices = new HashMap<>();
+        this.values = new ArrayList<>();
+    }
+
+    int indexOf(String value) {
+        if (value == null) return 0;
+
+        Integer index = indices.get(value);
+
+        if (index == null) {
+            values.add(value);
+            index = values.size();
+            indices.put(value, index);
+        }
+
+        return index;
+    }
+
+    void write(BinaryWriter out) {
+        out.writeVarInt(values.size());
+
+        for (int i = 0; i < values.size(); i++) {
+            byte[] bytes = values.get(i).getBytes(SaveCodec.UTF_8);
+            out.writeVarInt(bytes.length);
+            out.writeBytes(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Reads table written by write(). Returned array is indexed by the values returned from
+     * indexOf(), so element 0 is always null.
+     */
+
+    static String[] read(BinaryReader in) throws SaveFormatException {
+        int count = in.readVarInt();
+        String[] strings = new String[count + 1];
+
+        for (int i = 1; i <= count; i++) {
+            strings[i] = in.readUtf8(in.readVarInt());
+        }
+
+        return strings;
+    }
+}
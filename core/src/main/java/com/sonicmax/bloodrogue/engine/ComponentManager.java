@@ -0,0 +1,485 @@
+package com.sonicmax.bloodrogue.engine;
+
+import com.sonicmax.bloodrogue.utils.Log;
+import com.sonicmax.bloodrogue.utils.collections.LongIntMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ *  Contains lists of sorted components in use, and provides some methods to allow us to add/remove/filter
+ *  components by entity ID. (also hides the ugly code)
+ *
+ *  Each entity is assigned a dense index when its first component is sorted. Components are stored
+ *  in one array per type (see ComponentTypes), indexed by the dense entity index, and a primitive
+ *  LongIntMap maps entity ids to indices. Indices are recycled when an entity loses all of its
+ *  components. Lookups that pass an int type from ComponentTypes avoid both the Long boxing and
+ *  the string switch on the component TAG.
+ *
+ *  Each entity also has a bitmask of the component types it has. This is used to keep cached
+ *  ComponentQuery views up to date whenever components are sorted or removed (see query()).
+ *
+ *  Uses a singleton pattern to ensure that we only have a single instance of this class and
+ *  that it's easily accessible. The singleton holds components for the live world - staging
+ *  worlds (see World) have their own instances.
+ */
+
+public class ComponentManager {
+    // Note: update this whenever new components are added
+    public final static int MAX_COMPONENTS = 18;
+
+    private final int INITIAL_CAPACITY = 1024;
+
+    private final String LOG_TAG = this.getClass().getSimpleName();
+
+    private static ComponentManager INSTANCE = null;
+
+    private LongIntMap entityIndices;
+    private long[] entities;
+    private int[] componentMasks;
+    private Component[][] components;
+
+    private int[] freeIndices;
+    private int freeCount;
+
+    // Highest index handed out so far (exclusive)
+    private int size;
+
+    private ArrayList<ComponentQuery> queries;
+
+    // Allocator which owns ids of entities in this manager. Used to retire ids in destroyEntity()
+    private final EntityAllocator allocator;
+
+    public ComponentManager() {
+        this(EntityAllocator.getInstance());
+    }
+
+    public ComponentManager(EntityAllocator allocator) {
+        this.allocator = allocator;
+        entityIndices = new LongIntMap(INITIAL_CAPACITY);
+        entities = new long[INITIAL_CAPACITY];
+        componentMasks = new int[INITIAL_CAPACITY];
+        queries = new ArrayList<>();
+        components = new Component[ComponentTypes.COUNT][INITIAL_CAPACITY];
+        freeIndices = new int[INITIAL_CAPACITY];
+        freeCount = 0;
+        size = 0;
+    }
+
+    public static ComponentManager getInstance() {
+        if (INSTANCE == null) {
+            INSTANCE = new ComponentManager();
+        }
+
+        return INSTANCE;
+    }
+
+    /**
+     * Clears all component arrays. Primarily used when switching floors
+     */
+
+    public void clear() {
+        for (int type = 0; type < ComponentTypes.COUNT; type++) {
+            Arrays.fill(components[type], 0, size, null);
+        }
+
+        Arrays.fill(componentMasks, 0, size, 0);
+        entityIndices.clear();
+
+        for (int i = 0; i < queries.size(); i++) {
+            queries.get(i).clear();
+        }
+
+        freeCount = 0;
+        size = 0;
+    }
+
+    /**
+     * Returns number of entities which currently have at least one component.
+     */
+
+    public int getEntityCount() {
+        return size - freeCount;
+    }
+
+    /*
+    ---------------------------------------------
+     Entity index management
+    ---------------------------------------------
+    */
+
+    private int getOrCreateIndex(long entity) {
+        int index = entityIndices.get(entity);
+
+        if (index != LongIntMap.NO_VALUE) {
+            return index;
+        }
+
+        if (freeCount > 0) {
+            index = freeIndices[--freeCount];
+        }
+        else {
+            if (size == entities.length) {
+                grow(entities.length << 1);
+            }
+
+            index = size++;
+        }
+
+        entities[index] = entity;
+        componentMasks[index] = 0;
+        entityIndices.put(entity, index);
+
+        return index;
+    }
+
+    private void releaseIndex(long entity, int index) {
+        entityIndices.remove(entity);
+        componentMasks[index] = 0;
+
+        if (freeCount == freeIndices.length) {
+            freeIndices = Arrays.copyOf(freeIndices, freeIndices.length << 1);
+        }
+
+        freeIndices[freeCount++] = index;
+    }
+
+    /**
+     * Updates type mask for entity index and notifies any views whose membership depends on it.
+     */
+
+    private void setMask(int index, int mask) {
+        int oldMask = componentMasks[index];
+        componentMasks[index] = mask;
+
+        for (int i = 0; i < queries.size(); i++) {
+            queries.get(i).update(index, oldMask, mask);
+        }
+    }
+
+    private void grow(int capacity) {
+        entities = Arrays.copyOf(entities, capacity);
+        componentMasks = Arrays.copyOf(componentMasks, capacity);
+
+        for (int type = 0; type < ComponentTypes.COUNT; type++) {
+            components[type] = Arrays.copyOf(components[type], capacity);
+        }
+    }
+
+    /*
+    ---------------------------------------------
+     Sorting
+    ---------------------------------------------
+    */
+
+    /**
+     * Given a Component[], sorts each Component by renderState and entity.
+     *
+     * @param components
+     */
+
+    public void sortComponentArray(Component[] components) {
+        for (int i = 0; i < components.length; i++) {
+            if (components[i] != null) {
+                sortComponent(components[i]);
+            }
+        }
+    }
+
+    /**
+     * Adds Component to array for its type, organised by entity.
+     *
+     * @param component
+     */
+
+    public void sortComponent(Component component) {
+        int type = ComponentTypes.fromTag(component.TAG);
+
+        if (type == ComponentTypes.NONE) {
+            Log.e(LOG_TAG, "No bucket found for component renderState \"" + component.TAG + "\"");
+            return;
+        }
+
+        int index = getOrCreateIndex(component.id);
+        components[type][index] = component;
+
+        int mask = componentMasks[index];
+
+        if ((mask & (1 << type)) == 0) {
+            setMask(index, mask | (1 << type));
+        }
+    }
+
+    /**
+     * Sorts every component from another component manager into this one. Used to move floors
+     * which were generated into a separate instance (see ProceduralGenerator) into the game.
+     *
+     * @param source
+     */
+
+    public void addAll(ComponentManager source) {
+        for (int index = 0; index < source.size; index++) {
+            int mask = source.componentMasks[index];
+
+            while (mask != 0) {
+                int type = Integer.numberOfTrailingZeros(mask);
+                sortComponent(source.components[type][index]);
+                mask &= mask - 1;
+            }
+        }
+    }
+
+    /*
+    ---------------------------------------------
+     Retrieval
+    ---------------------------------------------
+    */
+
+    /**
+     * Returns all components of a given renderState.
+     *
+     * @param type
+     * @return ArrayList of Components
+     */
+
+    public ArrayList getComponents(String type) {
+        int typeId = ComponentTypes.fromTag(type);
+
+        if (typeId == ComponentTypes.NONE) {
+            Log.e(LOG_TAG, "No bucket found for component renderState \"" + type + "\"");
+            return new ArrayList();
+        }
+
+        return getComponents(typeId);
+    }
+
+    /**
+     * Returns all components of a given type.
+     *
+     * @param type Constant from ComponentTypes
+     * @return ArrayList of Components
+     */
+
+    public ArrayList<Component> getComponents(int type) {
+        Component[] bucket = components[type];
+        ArrayList<Component> array = new ArrayList<>();
+
+        for (int i = 0; i < size; i++) {
+            if (bucket[i] != null) {
+                array.add(bucket[i]);
+            }
+        }
+
+        return array;
+    }
+
+    /**
+     * Returns all components associated with entity.
+     *
+     * @param entity
+     * @return ArrayList of Components
+     */
+
+    public ArrayList<Component> getEntityComponents(long entity) {
+        ArrayList<Component> array = new ArrayList<>();
+
+        int index = entityIndices.get(entity);
+
+        if (index == LongIntMap.NO_VALUE) {
+            return array;
+        }
+
+        // Only visit types that entity actually has
+        int mask = componentMasks[index];
+
+        while (mask != 0) {
+            int type = Integer.numberOfTrailingZeros(mask);
+            array.add(components[type][index]);
+            mask &= mask - 1;
+        }
+
+        return array;
+    }
+
+    /**
+     * Returns requested component for a given entity.
+     *
+     * @param entity
+     * @param type
+     * @return
+     */
+
+    public Component getEntityComponent(long entity, String type) {
+        int typeId = ComponentTypes.fromTag(type);
+
+        if (typeId == ComponentTypes.NONE) {
+            Log.e(LOG_TAG, "No bucket found for component renderState \"" + type + "\"");
+            return null;
+        }
+
+        return getEntityComponent(entity, typeId);
+    }
+
+    /**
+     * Returns requested component for a given entity. Prefer this over the String version
+     * in code that runs for every tile or every actor.
+     *
+     * @param entity
+     * @param type Constant from ComponentTypes
+     * @return Component, or null if entity doesn't have a component of this type
+     */
+
+    public Component getEntityComponent(long entity, int type) {
+        int index = entityIndices.get(entity);
+
+        if (index == LongIntMap.NO_VALUE) {
+            return null;
+        }
+
+        return components[type][index];
+    }
+
+    /*
+    ---------------------------------------------
+     Queries
+    ---------------------------------------------
+    */
+
+    /**
+     * Returns live view of every entity which has all of the given component types. Views are
+     * cached and kept up to date as components are sorted and removed, so systems should hold on
+     * to the returned instance instead of calling this every turn.
+     *
+     * @param types Constants from ComponentTypes
+     * @return ComponentQuery
+     */
+
+    public ComponentQuery query(int... types) {
+        int mask = 0;
+
+        for (int type : types) {
+            mask |= 1 << type;
+        }
+
+        for (int i = 0; i < queries.size(); i++) {
+            if (queries.get(i).getMask() == mask) {
+                return queries.get(i);
+            }
+        }
+
+        ComponentQuery query = new ComponentQuery(this, mask);
+
+        // Add entities that are already sorted
+        for (int index = 0; index < size; index++) {
+            query.update(index, 0, componentMasks[index]);
+        }
+
+        queries.add(query);
+
+        return query;
+    }
+
+    int getSlot(long entity) {
+        int index = entityIndices.get(entity);
+        return (index == LongIntMap.NO_VALUE) ? -1 : index;
+    }
+
+    long getSlotEntity(int index) {
+        return entities[index];
+    }
+
+    Component getSlotComponent(int type, int index) {
+        return components[type][index];
+    }
+
+    /*
+    ---------------------------------------------
+     Removal
+    ---------------------------------------------
+    */
+
+    /**
+     * Removes specific component for a given entity.
+     *
+     * @param entity
+     * @param type
+     */
+
+    public void removeEntityComponent(long entity, String type) {
+        int typeId = ComponentTypes.fromTag(type);
+
+        if (typeId == ComponentTypes.NONE) {
+            Log.e(LOG_TAG, "No bucket found for component renderState \"" + type + "\"");
+            return;
+        }
+
+        removeEntityComponent(entity, typeId);
+    }
+
+    /**
+     * Removes specific component for a given entity.
+     *
+     * @param entity
+     * @param type Constant from ComponentTypes
+     */
+
+    public void removeEntityComponent(long entity, int type) {
+        int index = entityIndices.get(entity);
+
+        if (index == LongIntMap.NO_VALUE || components[type][index] == null) {
+            return;
+        }
+
+        components[type][index] = null;
+
+        int mask = componentMasks[index] & ~(1 << type);
+        setMask(index, mask);
+
+        if (mask == 0) {
+            releaseIndex(entity, index);
+        }
+    }
+
+    /**
+     * Removes all components for a given entity. Used when we want to completely remove
+     * an entity from game
+     *
+     * @param entity
+     */
+
+    public void removeEntityComponents(long entity) {
+        int index = entityIndices.get(entity);
+
+        if (index == LongIntMap.NO_VALUE) {
+            return;
+        }
+
+        for (int type = 0; type < ComponentTypes.COUNT; type++) {
+            components[type][index] = null;
+        }
+
+        setMask(index, 0);
+        releaseIndex(entity, index);
+    }
+
+    /**
+     * Removes all components for entity and retires its id, so that EntityAllocator can recycle
+     * it. Use removeEntityComponents() instead if the entity still exists elsewhere (eg. equipment
+     * which is being carried to another floor).
+     *
+     * @param entity
+     */
+
+    public void destroyEntity(long entity) {
+        removeEntityComponents(entity);
+        allocator.free(entity);
+    }
+
+    public boolean has(long entity, String component) {
+        return (getEntityComponent(entity, component) != null);
+    }
+
+    public boolean has(long entity, int type) {
+        return (getEntityComponent(entity, type) != null);
+    }
+}
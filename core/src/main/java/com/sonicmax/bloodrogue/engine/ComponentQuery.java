@@ -0,0 +1,173 @@
+package com.sonicmax.bloodrogue.engine;
+
+import java.util.Arrays;
+
+/**
+ *  Live view of every entity that has all of a set of component types (eg. AI + Position + Vitality).
+ *  Create using ComponentManager.query() - views are cached, so asking for the same set of types
+ *  twice returns the same instance.
+ *
+ *  ComponentManager updates views as components are sorted and removed, so reading from a view
+ *  never has to scan the component arrays or allocate. Members are kept in order of their index in
+ *  ComponentManager, which is the same order getComponents() returns them in.
+ *
+ *  Views change as soon as a component is added or removed. If the loop body might add or remove
+ *  components of the view's types, copy the entities with copyEntities() first.
+ */
+
+public class ComponentQuery {
+    private final ComponentManager manager;
+    private final int mask;
+    private final int[] types;
+
+    // Sorted slots (entity indices in ComponentManager) of matching entities
+    private int[] slots;
+    private int size;
+
+    ComponentQuery(ComponentManager manager, int mask) {
+        this.manager = manager;
+        this.mask = mask;
+        this.types = new int[Integer.bitCount(mask)];
+        this.slots = new int[64];
+        this.size = 0;
+
+        int i = 0;
+
+        for (int type = 0; type < ComponentTypes.COUNT; type++) {
+            if ((mask & (1 << type)) != 0) {
+                types[i++] = type;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns bitmask of types (1 << type for each type from ComponentTypes) required by view.
+     */
+
+    public int getMask() {
+        return mask;
+    }
+
+    public int[] getTypes() {
+        return types.clone();
+    }
+
+    public long getEntity(int index) {
+        return manager.getSlotEntity(slots[index]);
+    }
+
+    /**
+     * Returns component of given type for entity at index.
+     *
+     * @param type Constant from ComponentTypes. Doesn't have to be one of the view's types, but
+     *             will return null if entity doesn't have a component of that type.
+     */
+
+    public Component get(int index, int type) {
+        return manager.getSlotComponent(type, slots[index]);
+    }
+
+    public boolean contains(long entity) {
+        int slot = manager.getSlot(entity);
+        return slot != -1 && Arrays.binarySearch(slots, 0, size, slot) >= 0;
+    }
+
+    /*
+    ---------------------------------------------
+     Bulk accessors
+    ---------------------------------------------
+    */
+
+    /**
+     * Copies entity of every member into array, which must hold at least size() values.
+     *
+     * @return Number of entities copied
+     */
+
+    public int copyEntities(long[] out) {
+        for (int i = 0; i < size; i++) {
+            out[i] = manager.getSlotEntity(slots[i]);
+        }
+
+        return size;
+    }
+
+    /**
+     * Copies component of given type for every member into array, which must hold at least size()
+     * values. Component at out[i] belongs to entity at getEntity(i).
+     *
+     * @return Number of components copied
+     */
+
+    public int copyComponents(int type, Component[] out) {
+        for (int i = 0; i < size; i++) {
+            out[i] = manager.getSlotComponent(type, slots[i]);
+        }
+
+        return size;
+    }
+
+    /*
+    ---------------------------------------------
+     Maintenance (called by ComponentManager)
+    ---------------------------------------------
+    */
+
+    /**
+     * Called whenever the set of types for an entity changes.
+     */
+
+    void update(int slot, int oldMask, int newMask) {
+        boolean wasMember = (oldMask & mask) == mask;
+        boolean isMember = (newMask & mask) == mask;
+
+        if (wasMember == isMember) return;
+
+        if (isMember) {
+            insert(slot);
+        }
+        else {
+            remove(slot);
+        }
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    private void insert(int slot) {
+        if (size == slots.length) {
+            slots = Arrays.copyOf(slots, size << 1);
+        }
+
+        // New slots are usually the highest in use, so check the end before searching
+        if (size == 0 || slots[size - 1] < slot) {
+            slots[size++] = slot;
+            return;
+        }
+
+        int position = Arrays.binarySearch(slots, 0, size, slot);
+        if (position >= 0) return;
+
+        position = -(position + 1);
+        System.arraycopy(slots, position, slots, position + 1, size - position);
+        slots[position] = slot;
+        size++;
+    }
+
+    private void remove(int slot) {
+        int position = Arrays.binarySearch(slots, 0, size, slot);
+        if (position < 0) return;
+
+        System.arraycopy(slots, position + 1, slots, position, size - position - 1);
+        size--;
+    }
+}
@@ -0,0 +1,122 @@
+package com.sonicmax.bloodrogue.engine;
+
+/**
+ *  Compile-time ids for each component type. ComponentManager stores components in arrays indexed
+ *  by these values, so callers in hot paths can pass an int instead of a class name and skip the
+ *  string switch. Ids are ordered to match the order getEntityComponents() returns components in.
+ *
+ *  Note: update this (and COUNT) whenever new components are added.
+ */
+
+public class ComponentTypes {
+    public static final int NONE = -1;
+
+    public static final int BARRIER = 0;
+    public static final int BLOOD = 1;
+    public static final int COLLECTABLE = 2;
+    public static final int CONTAINER = 3;
+    public static final int DAMAGE = 4;
+    public static final int DEXTERITY = 5;
+    public static final int DYNAMIC = 6;
+    public static final int ENERGY = 7;
+    public static final int INPUT = 8;
+    public static final int AI = 9;
+    public static final int KNOWLEDGE = 10;
+    public static final int EXPERIENCE = 11;
+    public static final int NAME = 12;
+    public static final int PHYSICS = 13;
+    public static final int PORTAL = 14;
+    public static final int POSITION = 15;
+    public static final int SELF_REPLICATE = 16;
+    public static final int SPRITE = 17;
+    public static final int TERRAIN = 18;
+    public static final int TRAP = 19;
+    public static final int USABLE = 20;
+    public static final int VITALITY = 21;
+    public static final int WIELDABLE = 22;
+
+    public static final int COUNT = 23;
+
+    /**
+     * Converts Component.TAG (or Component.class.getSimpleName()) to type id.
+     *
+     * @param tag Simple class name of component
+     * @return Type id, or NONE if tag doesn't match a component
+     */
+
+    public static int fromTag(String tag) {
+        switch (tag) {
+            case "Barrier":
+                return BARRIER;
+
+            case "Blood":
+                return BLOOD;
+
+            case "Collectable":
+                return COLLECTABLE;
+
+            case "Container":
+                return CONTAINER;
+
+            case "Damage":
+                return DAMAGE;
+
+            case "Dexterity":
+                return DEXTERITY;
+
+            case "Dynamic":
+                return DYNAMIC;
+
+            case "Energy":
+                return ENERGY;
+
+            case "Input":
+                return INPUT;
+
+            case "AI":
+                return AI;
+
+            case "Knowledge":
+                return KNOWLEDGE;
+
+            case "Experience":
+                return EXPERIENCE;
+
+            case "Name":
+                return NAME;
+
+            case "Physics":
+                return PHYSICS;
+
+            case "Portal":
+                return PORTAL;
+
+            case "Position":
+                return POSITION;
+
+            case "SelfReplicate":
+                return SELF_REPLICATE;
+
+            case "Sprite":
+                return SPRITE;
+
+            case "Terrain":
+                return TERRAIN;
+
+            case "Trap":
+                return TRAP;
+
+            case "Usable":
+                return USABLE;
+
+            case "Vitality":
+                return VITALITY;
+
+            case "Wieldable":
+                return WIELDABLE;
+
+            default:
+                return NONE;
+        }
+    }
+}
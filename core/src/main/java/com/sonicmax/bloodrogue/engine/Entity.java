@@ -1,7 +1,5 @@
 package com.sonicmax.bloodrogue.engine;
 
-import java.util.UUID;
-
 public class Entity {
     public final long id;
 
@@ -10,6 +8,7 @@ public class Entity {
     }
 
     public Entity() {
-        this.id = UUID.randomUUID().getMostSignificantBits() & Long.MAX_VALUE;
+        // Entities created during generation get ids from the staging world bound to that thread
+        this.id = World.getCurrent().getEntityAllocator().allocate();
     }
 }
@@ -0,0 +1,306 @@
+package com.sonicmax.bloodrogue.engine;
+
+import java.util.Arrays;
+
+/**
+ *  Hands out entity ids. Each id packs a dense index (low 32 bits) and a generation counter
+ *  (next 16 bits). When an entity is destroyed its index goes onto a free list and the generation
+ *  for that index is incremented, so the recycled id is different and stale references to the old
+ *  entity can be detected with isAlive().
+ *
+ *  Ids from older saves were random 63 bit values. These almost always have bits set above the
+ *  generation field, so they can't collide with allocated ids and are ignored by reserve().
+ *
+ *  Uses a singleton pattern (same as ComponentManager) for the live world. Staging worlds (see World)
+ *  use child allocators, which borrow blocks of indices from the live allocator as they need them.
+ *  Ids handed out by a child are therefore valid ids in the live world, so entities can be imported
+ *  without remapping. Children must return their blocks with returnToParent() when the world is
+ *  imported or discarded.
+ */
+
+public class EntityAllocator {
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private static final int GENERATION_SHIFT = 32;
+    private static final long INDEX_MASK = 0xFFFFFFFFL;
+    private static final int GENERATION_MASK = 0xFFFF;
+
+    // Indices reserved from saved ids are capped, so a stray old-style id can't inflate the arrays
+    private static final int MAX_INDEX = 1 << 24;
+
+    // Number of indices lent to a child allocator at a time
+    private static final int BLOCK_SIZE = 1024;
+
+    private static EntityAllocator INSTANCE = null;
+
+    private int[] generations;
+    private int[] freeIndices;
+    private int freeCount;
+
+    // Highest index handed out so far (exclusive)
+    private int size;
+
+    // Incremented by reset(), so that blocks lent out before a reset are ignored when returned
+    private int epoch;
+
+    // Child allocators only. Indices used by child are local (block number * BLOCK_SIZE + offset),
+    // and converted to global indices when packed into ids.
+    private final EntityAllocator parent;
+    private int[] blocks;
+    private int blockCount;
+    private int parentEpoch;
+
+    public EntityAllocator() {
+        this(null);
+    }
+
+    /**
+     * Creates allocator which borrows indices from parent.
+     */
+
+    public EntityAllocator(EntityAllocator parent) {
+        this.parent = parent;
+        this.generations = new int[parent == null ? INITIAL_CAPACITY : BLOCK_SIZE];
+        this.freeIndices = new int[parent == null ? INITIAL_CAPACITY : 64];
+        this.blocks = new int[4];
+        this.freeCount = 0;
+        this.size = 0;
+        this.epoch = 0;
+    }
+
+    public static synchronized EntityAllocator getInstance() {
+        if (INSTANCE == null) {
+            INSTANCE = new EntityAllocator();
+        }
+
+        return INSTANCE;
+    }
+
+    public synchronized long allocate() {
+        int index;
+
+        if (freeCount > 0) {
+            index = freeIndices[--freeCount];
+        }
+        else {
+            if (parent != null && size == blockCount * BLOCK_SIZE) {
+                borrowBlock();
+            }
+
+            index = size++;
+            ensureCapacity(size);
+
+            // Generation starts at 1, so an allocated id is never 0
+            generations[index] = 1;
+        }
+
+        return pack(toGlobal(index), generations[index]);
+    }
+
+    /**
+     * Retires entity so its index can be reused. Ids that weren't allocated by this instance (or
+     * have already been freed) are ignored.
+     */
+
+    public synchronized void free(long entity) {
+        if (!isAllocatorId(entity)) return;
+
+        int index = toLocal(getIndex(entity));
+
+        if (index < 0 || index >= size || generations[index] != getGeneration(entity)) return;
+
+        int generation = (generations[index] + 1) & GENERATION_MASK;
+        generations[index] = (generation == 0) ? 1 : generation;
+
+        pushFree(index);
+    }
+
+    public synchronized boolean isAlive(long entity) {
+        if (!isAllocatorId(entity)) return false;
+
+        int index = toLocal(getIndex(entity));
+        return index >= 0 && index < size && generations[index] == getGeneration(entity);
+    }
+
+    /**
+     * Marks id from a saved game as in use, so that newly allocated ids won't collide with it.
+     * Free list is discarded, as freed indices may now belong to saved entities. Ignored by child
+     * allocators.
+     */
+
+    public synchronized void reserve(long entity) {
+        if (parent != null || !isAllocatorId(entity)) return;
+
+        int index = getIndex(entity);
+        if (index >= MAX_INDEX) return;
+
+        freeCount = 0;
+
+        if (index >= size) {
+            ensureCapacity(index + 1);
+
+            for (int i = size; i <= index; i++) {
+                generations[i] = 1;
+            }
+
+            size = index + 1;
+        }
+
+        generations[index] = getGeneration(entity);
+    }
+
+    /**
+     * Forgets every allocated id. Used when starting a new game.
+     */
+
+    public synchronized void reset() {
+        freeCount = 0;
+        size = 0;
+        epoch++;
+    }
+
+    /*
+    ---------------------------------------------
+     Child allocators
+    ---------------------------------------------
+    */
+
+    /**
+     * Gives borrowed indices back to parent. If keepAllocated is true, entities that are still
+     * alive stay alive in parent (eg. when importing a staging world) - otherwise every id handed
+     * out by this allocator becomes stale. Unused indices go onto parent's free list.
+     * Allocator is empty afterwards.
+     */
+
+    public synchronized void returnToParent(boolean keepAllocated) {
+        if (parent == null) return;
+
+        parent.takeBack(this, keepAllocated);
+
+        blockCount = 0;
+        freeCount = 0;
+        size = 0;
+    }
+
+    private void borrowBlock() {
+        if (blockCount == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blockCount << 1);
+        }
+
+        if (blockCount == 0) {
+            parentEpoch = parent.getEpoch();
+        }
+
+        blocks[blockCount++] = parent.lendBlock();
+    }
+
+    private synchronized int getEpoch() {
+        return epoch;
+    }
+
+    private synchronized int lendBlock() {
+        int base = size;
+        ensureCapacity(base + BLOCK_SIZE);
+
+        // Generation 0 is never handed out, so ids from lent blocks aren't alive until returned
+        Arrays.fill(generations, base, base + BLOCK_SIZE, 0);
+        size += BLOCK_SIZE;
+
+        return base;
+    }
+
+    private synchronized void takeBack(EntityAllocator child, boolean keepAllocated) {
+        // Blocks were lent before reset() - indices may already belong to someone else
+        if (child.blockCount == 0 || child.parentEpoch != epoch) return;
+
+        boolean[] freed = new boolean[child.size];
+
+        for (int i = 0; i < child.freeCount; i++) {
+            freed[child.freeIndices[i]] = true;
+        }
+
+        int lent = child.blockCount * BLOCK_SIZE;
+
+        for (int local = 0; local < lent; local++) {
+            int index = child.toGlobal(local);
+
+            if (local >= child.size) {
+                // Never handed out
+                generations[index] = 1;
+                pushFree(index);
+            }
+            else if (keepAllocated && !freed[local]) {
+                generations[index] = child.generations[local];
+            }
+            else {
+                int generation = (child.generations[local] + 1) & GENERATION_MASK;
+                generations[index] = (generation == 0) ? 1 : generation;
+                pushFree(index);
+            }
+        }
+    }
+
+    public synchronized int getSize() {
+        return size;
+    }
+
+    /*
+    ---------------------------------------------
+     Helper methods
+    ---------------------------------------------
+    */
+
+    public static int getIndex(long entity) {
+        return (int) (entity & INDEX_MASK);
+    }
+
+    public static int getGeneration(long entity) {
+        return (int) (entity >>> GENERATION_SHIFT);
+    }
+
+    private int toGlobal(int local) {
+        if (parent == null) return local;
+
+        return blocks[local / BLOCK_SIZE] + (local % BLOCK_SIZE);
+    }
+
+    /**
+     * Returns local index for global index, or -1 if it doesn't belong to this allocator.
+     */
+
+    private int toLocal(int index) {
+        if (parent == null) return index;
+
+        for (int block = 0; block < blockCount; block++) {
+            int offset = index - blocks[block];
+
+            if (offset >= 0 && offset < BLOCK_SIZE) {
+                return block * BLOCK_SIZE + offset;
+            }
+        }
+
+        return -1;
+    }
+
+    private void pushFree(int index) {
+        if (freeCount == freeIndices.length) {
+            freeIndices = Arrays.copyOf(freeIndices, freeCount << 1);
+        }
+
+        freeIndices[freeCount++] = index;
+    }
+
+    private static long pack(int index, int generation) {
+        return ((long) generation << GENERATION_SHIFT) | (index & INDEX_MASK);
+    }
+
+    private static boolean isAllocatorId(long entity) {
+        return entity > 0 && getGeneration(entity) <= GENERATION_MASK && getIndex(entity) >= 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > generations.length) {
+            generations = Arrays.copyOf(generations, Math.max(capacity, generations.length << 1));
+        }
+    }
+}
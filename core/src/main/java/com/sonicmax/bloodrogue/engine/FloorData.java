@@ -20,6 +20,11 @@ public class FloorData implements Serializable {
     public Vector2D entrancePosition;
     public Vector2D exitPosition;
 
+    // World position of tile (0, 0) on streamed exterior floors. Null for fixed size floors
+    public Vector2D streamedOrigin;
+
+    // Entities on streamed chunks outside window, with positions in world coordinates
+    private ArrayList<Component[]> parkedObjects;
 
     public FloorData(int index, int[][] terrain, ArrayList<Component[]>[][] objects, Component[] player) {
 
@@ -37,6 +42,27 @@ public class FloorData implements Serializable {
         this.exitPosition = exit;
     }
 
+    public void setStreamedOrigin(Vector2D origin) {
+        this.streamedOrigin = origin;
+    }
+
+    public void setParkedObjects(ArrayList<Component[]> objects) {
+        this.parkedObjects = objects;
+    }
+
+    public ArrayList<Component[]> getParkedObjects() {
+        // Field is null if floor was restored using ObjectInputStream
+        if (parkedObjects == null) {
+            parkedObjects = new ArrayList<>();
+        }
+
+        return this.parkedObjects;
+    }
+
+    public boolean isStreamed() {
+        return this.streamedOrigin != null;
+    }
+
     public int[][] getTerrain() {
         return this.terrain;
     }
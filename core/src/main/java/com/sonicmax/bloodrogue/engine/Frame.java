@@ -3,6 +3,7 @@ package com.sonicmax.bloodrogue.engine;
 
 import com.sonicmax.bloodrogue.engine.components.Sprite;
 import com.sonicmax.bloodrogue.renderer.Animation;
+import com.sonicmax.bloodrogue.utils.collections.TileStack;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -16,9 +17,9 @@ public class Frame implements Serializable {
 
     public final int index;
     public final int[][] terrain;
-    public final ArrayList<Sprite>[][] objects;
+    public final TileStack<Sprite> objects;
     public final ArrayList<Animation> animations;
-    public final double[][] fov;
+    public final float[] fov;
     public final boolean[][] visited;
     public final boolean[][] indoorRegions;
     public final boolean[][] waterRegions;
@@ -26,10 +27,17 @@ public class Frame implements Serializable {
     public final float[][] heightMap;
     public final Component[] player;
 
-    public Frame(int index, int[][] terrain, ArrayList<Sprite>[][] objects,
-                 ArrayList<Animation> animations, double[][] fov, boolean[][] visited,
+    // Time spent calculating FOV for this frame (in ms)
+    public final float fovTime;
+
+    // Changes whenever the map grids are rebuilt (eg. streamed exterior moving with the player),
+    // so renderer knows to regenerate world geometry
+    public final int mapRevision;
+
+    public Frame(int index, int[][] terrain, TileStack<Sprite> objects,
+                 ArrayList<Animation> animations, float[] fov, boolean[][] visited,
                  boolean[][] indoorRegions, boolean[][] waterRegions, int[][] snowCover,
-                 float[][] heightMap, Component[] player) {
+                 float[][] heightMap, Component[] player, float fovTime, int mapRevision) {
 
         this.index = index;
         this.terrain = terrain;
@@ -42,13 +50,15 @@ public class Frame implements Serializable {
         this.snowCover = snowCover;
         this.heightMap = heightMap;
         this.player = player;
+        this.fovTime = fovTime;
+        this.mapRevision = mapRevision;
     }
 
     public int[][] getTerrain() {
         return this.terrain;
     }
 
-    public ArrayList<Sprite>[][] getObjects() {
+    public TileStack<Sprite> getObjects() {
         return this.objects;
     }
 
@@ -56,7 +66,7 @@ public class Frame implements Serializable {
         return this.animations;
     }
 
-    public double[][] getFov() {
+    public float[] getFov() {
         return this.fov;
     }
 
@@ -1,13 +1,18 @@
 package com.sonicmax.bloodrogue.engine;
 
-import android.util.Log;
-
-import com.sonicmax.bloodrogue.GameInterface;
 import com.sonicmax.bloodrogue.audio.FxFilePaths;
+import com.sonicmax.bloodrogue.data.save.ChunkStore;
 import com.sonicmax.bloodrogue.engine.ai.ActorTurn;
+import com.sonicmax.bloodrogue.engine.ai.ActorTurnPool;
 import com.sonicmax.bloodrogue.engine.ai.AffinityManager;
+import com.sonicmax.bloodrogue.engine.ai.AiDecisionService;
+import com.sonicmax.bloodrogue.engine.ai.DormancyManager;
 import com.sonicmax.bloodrogue.engine.ai.EnemyState;
+import com.sonicmax.bloodrogue.engine.ai.TurnScheduler;
 import com.sonicmax.bloodrogue.engine.collisions.FieldOfVisionCalculator;
+import com.sonicmax.bloodrogue.engine.collisions.SpatialIndex;
+import com.sonicmax.bloodrogue.engine.collisions.TileFlags;
+import com.sonicmax.bloodrogue.engine.collisions.VisibilityService;
 import com.sonicmax.bloodrogue.engine.components.AI;
 import com.sonicmax.bloodrogue.engine.components.Barrier;
 import com.sonicmax.bloodrogue.engine.components.Blood;
@@ -24,21 +29,27 @@ import com.sonicmax.bloodrogue.engine.components.Physics;
 import com.sonicmax.bloodrogue.engine.components.Portal;
 import com.sonicmax.bloodrogue.engine.components.Position;
 import com.sonicmax.bloodrogue.engine.components.Sprite;
-import com.sonicmax.bloodrogue.engine.components.Terrain;
 import com.sonicmax.bloodrogue.engine.components.Trap;
 import com.sonicmax.bloodrogue.engine.components.Usable;
 import com.sonicmax.bloodrogue.engine.components.Vitality;
 import com.sonicmax.bloodrogue.engine.components.Wieldable;
 import com.sonicmax.bloodrogue.engine.environment.TimeManager;
 import com.sonicmax.bloodrogue.engine.environment.WeatherManager;
+import com.sonicmax.bloodrogue.engine.pathfinding.DesireMap;
+import com.sonicmax.bloodrogue.engine.pathfinding.PathFinder;
+import com.sonicmax.bloodrogue.engine.systems.EnergySystem;
 import com.sonicmax.bloodrogue.engine.systems.EntitySystem;
 import com.sonicmax.bloodrogue.engine.systems.PotionSystem;
 import com.sonicmax.bloodrogue.engine.systems.WeaponsSystem;
 import com.sonicmax.bloodrogue.generator.Chunk;
 import com.sonicmax.bloodrogue.generator.ProceduralGenerator;
+import com.sonicmax.bloodrogue.generator.enemies.EnemyBlueprintKeys;
+import com.sonicmax.bloodrogue.generator.enemies.EnemyPlacer;
 import com.sonicmax.bloodrogue.generator.factories.AnimationFactory;
 import com.sonicmax.bloodrogue.generator.factories.DecalFactory;
 import com.sonicmax.bloodrogue.generator.MapData;
+import com.sonicmax.bloodrogue.generator.streaming.ChunkStreamer;
+import com.sonicmax.bloodrogue.generator.streaming.ExteriorChunk;
 import com.sonicmax.bloodrogue.generator.tools.CellularAutomata;
 import com.sonicmax.bloodrogue.renderer.text.TextColours;
 import com.sonicmax.bloodrogue.renderer.Animation;
@@ -46,40 +57,70 @@ import com.sonicmax.bloodrogue.renderer.ui.InventoryCard;
 import com.sonicmax.bloodrogue.tilesets.BuildingTileset;
 import com.sonicmax.bloodrogue.tilesets.CorpseTileset;
 import com.sonicmax.bloodrogue.tilesets.ExteriorTileset;
-import com.sonicmax.bloodrogue.utils.maths.GeometryHelper;
+import com.sonicmax.bloodrogue.utils.Log;
 import com.sonicmax.bloodrogue.utils.maths.RandomNumberGenerator;
 import com.sonicmax.bloodrogue.utils.maths.Vector2D;
 import com.sonicmax.bloodrogue.engine.objects.GameObject;
+import com.sonicmax.bloodrogue.generator.FloorPrefetcher;
 import com.sonicmax.bloodrogue.generator.factories.PlayerFactory;
 import com.sonicmax.bloodrogue.utils.Array2DHelper;
+import com.sonicmax.bloodrogue.utils.collections.TileOccupancy;
+import com.sonicmax.bloodrogue.utils.collections.TileStack;
 
+import java.io.File;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.concurrent.DelayQueue;
 
 public class GameEngine {
     private final String LOG_TAG = this.getClass().getSimpleName();
     private final int DIJKSTRA_MAX = 20;
+    private final float FLEE_COEFFICIENT = 1.2f;
     private final int HIGH_PRIORITY = 0;
     private final int MEDIUM_PRIORITY = 1;
     private final int LOW_PRIORITY = 2;
+
+    // Distance (in tiles) that noises carry for waking dormant actors
+    private final int COMBAT_NOISE_RADIUS = 16;
+    private final int DOOR_NOISE_RADIUS = 10;
+
+    // Limit for approximate simulation of turns missed by dormant actors
+    private final int MAX_CATCH_UP_STEPS = 20;
     private final int ONE_HOUR = 60;
 
-    private GameInterface gameInterface;
+    private GameHost gameHost;
     private FieldOfVisionCalculator fovCalculator;
+    private VisibilityService aiVision;
+    private AiDecisionService aiDecisions;
     private AffinityManager affinityManager;
+    private World world;
     private ComponentManager componentManager;
     private WeatherManager weatherManager;
     private RandomNumberGenerator rng;
 
+    // Seed passed to floor generators. Unset unless setSeed() is called
+    private long seed;
+    private boolean seeded;
+    private boolean prefetchEnabled;
+
     private GameState gameState;
-    private int[][] playerDesireMap;
-    private double[][] fieldOfVision;
+    private DesireMap playerDesireMap;
+    private DesireMap playerFleeMap;
+    private float[] fieldOfVision;
     private Component[] player;
 
+    // Actions chosen this turn, resolved in order of priority (attacks, player, other moves)
     private ArrayList<ActorTurn>[] priorityQueue;
+    private ActorTurnPool turnPool;
+
+    // Decides which AI actors act each turn, based on time of their next action
+    private TurnScheduler turnScheduler;
+    private long turnClock;
+
+    // Actors far away from player, which don't act until something wakes them
+    private DormancyManager dormantActors;
     private ArrayList<Component[]> objectQueue;
 
     private int mapWidth;
@@ -92,16 +133,25 @@ public class GameEngine {
     private Vector2D pathDestination;
 
     private Sprite[][] terrainSpriteGrid;
-    private ArrayList<Sprite>[][] objectSpriteGrid;
+    private TileStack<Sprite> objectSpriteGrid;
     private ArrayList<Animation> animations;
+    private int mapRevision;
 
     // ECS storage and management
     private int[][] terrainEntities;
-    private ArrayList<Long>[][] objectEntities;
+    private TileOccupancy objectEntities;
     private ArrayList<Long> treeEntities;
-    private ArrayList<Long> aiEntities;
+    private ComponentQuery aiActors;
+    private ComponentQuery playerControlled;
+    private long[] actorBuffer;
     private long playerEntity;
 
+    // Cached collision/opacity flags for each tile
+    private TileFlags tileFlags;
+    private SpatialIndex spatialIndex;
+    private PathFinder pathFinder;
+    private int floorType = ProceduralGenerator.EXTERIOR;
+
     // Game world information
     private boolean[][] indoorRegions;
     private boolean[][] waterRegions;
@@ -114,7 +164,7 @@ public class GameEngine {
     private ArrayList<Long> inventoryPickupGroup;
     private boolean footstepAlternator;
 
-    public GameEngine(GameInterface gameInterface) {
+    public GameEngine(GameHost gameHost) {
         this.playerMoveLock = false;
         this.footstepAlternator = true;
 
@@ -123,12 +173,24 @@ public class GameEngine {
         this.mapHeight = 128;
         this.currentFloor = 1;
 
-        this.gameInterface = gameInterface;
+        this.gameHost = gameHost;
         this.fovCalculator = new FieldOfVisionCalculator();
+        // Leave a core free for the UI and render threads
+        this.aiVision = new VisibilityService(Runtime.getRuntime().availableProcessors() / 2);
+        this.aiDecisions = new AiDecisionService(Runtime.getRuntime().availableProcessors() / 2);
         this.affinityManager = new AffinityManager();
-        this.componentManager = ComponentManager.getInstance();
+        this.world = World.getLive();
+        this.componentManager = world.getComponentManager();
+        this.aiActors = componentManager.query(ComponentTypes.AI);
+        this.playerControlled = componentManager.query(ComponentTypes.INPUT, ComponentTypes.POSITION);
+        this.actorBuffer = new long[64];
+        this.turnPool = new ActorTurnPool();
+        this.turnScheduler = new TurnScheduler();
+        this.turnClock = 0;
+        this.dormantActors = new DormancyManager();
         this.weatherManager = new WeatherManager();
         this.rng = new RandomNumberGenerator();
+        this.prefetchEnabled = true;
 
         initCollections();
     }
@@ -145,11 +207,64 @@ public class GameEngine {
 
     public Frame getCurrentFrameData() {
         return new Frame(currentFloor, terrainEntities, objectSpriteGrid, animations,
-                fieldOfVision, fovCalculator.getVisitedTiles(), indoorRegions, waterRegions, snowCover, heightMap, player);
+                fieldOfVision, fovCalculator.getVisitedTiles(), indoorRegions, waterRegions, snowCover, heightMap, player,
+                fovCalculator.getLastCalculationTime(), mapRevision);
+    }
+
+    /**
+     * Live world for current floor. Headless drivers (eg. soak test bot) use this to inspect
+     * entities without going through renderer data.
+     */
+
+    public World getWorld() {
+        return this.world;
+    }
+
+    public TileFlags getTileFlags() {
+        return this.tileFlags;
+    }
+
+    public int getCurrentFloorIndex() {
+        return this.currentFloor;
     }
 
     public FloorData getCurrentFloorData(int[][] rawTerrainComponents, ArrayList<Component[]>[][] rawObjectComponents) {
-        return new FloorData(currentFloor, rawTerrainComponents, rawObjectComponents, player);
+        FloorData floor = new FloorData(currentFloor, rawTerrainComponents, rawObjectComponents, player);
+
+        if (chunkStreamer != null) {
+            floor.setStreamedOrigin(new Vector2D(windowX, windowY));
+            floor.setParkedObjects(getParkedObjects());
+        }
+
+        return floor;
+    }
+
+    /**
+     * Seeds every random choice made by engine and floor generators, so that games started with the
+     * same seed and given the same input play out identically. Call before starting or restoring game.
+     */
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+        this.seeded = true;
+        rng.initRandomWithSeed(seed);
+
+        if (floorPrefetcher != null) {
+            floorPrefetcher.setSeed(seed);
+        }
+    }
+
+    /**
+     * Enables/disables generation of next floor in background (enabled by default). Benchmarks
+     * disable it so that generator doesn't compete with the turn being measured.
+     */
+
+    public void setFloorPrefetchEnabled(boolean enabled) {
+        this.prefetchEnabled = enabled;
+
+        if (!enabled) {
+            cancelFloorPrefetch();
+        }
     }
 
     private Position getPlayerPosition() {
@@ -179,9 +294,18 @@ public class GameEngine {
         snowCover = Array2DHelper.fillIntArray(mapWidth, mapHeight, -1);
 
         terrainEntities = new int[mapWidth][mapHeight];
-        aiEntities = new ArrayList<>();
         treeEntities = new ArrayList<>();
         objectEntities = Array2DHelper.create2dLongStack(mapWidth, mapHeight);
+        tileFlags = new TileFlags(componentManager, mapWidth, mapHeight);
+        pathFinder = new PathFinder(tileFlags);
+        spatialIndex = new SpatialIndex(componentManager, mapWidth, mapHeight,
+                ComponentTypes.AI, ComponentTypes.PHYSICS, ComponentTypes.PORTAL, ComponentTypes.TRAP);
+
+        // Exterior floors are mostly open space, where jump point search is much faster than A*
+        pathFinder.setJumpPointSearch(floorType == ProceduralGenerator.EXTERIOR);
+
+        playerDesireMap = new DesireMap(tileFlags, DIJKSTRA_MAX);
+        playerFleeMap = new DesireMap(tileFlags, DIJKSTRA_MAX);
 
         inventoryPickupGroup = new ArrayList<>();
 
@@ -190,10 +314,20 @@ public class GameEngine {
 
         snowCoverGenerator = null;
 
+        closeStreamedFloor();
         componentManager.clear();
     }
 
     private void initPriorityQueue() {
+        if (priorityQueue != null) {
+            // Discard turns queued for previous floor
+            for (ArrayList<ActorTurn> queue : priorityQueue) {
+                for (ActorTurn turn : queue) {
+                    turnPool.release(turn);
+                }
+            }
+        }
+
         this.priorityQueue = new ArrayList[3];
         this.priorityQueue[HIGH_PRIORITY] = new ArrayList<>();
         this.priorityQueue[MEDIUM_PRIORITY] = new ArrayList<>();
@@ -201,6 +335,11 @@ public class GameEngine {
     }
 
     public void startNewGame() {
+        cancelFloorPrefetch();
+        closeStreamedFloor();
+        clearStreamedChunks();
+        world.getEntityAllocator().reset();
+
         gameState = new GameState();
         player = PlayerFactory.getPlayer(0, 0);
         playerEntity = player[0].id;
@@ -208,7 +347,8 @@ public class GameEngine {
 
         generateNewFloor(this.currentFloor);
         saveCurrentFloor();
-        gameInterface.saveState(gameState);
+        gameHost.saveState(gameState);
+        prefetchNextFloor();
         advanceFrame();
     }
 
@@ -224,6 +364,7 @@ public class GameEngine {
      */
 
     private ProceduralGenerator proceduralGenerator;
+    private FloorPrefetcher floorPrefetcher;
 
     private float[][] heightMap;
 
@@ -233,25 +374,46 @@ public class GameEngine {
 
         initCollections();
 
-        // Generate data for new floor
-        proceduralGenerator = new ProceduralGenerator(mapWidth, mapHeight, gameInterface.getAssets());
-        proceduralGenerator.setFloor(floorIndex);
-        proceduralGenerator.setSpriteIndexes(spriteIndexes);
-        proceduralGenerator.generate(ProceduralGenerator.EXTERIOR);
-
-        // Generated data has already been sorted into ComponentManager instance, so we just have to
-        // grab the arrays of terrainSpriteGrid/object entities
-        MapData mapData = proceduralGenerator.getMapData();
-        terrainEntities = mapData.getTerrainEntities();
-        objectEntities = mapData.getObjectEntities();
-        indoorRegions = proceduralGenerator.getIndoorRegions();
-        waterRegions = proceduralGenerator.getWaterRegions();
-        treeEntities = proceduralGenerator.getTreeEntities();
-        heightMap = proceduralGenerator.getHeightMap();
+        Vector2D entrance;
+
+        if (streamsExterior()) {
+            entrance = startStreamedFloor(floorIndex);
+        }
+
+        else {
+            // Use floor generated in background if there is one, otherwise generate it now
+            if (floorPrefetcher != null) {
+                proceduralGenerator = floorPrefetcher.take(floorIndex, floorType);
+            }
+
+            if (proceduralGenerator == null) {
+                proceduralGenerator = new ProceduralGenerator(mapWidth, mapHeight, gameHost.getAssetSource());
+                proceduralGenerator.setFloor(floorIndex);
+
+                if (seeded) {
+                    proceduralGenerator.setSeed(seed);
+                }
+
+                proceduralGenerator.setSpriteIndexes(spriteIndexes);
+                proceduralGenerator.generate(floorType);
+            }
+
+            // Generated data was stored in the generator's staging world, so we have to import it
+            // before grabbing the arrays of terrainSpriteGrid/object entities
+            world.importWorld(proceduralGenerator.getWorld());
+
+            MapData mapData = proceduralGenerator.getMapData();
+            terrainEntities = mapData.getTerrainEntities();
+            objectEntities = mapData.getObjectEntities();
+            indoorRegions = proceduralGenerator.getIndoorRegions();
+            waterRegions = proceduralGenerator.getWaterRegions();
+            treeEntities = proceduralGenerator.getTreeEntities();
+            heightMap = proceduralGenerator.getHeightMap();
+            entrance = mapData.getEntrancePosition();
+        }
 
         // Now we need to either create new player entity (if this was the first floor) or
         // sort the existing components and move player to new start position
-        Vector2D entrance = mapData.getEntrancePosition();
 
         componentManager.sortComponentArray(player);
 
@@ -261,28 +423,74 @@ public class GameEngine {
             componentManager.sortComponent(item);
         }
 
-        // Get references to enemy entities
-        ArrayList<Component> enemies = componentManager.getComponents(AI.class.getSimpleName());
-
-        for (int i = 0; i < enemies.size(); i++) {
-            this.aiEntities.add(enemies.get(i).id);
-        }
-
         addPlayer(entrance);
+        tileFlags.build(terrainEntities, objectEntities, indoorRegions, waterRegions);
+        spatialIndex.build(objectEntities);
+        scheduleActors();
         prebuildSprites();
 
-        weatherManager = gameInterface.getWeatherManager();
+        weatherManager = gameHost.getWeatherManager();
 
         weatherManager.setWeatherState(WeatherManager.SNOWING,
-                gameInterface.getTimeManager().getTotalTimeInMinutes());
+                gameHost.getTimeManager().getTotalTimeInMinutes());
 
         proceduralGenerator = null;
     }
 
-    private void addPlayer(Vector2D startPosition) {
-        ArrayList<Long> newStack = objectEntities[startPosition.x][startPosition.y];
+    /**
+     * Starts generating floor below current floor in background, so that it's ready by the time
+     * player finds the exit.
+     */
+
+    private void prefetchNextFloor() {
+        int nextFloor = currentFloor + 1;
+
+        // Streamed floors generate chunks as they're needed, so there's nothing to prefetch
+        if (!prefetchEnabled || streamsExterior() || gameState.hasFloor(nextFloor)) return;
+
+        if (floorPrefetcher == null) {
+            floorPrefetcher = new FloorPrefetcher(mapWidth, mapHeight, gameHost.getAssetSource(), spriteIndexes);
+
+            if (seeded) {
+                floorPrefetcher.setSeed(seed);
+            }
+        }
+
+        floorPrefetcher.prefetch(nextFloor, floorType);
+    }
+
+    /**
+     * Discards prefetched floor. Must be called before resetting EntityAllocator, as prefetched
+     * entities were allocated from the old set of ids.
+     */
+
+    private void cancelFloorPrefetch() {
+        if (floorPrefetcher != null) {
+            floorPrefetcher.cancel();
+        }
+    }
+
+    /**
+     * Stops background threads owned by engine.
+     */
+
+    public void shutdown() {
+        if (floorPrefetcher != null) {
+            floorPrefetcher.shutdown();
+            floorPrefetcher = null;
+        }
+
+        // Services fall back to running on calling thread, so engine can still be used afterwards
+        aiVision.shutdown();
+        aiDecisions.shutdown();
+
+        if (chunkStreamer != null) {
+            chunkStreamer.flush();
+        }
+    }
 
-        newStack.add(playerEntity);
+    private void addPlayer(Vector2D startPosition) {
+        objectEntities.add(startPosition.x, startPosition.y, playerEntity);
 
         Sprite sprite = (Sprite) componentManager.getEntityComponent(playerEntity, Sprite.class.getSimpleName());
         sprite.x = startPosition.x;
@@ -348,8 +556,6 @@ public class GameEngine {
         currentFloor = floorIndex;
         gameState.updateFloorIndex(currentFloor);
 
-        gameInterface.saveState(gameState);
-
         if (gameState.hasFloor(floorIndex)) {
             gameState.updateFloorIndex(floorIndex);
             FloorData floor = gameState.getCurrentFloor();
@@ -361,39 +567,51 @@ public class GameEngine {
             saveCurrentFloor();
         }
 
-        gameInterface.saveState(gameState);
+        gameHost.saveState(gameState);
+        prefetchNextFloor();
 
-        playerDesireMap = Array2DHelper.fillIntArray(mapWidth, mapHeight, DIJKSTRA_MAX);
+        playerDesireMap.reset();
         initPriorityQueue();
     }
 
     private void saveCurrentFloor() {
-        // Reinitialize raw component arrays.
-        Component[][][] rawTerrainComponents = new Component[mapWidth][mapHeight][ProceduralGenerator.MAX_COMPONENTS];
-        ArrayList<Component[]>[][] rawObjectComponents = Array2DHelper.createComponentGrid(mapWidth, mapHeight);
-
         // Todo: should we pause/resume animations? Probably not
         // ArrayList<Component[]>[][] rawAnimationComponents = Array2DHelper.createComponentGrid(mapWidth, mapHeight);
 
-        // Reverse the process of sorting components
-        for (int y = 0; y < mapHeight; y++) {
-            for (int x = 0; x < mapWidth; x++) {
-                long terrainEntity = terrainEntities[x][y];
-                ArrayList<Component> terrain = componentManager.getEntityComponents(terrainEntity);
-                rawTerrainComponents[x][y] = terrain.toArray(new Component[terrain.size()]);
+        FloorData existingFloor = gameState.getCurrentFloor();
+        ArrayList<Component[]>[][] rawObjectComponents;
 
-                for (long objectEntity : objectEntities[x][y]) {
-                    ArrayList<Component> objects = componentManager.getEntityComponents(objectEntity);
-                    rawObjectComponents[x][y].add(objects.toArray(new Component[objects.size()]));
+        if (existingFloor == null) {
+            // Reverse the process of sorting components for every tile
+            rawObjectComponents = Array2DHelper.createComponentGrid(mapWidth, mapHeight);
+
+            for (int y = 0; y < mapHeight; y++) {
+                for (int x = 0; x < mapWidth; x++) {
+                    storeRawComponents(x, y, rawObjectComponents);
                 }
             }
         }
+        else {
+            // Raw component arrays hold the same instances that are sorted into component manager,
+            // so we only need to rebuild tiles where entities were added, removed or killed.
+            rawObjectComponents = existingFloor.getObjects();
+            int changedCount = objectEntities.getChangedCount();
+
+            for (int i = 0; i < changedCount; i++) {
+                int tile = objectEntities.getChangedTile(i);
+                int x = tile % mapWidth;
+                int y = tile / mapWidth;
+
+                rawObjectComponents[x][y].clear();
+                storeRawComponents(x, y, rawObjectComponents);
+            }
+        }
+
+        objectEntities.clearChanges();
 
         // Now we can update floor data
         FloorData floor = getCurrentFloorData(terrainEntities, rawObjectComponents);
 
-        FloorData existingFloor = gameState.getCurrentFloor();
-
         if (existingFloor != null) {
             // Update existing floor
             floor.setEntrance(existingFloor.entrancePosition);
@@ -407,6 +625,14 @@ public class GameEngine {
         }
     }
 
+    private void storeRawComponents(int x, int y, ArrayList<Component[]>[][] rawObjectComponents) {
+        for (int node = objectEntities.first(x, y); node != TileOccupancy.NONE; node = objectEntities.next(node)) {
+            long objectEntity = objectEntities.get(node);
+            ArrayList<Component> objects = componentManager.getEntityComponents(objectEntity);
+            rawObjectComponents[x][y].add(objects.toArray(new Component[objects.size()]));
+        }
+    }
+
     /**
      * Restores game state from an instance of the GameState class (probably loaded from disk).
      * The end result of this method is the same as if we had generated the floor from scratch
@@ -418,163 +644,1123 @@ public class GameEngine {
         this.gameState = state;
         this.currentFloor = state.getCurrentFloorIndex();
         this.player = state.getPlayer();
+        this.playerEntity = player[0].id;
 
+        cancelFloorPrefetch();
+        reserveEntityIds(state);
         loadFloor(state.getCurrentFloor(), 0);
+        prefetchNextFloor();
+    }
+
+    /**
+     * Registers ids of every saved entity with EntityAllocator, so that entities created from now
+     * on can't reuse them.
+     */
+
+    private void reserveEntityIds(GameState state) {
+        EntityAllocator allocator = world.getEntityAllocator();
+        allocator.reset();
+
+        for (Component component : state.getPlayer()) {
+            allocator.reserve(component.id);
+
+            if (component instanceof Container) {
+                for (Sprite item : ((Container) component).contents) {
+                    allocator.reserve(item.id);
+                }
+            }
+            else if (component instanceof Dexterity) {
+                allocator.reserve(((Dexterity) component).weaponEntity);
+                allocator.reserve(((Dexterity) component).armourEntity);
+            }
+        }
+
+        for (FloorData floor : state.getFloors()) {
+            ArrayList<Component[]>[][] objects = floor.getObjects();
+
+            for (int x = 0; x < objects.length; x++) {
+                for (int y = 0; y < objects[x].length; y++) {
+                    for (Component[] object : objects[x][y]) {
+                        allocator.reserve(object[0].id);
+                    }
+                }
+            }
+
+            for (Component[] object : floor.getParkedObjects()) {
+                allocator.reserve(object[0].id);
+            }
+        }
     }
 
     private void loadFloor(FloorData floor, int direction) {
         // Get components for player's inventory so we can move them to new floor
         ArrayList<Component> playerEquipment = getPlayerEquipment();
 
-        // Clear components and other data attached to last floor
-        initCollections();
+        // Clear components and other data attached to last floor
+        initCollections();
+
+        // First, we can sort the components that should be carried to next floor
+        componentManager.sortComponentArray(player);
+
+        for (Component item : playerEquipment) {
+            componentManager.sortComponent(item);
+        }
+
+        // Get raw components from floor data
+        int[][] rawTerrainComponents = floor.getTerrain();
+        ArrayList<Component[]>[][] rawObjectComponents = floor.getObjects();
+
+        int width = rawTerrainComponents.length;
+        int height = rawTerrainComponents[0].length;
+
+        int playerX = -1;
+        int playerY = -1;
+
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                for (Component[] object : rawObjectComponents[x][y]) {
+                    // Player is added at start position by addPlayer()
+                    if (object[0].id == playerEntity) {
+                        playerX = x;
+                        playerY = y;
+                        continue;
+                    }
+
+                    sortComponentsAndStoreEntities(object);
+                }
+            }
+        }
+
+        // Stacks now match the raw components, apart from the tile where player was saved
+        objectEntities.clearChanges();
+
+        if (playerX != -1) {
+            objectEntities.markChanged(playerX, playerY);
+        }
+
+        Vector2D startPos;
+
+        if (direction == Directions.DOWN) {
+            startPos = floor.entrancePosition;
+        } else if (direction == Directions.UP) {
+            startPos = floor.exitPosition;
+        } else {
+            Position pos = getPlayerPosition();
+            startPos = new Vector2D(pos.x, pos.y);
+        }
+
+        addPlayer(new Vector2D(startPos.x, startPos.y));
+
+        if (floor.isStreamed()) {
+            resumeStreamedFloor(floor);
+        }
+
+        tileFlags.build(terrainEntities, objectEntities, indoorRegions, waterRegions);
+        spatialIndex.build(objectEntities);
+        scheduleActors();
+
+        // Sort raw components by type and filter sprite components for renderer
+        prebuildSprites();
+    }
+
+    public int[] getMapSize() {
+        return new int[] {mapWidth, mapHeight};
+    }
+
+    public Component[] getPlayer() {
+        return player;
+    }
+
+    public void setPathDestination(Vector2D dest) {
+        this.pathDestination = dest;
+    }
+
+    /**
+     * Caches 2d arrays of sprite components to be passed to renderer.
+     */
+
+    private void prebuildSprites() {
+        this.terrainSpriteGrid = new Sprite[mapWidth][mapHeight];
+        this.objectSpriteGrid = Array2DHelper.create2DSpriteArray(mapWidth, mapHeight);
+        this.animations.clear();
+        this.mapRevision++;
+
+        for (int y = 0; y < mapHeight; y++) {
+            for (int x = 0; x < mapWidth; x++) {
+                terrainSpriteGrid[x][y] = (Sprite) componentManager.getEntityComponent(terrainEntities[x][y], Sprite.class.getSimpleName());
+
+                for (int node = objectEntities.first(x, y); node != TileOccupancy.NONE; node = objectEntities.next(node)) {
+                    long entity = objectEntities.get(node);
+                    Sprite sprite = (Sprite) componentManager.getEntityComponent(entity, Sprite.class.getSimpleName());
+
+                    if (sprite == null) {
+                        Log.e(LOG_TAG, "Sprite was null: " + entity);
+                        continue;
+                    }
+
+                    sprite.x = x;
+                    sprite.y = y;
+
+                    objectSpriteGrid.add(x, y, sprite);
+                }
+            }
+        }
+    }
+
+    /*
+    ---------------------------------------------
+     Streamed exterior
+
+     Exterior floors can be streamed from ChunkStreamer instead of being generated at a fixed size.
+     Engine grids then cover a window of mapWidth x mapHeight tiles made of whole chunks, and
+     windowX/windowY is the world position of tile (0, 0). Entities use window coordinates, so the
+     rest of the engine works the same as it does on fixed size floors.
+
+     Once the player walks into the first or last chunk of the window, the window moves one chunk
+     in that direction. Objects on chunks that were left behind are written back to their chunk
+     and their entities destroyed. Any other entities on those chunks (actors, corpses, dropped
+     items, etc) are parked until their chunk comes back. Everything else is moved across, and
+     entities are created for chunks which have just become active.
+    ---------------------------------------------
+    */
+
+    // Chunks within this many chunks of player are kept resident. As player is never in the first
+    // or last chunk of the window, this covers the whole window
+    private final int STREAMED_LOAD_RADIUS = 2;
+
+    // Chunks are roughly 27kb each, so this fits load area plus a ring of prefetched chunks (49 chunks)
+    // with room to spare. Anything less and the prefetched ring is evicted and regenerated every turn
+    private final long STREAMED_MEMORY_BUDGET = 2 * 1024 * 1024;
+
+    private File streamedExteriorDirectory;
+    private ChunkStreamer chunkStreamer;
+    private EnemyPlacer streamedEnemyPlacer;
+    private int windowX;
+    private int windowY;
+
+    // Entities created from chunk objects, mapped to their kind (see ExteriorChunk)
+    private HashMap<Long, Integer> streamedObjects = new HashMap<>();
+
+    // Components of entities on chunks outside window, keyed by chunk. Positions are world
+    // coordinates while entity is parked
+    private HashMap<Long, ArrayList<Component[]>> parkedEntities = new HashMap<>();
+
+    // Parked entities which should carry on drying out once they're back in window
+    private HashSet<Long> parkedPuddles = new HashSet<>();
+
+    /**
+     * Makes exterior floors stream chunks around the player (see ChunkStreamer) instead of being
+     * generated at a fixed size, so they have no edge. Changed chunks are stored in a subdirectory
+     * for each floor. Pass null to go back to fixed size floors. Call before starting or restoring
+     * game.
+     *
+     * Off by default. Streamed floors don't have stairs, roads or buildings yet, so only headless
+     * drivers (eg. benchmarks) should turn this on.
+     */
+
+    public void setStreamedExteriorDirectory(File directory) {
+        this.streamedExteriorDirectory = directory;
+    }
+
+    /**
+     * Returns world position of tile (0, 0), or (0, 0) if current floor isn't streamed.
+     */
+
+    public Vector2D getWindowOrigin() {
+        return new Vector2D(windowX, windowY);
+    }
+
+    /**
+     * Streamer for current floor, or null if it isn't streamed. Headless drivers use this to check
+     * streamer metrics and engine grids against chunk data.
+     */
+
+    public ChunkStreamer getChunkStreamer() {
+        return chunkStreamer;
+    }
+
+    private boolean streamsExterior() {
+        return streamedExteriorDirectory != null && floorType == ProceduralGenerator.EXTERIOR;
+    }
+
+    /**
+     * Starts streaming new floor, with world (0, 0) in middle of window, and creates entities for
+     * every chunk in window.
+     *
+     * @return Nearest free tile to middle of window
+     */
+
+    private Vector2D startStreamedFloor(int floorIndex) {
+        openChunkStreamer(floorIndex);
+
+        windowX = -mapWidth / 2;
+        windowY = -mapHeight / 2;
+
+        chunkStreamer.update(0, 0);
+        fillStreamedGrids();
+
+        for (int left = 0; left < mapWidth; left += ExteriorChunk.SIZE) {
+            for (int bottom = 0; bottom < mapHeight; bottom += ExteriorChunk.SIZE) {
+                // Actors are scheduled along with rest of floor
+                activateChunk(getActiveChunk(left, bottom), false);
+            }
+        }
+
+        rebuildTreeEntities();
+
+        return findStreamedEntrance();
+    }
+
+    /**
+     * Starts streaming floor restored from save. Entities in window were restored with the rest of
+     * the floor, so they only need to be matched up with their chunk objects.
+     */
+
+    private void resumeStreamedFloor(FloorData floor) {
+        if (streamedExteriorDirectory == null) {
+            throw new Error("Floor " + floor.index + " is streamed, but streamed exterior directory wasn't set");
+        }
+
+        openChunkStreamer(floor.index);
+
+        windowX = floor.streamedOrigin.x;
+        windowY = floor.streamedOrigin.y;
+
+        for (Component[] object : floor.getParkedObjects()) {
+            parkEntity(object);
+        }
+
+        Position playerPosition = getPlayerPosition();
+        chunkStreamer.update(windowX + playerPosition.x, windowY + playerPosition.y);
+        fillStreamedGrids();
+        matchStreamedObjects();
+        rebuildTreeEntities();
+    }
+
+    private void openChunkStreamer(int floorIndex) {
+        ProceduralGenerator generator = new ProceduralGenerator(mapWidth, mapHeight, gameHost.getAssetSource());
+        generator.setFloor(floorIndex);
+
+        if (seeded) {
+            generator.setSeed(seed);
+        }
+
+        File directory = new File(streamedExteriorDirectory, "floor_" + floorIndex);
+        chunkStreamer = new ChunkStreamer(generator, directory, STREAMED_LOAD_RADIUS, STREAMED_MEMORY_BUDGET);
+        streamedEnemyPlacer = new EnemyPlacer(objectEntities, componentManager, gameHost.getAssetSource());
+        streamedObjects.clear();
+        parkedEntities.clear();
+        parkedPuddles.clear();
+
+        indoorRegions = new boolean[mapWidth][mapHeight];
+        waterRegions = new boolean[mapWidth][mapHeight];
+        heightMap = new float[mapWidth + 1][mapHeight + 1];
+    }
+
+    /**
+     * Writes changed chunks to disk and stops streaming. Objects on active chunks don't need to be
+     * written back - entities on current floor are saved with the rest of the game.
+     */
+
+    private void closeStreamedFloor() {
+        if (chunkStreamer != null) {
+            chunkStreamer.shutdown();
+            chunkStreamer = null;
+            streamedEnemyPlacer = null;
+        }
+
+        streamedObjects.clear();
+        parkedEntities.clear();
+        parkedPuddles.clear();
+        windowX = 0;
+        windowY = 0;
+    }
+
+    /**
+     * Deletes stored chunks for every floor (eg. when starting a new game).
+     */
+
+    private void clearStreamedChunks() {
+        if (streamedExteriorDirectory == null) return;
+
+        File[] floors = streamedExteriorDirectory.listFiles();
+
+        if (floors == null) return;
+
+        for (File floor : floors) {
+            if (floor.isDirectory()) {
+                new ChunkStore(floor).clear();
+            }
+        }
+    }
+
+    /**
+     * Moves window if player has walked into its first or last chunk, and lets streamer load chunks
+     * ahead of player. Called at the start of every turn.
+     */
+
+    private void updateStreamedWindow() {
+        if (chunkStreamer == null) return;
+
+        Position playerPosition = getPlayerPosition();
+        int dx = getWindowShift(playerPosition.x, mapWidth);
+        int dy = getWindowShift(playerPosition.y, mapHeight);
+
+        if (dx != 0 || dy != 0) {
+            moveWindow(dx, dy);
+        }
+
+        else {
+            chunkStreamer.update(windowX + playerPosition.x, windowY + playerPosition.y);
+        }
+    }
+
+    private int getWindowShift(int position, int size) {
+        if (position < ExteriorChunk.SIZE) return -ExteriorChunk.SIZE;
+        if (position >= size - ExteriorChunk.SIZE) return ExteriorChunk.SIZE;
+        return 0;
+    }
+
+    /**
+     * Moves window by (dx, dy) tiles. Both must be multiples of ExteriorChunk.SIZE.
+     */
+
+    private void moveWindow(int dx, int dy) {
+        int newWindowX = windowX + dx;
+        int newWindowY = windowY + dy;
+
+        // Chunks left behind are still resident - they were within load radius at the last update
+        for (int left = 0; left < mapWidth; left += ExteriorChunk.SIZE) {
+            for (int bottom = 0; bottom < mapHeight; bottom += ExteriorChunk.SIZE) {
+                int worldX = windowX + left;
+                int worldY = windowY + bottom;
+
+                if (worldX < newWindowX || worldX >= newWindowX + mapWidth
+                        || worldY < newWindowY || worldY >= newWindowY + mapHeight) {
+
+                    deactivateChunk(getActiveChunk(left, bottom));
+                }
+            }
+        }
+
+        // Take remaining entities off grid, so they can be added back in their new position
+        ArrayList<Long> remaining = new ArrayList<>();
+        ArrayList<Vector2D> positions = new ArrayList<>();
+
+        for (int x = 0; x < mapWidth; x++) {
+            for (int y = 0; y < mapHeight; y++) {
+                for (int node = objectEntities.first(x, y); node != TileOccupancy.NONE; node = objectEntities.next(node)) {
+                    remaining.add(objectEntities.get(node));
+                    positions.add(new Vector2D(x - dx, y - dy));
+                }
+
+                objectEntities.clear(x, y);
+            }
+        }
+
+        for (int i = 0; i < remaining.size(); i++) {
+            long entity = remaining.get(i);
+            Vector2D position = positions.get(i);
+
+            objectEntities.add(position.x, position.y, entity);
+
+            Position positionComponent = (Position) componentManager.getEntityComponent(entity, ComponentTypes.POSITION);
+            positionComponent.x = position.x;
+            positionComponent.y = position.y;
+
+            Sprite sprite = (Sprite) componentManager.getEntityComponent(entity, ComponentTypes.SPRITE);
+
+            if (sprite != null && sprite.lastX != -1) {
+                sprite.lastX -= dx;
+                sprite.lastY -= dy;
+            }
+        }
+
+        shiftActorPaths(dx, dy);
+
+        windowX = newWindowX;
+        windowY = newWindowY;
+
+        Position playerPosition = getPlayerPosition();
+        chunkStreamer.update(windowX + playerPosition.x, windowY + playerPosition.y);
+        fillStreamedGrids();
+
+        // Puddles aren't stored in chunks, but still count as water
+        for (long puddle : weatherManager.getPuddleEntities()) {
+            Position position = (Position) componentManager.getEntityComponent(puddle, ComponentTypes.POSITION);
+            waterRegions[position.x][position.y] = true;
+        }
+
+        ArrayList<Long> newActors = new ArrayList<>();
+
+        for (int left = 0; left < mapWidth; left += ExteriorChunk.SIZE) {
+            for (int bottom = 0; bottom < mapHeight; bottom += ExteriorChunk.SIZE) {
+                int worldX = windowX + left;
+                int worldY = windowY + bottom;
+
+                if (worldX < windowX - dx || worldX >= windowX - dx + mapWidth
+                        || worldY < windowY - dy || worldY >= windowY - dy + mapHeight) {
+
+                    newActors.addAll(activateChunk(getActiveChunk(left, bottom), true));
+                }
+            }
+        }
+
+        rebuildTreeEntities();
+        tileFlags.build(terrainEntities, objectEntities, indoorRegions, waterRegions);
+        spatialIndex.build(objectEntities);
+
+        for (long entity : newActors) {
+            AI ai = (AI) componentManager.getEntityComponent(entity, ComponentTypes.AI);
+
+            if (ai != null && ai.computerControlled && ai.state != EnemyState.INACTIVE) {
+                turnScheduler.schedule(entity, turnClock);
+            }
+        }
+
+        // Anything else that holds on to tile positions
+        fovCalculator.shiftVisitedTiles(dx, dy);
+        playerDesireMap.reset();
+        playerFleeMap.reset();
+        pathDestination = null;
+        snowCoverGenerator = null;
+        snowCover = Array2DHelper.fillIntArray(mapWidth, mapHeight, -1);
+
+        prebuildSprites();
+
+        // Keep floor data in step with window, so that a save made now can be restored
+        saveCurrentFloor();
+    }
+
+    private void shiftActorPaths(int dx, int dy) {
+        if (actorBuffer.length < aiActors.size()) {
+            actorBuffer = new long[aiActors.size() * 2];
+        }
+
+        int count = aiActors.copyEntities(actorBuffer);
+
+        for (int i = 0; i < count; i++) {
+            AI ai = (AI) componentManager.getEntityComponent(actorBuffer[i], ComponentTypes.AI);
+
+            if (ai.path == null) continue;
+
+            for (int j = 0; j < ai.path.size(); j++) {
+                Vector2D cell = ai.path.get(j);
+                ai.path.set(j, new Vector2D(cell.x - dx, cell.y - dy));
+            }
+        }
+    }
+
+    /**
+     * Returns resident chunk containing window tile (x, y). Every chunk in window should be resident.
+     */
+
+    private ExteriorChunk getActiveChunk(int x, int y) {
+        ExteriorChunk chunk = chunkStreamer.getChunkAt(windowX + x, windowY + y);
+
+        if (chunk == null) {
+            throw new Error("Chunk at " + (windowX + x) + ", " + (windowY + y) + " isn't resident");
+        }
+
+        return chunk;
+    }
+
+    /**
+     * Copies terrain, water, indoor and height data for every chunk in window into engine grids.
+     */
+
+    private void fillStreamedGrids() {
+        final int size = ExteriorChunk.SIZE;
+
+        for (int left = 0; left < mapWidth; left += size) {
+            for (int bottom = 0; bottom < mapHeight; bottom += size) {
+                ExteriorChunk chunk = getActiveChunk(left, bottom);
+                int originX = chunk.getOriginX();
+                int originY = chunk.getOriginY();
+
+                for (int x = 0; x < size; x++) {
+                    for (int y = 0; y < size; y++) {
+                        terrainEntities[left + x][bottom + y] = spriteIndexes.get(chunk.terrain[x][y]);
+                        waterRegions[left + x][bottom + y] = chunk.water.get(originX + x, originY + y);
+                        indoorRegions[left + x][bottom + y] = chunk.indoor.get(originX + x, originY + y);
+                    }
+                }
+
+                // Heights are per vertex, so chunks share their edges
+                for (int x = 0; x <= size; x++) {
+                    for (int y = 0; y <= size; y++) {
+                        heightMap[left + x][bottom + y] = chunk.heights[x][y];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates entities for objects on chunk, using same factories as fixed size exterior, and puts
+     * back entities that were parked on chunk. Goats are only created from chunk objects once -
+     * after that they're parked with the rest of their state.
+     *
+     * @param schedule True if caller is responsible for scheduling returned actors
+     * @return Entities of actors that were created or put back
+     */
+
+    private ArrayList<Long> activateChunk(ExteriorChunk chunk, boolean schedule) {
+        ArrayList<Long> actors = new ArrayList<>();
+        ArrayList<Component[]> parked = parkedEntities.remove(chunk.getKey());
+
+        if (parked != null) {
+            for (Component[] object : parked) {
+                long entity = unparkEntity(object);
+
+                if (schedule && componentManager.has(entity, ComponentTypes.AI)) {
+                    actors.add(entity);
+                }
+            }
+        }
+
+        for (int i = 0; i < chunk.objectPositions.size(); i++) {
+            Vector2D position = chunk.objectPositions.get(i);
+            int kind = chunk.objectKinds.get(i);
+            String texture = chunk.objectTextures.get(i);
+            int x = position.x - windowX;
+            int y = position.y - windowY;
+            long entity;
+
+            if (kind == ExteriorChunk.GOAT) {
+                entity = streamedEnemyPlacer.placeEnemy(x, y, EnemyBlueprintKeys.GOAT);
+
+                if (schedule) {
+                    actors.add(entity);
+                }
+
+                continue;
+            }
+
+            else {
+                Component[] object;
+
+                if (kind == ExteriorChunk.TREE) {
+                    object = DecalFactory.createDecal(x, y, texture);
+                }
+                else if (kind == ExteriorChunk.FOREST) {
+                    object = DecalFactory.createFovBlockingDecal(x, y, texture);
+                }
+                else {
+                    object = DecalFactory.createTraversableDecoration(x, y, texture);
+                }
+
+                entity = object[0].id;
+                objectEntities.add(x, y, entity);
+                componentManager.sortComponentArray(object);
+            }
+
+            streamedObjects.put(entity, kind);
+        }
+
+        return actors;
+    }
+
+    /**
+     * Writes objects which are on chunk back to it and destroys their entities. Any other entity on
+     * chunk (goats, corpses, blood, puddles, dropped items) is parked instead.
+     */
+
+    private void deactivateChunk(ExteriorChunk chunk) {
+        ArrayList<Vector2D> positions = new ArrayList<>();
+        ArrayList<Integer> kinds = new ArrayList<>();
+        ArrayList<String> textures = new ArrayList<>();
+
+        int left = chunk.getOriginX() - windowX;
+        int bottom = chunk.getOriginY() - windowY;
+
+        for (int x = left; x < left + ExteriorChunk.SIZE; x++) {
+            for (int y = bottom; y < bottom + ExteriorChunk.SIZE; y++) {
+                for (long entity : objectEntities.toArray(x, y)) {
+                    Integer kind = streamedObjects.remove(entity);
+
+                    if (kind == null) {
+                        ArrayList<Component> components = componentManager.getEntityComponents(entity);
+
+                        if (weatherManager.getPuddleEntities().contains(entity)) {
+                            parkedPuddles.add(entity);
+                        }
+
+                        componentManager.removeEntityComponents(entity);
+                        parkEntity(components.toArray(new Component[components.size()]), windowX, windowY);
+                    }
+
+                    else {
+                        Sprite sprite = (Sprite) componentManager.getEntityComponent(entity, ComponentTypes.SPRITE);
+                        positions.add(new Vector2D(windowX + x, windowY + y));
+                        kinds.add(kind);
+                        textures.add(sprite.path);
+                        componentManager.destroyEntity(entity);
+                    }
+
+                    turnScheduler.remove(entity);
+                    dormantActors.wake(entity);
+                    weatherManager.forgetEntity(entity);
+                }
+
+                objectEntities.clear(x, y);
+            }
+        }
+
+        chunk.replaceObjects(positions, kinds, textures);
+    }
+
+    /**
+     * Moves entity (which isn't in component manager) to world coordinates and parks it on the
+     * chunk it's standing on.
+     */
+
+    private void parkEntity(Component[] object, int offsetX, int offsetY) {
+        for (Component component : object) {
+            if (component instanceof Position) {
+                Position position = (Position) component;
+                position.x += offsetX;
+                position.y += offsetY;
+            }
+
+            else if (component instanceof Sprite) {
+                // Sprite shouldn't slide in from where it was when it comes back
+                ((Sprite) component).lastX = -1;
+                ((Sprite) component).lastY = -1;
+            }
+        }
+
+        parkEntity(object);
+    }
+
+    private void parkEntity(Component[] object) {
+        Position position = getPosition(object);
+        long key = ExteriorChunk.getKey(ExteriorChunk.toChunk(position.x), ExteriorChunk.toChunk(position.y));
+        ArrayList<Component[]> parked = parkedEntities.get(key);
+
+        if (parked == null) {
+            parked = new ArrayList<>();
+            parkedEntities.put(key, parked);
+        }
+
+        parked.add(object);
+    }
+
+    /**
+     * Moves parked entity back into window and component manager.
+     *
+     * @return Entity
+     */
+
+    private long unparkEntity(Component[] object) {
+        long entity = object[0].id;
+        Position position = getPosition(object);
+        position.x -= windowX;
+        position.y -= windowY;
+
+        componentManager.sortComponentArray(object);
+        objectEntities.add(position.x, position.y, entity);
+
+        if (parkedPuddles.remove(entity)) {
+            weatherManager.addPuddle(entity);
+            waterRegions[position.x][position.y] = true;
+        }
+
+        return entity;
+    }
+
+    private Position getPosition(Component[] object) {
+        for (Component component : object) {
+            if (component instanceof Position) {
+                return (Position) component;
+            }
+        }
+
+        throw new Error("Parked entity " + object[0].id + " doesn't have position");
+    }
+
+    /**
+     * Returns components of every parked entity, for saving with the rest of the floor.
+     */
+
+    private ArrayList<Component[]> getParkedObjects() {
+        ArrayList<Component[]> objects = new ArrayList<>();
+
+        for (ArrayList<Component[]> parked : parkedEntities.values()) {
+            objects.addAll(parked);
+        }
+
+        return objects;
+    }
+
+    /**
+     * Works out which restored entities were created from chunk objects, by matching position and
+     * texture. Goats aren't matched - once created, they're kept like any other entity.
+     */
+
+    private void matchStreamedObjects() {
+        for (int left = 0; left < mapWidth; left += ExteriorChunk.SIZE) {
+            for (int bottom = 0; bottom < mapHeight; bottom += ExteriorChunk.SIZE) {
+                ExteriorChunk chunk = getActiveChunk(left, bottom);
+
+                for (int i = 0; i < chunk.objectPositions.size(); i++) {
+                    int kind = chunk.objectKinds.get(i);
+
+                    if (kind == ExteriorChunk.GOAT) continue;
+
+                    Vector2D position = chunk.objectPositions.get(i);
+                    int x = position.x - windowX;
+                    int y = position.y - windowY;
+
+                    for (int node = objectEntities.first(x, y); node != TileOccupancy.NONE; node = objectEntities.next(node)) {
+                        long entity = objectEntities.get(node);
+                        Sprite sprite = (Sprite) componentManager.getEntityComponent(entity, ComponentTypes.SPRITE);
+
+                        if (sprite != null && sprite.path.equals(chunk.objectTextures.get(i))
+                                && !streamedObjects.containsKey(entity)) {
+
+                            streamedObjects.put(entity, kind);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Trees on streamed floors are whatever trees are in window, in tile order.
+     */
+
+    private void rebuildTreeEntities() {
+        treeEntities.clear();
+
+        for (int x = 0; x < mapWidth; x++) {
+            for (int y = 0; y < mapHeight; y++) {
+                for (int node = objectEntities.first(x, y); node != TileOccupancy.NONE; node = objectEntities.next(node)) {
+                    Integer kind = streamedObjects.get(objectEntities.get(node));
+
+                    if (kind != null && (kind == ExteriorChunk.TREE || kind == ExteriorChunk.FOREST)) {
+                        treeEntities.add(objectEntities.get(node));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns nearest tile to middle of window without water or objects.
+     */
+
+    private Vector2D findStreamedEntrance() {
+        int centreX = mapWidth / 2;
+        int centreY = mapHeight / 2;
+
+        // Search in growing squares, but stay out of first and last chunk so window doesn't move
+        for (int radius = 0; radius < mapWidth / 2 - ExteriorChunk.SIZE; radius++) {
+            for (int x = centreX - radius; x <= centreX + radius; x++) {
+                for (int y = centreY - radius; y <= centreY + radius; y++) {
+                    boolean onEdge = Math.abs(x - centreX) == radius || Math.abs(y - centreY) == radius;
+
+                    if (onEdge && !waterRegions[x][y] && objectEntities.first(x, y) == TileOccupancy.NONE) {
+                        return new Vector2D(x, y);
+                    }
+                }
+            }
+        }
+
+        Log.w(LOG_TAG, "No free tile near middle of streamed floor " + currentFloor);
+        return new Vector2D(centreX, centreY);
+    }
+
+    /*
+    ---------------------------------------------
+     Main game loop
+    ---------------------------------------------
+    */
+
+    public void advanceFrame() {
+        updateStreamedWindow();
+        updatePreTurnData();
+        advanceWorldTime();
+        determineAiMoves();
+        doPostTurnJobs();
+        gameHost.passDataToRenderer();
+    }
+
+    private void updatePreTurnData() {
+        Position playerPosition = getPlayerPosition();
+        fovCalculator.setValues(tileFlags, playerPosition.x, playerPosition.y, sightRadius);
+        fieldOfVision = fovCalculator.calculate();
+        generatePlayerDesireMap();
+    }
+
+    private void determineAiMoves() {
+        calculateAiVision();
+
+        // Player has just taken a standard action, so advance clock and find actors that are due
+        turnClock += EnergySystem.ACTION_COST;
+        wakeNearbyActors();
+        int dueCount = turnScheduler.pollDue(turnClock);
+
+        // Decide phase: snapshot every due actor and work out their moves (in parallel for large
+        // batches). Nothing outside AiDecisionService is modified until the commit phase.
+        Position playerPosition = getPlayerPosition();
+        aiDecisions.begin(tileFlags, playerDesireMap, playerFleeMap, aiVision, playerPosition.x, playerPosition.y);
+
+        for (int i = 0; i < dueCount; i++) {
+            long entity = turnScheduler.getDue(i);
+            AI ai = (AI) componentManager.getEntityComponent(entity, ComponentTypes.AI);
+
+            // Pathfinding actors share PathFinder, so they're handled during commit phase
+            if (ai == null || ai.state == EnemyState.INACTIVE || ai.state == EnemyState.PATHFINDING) continue;
+
+            Position position = (Position) componentManager.getEntityComponent(entity, ComponentTypes.POSITION);
+            aiDecisions.addActor(entity, position.x, position.y, ai.state, ai.playerInterest);
+        }
+
+        int decisionCount = aiDecisions.getActorCount();
+        aiDecisions.decide();
+
+        // Commit phase: apply decisions in scheduler order, so that conflicts (eg. two actors
+        // moving to the same tile) are always resolved the same way
+        int slot = 0;
+
+        for (int i = 0; i < dueCount; i++) {
+            long entity = turnScheduler.getDue(i);
+            AI ai = (AI) componentManager.getEntityComponent(entity, ComponentTypes.AI);
+
+            if (ai == null || ai.state == EnemyState.INACTIVE) {
+                // Actor stays unscheduled until something calls wakeActor()
+                continue;
+            }
+
+            if (slot < decisionCount && aiDecisions.getEntity(slot) == entity) {
+                commitAiDecision(slot++);
+            }
+
+            else if (ai.state == EnemyState.PATHFINDING) {
+                seekActorWhilePathBlocked(entity, playerEntity);
+            }
+
+            // Todo: handle self-replicating enemies by operating on SelfReplicate components
+
+            rescheduleActor(entity, turnScheduler.getDueTime(i));
+        }
+
+        playerMoveLock = false;
+    }
+
+    /**
+     * Schedules every computer-controlled actor on current floor to act on next turn.
+     */
+
+    private void scheduleActors() {
+        turnScheduler.clear();
+        dormantActors.clear();
+
+        // Copy entities first, so that view can't change while we're reading from it
+        if (actorBuffer.length < aiActors.size()) {
+            actorBuffer = new long[aiActors.size() * 2];
+        }
+
+        int count = aiActors.copyEntities(actorBuffer);
+
+        for (int i = 0; i < count; i++) {
+            AI ai = (AI) componentManager.getEntityComponent(actorBuffer[i], ComponentTypes.AI);
+
+            if (ai.computerControlled && ai.state != EnemyState.INACTIVE) {
+                turnScheduler.schedule(actorBuffer[i], turnClock);
+            }
+        }
+    }
+
+    /**
+     * Schedules next action for actor that has just taken its turn. Actors outside the wake radius
+     * are parked instead if they have nothing to do: idle actors can only notice the player from
+     * within VisibilityService.MAX_RADIUS, and seeking actors need to be inside the player's desire
+     * map to follow it. Fleeing actors are parked once they have escaped.
+     *
+     * @param dueTime Time actor was scheduled for. Delay is counted from here rather than from
+     *                current clock, so eg. a delay of 101 ticks costs one turn in a hundred instead
+     *                of every other turn
+     */
+
+    private void rescheduleActor(long entity, long dueTime) {
+        AI ai = (AI) componentManager.getEntityComponent(entity, ComponentTypes.AI);
 
-        // First, we can sort the components that should be carried to next floor
-        componentManager.sortComponentArray(player);
+        // Actor was killed or deactivated during its turn
+        if (ai == null || ai.state == EnemyState.INACTIVE) return;
 
-        for (Component item : playerEquipment) {
-            componentManager.sortComponent(item);
-        }
+        Position position = (Position) componentManager.getEntityComponent(entity, ComponentTypes.POSITION);
+        Position playerPosition = getPlayerPosition();
 
-        // Get raw components from floor data
-        int[][] rawTerrainComponents = floor.getTerrain();
-        ArrayList<Component[]>[][] rawObjectComponents = floor.getObjects();
+        int dx = position.x - playerPosition.x;
+        int dy = position.y - playerPosition.y;
+        int wakeRadius = dormantActors.getWakeRadius();
 
-        int width = rawTerrainComponents.length;
-        int height = rawTerrainComponents[0].length;
+        // Use same circular radius as wakeNearbyActors()
+        if (dx * dx + dy * dy > wakeRadius * wakeRadius) {
+            boolean outsideScent = playerDesireMap.get(position.x, position.y) >= DIJKSTRA_MAX;
 
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                for (Component[] object : rawObjectComponents[x][y]) {
-                    sortComponentsAndStoreEntities(object);
-                }
+            if (ai.state == EnemyState.IDLE || ai.state == EnemyState.FLEEING || outsideScent) {
+                dormantActors.park(entity, turnClock);
+                return;
             }
         }
 
-        Vector2D startPos;
+        // Actors act at most once per turn, so fast actors can't build up a backlog of actions
+        long nextTime = Math.max(dueTime + EnergySystem.getActionDelay(componentManager, entity), turnClock);
+        turnScheduler.schedule(entity, nextTime);
+    }
 
-        if (direction == Directions.DOWN) {
-            startPos = floor.entrancePosition;
-        } else if (direction == Directions.UP) {
-            startPos = floor.exitPosition;
-        } else {
-            Position pos = getPlayerPosition();
-            startPos = new Vector2D(pos.x, pos.y);
-        }
+    /**
+     * Makes actor act on next turn, regardless of when it was scheduled (eg. after being attacked).
+     * Dormant actors are caught up first.
+     */
 
-        addPlayer(new Vector2D(startPos.x, startPos.y));
+    private void wakeActor(long entity) {
+        AI ai = (AI) componentManager.getEntityComponent(entity, ComponentTypes.AI);
 
-        // Sort raw components by type and filter sprite components for renderer
-        prebuildSprites();
+        if (ai != null && ai.computerControlled) {
+            long parkedAt = dormantActors.wake(entity);
 
-        // Enemy components have already been sorted, but we should keep a reference to their entities
-        ArrayList<Component> enemies = componentManager.getComponents(AI.class.getSimpleName());
+            if (parkedAt != -1) {
+                catchUpActor(entity, ai, parkedAt);
+            }
 
-        for (int i = 0; i < enemies.size(); i++) {
-            this.aiEntities.add(enemies.get(i).id);
+            turnScheduler.schedule(entity, turnClock);
         }
     }
 
-    public int[] getMapSize() {
-        return new int[] {mapWidth, mapHeight};
-    }
+    /**
+     * Wakes dormant actors that are now within wake radius of player. Only visits actors near the
+     * player, so cost doesn't depend on number of actors on floor.
+     */
 
-    public Component[] getPlayer() {
-        return player;
-    }
+    private void wakeNearbyActors() {
+        if (dormantActors.size() == 0) return;
 
-    public void setPathDestination(Vector2D dest) {
-        this.pathDestination = dest;
+        Position playerPosition = getPlayerPosition();
+        wakeDormantActors(playerPosition.x, playerPosition.y, dormantActors.getWakeRadius());
     }
 
     /**
-     * Caches 2d arrays of sprite components to be passed to renderer.
+     * Wakes dormant actors that are close enough to hear a noise at (x, y).
      */
 
-    private void prebuildSprites() {
-        this.terrainSpriteGrid = new Sprite[mapWidth][mapHeight];
-        this.objectSpriteGrid = Array2DHelper.create2DSpriteArray(mapWidth, mapHeight);
-        this.animations.clear();
+    private void emitNoise(int x, int y, int radius) {
+        if (dormantActors.size() == 0) return;
 
-        for (int y = 0; y < mapHeight; y++) {
-            for (int x = 0; x < mapWidth; x++) {
-                terrainSpriteGrid[x][y] = (Sprite) componentManager.getEntityComponent(terrainEntities[x][y], Sprite.class.getSimpleName());
+        wakeDormantActors(x, y, radius);
+    }
 
-                for (Long entity : objectEntities[x][y]) {
-                    Sprite sprite = (Sprite) componentManager.getEntityComponent(entity, Sprite.class.getSimpleName());
+    private void wakeDormantActors(int x, int y, int radius) {
+        int count = spatialIndex.queryRadius(ComponentTypes.AI, x, y, radius);
 
-                    if (sprite == null) {
-                        Log.e(LOG_TAG, "Sprite was null: " + entity);
-                        continue;
-                    }
+        // Catching up moves actors, so copy results before waking anything
+        if (actorBuffer.length < count) {
+            actorBuffer = new long[count * 2];
+        }
 
-                    sprite.x = x;
-                    sprite.y = y;
+        int dormantCount = 0;
 
-                    objectSpriteGrid[x][y].add(sprite);
-                }
+        for (int i = 0; i < count; i++) {
+            long entity = spatialIndex.getResult(i);
+
+            if (dormantActors.isDormant(entity)) {
+                actorBuffer[dormantCount++] = entity;
             }
         }
+
+        for (int i = 0; i < dormantCount; i++) {
+            wakeActor(actorBuffer[i]);
+        }
     }
 
-    /*
-    ---------------------------------------------
-     Main game loop
-    ---------------------------------------------
-    */
+    /**
+     * Approximates turns that actor missed while dormant. Seeking actors follow the player's desire
+     * map for as many steps as they would have been able to take, and are moved to their final
+     * tile in one go. Idle and fleeing actors wouldn't have done anything useful, so stay put.
+     */
 
-    public void advanceFrame() {
-        updatePreTurnData();
-        advanceWorldTime();
-        determineAiMoves();
-        doPostTurnJobs();
-        gameInterface.passDataToRenderer();
-    }
+    private void catchUpActor(long entity, AI ai, long parkedAt) {
+        if (ai.state != EnemyState.SEEKING && ai.state != EnemyState.PATHFINDING) return;
 
-    private void updatePreTurnData() {
-        Position playerPosition = getPlayerPosition();
-        fovCalculator.setValues(terrainEntities, objectEntities, playerPosition.x, playerPosition.y, sightRadius);
-        fieldOfVision = fovCalculator.calculate();
-        generatePlayerDesireMap();
-    }
+        long elapsed = turnClock - parkedAt;
+        int delay = EnergySystem.getActionDelay(componentManager, entity);
+        int steps = (int) Math.min(elapsed / delay, MAX_CATCH_UP_STEPS);
 
-    private void determineAiMoves() {
-        int enemySize = aiEntities.size();
+        Position position = (Position) componentManager.getEntityComponent(entity, ComponentTypes.POSITION);
+        int x = position.x;
+        int y = position.y;
 
-        for (int i = 0; i < enemySize; i++) {
-            long entity = aiEntities.get(i);
-            AI ai = (AI) componentManager.getEntityComponent(entity, AI.class.getSimpleName());
+        for (int step = 0; step < steps; step++) {
+            int desire = playerDesireMap.get(x, y);
 
-            if (ai == null) {
-                // Mark for deletion?
-                continue;
-            }
+            // Stop next to player - actor will decide whether to attack on its next turn
+            if (desire <= 1) break;
 
-            switch (ai.state) {
-                case EnemyState.INACTIVE:
-                    break;
+            int bestX = x;
+            int bestY = y;
 
-                case EnemyState.IDLE:
-                    takeAiTurn(entity);
-                    break;
+            for (Vector2D direction : Directions.All.values()) {
+                int nextX = x + direction.x();
+                int nextY = y + direction.y();
 
-                case EnemyState.SEEKING:
-                    takeAiTurn(entity);
-                    break;
+                if (tileFlags.blocksMovement(nextX, nextY)) continue;
 
-                case EnemyState.PATHFINDING:
-                    seekActorWhilePathBlocked(entity, playerEntity);
-                    break;
+                int nextDesire = playerDesireMap.get(nextX, nextY);
 
-                default:
-                    takeAiTurn(entity);
-                    break;
+                if (nextDesire < desire) {
+                    desire = nextDesire;
+                    bestX = nextX;
+                    bestY = nextY;
+                }
             }
 
-            // Todo: handle self-replicating enemies by operating on SelfReplicate components
+            // Reached a dead end (eg. closed door between actor and player)
+            if (bestX == x && bestY == y) break;
+
+            x = bestX;
+            y = bestY;
         }
 
-        playerMoveLock = false;
+        if (x != position.x || y != position.y) {
+            moveObjectToNewStack(entity, position.x, position.y, x, y);
+            position.x = x;
+            position.y = y;
+        }
+    }
+
+    /**
+     * Casts line of sight for every active AI actor in one batch, so that AiDecisionService can check
+     * whether actor is able to see player. Actors further away than VisibilityService.MAX_RADIUS
+     * can't see player anyway, so we only cast from actors found in spatial index.
+     */
+
+    private void calculateAiVision() {
+        aiVision.begin(tileFlags);
+
+        Position playerPosition = getPlayerPosition();
+        int nearbyCount = spatialIndex.queryRadius(ComponentTypes.AI,
+                playerPosition.x, playerPosition.y, VisibilityService.MAX_RADIUS);
+
+        for (int i = 0; i < nearbyCount; i++) {
+            long entity = spatialIndex.getResult(i);
+            if (entity == playerEntity) continue;
+
+            AI ai = (AI) componentManager.getEntityComponent(entity, ComponentTypes.AI);
+            Position position = (Position) componentManager.getEntityComponent(entity, ComponentTypes.POSITION);
+
+            if (ai == null || position == null || ai.state == EnemyState.INACTIVE) continue;
+
+            // AI components from older saves won't have sight radius set
+            int radius = (ai.sightRadius > 0) ? ai.sightRadius : AI.DEFAULT_SIGHT_RADIUS;
+            aiVision.addViewer(entity, position.x, position.y, radius);
+        }
+
+        aiVision.compute();
     }
 
     private void doPostTurnJobs() {
@@ -657,11 +1843,9 @@ public class GameEngine {
 
         if (adjacent) {
             // Iterate through all player-controlled entities and queue movements
-            ArrayList<Input> playerControlled = componentManager.getComponents(Input.class.getSimpleName());
             for (int i = 0; i < playerControlled.size(); i++) {
-                long entity = playerControlled.get(i).id;
-                Position position = (Position) componentManager.getEntityComponent(entity, Position.class.getSimpleName());
-                ActorTurn turn = new ActorTurn(position);
+                Position position = (Position) playerControlled.get(i, ComponentTypes.POSITION);
+                ActorTurn turn = turnPool.obtain(position);
                 turn.setMove(destination);
                 priorityQueue[MEDIUM_PRIORITY].add(turn);
             }
@@ -693,26 +1877,24 @@ public class GameEngine {
         long entity = components[0].id;
         componentManager.sortComponentArray(components);
         Position position = (Position) componentManager.getEntityComponent(entity, Position.class.getSimpleName());
-        objectEntities[position.x][position.y].add(entity);
+        objectEntities.add(position.x, position.y, entity);
     }
 
     private void addEntityToStack(int x, int y, long entity) {
-        objectEntities[x][y].add(entity);
+        objectEntities.add(x, y, entity);
     }
 
     private void moveObjectToNewStack(long entity, int oldX, int oldY, int newX, int newY) {
-        ArrayList<Long> oldStack = objectEntities[oldX][oldY];
-        ArrayList<Long> newStack = objectEntities[newX][newY];
-
-        if (oldStack.contains(entity)) {
-            oldStack.remove(entity);
-            newStack.add(entity);
-        }
-        else {
+        if (!objectEntities.remove(oldX, oldY, entity)) {
             Log.w(LOG_TAG, "Object not present in old stack. Adding to new stack");
-            newStack.add(entity);
         }
 
+        objectEntities.add(newX, newY, entity);
+
+        tileFlags.updateTile(oldX, oldY);
+        tileFlags.updateTile(newX, newY);
+        spatialIndex.move(entity, newX, newY);
+
         Sprite sprite = (Sprite) componentManager.getEntityComponent(entity, Sprite.class.getSimpleName());
         sprite.x = newX;
         sprite.y = newY;
@@ -721,11 +1903,8 @@ public class GameEngine {
         sprite.dirty = true;
 
         // Update sprite grid for renderer
-        if (objectSpriteGrid[oldX][oldY].contains(sprite)) {
-            objectSpriteGrid[oldX][oldY].remove(sprite);
-        }
-
-        objectSpriteGrid[newX][newY].add(sprite);
+        objectSpriteGrid.remove(oldX, oldY, sprite);
+        objectSpriteGrid.add(newX, newY, sprite);
     }
 
     private void changeSpritePath(Sprite sprite, String path) {
@@ -739,11 +1918,12 @@ public class GameEngine {
     ---------------------------------------------
     */
 
-    private void generatePlayerDesireMap() {
-        int[] tilesToCheck = {Terrain.WALL, Terrain.FLOOR};
-        int[][] desireGrid = Array2DHelper.fillIntArray(mapWidth, mapHeight, DIJKSTRA_MAX);
-        ArrayList<Vector2D> desireLocations = new ArrayList<>();
+    /**
+     * Updates desire map which leads AI towards player, and flee map which leads AI away from player.
+     * Maps are only recalculated if player has moved or field of vision has changed since last turn.
+     */
 
+    private void generatePlayerDesireMap() {
         Position playerPosition = getPlayerPosition();
         AI ai = (AI) componentManager.getEntityComponent(playerEntity, AI.class.getSimpleName());
         int dijkstra;
@@ -756,50 +1936,13 @@ public class GameEngine {
             dijkstra = ai.dijkstra;
         }
 
-        desireGrid[playerPosition.x][playerPosition.y] = dijkstra;
-        desireLocations.add(new Vector2D(playerPosition.x, playerPosition.y));
-
-        playerDesireMap = populateDijkstraGrid(Directions.All.values(), desireGrid, desireLocations, tilesToCheck, false);
-    }
-
-    private int[][] populateDijkstraGrid(Collection<Vector2D> directions, int[][] desireGrid, ArrayList<Vector2D> desireLocations, int[] typesToCheck, boolean ignoreCollisions) {
-        int desireSize = desireLocations.size();
-        for (int i = 0; i < desireSize; i++) {
-            Vector2D desire = desireLocations.get(i);
-            ArrayList<Vector2D> queue = new ArrayList<>();
-
-            queue.add(desire);
-
-            while (queue.size() > 0) {
-                Vector2D cell = queue.remove(queue.size() - 1);
+        playerDesireMap.setVisibility(fieldOfVision, fovCalculator.getCalculationCount());
+        playerDesireMap.clearGoals();
+        playerDesireMap.addGoal(playerPosition.x, playerPosition.y, dijkstra);
 
-                int initialValue = desireGrid[cell.x()][cell.y()];
-
-                for (Vector2D direction : directions) {
-                    Vector2D neighbour = cell.add(direction);
-
-                    if (!inBounds(neighbour)) continue;
-                    if (fieldOfVision[neighbour.x()][neighbour.y()] == 0) continue;
-
-                    long terrainEntity = terrainEntities[neighbour.x][neighbour.y];
-                    Terrain stat = (Terrain) componentManager.getEntityComponent(terrainEntity, Terrain.class.getSimpleName());
-
-                    int value = desireGrid[neighbour.x()][neighbour.y()];
-
-                    if (!ignoreCollisions && detectCollisions(neighbour)) continue;
-
-                    else if (value >= initialValue + 2 && (entityTypeInArray(stat, typesToCheck))) {
-                        desireGrid[neighbour.x()][neighbour.y()] = initialValue + 1;
-
-                        if (entityTypeInArray(stat, typesToCheck)) {
-                            queue.add(neighbour);
-                        }
-                    }
-                }
-            }
+        if (playerDesireMap.update()) {
+            playerFleeMap.computeFleeMap(playerDesireMap, FLEE_COEFFICIENT);
         }
-
-        return desireGrid;
     }
 
     /*
@@ -808,103 +1951,57 @@ public class GameEngine {
     ---------------------------------------------
     */
 
-    private void takeAiTurn(long entity) {
-        Position actorPosComp = (Position) componentManager.getEntityComponent(entity, Position.class.getSimpleName());
-        Vector2D position = new Vector2D(actorPosComp.x, actorPosComp.y);
-
-        Position playerPosComp = getPlayerPosition();
-        Vector2D playerPos = new Vector2D(playerPosComp.x, playerPosComp.y);
-
-        int bestDesire = DIJKSTRA_MAX + 1;
-
-        // Check adjacent tiles and find one with best desire score
-        for (Vector2D direction : Directions.All.values()) {
-            Vector2D adjacent = position.add(direction);
-            if (inBounds(adjacent)) {
-                int desire = playerDesireMap[adjacent.x()][adjacent.y()];
-                if (desire < bestDesire) {
-                    bestDesire = desire;
-                }
-            }
-        }
-
-        AI ai = (AI) componentManager.getEntityComponent(entity, AI.class.getSimpleName());
-
-        if (ai.state == EnemyState.INACTIVE) {
-            return;
-        }
-
-        if (ai.state == EnemyState.IDLE) {
-            if (bestDesire > ai.playerInterest) {
-                // Ignore until player is closer
-                return;
-            } else {
-                Name nameComponent = (Name) componentManager.getEntityComponent(entity, Name.class.getSimpleName());
-                gameInterface.addNarration(nameComponent.value + " is looking for blood!", TextColours.RED);
-                ai.state = EnemyState.SEEKING;
-            }
-        }
+    /**
+     * Decides and commits move for single actor. Only used by actors whose state changes during
+     * the commit phase of determineAiMoves(), after AiDecisionService.begin() has been called.
+     */
 
+    private void takeAiTurn(long entity) {
+        Position position = (Position) componentManager.getEntityComponent(entity, ComponentTypes.POSITION);
+        AI ai = (AI) componentManager.getEntityComponent(entity, ComponentTypes.AI);
 
-        // Check whether actor is directly adjacent to player & queue attack for next turn
-        if (bestDesire == 0) {
-            ActorTurn turn = new ActorTurn(actorPosComp);
-            turn.setMove(playerPos);
-            priorityQueue[HIGH_PRIORITY].add(turn);
-            return;
-        }
+        int slot = aiDecisions.addActor(entity, position.x, position.y, ai.state, ai.playerInterest);
+        aiDecisions.decide(slot);
+        commitAiDecision(slot);
+    }
 
-        int bestHeuristic = Integer.MAX_VALUE;
-        Vector2D closestTile = null;
-        ArrayList<Vector2D> blockedTiles = new ArrayList<>();
+    /**
+     * Applies decision from AiDecisionService by updating actor state and queueing its move.
+     */
 
-        for (Vector2D direction : Directions.All.values()) {
-            Vector2D adjacent = position.add(direction);
-            if (inBounds(adjacent)) {
-                int newDesire = playerDesireMap[adjacent.x()][adjacent.y()];
-                int distance = (int) GeometryHelper.getDistance(adjacent, playerPos);
-                // Really simple heuristic (that probably needs improving)
-                int heuristic = newDesire + distance;
+    private void commitAiDecision(int slot) {
+        long entity = aiDecisions.getEntity(slot);
+        AI ai = (AI) componentManager.getEntityComponent(entity, ComponentTypes.AI);
+        Position position = (Position) componentManager.getEntityComponent(entity, ComponentTypes.POSITION);
 
-                if (heuristic < bestHeuristic) {
+        ai.state = aiDecisions.getNewState(slot);
 
-                    if (!detectCollisions(adjacent)) {
-                        bestHeuristic = heuristic;
-                        closestTile = adjacent;
-                    } else {
-                        blockedTiles.add(adjacent);
-                    }
-                }
-            }
+        if (aiDecisions.noticedPlayer(slot)) {
+            Name nameComponent = (Name) componentManager.getEntityComponent(entity, ComponentTypes.NAME);
+            gameHost.addNarration(nameComponent.value + " is looking for blood!", TextColours.RED);
         }
 
-        boolean blocked = false;
+        int targetX = aiDecisions.getTargetX(slot);
+        int targetY = aiDecisions.getTargetY(slot);
 
-        // Todo: We should check blocked tiles to see whether any of them were closed doors.
-        int blockedSize = blockedTiles.size();
-        for (int i = 0; i < blockedSize; i++) {
-            Vector2D tile = blockedTiles.get(i);
-            int newDesire = playerDesireMap[tile.x()][tile.y()];
-            int distance = (int) GeometryHelper.getDistance(tile, playerPos);
-            int heuristic = newDesire + distance;
+        switch (aiDecisions.getAction(slot)) {
+            case AiDecisionService.ATTACK:
+                ActorTurn attack = turnPool.obtain(position);
+                attack.setMove(new Vector2D(targetX, targetY));
+                priorityQueue[HIGH_PRIORITY].add(attack);
+                break;
 
-            // If any of these blocked tiles are closer than the closest empty getSprite, we should
-            // probably look for a way around.
+            case AiDecisionService.MOVE:
+                // Another actor committed earlier is moving here - wait for next turn
+                if (!aiDecisions.claimTile(targetX, targetY)) break;
 
-            if (closestTile == null || heuristic < bestHeuristic) {
-                blocked = true;
+                ActorTurn move = turnPool.obtain(position);
+                move.setMove(new Vector2D(targetX, targetY));
+                priorityQueue[LOW_PRIORITY].add(move);
                 break;
-            }
-        }
 
-        if (blocked) {
-            ai.state = EnemyState.PATHFINDING;
-        }
-
-        else if (closestTile != null) {
-            ActorTurn turn = new ActorTurn(actorPosComp);
-            turn.setMove(closestTile);
-            priorityQueue[LOW_PRIORITY].add(turn);
+            default:
+                break;
         }
     }
 
@@ -916,6 +2013,11 @@ public class GameEngine {
 
         if (path == null || path.size() == 0) {
             ai.path = findShortestPath(seekingEntity, targetEntity);
+
+            if (ai.path.size() == 0) {
+                // Target is unreachable - go back to following dijkstra map
+                ai.state = EnemyState.SEEKING;
+            }
         }
 
         else if (path.size() > 0) {
@@ -923,7 +2025,7 @@ public class GameEngine {
             // Todo: generate desire map for target here
 
             Vector2D nextCell = path.get(0);
-            int nextDesire = playerDesireMap[nextCell.x()][nextCell.y()];
+            int nextDesire = playerDesireMap.get(nextCell.x(), nextCell.y());
             int bestDesire = Integer.MAX_VALUE;
 
             Vector2D posVec = new Vector2D(position.x, position.y);
@@ -932,7 +2034,7 @@ public class GameEngine {
             for (Vector2D direction : Directions.All.values()) {
                 Vector2D adjacent = posVec.add(direction);
                 if (inBounds(adjacent)) {
-                    int desire = playerDesireMap[adjacent.x()][adjacent.y()];
+                    int desire = playerDesireMap.get(adjacent.x(), adjacent.y());
                     if (desire < bestDesire) {
                         bestDesire = desire;
                     }
@@ -948,10 +2050,9 @@ public class GameEngine {
 
             else {
                 nextCell = ai.path.remove(0);
-                ActorTurn turn = new ActorTurn(position);
+                ActorTurn turn = turnPool.obtain(position);
                 turn.setMove(nextCell);
                 priorityQueue[LOW_PRIORITY].add(turn);
-                generatePlayerDesireMap();
             }
         }
 
@@ -961,60 +2062,13 @@ public class GameEngine {
         }
     }
 
-    private ArrayList<Vector2D> findShortestPath(Vector2D startNode, Vector2D goalNode) {
-        ArrayList<Vector2D> optimalPath = new ArrayList<>();
-        ArrayList<Vector2D> openNodes = new ArrayList<>();
-        ArrayList<String> checkedNodes = new ArrayList<>();
-
-        if (startNode.equals(goalNode)) {
-            return optimalPath;
-        }
-
-        openNodes.add(startNode);
-
-        Vector2D lastNode = null;
-
-        while (openNodes.size() > 0) {
-            Vector2D currentNode = openNodes.remove(openNodes.size() - 1);
-
-            if (lastNode != null && lastNode.equals(currentNode)) {
-                // This probably shouldn't happen
-                Log.w(LOG_TAG, "Duplicate node in findShortestPath at " + lastNode.toString());
-                break;
-            }
-
-            Vector2D closestNode = null;
-            double bestDistance = Double.MAX_VALUE;
-
-            // Find adjacent node which is closest to goal
-            for (Vector2D direction : Directions.All.values()) {
-                Vector2D adjacentNode = currentNode.add(direction);
-
-                if (checkedNodes.contains(adjacentNode.toString())) continue;
-
-                if (detectCollisions(adjacentNode)) continue;
-
-                double distanceToGoal = GeometryHelper.getDistance(adjacentNode, goalNode);
-
-                if (distanceToGoal < bestDistance) {
-                    bestDistance = distanceToGoal;
-                    closestNode = adjacentNode;
-                }
-            }
-
-            if (closestNode == null || closestNode.equals(goalNode)) {
-                return optimalPath;
-            }
-
-            else {
-                checkedNodes.add(currentNode.toString());
-                lastNode = currentNode;
-                optimalPath.add(closestNode);
-                openNodes.add(closestNode);
-            }
-        }
+    /**
+     * Finds shortest path between two positions. Returned path excludes start and goal nodes,
+     * and will be empty if goal can't be reached.
+     */
 
-        return optimalPath;
+    private ArrayList<Vector2D> findShortestPath(Vector2D startNode, Vector2D goalNode) {
+        return pathFinder.findPath(startNode, goalNode);
     }
 
     private ArrayList<Vector2D> findShortestPath(long entityA, long entityB) {
@@ -1025,7 +2079,7 @@ public class GameEngine {
     }
 
     public ArrayList<Vector2D> onTouchPathComplete() {
-        if (this.pathDestination == null || !inBounds(this.pathDestination) || fieldOfVision[pathDestination.x()][pathDestination.y()] == 0
+        if (this.pathDestination == null || !inBounds(this.pathDestination) || !fovCalculator.isVisible(pathDestination.x(), pathDestination.y())
                 || detectCollisions(this.pathDestination)) {
 
             return new ArrayList<>();
@@ -1046,20 +2100,30 @@ public class GameEngine {
         Position playerPos = (Position) componentManager.getEntityComponent(player[0].id,
                 Position.class.getSimpleName());
 
+        // Streamed exterior window may move while path is being followed
+        int pathWindowX = windowX;
+        int pathWindowY = windowY;
+
         for (int i = 0; i < path.size(); i++) {
-            ActorTurn turn = new ActorTurn(playerPos);
+            ActorTurn turn = turnPool.obtain(playerPos);
             Vector2D vector = path.get(i);
             turn.setMove(vector);
             turn.setStart(start * (long) i);
             queue.put(turn);
         }
 
-        gameInterface.setMoveLock(true);
+        gameHost.setMoveLock(true);
 
         while (!queue.isEmpty()) {
 
             try {
                 ActorTurn turn = queue.take();
+
+                if (windowX != pathWindowX || windowY != pathWindowY) {
+                    Vector2D destination = turn.getDestination();
+                    turn.setMove(new Vector2D(destination.x - (windowX - pathWindowX), destination.y - (windowY - pathWindowY)));
+                }
+
                 priorityQueue[MEDIUM_PRIORITY].add(turn);
                 takeQueuedTurns();
                 advanceFrame();
@@ -1071,7 +2135,7 @@ public class GameEngine {
             }
         }
 
-        gameInterface.setMoveLock(false);
+        gameHost.setMoveLock(false);
     }
 
     /*
@@ -1107,7 +2171,7 @@ public class GameEngine {
 
                         if (entity == playerEntity) {
                             String fx = (footstepAlternator) ? FxFilePaths.FOOTSTEP_1 : FxFilePaths.FOOTSTEP_2;
-                            gameInterface.triggerSoundEffect(fx);
+                            gameHost.triggerSoundEffect(fx);
                             footstepAlternator = !footstepAlternator;
                         }
 
@@ -1118,6 +2182,7 @@ public class GameEngine {
 
                 // Make sure to remove turns from queue after we're finished
                 iterator.remove();
+                turnPool.release(turn);
             }
         }
 
@@ -1138,10 +2203,15 @@ public class GameEngine {
 
         if (physics == null || !physics.activateOnCollide) return;
 
-        Iterator<Long> it = objectEntities[position.x()][position.y()].iterator();
+        int x = position.x();
+        int y = position.y();
+        int node = objectEntities.first(x, y);
+
+        while (node != TileOccupancy.NONE) {
+            long target = objectEntities.get(node);
 
-        while (it.hasNext()) {
-            long target = it.next();
+            // Get next node before current node can be removed
+            node = objectEntities.next(node);
 
             Physics targetPhysics = (Physics) componentManager.getEntityComponent(target, Physics.class.getSimpleName());
 
@@ -1149,13 +2219,15 @@ public class GameEngine {
                 int result = collideEntities(target, initiator);
 
                 if (result == Actions.REMOVE_ENTITY) {
-                    it.remove();
+                    removeFromFloor(target, x, y);
                     continue;
                 }
 
                 performAction(initiator, target, result);
             }
         }
+
+        tileFlags.updateTile(position.x(), position.y());
     }
 
     /**
@@ -1272,7 +2344,7 @@ public class GameEngine {
             objectQueue.add(splat);
         }*/
 
-        gameInterface.displayStatus(defenderPosition, Integer.toString(damageDealt), TextColours.STATUS_RED);
+        gameHost.displayStatus(defenderPosition, Integer.toString(damageDealt), TextColours.STATUS_RED);
 
         if (vitality.hp <= 0) {
             Name defenderName = (Name) componentManager.getEntityComponent(victim, Name.class.getSimpleName());
@@ -1284,7 +2356,7 @@ public class GameEngine {
                 sortComponentsAndStoreEntities(components);
             }*/
 
-            gameInterface.addNarration(defenderName.value + " killed by trap!", TextColours.RED);
+            gameHost.addNarration(defenderName.value + " killed by trap!", TextColours.RED);
 
             kill(victim);
 
@@ -1317,11 +2389,15 @@ public class GameEngine {
                     physicsComponent.isBlocking = false;
                     physicsComponent.isTraversable = true;
 
+                    Position position = (Position) componentManager.getEntityComponent(entity, Position.class.getSimpleName());
+                    tileFlags.updateTile(position.x, position.y);
+
                     Sprite spriteComponent = (Sprite) componentManager.getEntityComponent(entity, Sprite.class.getSimpleName());
                     spriteComponent.path = BuildingTileset.DOUBLE_DOORS_OPEN;
                     spriteComponent.spriteIndex = -1;
 
-                    gameInterface.triggerSoundEffect(FxFilePaths.DOOR_OPEN_1);
+                    gameHost.triggerSoundEffect(FxFilePaths.DOOR_OPEN_1);
+                    emitNoise(position.x, position.y, DOOR_NOISE_RADIUS);
                 }
                 break;
 
@@ -1367,12 +2443,15 @@ public class GameEngine {
      */
 
     private void handleMovementInteractions(long entity, Vector2D position) {
-        ArrayList<Long> targetStack = objectEntities[position.x()][position.y()];
+        int x = position.x();
+        int y = position.y();
+        int node = objectEntities.first(x, y);
 
-        Iterator<Long> it = targetStack.iterator();
+        while (node != TileOccupancy.NONE) {
+            long entityToCheck = objectEntities.get(node);
 
-        while (it.hasNext()) {
-            long entityToCheck = it.next();
+            // Get next node before current node can be removed
+            node = objectEntities.next(node);
 
             Physics targetPhysics = (Physics) componentManager.getEntityComponent(entityToCheck, Physics.class.getSimpleName());
 
@@ -1380,7 +2459,7 @@ public class GameEngine {
                 int result = checkMovementActions(entityToCheck, entity);
 
                 if (result == Actions.REMOVE_ENTITY) {
-                    it.remove();
+                    removeFromFloor(entityToCheck, x, y);
                     continue;
                 }
 
@@ -1394,9 +2473,11 @@ public class GameEngine {
             }
         }
 
+        tileFlags.updateTile(position.x(), position.y());
+
         if (inventoryPickupGroup.size() > 0) {
             addItemPickupNarration();
-            gameInterface.triggerSoundEffect(FxFilePaths.ITEM_PICKUP);
+            gameHost.triggerSoundEffect(FxFilePaths.ITEM_PICKUP);
         }
     }
 
@@ -1506,7 +2587,7 @@ public class GameEngine {
             builder.append(".");
         }
 
-        gameInterface.addNarration(builder.toString(), TextColours.YELLOW);
+        gameHost.addNarration(builder.toString(), TextColours.YELLOW);
         inventoryPickupGroup.clear();
     }
 
@@ -1522,18 +2603,18 @@ public class GameEngine {
             case Actions.GO_TO_NEXT_FLOOR:
                 // Tell renderer to fade out content and display loading screen, generate
                 // terrainSpriteGrid for new floor and fade in with new content
-                gameInterface.startFloorChange();
+                gameHost.startFloorChange();
                 changeFloor(currentFloor + 1, Directions.DOWN);
                 advanceFrame();
-                gameInterface.transitionToNewContent();
+                gameHost.transitionToNewContent();
                 break;
 
             case Actions.GO_TO_PREV_FLOOR:
                 if (currentFloor > 1) {
-                    gameInterface.startFloorChange();
+                    gameHost.startFloorChange();
                     changeFloor(currentFloor - 1, Directions.UP);
                     advanceFrame();
-                    gameInterface.transitionToNewContent();
+                    gameHost.transitionToNewContent();
                 }
                 break;
 
@@ -1559,12 +2640,16 @@ public class GameEngine {
 
             if (position != null) {
                 addEntityToStack(position.x, position.y, entity);
+                tileFlags.updateTile(position.x, position.y);
+                spatialIndex.add(entity, position.x, position.y);
 
                 // If entity has sprite component, we should add it to rendering grid
                 Sprite sprite = (Sprite) componentManager.getEntityComponent(entity, Sprite.class.getSimpleName());
                 sprite.x = position.x;
                 sprite.y = position.y;
-                objectSpriteGrid[position.x][position.y].add(sprite);
+                objectSpriteGrid.add(position.x, position.y, sprite);
+
+                wakeActor(entity);
             }
 
             else {
@@ -1580,7 +2665,7 @@ public class GameEngine {
     }
 
     private void checkWeather() {
-        TimeManager timeManager = gameInterface.getTimeManager();
+        TimeManager timeManager = gameHost.getTimeManager();
         int currentTime = timeManager.getTotalTimeInMinutes();
 
         // Perform any time-related weather actions (eg. puddle formation/evaporation, snow, etc)
@@ -1620,7 +2705,7 @@ public class GameEngine {
         }
 
         if (snowCoverGenerator == null) {
-            snowCoverGenerator = new CellularAutomata();
+            snowCoverGenerator = new CellularAutomata(rng);
             snowCoverGenerator.setChanceToStartAlive(0.1f);
             snowCoverGenerator.prepareSimulation(new Chunk(0, 0, mapWidth, mapHeight));
         }
@@ -1659,7 +2744,7 @@ public class GameEngine {
         for (int i = 0; i < tries; i++) {
             int x = rng.getRandomInt(0, mapWidth - 1);
             int y = rng.getRandomInt(0, mapHeight - 1);
-            if (!indoorRegions[x][y] && !waterRegions[x][y]) {
+            if (!tileFlags.isIndoor(x, y) && !tileFlags.isWater(x, y)) {
                 String texture = rng.getRandomItemFromStringArray(ExteriorTileset.PUDDLES);
                 Component[] puddle = DecalFactory.createTraversableDecoration(x, y, texture);
                 long entity = puddle[0].id;
@@ -1668,6 +2753,7 @@ public class GameEngine {
                 weatherManager.addPuddle(entity);
 
                 waterRegions[x][y] = true;
+                tileFlags.setWater(x, y, true);
             }
         }
     }
@@ -1731,10 +2817,22 @@ public class GameEngine {
 
     private void removeEntity(long entity) {
         Position position = (Position) componentManager.getEntityComponent(entity, Position.class.getSimpleName());
+        removeFromFloor(entity, position.x, position.y);
+        componentManager.destroyEntity(entity);
+        turnScheduler.remove(entity);
+        dormantActors.wake(entity);
+    }
+
+    /**
+     * Takes entity off floor without destroying it (eg. items which were picked up).
+     */
+
+    private void removeFromFloor(long entity, int x, int y) {
         Sprite sprite = (Sprite) componentManager.getEntityComponent(entity, Sprite.class.getSimpleName());
-        objectEntities[position.x][position.y].remove(entity);
-        objectSpriteGrid[position.x][position.y].remove(sprite);
-        componentManager.removeEntityComponents(entity);
+        objectEntities.remove(x, y, entity);
+        objectSpriteGrid.remove(x, y, sprite);
+        tileFlags.updateTile(x, y);
+        spatialIndex.remove(entity);
     }
 
     /**
@@ -1786,11 +2884,12 @@ public class GameEngine {
 
         entitiesTakingDamage.add(defender);
 
-        gameInterface.triggerSoundEffect(FxFilePaths.SMALL_HIT_1);
+        gameHost.triggerSoundEffect(FxFilePaths.SMALL_HIT_1);
+        emitNoise(x, y, COMBAT_NOISE_RADIUS);
 
         // Update combat log and display hit rawAnimationComponents
         if (defenderAi != null && defenderAi.computerControlled) {
-            gameInterface.displayStatus(defenderPosition, Integer.toString(damageDealt), TextColours.STATUS_RED);
+            gameHost.displayStatus(defenderPosition, Integer.toString(damageDealt), TextColours.STATUS_RED);
         }
 
         if (vitality.hp <= 0) {
@@ -1806,7 +2905,7 @@ public class GameEngine {
                 sortComponentsAndStoreEntities(components);
             }*/
 
-            gameInterface.addNarration(attackerName.value + " killed " + defenderName.value + "!", TextColours.RED);
+            gameHost.addNarration(attackerName.value + " killed " + defenderName.value + "!", TextColours.RED);
 
             applyXpReward(aggressor, defender);
 
@@ -1819,6 +2918,12 @@ public class GameEngine {
 
         else {
             animations.add(AnimationFactory.getHitAnimation(blood, x, y));
+
+            if (defenderAi != null && defenderAi.computerControlled && vitality.hp <= vitality.maxHp / 4) {
+                // Badly wounded enemies will try to escape
+                defenderAi.state = EnemyState.FLEEING;
+                wakeActor(defender);
+            }
         }
     }
 
@@ -1848,8 +2953,17 @@ public class GameEngine {
         physComponent.activateOnCollide = false;
         physComponent.isTraversable = true;
 
+        Position position = (Position) componentManager.getEntityComponent(entity, Position.class.getSimpleName());
+        tileFlags.updateTile(position.x, position.y);
+
+        // Entity stays in the same stack, but raw components for tile will need rebuilding when saved
+        objectEntities.markChanged(position.x, position.y);
+
         // Remove components that make entity "alive".
         componentManager.removeEntityComponent(entity, AI.class.getSimpleName());
+        spatialIndex.remove(entity, ComponentTypes.AI);
+        turnScheduler.remove(entity);
+        dormantActors.wake(entity);
         componentManager.removeEntityComponent(entity, Input.class.getSimpleName());
         componentManager.removeEntityComponent(entity, Damage.class.getSimpleName());
         componentManager.removeEntityComponent(entity, Vitality.class.getSimpleName());
@@ -1902,7 +3016,7 @@ public class GameEngine {
     private void checkLevel(Experience xpComponent) {
         if (xpComponent.xp >= xpComponent.xpToNextLevel) {
             xpComponent.level++;
-            gameInterface.addNarration("You have now reached level " + xpComponent.level + "!");
+            gameHost.addNarration("You have now reached level " + xpComponent.level + "!");
         }
     }
 
@@ -1985,12 +3099,12 @@ public class GameEngine {
         Name nameComponent = (Name) componentManager.getEntityComponent(entity, Name.class.getSimpleName());
         if (componentManager.has(entity, Wieldable.class.getSimpleName())) {
             WeaponsSystem.wieldWeapon(componentManager, playerEntity, entity);
-            gameInterface.addNarration("You equipped the " + nameComponent.value + ".", TextColours.ROYAL_BLUE);
+            gameHost.addNarration("You equipped the " + nameComponent.value + ".", TextColours.ROYAL_BLUE);
         }
 
         else if (componentManager.has(entity, Usable.class.getSimpleName())) {
             PotionSystem.quaff(componentManager, playerEntity, entity);
-            gameInterface.addNarration("You quaffed the " + nameComponent.value + ".", TextColours.WHITE);
+            gameHost.addNarration("You quaffed the " + nameComponent.value + ".", TextColours.WHITE);
             removeEntityFromInventory(entity);
         }
     }
@@ -2012,7 +3126,7 @@ public class GameEngine {
             }
         }
 
-        componentManager.removeEntityComponents(entity);
+        componentManager.destroyEntity(entity);
     }
 
     /*
@@ -2022,54 +3136,8 @@ public class GameEngine {
     */
 
     private boolean detectCollisions(Vector2D position) {
-        // Map *should* be surrounded by border tiles which prevent player from moving out of bounds.
-        // But just in case;
-        if (!inBounds(position)) return true;
-
-        int x = position.x();
-        int y = position.y();
-
-        // Check terrain component for blocking types
-        long entity = terrainEntities[x][y];
-        Terrain terrain = (Terrain) componentManager.getEntityComponent(entity, Terrain.class.getSimpleName());
-
-        // Walls and borders will always prevent movement.
-        if (terrain != null && (terrain.type == Terrain.WALL || terrain.type == Terrain.BORDER)) {
-            return true;
-        }
-
-        Physics terrainPhysics = (Physics) componentManager.getEntityComponent(entity, Physics.class.getSimpleName());
-        if (terrainPhysics != null && !terrainPhysics.isTraversable) {
-            return true;
-        }
-
-        // Now iterate over object entities in position and check physics component for properties
-
-        int objectSize = objectEntities[x][y].size();
-
-        for (int i = 0; i < objectSize; i++) {
-            long object = objectEntities[x][y].get(i);
-            Physics component = (Physics) componentManager.getEntityComponent(object, Physics.class.getSimpleName());
-            if (component != null && !component.isTraversable) {
-                return true;
-            }
-        }
-
-        return false;
-    }
-
-    private boolean entityTypeInArray(Terrain stat, int[] typesToCheck) {
-        if (stat == null) {
-            return false;
-        }
-
-        for (int i = 0; i < typesToCheck.length; i++) {
-            if (typesToCheck[i] == stat.type) {
-                return true;
-            }
-        }
-
-        return false;
+        // Out of bounds tiles are treated as blocked
+        return tileFlags.blocksMovement(position.x(), position.y());
     }
 
     private boolean inBounds(Vector2D position) {
@@ -0,0 +1,38 @@
+package com.sonicmax.bloodrogue.engine;
+
+import com.sonicmax.bloodrogue.data.AssetSource;
+import com.sonicmax.bloodrogue.engine.components.Position;
+import com.sonicmax.bloodrogue.engine.environment.TimeManager;
+import com.sonicmax.bloodrogue.engine.environment.WeatherManager;
+
+/**
+ *  Everything GameEngine needs from whatever is running it. On Android this is GameInterface, which
+ *  passes calls on to the renderer, audio player, etc. Headless hosts (benchmarks, soak tests) can
+ *  ignore most of these calls.
+ */
+
+public interface GameHost {
+    AssetSource getAssetSource();
+
+    void saveState(GameState state);
+
+    void passDataToRenderer();
+
+    void setMoveLock(boolean value);
+
+    void addNarration(String narration);
+
+    void addNarration(String narration, float[] colour);
+
+    void displayStatus(Position position, String message, float[] color);
+
+    void startFloorChange();
+
+    void transitionToNewContent();
+
+    void triggerSoundEffect(String fx);
+
+    TimeManager getTimeManager();
+
+    WeatherManager getWeatherManager();
+}
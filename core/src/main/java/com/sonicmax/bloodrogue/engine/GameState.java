@@ -1,9 +1,10 @@
 package com.sonicmax.bloodrogue.engine;
 
-import android.util.Log;
+import com.sonicmax.bloodrogue.utils.Log;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashSet;
 
 /**
  *  Holds all data relevant to the current game state - the terrain and objects that populate each floor,
@@ -18,6 +19,9 @@ public class GameState implements Serializable {
     private int currentFloor;
     private Component[] player;
 
+    // Floors added or updated since last save. Transient, as a restored state has nothing to write
+    private transient HashSet<Integer> dirtyFloors;
+
     public GameState() {
         this.floors = new ArrayList<>();
         this.currentFloor = 1;
@@ -29,6 +33,7 @@ public class GameState implements Serializable {
 
     public void addFloor(FloorData floor) {
         this.floors.add(floor);
+        markFloorDirty(floors.size());
     }
 
     public void addFloors(ArrayList<FloorData> floors) {
@@ -39,7 +44,37 @@ public class GameState implements Serializable {
         if (hasFloor(floorNumber)) {
             int index = floorNumber - 1;
             floors.set(index, floor);
+            markFloorDirty(floorNumber);
+        }
+    }
+
+    /**
+     *  Dirty floors are rewritten on next save - any other floors are left as they are on disk.
+     */
+
+    public void markFloorDirty(int floorNumber) {
+        getDirtyFloors().add(floorNumber);
+    }
+
+    public boolean isFloorDirty(int floorNumber) {
+        return getDirtyFloors().contains(floorNumber);
+    }
+
+    public void clearDirtyFloors() {
+        getDirtyFloors().clear();
+    }
+
+    private HashSet<Integer> getDirtyFloors() {
+        // Field is null if state was restored using ObjectInputStream
+        if (dirtyFloors == null) {
+            dirtyFloors = new HashSet<>();
         }
+
+        return dirtyFloors;
+    }
+
+    public ArrayList<FloorData> getFloors() {
+        return this.floors;
     }
 
     public boolean hasFloor(int index) {
@@ -0,0 +1,114 @@
+package com.sonicmax.bloodrogue.engine;
+
+/**
+ *  Pairs a component store with the allocator that owns its entity ids. The live world wraps the
+ *  ComponentManager and EntityAllocator singletons used by GameEngine. Staging worlds have their
+ *  own ComponentManager and a child EntityAllocator, so that floors can be generated (or simulated)
+ *  in parallel without touching the live world. Once a staging world is ready, importWorld()
+ *  merges it into the live world in one bulk operation.
+ *
+ *  A world can be bound to the current thread with bind(). Entities created on that thread get
+ *  their ids from the bound world's allocator - this lets factories keep using new Entity()
+ *  without being passed a world.
+ */
+
+public class World {
+    private static World LIVE = null;
+    private static final ThreadLocal<World> BOUND = new ThreadLocal<>();
+
+    private final ComponentManager componentManager;
+    private final EntityAllocator entityAllocator;
+    private final boolean live;
+
+    private World(ComponentManager componentManager, EntityAllocator entityAllocator, boolean live) {
+        this.componentManager = componentManager;
+        this.entityAllocator = entityAllocator;
+        this.live = live;
+    }
+
+    public static synchronized World getLive() {
+        if (LIVE == null) {
+            LIVE = new World(ComponentManager.getInstance(), EntityAllocator.getInstance(), true);
+        }
+
+        return LIVE;
+    }
+
+    /**
+     * Creates empty world whose entity ids won't collide with those in the live world.
+     */
+
+    public static World createStaging() {
+        EntityAllocator allocator = new EntityAllocator(getLive().entityAllocator);
+        return new World(new ComponentManager(allocator), allocator, false);
+    }
+
+    /**
+     * Returns world bound to current thread, or live world if nothing is bound.
+     */
+
+    public static World getCurrent() {
+        World world = BOUND.get();
+        return (world != null) ? world : getLive();
+    }
+
+    /**
+     * Binds world to current thread. Pass returned value to restore() when finished.
+     *
+     * @return World that was previously bound, or null
+     */
+
+    public World bind() {
+        World previous = BOUND.get();
+        BOUND.set(this);
+        return previous;
+    }
+
+    public static void restore(World previous) {
+        if (previous == null) {
+            BOUND.remove();
+        }
+        else {
+            BOUND.set(previous);
+        }
+    }
+
+    public ComponentManager getComponentManager() {
+        return componentManager;
+    }
+
+    public EntityAllocator getEntityAllocator() {
+        return entityAllocator;
+    }
+
+    public boolean isLive() {
+        return live;
+    }
+
+    /**
+     * Moves every entity from staging world into this world. Staging world is empty afterwards.
+     */
+
+    public void importWorld(World staging) {
+        if (staging.live) {
+            throw new Error("Can't import live world");
+        }
+
+        componentManager.addAll(staging.componentManager);
+        staging.entityAllocator.returnToParent(true);
+        staging.componentManager.clear();
+    }
+
+    /**
+     * Throws away staging world and retires every id it handed out.
+     */
+
+    public void discard() {
+        if (live) {
+            throw new Error("Can't discard live world");
+        }
+
+        entityAllocator.returnToParent(false);
+        componentManager.clear();
+    }
+}
@@ -23,9 +23,20 @@ public class ActorTurn implements Delayed {
     private boolean hasCollision;
 
     public ActorTurn(Position positionComponent) {
+        reset(positionComponent);
+    }
+
+    /**
+     * Clears turn so it can be reused for another actor (see ActorTurnPool).
+     */
+
+    void reset(Position positionComponent) {
         this.start = System.currentTimeMillis() + DEFAULT_DURATION;
         this.positionComponent = positionComponent;
+        this.destination = null;
         this.hasMove = false;
+        this.collision = null;
+        this.hasCollision = false;
     }
 
     public Position getPositionComponent() {
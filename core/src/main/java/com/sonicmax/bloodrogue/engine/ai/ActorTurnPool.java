@@ -0,0 +1,40 @@
+package com.sonicmax.bloodrogue.engine.ai;
+
+import com.sonicmax.bloodrogue.engine.components.Position;
+
+import java.util.ArrayList;
+
+/**
+ *  Recycles ActorTurn objects, so queueing moves doesn't allocate a new turn for every actor on
+ *  every turn. Turns should be released once they have been resolved, and not used afterwards.
+ */
+
+public class ActorTurnPool {
+    private final ArrayList<ActorTurn> free;
+
+    public ActorTurnPool() {
+        this.free = new ArrayList<>();
+    }
+
+    public ActorTurn obtain(Position positionComponent) {
+        int size = free.size();
+
+        if (size == 0) {
+            return new ActorTurn(positionComponent);
+        }
+
+        ActorTurn turn = free.remove(size - 1);
+        turn.reset(positionComponent);
+        return turn;
+    }
+
+    public void release(ActorTurn turn) {
+        // Don't hold on to components from previous floors
+        turn.reset(null);
+        free.add(turn);
+    }
+
+    public int getFreeCount() {
+        return free.size();
+    }
+}
@@ -0,0 +1,503 @@
+package com.sonicmax.bloodrogue.engine.ai;
+
+import com.sonicmax.bloodrogue.engine.Directions;
+import com.sonicmax.bloodrogue.engine.collisions.TileFlags;
+import com.sonicmax.bloodrogue.engine.collisions.VisibilityService;
+import com.sonicmax.bloodrogue.engine.pathfinding.DesireMap;
+import com.sonicmax.bloodrogue.utils.Log;
+import com.sonicmax.bloodrogue.utils.maths.Vector2D;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ *  Decides what each AI actor wants to do this turn. Actors are added with a snapshot of the state
+ *  needed to make the decision (position, AI state, interest), then decide() works out a move for
+ *  each of them from the player's desire/flee maps, TileFlags and VisibilityService results.
+ *
+ *  Deciding doesn't modify anything outside this class, so large batches are split between a pool
+ *  of worker threads. Each actor's decision only depends on its own snapshot and the shared
+ *  read-only state, so results are the same regardless of how the batch was split. GameEngine
+ *  then commits decisions one at a time in the order actors were added (see claimTile()).
+ *
+ *  Maps, TileFlags and VisibilityService must not be modified while decide() is running (this is
+ *  fine as long as it's called from the game thread).
+ */
+
+public class AiDecisionService {
+    private final String LOG_TAG = this.getClass().getSimpleName();
+
+    public static final int NONE = 0;
+    public static final int MOVE = 1;
+    public static final int ATTACK = 2;
+
+    // Batches smaller than this are cheaper to decide on calling thread
+    private static final int MIN_PARALLEL_BATCH = 32;
+
+    // Same order as Directions.All, so that ties are broken the same way as before
+    private static final int[] DX;
+    private static final int[] DY;
+
+    static {
+        DX = new int[Directions.All.size()];
+        DY = new int[Directions.All.size()];
+
+        int i = 0;
+
+        for (Vector2D direction : Directions.All.values()) {
+            DX[i] = direction.x();
+            DY[i] = direction.y();
+            i++;
+        }
+    }
+
+    private TileFlags tileFlags;
+    private DesireMap desireMap;
+    private DesireMap fleeMap;
+    private VisibilityService vision;
+    private int playerX;
+    private int playerY;
+
+    // Snapshot of each actor, taken when actor was added
+    private long[] entities;
+    private int[] originX;
+    private int[] originY;
+    private int[] interest;
+    private int[] states;
+    private int actorCount;
+
+    // Results
+    private int[] actions;
+    private int[] targetX;
+    private int[] targetY;
+    private int[] newStates;
+    private boolean[] noticedPlayer;
+
+    // Tiles claimed by moves committed this turn. Stamps avoid having to clear array every turn
+    private int[] claims;
+    private int claimStamp;
+
+    private int workerCount;
+    private ArrayList<DecideTask> tasks;
+    private ExecutorService executor;
+
+    // Metrics
+    private long lastDecisionNanos;
+
+    public AiDecisionService(int workerCount) {
+        this.workerCount = Math.max(1, workerCount);
+        this.tasks = new ArrayList<>(this.workerCount);
+        this.claims = new int[0];
+        this.claimStamp = 0;
+
+        for (int i = 0; i < this.workerCount; i++) {
+            tasks.add(new DecideTask());
+        }
+
+        resize(64);
+    }
+
+    /**
+     * Clears actors and claimed tiles from previous turn.
+     */
+
+    public void begin(TileFlags tileFlags, DesireMap desireMap, DesireMap fleeMap,
+                      VisibilityService vision, int playerX, int playerY) {
+
+        this.tileFlags = tileFlags;
+        this.desireMap = desireMap;
+        this.fleeMap = fleeMap;
+        this.vision = vision;
+        this.playerX = playerX;
+        this.playerY = playerY;
+        this.actorCount = 0;
+
+        int size = tileFlags.getWidth() * tileFlags.getHeight();
+
+        if (claims.length != size) {
+            claims = new int[size];
+            claimStamp = 0;
+        }
+
+        claimStamp++;
+
+        if (claimStamp == 0) {
+            // Stamp wrapped around - old claims could match again
+            Arrays.fill(claims, 0);
+            claimStamp = 1;
+        }
+    }
+
+    /**
+     * Adds snapshot of actor to current batch.
+     *
+     * @return Slot for reading results
+     */
+
+    public int addActor(long entity, int x, int y, int state, int playerInterest) {
+        if (actorCount == entities.length) {
+            resize(actorCount << 1);
+        }
+
+        int slot = actorCount++;
+        entities[slot] = entity;
+        originX[slot] = x;
+        originY[slot] = y;
+        states[slot] = state;
+        interest[slot] = playerInterest;
+
+        return slot;
+    }
+
+    public int getActorCount() {
+        return actorCount;
+    }
+
+    /**
+     * Decides moves for every actor added since begin().
+     */
+
+    public void decide() {
+        long start = System.nanoTime();
+
+        if (workerCount == 1 || actorCount < MIN_PARALLEL_BATCH) {
+            decideRange(0, actorCount);
+        }
+        else {
+            decideInParallel();
+        }
+
+        lastDecisionNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Decides move for a single actor on calling thread. Used for actors whose state changed
+     * after the batch was decided.
+     */
+
+    public void decide(int slot) {
+        decideRange(slot, slot + 1);
+    }
+
+    /*
+    ---------------------------------------------
+     Results
+    ---------------------------------------------
+    */
+
+    public long getEntity(int slot) {
+        return entities[slot];
+    }
+
+    /**
+     * Returns NONE, MOVE or ATTACK.
+     */
+
+    public int getAction(int slot) {
+        return actions[slot];
+    }
+
+    public int getTargetX(int slot) {
+        return targetX[slot];
+    }
+
+    public int getTargetY(int slot) {
+        return targetY[slot];
+    }
+
+    /**
+     * Returns state that actor should be in after committing decision.
+     */
+
+    public int getNewState(int slot) {
+        return newStates[slot];
+    }
+
+    /**
+     * Returns true if idle actor noticed the player and started seeking.
+     */
+
+    public boolean noticedPlayer(int slot) {
+        return noticedPlayer[slot];
+    }
+
+    /**
+     * Claims tile for move being committed. Returns false if an earlier move this turn has
+     * already claimed it - committing in a fixed order means that the same actor always wins.
+     */
+
+    public boolean claimTile(int x, int y) {
+        if (!tileFlags.inBounds(x, y)) return false;
+
+        int index = y * tileFlags.getWidth() + x;
+
+        if (claims[index] == claimStamp) return false;
+
+        claims[index] = claimStamp;
+        return true;
+    }
+
+    /**
+     * Returns time spent in last call to decide() in milliseconds.
+     */
+
+    public float getLastDecisionTime() {
+        return lastDecisionNanos / 1000000f;
+    }
+
+    /**
+     * Stops worker threads. Service will decide on calling thread after this is called.
+     */
+
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+
+        workerCount = 1;
+    }
+
+    /*
+    ---------------------------------------------
+     Decisions
+    ---------------------------------------------
+    */
+
+    private void decideRange(int from, int to) {
+        for (int slot = from; slot < to; slot++) {
+            actions[slot] = NONE;
+            newStates[slot] = states[slot];
+            noticedPlayer[slot] = false;
+
+            switch (states[slot]) {
+                case EnemyState.INACTIVE:
+                    break;
+
+                case EnemyState.FLEEING:
+                    decideFlee(slot);
+                    break;
+
+                default:
+                    decideSeek(slot);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Moves actor towards player on desire map. Idle actors ignore player until they are
+     * interested and can see them. Actors which can't get closer to player switch to pathfinding.
+     */
+
+    private void decideSeek(int slot) {
+        int x = originX[slot];
+        int y = originY[slot];
+
+        int bestDesire = Integer.MAX_VALUE;
+
+        // Check adjacent tiles and find one with best desire score
+        for (int i = 0; i < DX.length; i++) {
+            int adjacentX = x + DX[i];
+            int adjacentY = y + DY[i];
+
+            if (tileFlags.inBounds(adjacentX, adjacentY)) {
+                bestDesire = Math.min(bestDesire, desireMap.get(adjacentX, adjacentY));
+            }
+        }
+
+        if (newStates[slot] == EnemyState.IDLE) {
+            if (bestDesire > interest[slot] || !vision.canSee(entities[slot], playerX, playerY)) {
+                // Ignore until player is closer (and in line of sight)
+                return;
+            }
+
+            newStates[slot] = EnemyState.SEEKING;
+            noticedPlayer[slot] = true;
+        }
+
+        // Actor is directly adjacent to player - queue attack for next turn
+        if (bestDesire == 0) {
+            setResult(slot, ATTACK, playerX, playerY);
+            return;
+        }
+
+        int bestHeuristic = Integer.MAX_VALUE;
+        int bestX = -1;
+        int bestY = -1;
+
+        boolean hasBlockedTile = false;
+        int bestBlockedHeuristic = Integer.MAX_VALUE;
+
+        for (int i = 0; i < DX.length; i++) {
+            int adjacentX = x + DX[i];
+            int adjacentY = y + DY[i];
+
+            if (!tileFlags.inBounds(adjacentX, adjacentY)) continue;
+
+            int dx = adjacentX - playerX;
+            int dy = adjacentY - playerY;
+
+            // Really simple heuristic (that probably needs improving)
+            int heuristic = desireMap.get(adjacentX, adjacentY) + (int) Math.sqrt(dx * dx + dy * dy);
+
+            if (heuristic < bestHeuristic) {
+                if (!tileFlags.blocksMovement(adjacentX, adjacentY)) {
+                    bestHeuristic = heuristic;
+                    bestX = adjacentX;
+                    bestY = adjacentY;
+                }
+                else {
+                    hasBlockedTile = true;
+                    bestBlockedHeuristic = Math.min(bestBlockedHeuristic, heuristic);
+                }
+            }
+        }
+
+        // If a blocked tile is closer than the closest empty tile, we should probably look for a
+        // way around it.
+        // Todo: We should check blocked tiles to see whether any of them were closed doors.
+        if (hasBlockedTile && (bestX == -1 || bestBlockedHeuristic < bestHeuristic)) {
+            newStates[slot] = EnemyState.PATHFINDING;
+        }
+
+        else if (bestX != -1) {
+            setResult(slot, MOVE, bestX, bestY);
+        }
+    }
+
+    /**
+     * Moves actor downhill on flee map. If actor has been cornered, it will turn and fight.
+     */
+
+    private void decideFlee(int slot) {
+        int x = originX[slot];
+        int y = originY[slot];
+
+        int bestFlee = fleeMap.get(x, y);
+        int bestX = -1;
+        int bestY = -1;
+
+        for (int i = 0; i < DX.length; i++) {
+            int adjacentX = x + DX[i];
+            int adjacentY = y + DY[i];
+
+            if (tileFlags.blocksMovement(adjacentX, adjacentY)) continue;
+
+            int flee = fleeMap.get(adjacentX, adjacentY);
+
+            if (flee < bestFlee) {
+                bestFlee = flee;
+                bestX = adjacentX;
+                bestY = adjacentY;
+            }
+        }
+
+        if (bestX == -1) {
+            newStates[slot] = EnemyState.SEEKING;
+            decideSeek(slot);
+        }
+
+        else {
+            setResult(slot, MOVE, bestX, bestY);
+        }
+    }
+
+    private void setResult(int slot, int action, int x, int y) {
+        actions[slot] = action;
+        targetX[slot] = x;
+        targetY[slot] = y;
+    }
+
+    /*
+    ---------------------------------------------
+     Helper methods
+    ---------------------------------------------
+    */
+
+    private void decideInParallel() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(workerCount, new WorkerThreadFactory());
+        }
+
+        // Each worker gets a contiguous range of slots, so they never write to the same slot
+        for (int i = 0; i < workerCount; i++) {
+            DecideTask task = tasks.get(i);
+            task.from = (actorCount * i) / workerCount;
+            task.to = (actorCount * (i + 1)) / workerCount;
+        }
+
+        try {
+            for (Future<Void> result : executor.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Log.w(LOG_TAG, "Interrupted while deciding, falling back to single thread");
+            decideRange(0, actorCount);
+        } catch (ExecutionException e) {
+            // Failed range would keep last turn's decisions, so decide everything again
+            Log.e(LOG_TAG, "Error while deciding, falling back to single thread", e.getCause());
+            decideRange(0, actorCount);
+        }
+    }
+
+    private void resize(int capacity) {
+        if (entities == null) {
+            entities = new long[capacity];
+            originX = new int[capacity];
+            originY = new int[capacity];
+            interest = new int[capacity];
+            states = new int[capacity];
+            actions = new int[capacity];
+            targetX = new int[capacity];
+            targetY = new int[capacity];
+            newStates = new int[capacity];
+            noticedPlayer = new boolean[capacity];
+        }
+        else {
+            entities = Arrays.copyOf(entities, capacity);
+            originX = Arrays.copyOf(originX, capacity);
+            originY = Arrays.copyOf(originY, capacity);
+            interest = Arrays.copyOf(interest, capacity);
+            states = Arrays.copyOf(states, capacity);
+            actions = Arrays.copyOf(actions, capacity);
+            targetX = Arrays.copyOf(targetX, capacity);
+            targetY = Arrays.copyOf(targetY, capacity);
+            newStates = Arrays.copyOf(newStates, capacity);
+            noticedPlayer = Arrays.copyOf(noticedPlayer, capacity);
+        }
+    }
+
+    private class DecideTask implements Callable<Void> {
+        int from;
+        int to;
+
+        @Override
+        public Void call() {
+            decideRange(from, to);
+            return null;
+        }
+    }
+
+    /**
+     * Creates daemon threads, so that idle workers don't keep the process alive.
+     */
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private int count = 0;
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "AiDecisionWorker-" + (count++));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
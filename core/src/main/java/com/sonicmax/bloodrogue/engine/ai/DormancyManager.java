@@ -0,0 +1,125 @@
+package com.sonicmax.bloodrogue.engine.ai;
+
+import com.sonicmax.bloodrogue.engine.collisions.VisibilityService;
+import com.sonicmax.bloodrogue.utils.collections.LongIntMap;
+
+import java.util.Arrays;
+
+/**
+ *  Keeps track of actors which are too far away from the player to matter. Dormant actors are
+ *  removed from the TurnScheduler and cost nothing per turn - GameEngine wakes them when the player
+ *  comes within the wake radius, or when something nearby makes a noise (combat, doors, etc).
+ *
+ *  For each dormant actor we store the game time (in ticks) that it was parked at, so that it can
+ *  be caught up with an approximate simulation of the turns it missed when it wakes.
+ */
+
+public class DormancyManager {
+    // Idle actors can't notice the player from further than VisibilityService.MAX_RADIUS, so
+    // the wake radius should never be smaller than this
+    public static final int MIN_WAKE_RADIUS = VisibilityService.MAX_RADIUS;
+    public static final int DEFAULT_WAKE_RADIUS = VisibilityService.MAX_RADIUS + 2;
+
+    private long[] entities;
+    private long[] parkedAt;
+    private int size;
+
+    // Maps entity to its index in entities/parkedAt
+    private final LongIntMap indices;
+
+    private int wakeRadius;
+
+    public DormancyManager() {
+        this(DEFAULT_WAKE_RADIUS);
+    }
+
+    public DormancyManager(int wakeRadius) {
+        this.entities = new long[64];
+        this.parkedAt = new long[64];
+        this.indices = new LongIntMap(64);
+        this.size = 0;
+        setWakeRadius(wakeRadius);
+    }
+
+    public int getWakeRadius() {
+        return wakeRadius;
+    }
+
+    /**
+     * Sets distance (in tiles) from the player within which actors are kept awake. Values smaller
+     * than MIN_WAKE_RADIUS are clamped, otherwise idle actors could sleep through the player
+     * walking into view.
+     */
+
+    public void setWakeRadius(int wakeRadius) {
+        this.wakeRadius = Math.max(MIN_WAKE_RADIUS, wakeRadius);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isDormant(long entity) {
+        return indices.containsKey(entity);
+    }
+
+    /**
+     * Returns time that entity was parked at, or -1 if entity isn't dormant.
+     */
+
+    public long getParkedAt(long entity) {
+        int index = indices.get(entity);
+        return (index == LongIntMap.NO_VALUE) ? -1 : parkedAt[index];
+    }
+
+    /**
+     * Marks entity as dormant. Caller is responsible for removing it from the TurnScheduler.
+     */
+
+    public void park(long entity, long time) {
+        int index = indices.get(entity);
+
+        if (index != LongIntMap.NO_VALUE) {
+            parkedAt[index] = time;
+            return;
+        }
+
+        if (size == entities.length) {
+            entities = Arrays.copyOf(entities, size << 1);
+            parkedAt = Arrays.copyOf(parkedAt, size << 1);
+        }
+
+        entities[size] = entity;
+        parkedAt[size] = time;
+        indices.put(entity, size);
+        size++;
+    }
+
+    /**
+     * Removes entity from dormant set.
+     *
+     * @return Time that entity was parked at, or -1 if entity wasn't dormant
+     */
+
+    public long wake(long entity) {
+        int index = indices.remove(entity);
+        if (index == LongIntMap.NO_VALUE) return -1;
+
+        long time = parkedAt[index];
+        size--;
+
+        // Move last entry into the gap
+        if (index != size) {
+            entities[index] = entities[size];
+            parkedAt[index] = parkedAt[size];
+            indices.put(entities[index], index);
+        }
+
+        return time;
+    }
+
+    public void clear() {
+        indices.clear();
+        size = 0;
+    }
+}
@@ -5,4 +5,5 @@ public class EnemyState {
     public final static int IDLE = 0; // Idle
     public final static int SEEKING = 1; // Seeking player
     public final static int PATHFINDING = 2; // Finding new path
+    public final static int FLEEING = 3; // Running away from player
 }
@@ -0,0 +1,221 @@
+package com.sonicmax.bloodrogue.engine.ai;
+
+import com.sonicmax.bloodrogue.utils.collections.LongIntMap;
+
+import java.util.Arrays;
+
+/**
+ *  Decides which actors should act on a given turn. Each actor is keyed by the game time (in ticks)
+ *  of its next action, and kept in an indexed binary heap so that each turn only visits the actors
+ *  that are due - actors scheduled far in the future (or not scheduled at all) cost nothing.
+ *
+ *  Actors due at the same time are returned in the order they were scheduled, so turn order is
+ *  deterministic.
+ */
+
+public class TurnScheduler {
+    private long[] entities;
+    private long[] times;
+    private long[] sequences;
+    private int size;
+
+    private final LongIntMap positions;
+    private long nextSequence;
+
+    // Actors returned by last call to pollDue(), and the times they were due at
+    private long[] due;
+    private long[] dueTimes;
+    private int dueCount;
+
+    public TurnScheduler() {
+        this(256);
+    }
+
+    public TurnScheduler(int initialCapacity) {
+        this.entities = new long[initialCapacity];
+        this.times = new long[initialCapacity];
+        this.sequences = new long[initialCapacity];
+        this.positions = new LongIntMap(initialCapacity);
+        this.due = new long[64];
+        this.dueTimes = new long[64];
+        this.size = 0;
+        this.nextSequence = 0;
+        this.dueCount = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        positions.clear();
+        size = 0;
+        dueCount = 0;
+    }
+
+    public boolean isScheduled(long entity) {
+        return positions.containsKey(entity);
+    }
+
+    /**
+     * Returns time of entity's next action, or -1 if entity isn't scheduled.
+     */
+
+    public long getTime(long entity) {
+        int position = positions.get(entity);
+        return (position == LongIntMap.NO_VALUE) ? -1 : times[position];
+    }
+
+    /**
+     * Returns time of earliest scheduled action, or Long.MAX_VALUE if nothing is scheduled.
+     */
+
+    public long peekTime() {
+        return (size == 0) ? Long.MAX_VALUE : times[0];
+    }
+
+    /**
+     * Schedules entity to act at given time. If entity was already scheduled, its previous time is
+     * replaced.
+     */
+
+    public void schedule(long entity, long time) {
+        int position = positions.get(entity);
+
+        if (position != LongIntMap.NO_VALUE) {
+            long oldTime = times[position];
+            times[position] = time;
+            sequences[position] = nextSequence++;
+
+            if (time < oldTime) {
+                siftUp(position);
+            }
+            else {
+                siftDown(position);
+            }
+
+            return;
+        }
+
+        if (size == entities.length) {
+            int capacity = size << 1;
+            entities = Arrays.copyOf(entities, capacity);
+            times = Arrays.copyOf(times, capacity);
+            sequences = Arrays.copyOf(sequences, capacity);
+        }
+
+        entities[size] = entity;
+        times[size] = time;
+        sequences[size] = nextSequence++;
+        positions.put(entity, size);
+        size++;
+
+        siftUp(size - 1);
+    }
+
+    public void remove(long entity) {
+        int position = positions.get(entity);
+        if (position == LongIntMap.NO_VALUE) return;
+
+        positions.remove(entity);
+        size--;
+
+        if (position == size) return;
+
+        // Move last entry into the gap and restore heap order
+        set(position, entities[size], times[size], sequences[size]);
+        siftDown(position);
+        siftUp(position);
+    }
+
+    /**
+     * Removes every actor due at or before given time. Actors are unscheduled, so caller should
+     * schedule them again after they have acted. Read results with getDue().
+     *
+     * @return Number of actors that are due
+     */
+
+    public int pollDue(long now) {
+        dueCount = 0;
+
+        while (size > 0 && times[0] <= now) {
+            if (dueCount == due.length) {
+                due = Arrays.copyOf(due, dueCount << 1);
+                dueTimes = Arrays.copyOf(dueTimes, dueCount << 1);
+            }
+
+            long entity = entities[0];
+            due[dueCount] = entity;
+            dueTimes[dueCount] = times[0];
+            dueCount++;
+            remove(entity);
+        }
+
+        return dueCount;
+    }
+
+    public long getDue(int index) {
+        return due[index];
+    }
+
+    /**
+     * Returns time that actor was scheduled for, which may be earlier than time passed to
+     * pollDue(). Next action should be scheduled from this time rather than the current one, so
+     * that delays which aren't a multiple of the turn length still average out.
+     */
+
+    public long getDueTime(int index) {
+        return dueTimes[index];
+    }
+
+    /*
+    ---------------------------------------------
+     Heap operations
+    ---------------------------------------------
+    */
+
+    private boolean before(int a, int b) {
+        return times[a] < times[b] || (times[a] == times[b] && sequences[a] < sequences[b]);
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!before(position, parent)) break;
+
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int left = (position << 1) + 1;
+            if (left >= size) break;
+
+            int right = left + 1;
+            int smallest = (right < size && before(right, left)) ? right : left;
+
+            if (!before(smallest, position)) break;
+
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long entity = entities[a];
+        long time = times[a];
+        long sequence = sequences[a];
+
+        set(a, entities[b], times[b], sequences[b]);
+        set(b, entity, time, sequence);
+    }
+
+    private void set(int position, long entity, long time, long sequence) {
+        entities[position] = entity;
+        times[position] = time;
+        sequences[position] = sequence;
+        positions.put(entity, position);
+    }
+}
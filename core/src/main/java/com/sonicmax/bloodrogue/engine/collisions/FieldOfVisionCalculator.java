@@ -0,0 +1,317 @@
+package com.sonicmax.bloodrogue.engine.collisions;
+
+import com.sonicmax.bloodrogue.engine.Directions;
+import com.sonicmax.bloodrogue.utils.maths.Vector2D;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ *  Recursive shadowcasting FOV. Light values are written to a flat float array (indexed by
+ *  y * width + x) which is reused between turns - only cells lit by the previous cast are cleared.
+ *  Light falloff is read from a lookup table built for the current radius.
+ *
+ *  If viewer position, radius and darkness are unchanged and no tile within radius has changed
+ *  its blocksSight flag, calculate() returns the previous light map without casting.
+ */
+
+public class FieldOfVisionCalculator {
+    private final String LOG_TAG = this.getClass().getSimpleName();
+    private float darknessFactor; // Lower value = darker lighting. Has to be > 0
+
+    private TileFlags tileFlags;
+    private int startX;
+    private int startY;
+    private int fovRadius;
+    private int width;
+    private int height;
+    private float[] lightMap;
+    private boolean[][] visitedTiles;
+
+    // Cells written to during last cast
+    private int[] litCells;
+    private int litCount;
+
+    // Brightness for each (dx, dy) offset within radius, or -1 if offset is outside radius
+    private float[] falloff;
+    private int falloffRadius;
+
+    // Parameters of last cast, used to decide whether we can skip recalculation
+    private TileFlags lastTileFlags;
+    private int lastX;
+    private int lastY;
+    private int lastRadius;
+    private float lastDarkness;
+    private int lastRevision;
+    private boolean hasResult;
+
+    // Metrics
+    private long lastCalculationNanos;
+    private int calculationCount;
+    private int skippedCount;
+
+    private ArrayList<Vector2D> directions;
+
+    public FieldOfVisionCalculator() {
+        directions = new ArrayList<>(Directions.Diagonal.values());
+        falloffRadius = -1;
+    }
+
+    public boolean[][] getVisitedTiles() {
+        return this.visitedTiles;
+    }
+
+    /**
+     * Moves visited tiles by (-dx, -dy), for when the map has been moved under the viewer (eg.
+     * streamed exterior window moving with the player). Tiles moved in from outside the map are
+     * unvisited.
+     */
+
+    public void shiftVisitedTiles(int dx, int dy) {
+        if (visitedTiles == null) return;
+
+        boolean[][] shifted = new boolean[width][height];
+        int length = height - Math.abs(dy);
+
+        for (int x = Math.max(0, -dx); length > 0 && x < Math.min(width, width - dx); x++) {
+            System.arraycopy(visitedTiles[x + dx], Math.max(0, dy), shifted[x], Math.max(0, -dy), length);
+        }
+
+        visitedTiles = shifted;
+        hasResult = false;
+    }
+
+    public void setValues(TileFlags tileFlags, int x, int y, int radius) {
+
+        this.tileFlags = tileFlags;
+        this.startX = x;
+        this.startY = y;
+        this.fovRadius = radius;
+
+        int newWidth = tileFlags.getWidth();
+        int newHeight = tileFlags.getHeight();
+
+        if (lightMap == null || newWidth != width || newHeight != height) {
+            this.width = newWidth;
+            this.height = newHeight;
+            this.lightMap = new float[width * height];
+            this.litCells = new int[width * height];
+            this.litCount = 0;
+            this.visitedTiles = new boolean[width][height];
+            this.hasResult = false;
+        }
+
+        if (radius != falloffRadius) {
+            buildFalloffTable(radius);
+        }
+
+        this.darknessFactor = 1;
+    }
+
+    public void setDarknessFactor(float factor) {
+        darknessFactor = factor;
+    }
+
+    /**
+     * Calculates light map for current values. Returned array is reused between calls, so callers
+     * shouldn't keep a reference to it after the next turn.
+     *
+     * @return Flat array of light values, indexed by y * width + x
+     */
+
+    public float[] calculate() {
+        if (canReuseLastResult()) {
+            skippedCount++;
+            lastCalculationNanos = 0;
+            return lightMap;
+        }
+
+        long start = System.nanoTime();
+
+        if (tileFlags != lastTileFlags) {
+            // Floor has changed - forget tiles visited on previous floor
+            for (int x = 0; x < width; x++) {
+                Arrays.fill(visitedTiles[x], false);
+            }
+        }
+
+        // Clear cells lit by last cast
+        for (int i = 0; i < litCount; i++) {
+            lightMap[litCells[i]] = 0f;
+        }
+
+        litCount = 0;
+
+        // Light starting cell
+        light(startX, startY, 1f * darknessFactor);
+
+        for (int i = 0; i < 4; i++) {
+            Vector2D direction = directions.get(i);
+            castLight(1, 1.0, 0.0, 0, direction.x(), direction.y(), 0);
+            castLight(1, 1.0, 0.0, direction.x(), 0, 0, direction.y());
+        }
+
+        lastTileFlags = tileFlags;
+        lastX = startX;
+        lastY = startY;
+        lastRadius = fovRadius;
+        lastDarkness = darknessFactor;
+        lastRevision = tileFlags.getRevision();
+        hasResult = true;
+
+        calculationCount++;
+        lastCalculationNanos = System.nanoTime() - start;
+
+        return lightMap;
+    }
+
+    public float[] getLightMap() {
+        return lightMap;
+    }
+
+    public boolean isVisible(int x, int y) {
+        return lightMap[y * width + x] > 0;
+    }
+
+    /*
+    ---------------------------------------------
+     Metrics
+    ---------------------------------------------
+    */
+
+    /**
+     * Returns time spent in last call to calculate() in milliseconds (0 if result was reused).
+     */
+
+    public float getLastCalculationTime() {
+        return lastCalculationNanos / 1000000f;
+    }
+
+    public int getCalculationCount() {
+        return calculationCount;
+    }
+
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    /*
+    ---------------------------------------------
+     Shadowcasting
+    ---------------------------------------------
+    */
+
+    private boolean canReuseLastResult() {
+        return hasResult
+                && tileFlags == lastTileFlags
+                && startX == lastX
+                && startY == lastY
+                && fovRadius == lastRadius
+                && darknessFactor == lastDarkness
+                && !tileFlags.sightChangedSince(lastRevision,
+                        startX - fovRadius, startY - fovRadius, startX + fovRadius, startY + fovRadius);
+    }
+
+    private void castLight(int row, double start, double end, int xx, int xy, int yx, int yy) {
+        double newStart = 0.0;
+
+        if (start < end) {
+            return;
+        }
+
+        boolean blocked = false;
+        int tableWidth = fovRadius + 1;
+
+        for (int distance = row; distance <= fovRadius && !blocked; distance++) {
+            int deltaY = -distance;
+
+            for (int deltaX = -distance; deltaX <= 0; deltaX++) {
+                int currentX = startX + (deltaX * xx) + (deltaY * xy);
+                int currentY = startY + (deltaX * yx) + (deltaY * yy);
+                double leftSlope = (deltaX - 0.5) / (deltaY + 0.5);
+                double rightSlope = (deltaX + 0.5) / (deltaY - 0.5);
+
+                if (!(currentX >= 0 && currentY >= 0 && currentX < width && currentY < height) || start < rightSlope) {
+                    continue;
+                } else if (end > leftSlope) {
+                    break;
+                }
+
+                //check if it's within the lightable area and light if needed
+                float bright = falloff[(-deltaX) * tableWidth + (-deltaY)];
+
+                if (bright >= 0) {
+                    light(currentX, currentY, bright * darknessFactor);
+                }
+
+                if (blocked) { //previous cell was a blocking one
+                    if (tileFlags.blocksSight(currentX, currentY)) {
+                        newStart = rightSlope;
+                        continue;
+                    } else {
+                        blocked = false;
+                        start = newStart;
+                    }
+                } else {
+                    if (tileFlags.blocksSight(currentX, currentY) && distance < fovRadius) { //hit a wall within sight line
+                        blocked = true;
+                        castLight(distance + 1, start, leftSlope, xx, xy, yx, yy);
+                        newStart = rightSlope;
+                    }
+                }
+            }
+        }
+    }
+
+    private void light(int x, int y, float value) {
+        int index = y * width + x;
+
+        // Only track cells once, so that litCells can't overflow
+        if (lightMap[index] == 0f && value != 0f) {
+            litCells[litCount++] = index;
+        }
+
+        lightMap[index] = value;
+        visitedTiles[x][y] = true;
+    }
+
+    /**
+     * Precalculates brightness for each offset within radius, so we don't have to calculate
+     * square roots while casting.
+     */
+
+    private void buildFalloffTable(int radius) {
+        int tableWidth = radius + 1;
+        falloff = new float[tableWidth * tableWidth];
+
+        for (int dx = 0; dx <= radius; dx++) {
+            for (int dy = 0; dy <= radius; dy++) {
+                double distance = getRadius(dx, dy);
+
+                if (distance <= radius) {
+                    falloff[dx * tableWidth + dy] = (float) (1 - (distance / radius));
+                }
+                else {
+                    falloff[dx * tableWidth + dy] = -1f;
+                }
+            }
+        }
+
+        falloffRadius = radius;
+    }
+
+    private double getRadius(int dx, int dy) {
+        dx = Math.abs(dx);
+        dy = Math.abs(dy);
+
+        // Standard circular radius
+        return Math.sqrt(dx * dx + dy * dy); // standard circular radius
+
+        // Square - radius is longest axial distance
+        // return Math.max(dx, dy); // SQUARE - radius is longest axial distance
+
+        // Insane bit shifting sqrt thing
+        // double d = dx * dx + dy * dy;
+        // return Double.longBitsToDouble( ( ( Double.doubleToLongBits( d )-(1L<<52) )>>1 ) + ( 1L<<61 ) );
+    }
+}
@@ -0,0 +1,115 @@
+package com.sonicmax.bloodrogue.engine.collisions;
+
+/**
+ *  Recursive shadowcasting which writes visible tiles into a square bitset window centred on the
+ *  viewer, instead of a full-map light map. Used by VisibilityService - each worker thread owns
+ *  one caster, and all casters share the same (read-only) TileFlags.
+ */
+
+class ShadowCaster {
+    private static final int[][] OCTANTS = {
+            {1, 0, 0, 1}, {0, 1, 1, 0},
+            {1, 0, 0, -1}, {0, 1, -1, 0},
+            {-1, 0, 0, 1}, {0, -1, 1, 0},
+            {-1, 0, 0, -1}, {0, -1, -1, 0}
+    };
+
+    private TileFlags tileFlags;
+    private int width;
+    private int height;
+
+    private int originX;
+    private int originY;
+    private int radius;
+    private int radiusSquared;
+
+    private long[] bits;
+    private int offset;
+    private int windowSize;
+    private int windowRadius;
+
+    /**
+     * Casts from (x, y) and sets a bit for each visible tile.
+     *
+     * @param bits Array to write results to. Caller is responsible for clearing it
+     * @param offset Index of first word of window in bits array
+     * @param windowRadius Half-width of window (window is windowRadius * 2 + 1 tiles wide)
+     */
+
+    void cast(TileFlags tileFlags, int x, int y, int radius, long[] bits, int offset, int windowRadius) {
+        this.tileFlags = tileFlags;
+        this.width = tileFlags.getWidth();
+        this.height = tileFlags.getHeight();
+        this.originX = x;
+        this.originY = y;
+        this.radius = radius;
+        this.radiusSquared = radius * radius;
+        this.bits = bits;
+        this.offset = offset;
+        this.windowRadius = windowRadius;
+        this.windowSize = windowRadius * 2 + 1;
+
+        mark(0, 0);
+
+        for (int i = 0; i < OCTANTS.length; i++) {
+            int[] octant = OCTANTS[i];
+            castLight(1, 1.0, 0.0, octant[0], octant[1], octant[2], octant[3]);
+        }
+
+        // Don't keep reference to result array after cast
+        this.bits = null;
+    }
+
+    private void castLight(int row, double start, double end, int xx, int xy, int yx, int yy) {
+        double newStart = 0.0;
+
+        if (start < end) {
+            return;
+        }
+
+        boolean blocked = false;
+
+        for (int distance = row; distance <= radius && !blocked; distance++) {
+            int deltaY = -distance;
+
+            for (int deltaX = -distance; deltaX <= 0; deltaX++) {
+                int dx = (deltaX * xx) + (deltaY * xy);
+                int dy = (deltaX * yx) + (deltaY * yy);
+                int currentX = originX + dx;
+                int currentY = originY + dy;
+                double leftSlope = (deltaX - 0.5) / (deltaY + 0.5);
+                double rightSlope = (deltaX + 0.5) / (deltaY - 0.5);
+
+                if (!(currentX >= 0 && currentY >= 0 && currentX < width && currentY < height) || start < rightSlope) {
+                    continue;
+                } else if (end > leftSlope) {
+                    break;
+                }
+
+                if (deltaX * deltaX + deltaY * deltaY <= radiusSquared) {
+                    mark(dx, dy);
+                }
+
+                if (blocked) {
+                    if (tileFlags.blocksSight(currentX, currentY)) {
+                        newStart = rightSlope;
+                    } else {
+                        blocked = false;
+                        start = newStart;
+                    }
+                } else {
+                    if (tileFlags.blocksSight(currentX, currentY) && distance < radius) {
+                        blocked = true;
+                        castLight(distance + 1, start, leftSlope, xx, xy, yx, yy);
+                        newStart = rightSlope;
+                    }
+                }
+            }
+        }
+    }
+
+    private void mark(int dx, int dy) {
+        int index = (dy + windowRadius) * windowSize + (dx + windowRadius);
+        bits[offset + (index >>> 6)] |= (1L << index);
+    }
+}
@@ -0,0 +1,433 @@
+package com.sonicmax.bloodrogue.engine.collisions;
+
+import com.sonicmax.bloodrogue.engine.ComponentManager;
+import com.sonicmax.bloodrogue.engine.ComponentTypes;
+import com.sonicmax.bloodrogue.utils.collections.LongIntMap;
+import com.sonicmax.bloodrogue.utils.collections.TileOccupancy;
+
+import java.util.Arrays;
+
+/**
+ *  Uniform grid index for finding entities near a position. Map is divided into 8x8 tile cells,
+ *  and each indexed component type has its own set of buckets - so a query for AI entities never
+ *  has to skip over terrain decorations, items, etc.
+ *
+ *  Entries are stored in a slab of primitive arrays and linked into their cell bucket, so adding,
+ *  moving and removing entities are O(1) and don't allocate once the slab has grown. Query results
+ *  are written to a reusable long array and can be read using getResultCount() and getResult().
+ *
+ *  Index must be kept in sync with Position components - call move() whenever an entity changes
+ *  tile, and remove() when an entity (or one of its indexed components) is removed.
+ */
+
+public class SpatialIndex {
+    private static final int CELL_SHIFT = 3;
+    private static final int NONE = -1;
+
+    private int width;
+    private int height;
+    private int cellsWide;
+    private int cellsHigh;
+    private int cellCount;
+
+    // Component types which are indexed, and bucket set used by each type
+    private int[] indexedTypes;
+    private int[] bucketForType;
+    private int[] cellHeads;
+
+    // Entry slab
+    private long[] entryEntity;
+    private int[] entryBucket;
+    private int[] entryX;
+    private int[] entryY;
+    private int[] entryNext;
+    private int[] entryPrev;
+    private int[] entrySibling;
+    private int entryCount;
+    private int freeEntry;
+
+    // First entry for each entity. Other entries for the same entity are linked via entrySibling
+    private LongIntMap entityEntries;
+
+    private long[] results;
+    private int resultCount;
+
+    private ComponentManager componentManager;
+
+    public SpatialIndex(int width, int height, int... indexedTypes) {
+        this(ComponentManager.getInstance(), width, height, indexedTypes);
+    }
+
+    public SpatialIndex(ComponentManager componentManager, int width, int height, int... indexedTypes) {
+        this.width = width;
+        this.height = height;
+        this.cellsWide = (width >> CELL_SHIFT) + 1;
+        this.cellsHigh = (height >> CELL_SHIFT) + 1;
+        this.cellCount = cellsWide * cellsHigh;
+
+        this.indexedTypes = indexedTypes;
+        this.bucketForType = new int[ComponentTypes.COUNT];
+        Arrays.fill(bucketForType, NONE);
+
+        for (int i = 0; i < indexedTypes.length; i++) {
+            bucketForType[indexedTypes[i]] = i;
+        }
+
+        this.cellHeads = new int[indexedTypes.length * cellCount];
+        this.entityEntries = new LongIntMap();
+        this.results = new long[64];
+
+        resizeSlab(256);
+        clear();
+
+        this.componentManager = componentManager;
+    }
+
+    public void clear() {
+        Arrays.fill(cellHeads, NONE);
+        entityEntries.clear();
+        entryCount = 0;
+        freeEntry = NONE;
+    }
+
+    /**
+     * Clears index and adds every entity in object stacks.
+     */
+
+    public void build(TileOccupancy objectEntities) {
+        clear();
+
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                for (int node = objectEntities.first(x, y); node != TileOccupancy.NONE; node = objectEntities.next(node)) {
+                    add(objectEntities.get(node), x, y);
+                }
+            }
+        }
+    }
+
+    /*
+    ---------------------------------------------
+     Updates
+    ---------------------------------------------
+    */
+
+    /**
+     * Adds entity to bucket for each of its components which are indexed. Entities which are
+     * already indexed for a type are ignored.
+     */
+
+    public void add(long entity, int x, int y) {
+        for (int i = 0; i < indexedTypes.length; i++) {
+            if (componentManager.has(entity, indexedTypes[i])) {
+                add(entity, indexedTypes[i], x, y);
+            }
+        }
+    }
+
+    public void add(long entity, int type, int x, int y) {
+        int bucket = bucketForType[type];
+
+        if (bucket == NONE || !inBounds(x, y) || findEntry(entity, bucket) != NONE) return;
+
+        int entry = allocateEntry();
+        entryEntity[entry] = entity;
+        entryBucket[entry] = bucket;
+        entryX[entry] = x;
+        entryY[entry] = y;
+
+        int first = entityEntries.get(entity);
+        entrySibling[entry] = first;
+        entityEntries.put(entity, entry);
+
+        link(entry);
+    }
+
+    /**
+     * Moves all entries for entity to new position.
+     */
+
+    public void move(long entity, int x, int y) {
+        if (!inBounds(x, y)) return;
+
+        int entry = entityEntries.get(entity);
+
+        while (entry != NONE) {
+            boolean sameCell = (entryX[entry] >> CELL_SHIFT) == (x >> CELL_SHIFT)
+                    && (entryY[entry] >> CELL_SHIFT) == (y >> CELL_SHIFT);
+
+            if (sameCell) {
+                entryX[entry] = x;
+                entryY[entry] = y;
+            }
+            else {
+                unlink(entry);
+                entryX[entry] = x;
+                entryY[entry] = y;
+                link(entry);
+            }
+
+            entry = entrySibling[entry];
+        }
+    }
+
+    /**
+     * Removes all entries for entity.
+     */
+
+    public void remove(long entity) {
+        int entry = entityEntries.remove(entity);
+
+        while (entry != NONE) {
+            int sibling = entrySibling[entry];
+            unlink(entry);
+            freeEntry(entry);
+            entry = sibling;
+        }
+    }
+
+    /**
+     * Removes entity from bucket for given type (eg. when AI component is removed from a corpse).
+     */
+
+    public void remove(long entity, int type) {
+        int bucket = bucketForType[type];
+
+        if (bucket == NONE) return;
+
+        int previous = NONE;
+        int entry = entityEntries.get(entity);
+
+        while (entry != NONE && entryBucket[entry] != bucket) {
+            previous = entry;
+            entry = entrySibling[entry];
+        }
+
+        if (entry == NONE) return;
+
+        if (previous == NONE) {
+            if (entrySibling[entry] == NONE) {
+                entityEntries.remove(entity);
+            }
+            else {
+                entityEntries.put(entity, entrySibling[entry]);
+            }
+        }
+        else {
+            entrySibling[previous] = entrySibling[entry];
+        }
+
+        unlink(entry);
+        freeEntry(entry);
+    }
+
+    /*
+    ---------------------------------------------
+     Queries
+    ---------------------------------------------
+    */
+
+    /**
+     * Finds entities with component type within radius of (x, y). Uses circular radius, to match
+     * field of vision.
+     *
+     * @return Number of results
+     */
+
+    public int queryRadius(int type, int x, int y, int radius) {
+        resultCount = 0;
+
+        int bucket = bucketForType[type];
+        if (bucket == NONE || radius < 0) return 0;
+
+        int radiusSquared = radius * radius;
+        int startX = cellX(x - radius);
+        int startY = cellY(y - radius);
+        int endX = cellX(x + radius);
+        int endY = cellY(y + radius);
+        int offset = bucket * cellCount;
+
+        for (int cy = startY; cy <= endY; cy++) {
+            for (int cx = startX; cx <= endX; cx++) {
+                int entry = cellHeads[offset + cy * cellsWide + cx];
+
+                while (entry != NONE) {
+                    int dx = entryX[entry] - x;
+                    int dy = entryY[entry] - y;
+
+                    if (dx * dx + dy * dy <= radiusSquared) {
+                        addResult(entryEntity[entry]);
+                    }
+
+                    entry = entryNext[entry];
+                }
+            }
+        }
+
+        return resultCount;
+    }
+
+    /**
+     * Finds entities with component type inside rectangle. Bounds are inclusive.
+     *
+     * @return Number of results
+     */
+
+    public int queryRect(int type, int left, int top, int right, int bottom) {
+        resultCount = 0;
+
+        int bucket = bucketForType[type];
+        if (bucket == NONE) return 0;
+
+        int startX = cellX(left);
+        int startY = cellY(top);
+        int endX = cellX(right);
+        int endY = cellY(bottom);
+        int offset = bucket * cellCount;
+
+        for (int cy = startY; cy <= endY; cy++) {
+            for (int cx = startX; cx <= endX; cx++) {
+                int entry = cellHeads[offset + cy * cellsWide + cx];
+
+                while (entry != NONE) {
+                    int ex = entryX[entry];
+                    int ey = entryY[entry];
+
+                    if (ex >= left && ex <= right && ey >= top && ey <= bottom) {
+                        addResult(entryEntity[entry]);
+                    }
+
+                    entry = entryNext[entry];
+                }
+            }
+        }
+
+        return resultCount;
+    }
+
+    public int getResultCount() {
+        return resultCount;
+    }
+
+    /**
+     * Returns entity from last query. Results are overwritten by the next query.
+     */
+
+    public long getResult(int index) {
+        return results[index];
+    }
+
+    public boolean contains(long entity, int type) {
+        int bucket = bucketForType[type];
+        return bucket != NONE && findEntry(entity, bucket) != NONE;
+    }
+
+    /*
+    ---------------------------------------------
+     Helper methods
+    ---------------------------------------------
+    */
+
+    private boolean inBounds(int x, int y) {
+        return (x >= 0 && x < width) && (y >= 0 && y < height);
+    }
+
+    private int cellX(int x) {
+        return Math.max(0, Math.min(x, width - 1)) >> CELL_SHIFT;
+    }
+
+    private int cellY(int y) {
+        return Math.max(0, Math.min(y, height - 1)) >> CELL_SHIFT;
+    }
+
+    private int findEntry(long entity, int bucket) {
+        int entry = entityEntries.get(entity);
+
+        while (entry != NONE && entryBucket[entry] != bucket) {
+            entry = entrySibling[entry];
+        }
+
+        return entry;
+    }
+
+    private void link(int entry) {
+        int head = entryBucket[entry] * cellCount
+                + (entryY[entry] >> CELL_SHIFT) * cellsWide + (entryX[entry] >> CELL_SHIFT);
+
+        int first = cellHeads[head];
+        entryPrev[entry] = NONE;
+        entryNext[entry] = first;
+
+        if (first != NONE) {
+            entryPrev[first] = entry;
+        }
+
+        cellHeads[head] = entry;
+    }
+
+    private void unlink(int entry) {
+        int previous = entryPrev[entry];
+        int next = entryNext[entry];
+
+        if (previous != NONE) {
+            entryNext[previous] = next;
+        }
+        else {
+            int head = entryBucket[entry] * cellCount
+                    + (entryY[entry] >> CELL_SHIFT) * cellsWide + (entryX[entry] >> CELL_SHIFT);
+            cellHeads[head] = next;
+        }
+
+        if (next != NONE) {
+            entryPrev[next] = previous;
+        }
+    }
+
+    private int allocateEntry() {
+        if (freeEntry != NONE) {
+            int entry = freeEntry;
+            freeEntry = entryNext[entry];
+            return entry;
+        }
+
+        if (entryCount == entryEntity.length) {
+            resizeSlab(entryCount << 1);
+        }
+
+        return entryCount++;
+    }
+
+    private void freeEntry(int entry) {
+        entryNext[entry] = freeEntry;
+        freeEntry = entry;
+    }
+
+    private void addResult(long entity) {
+        if (resultCount == results.length) {
+            results = Arrays.copyOf(results, resultCount << 1);
+        }
+
+        results[resultCount++] = entity;
+    }
+
+    private void resizeSlab(int capacity) {
+        if (entryEntity == null) {
+            entryEntity = new long[capacity];
+            entryBucket = new int[capacity];
+            entryX = new int[capacity];
+            entryY = new int[capacity];
+            entryNext = new int[capacity];
+            entryPrev = new int[capacity];
+            entrySibling = new int[capacity];
+        }
+        else {
+            entryEntity = Arrays.copyOf(entryEntity, capacity);
+            entryBucket = Arrays.copyOf(entryBucket, capacity);
+            entryX = Arrays.copyOf(entryX, capacity);
+            entryY = Arrays.copyOf(entryY, capacity);
+            entryNext = Arrays.copyOf(entryNext, capacity);
+            entryPrev = Arrays.copyOf(entryPrev, capacity);
+            entrySibling = Arrays.copyOf(entrySibling, capacity);
+        }
+    }
+}
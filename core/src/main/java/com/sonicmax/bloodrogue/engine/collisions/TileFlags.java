@@ -0,0 +1,237 @@
+package com.sonicmax.bloodrogue.engine.collisions;
+
+import com.sonicmax.bloodrogue.engine.ComponentManager;
+import com.sonicmax.bloodrogue.engine.ComponentTypes;
+import com.sonicmax.bloodrogue.engine.components.Physics;
+import com.sonicmax.bloodrogue.engine.components.Terrain;
+import com.sonicmax.bloodrogue.utils.collections.TileOccupancy;
+
+import java.util.Arrays;
+
+/**
+ *  Caches per-tile properties as packed bitsets (one bit per tile, 64 tiles per long) so that
+ *  collision and FOV checks don't have to fetch Terrain/Physics components for every entity
+ *  in a tile.
+ *
+ *  Flags are built once per floor using build(), and must be kept up to date by calling
+ *  updateTile() whenever an entity enters/leaves a tile or its Physics component changes.
+ */
+
+public class TileFlags {
+    private int width;
+    private int height;
+
+    private long[] blocksMovement;
+    private long[] blocksSight;
+    private long[] isWater;
+    private long[] isIndoor;
+
+    // Incremented whenever movement/sight flags change, so that cached data can be invalidated
+    private int revision;
+
+    // Revision of last sight change in each 8x8 block of tiles. Lets FOV check whether anything
+    // within sight radius has changed without scanning every tile.
+    private static final int BLOCK_SHIFT = 3;
+    private int blocksWide;
+    private int[] sightBlockRevisions;
+
+    private int[][] terrainEntities;
+    private TileOccupancy objectEntities;
+    private ComponentManager componentManager;
+
+    public TileFlags(int width, int height) {
+        this(ComponentManager.getInstance(), width, height);
+    }
+
+    public TileFlags(ComponentManager componentManager, int width, int height) {
+        this.width = width;
+        this.height = height;
+
+        int words = ((width * height) + 63) >>> 6;
+
+        this.blocksMovement = new long[words];
+        this.blocksSight = new long[words];
+        this.isWater = new long[words];
+        this.isIndoor = new long[words];
+
+        this.blocksWide = (width >> BLOCK_SHIFT) + 1;
+        this.sightBlockRevisions = new int[blocksWide * ((height >> BLOCK_SHIFT) + 1)];
+
+        this.componentManager = componentManager;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getRevision() {
+        return revision;
+    }
+
+    /**
+     * Returns true if blocksSight has changed for any tile inside the given rectangle since revision.
+     */
+
+    public boolean sightChangedSince(int revision, int left, int top, int right, int bottom) {
+        int startX = Math.max(left, 0) >> BLOCK_SHIFT;
+        int startY = Math.max(top, 0) >> BLOCK_SHIFT;
+        int endX = Math.min(right, width - 1) >> BLOCK_SHIFT;
+        int endY = Math.min(bottom, height - 1) >> BLOCK_SHIFT;
+
+        for (int y = startY; y <= endY; y++) {
+            for (int x = startX; x <= endX; x++) {
+                if (sightBlockRevisions[y * blocksWide + x] > revision) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Rebuilds all flags from entity grids. Indoor/water regions are optional.
+     */
+
+    public void build(int[][] terrainEntities, TileOccupancy objectEntities,
+                      boolean[][] indoorRegions, boolean[][] waterRegions) {
+
+        this.terrainEntities = terrainEntities;
+        this.objectEntities = objectEntities;
+
+        Arrays.fill(blocksMovement, 0L);
+        Arrays.fill(blocksSight, 0L);
+        Arrays.fill(isWater, 0L);
+        Arrays.fill(isIndoor, 0L);
+        revision++;
+        Arrays.fill(sightBlockRevisions, revision);
+
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                updateTile(x, y);
+
+                if (indoorRegions != null && indoorRegions[x][y]) {
+                    set(isIndoor, x, y, true);
+                }
+
+                if (waterRegions != null && waterRegions[x][y]) {
+                    set(isWater, x, y, true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recalculates movement/sight flags for a single tile. Call this after modifying object stack
+     * at position, or after changing Physics component of an entity in the stack.
+     */
+
+    public void updateTile(int x, int y) {
+        if (!inBounds(x, y)) return;
+
+        boolean movement = false;
+        boolean sight = false;
+
+        long terrainEntity = terrainEntities[x][y];
+        Terrain terrain = (Terrain) componentManager.getEntityComponent(terrainEntity, ComponentTypes.TERRAIN);
+
+        // Walls and borders will always prevent movement and block sight.
+        if (terrain != null && (terrain.type == Terrain.WALL || terrain.type == Terrain.BORDER)) {
+            movement = true;
+            sight = true;
+        }
+
+        Physics terrainPhysics = (Physics) componentManager.getEntityComponent(terrainEntity, ComponentTypes.PHYSICS);
+        if (terrainPhysics != null && !terrainPhysics.isTraversable) {
+            movement = true;
+        }
+
+        for (int node = objectEntities.first(x, y); node != TileOccupancy.NONE && !(movement && sight);
+                node = objectEntities.next(node)) {
+
+            long object = objectEntities.get(node);
+            Physics physics = (Physics) componentManager.getEntityComponent(object, ComponentTypes.PHYSICS);
+
+            if (physics != null) {
+                if (!physics.isTraversable) movement = true;
+                if (physics.isBlocking) sight = true;
+            }
+        }
+
+        boolean sightChanged = get(blocksSight, x, y) != sight;
+
+        if (get(blocksMovement, x, y) != movement || sightChanged) {
+            set(blocksMovement, x, y, movement);
+            set(blocksSight, x, y, sight);
+            revision++;
+
+            if (sightChanged) {
+                sightBlockRevisions[(y >> BLOCK_SHIFT) * blocksWide + (x >> BLOCK_SHIFT)] = revision;
+            }
+        }
+    }
+
+    public void setWater(int x, int y, boolean water) {
+        set(isWater, x, y, water);
+    }
+
+    public void setIndoor(int x, int y, boolean indoor) {
+        set(isIndoor, x, y, indoor);
+    }
+
+    /*
+    ---------------------------------------------
+     Queries
+    ---------------------------------------------
+    */
+
+    public boolean inBounds(int x, int y) {
+        return (x >= 0 && x < width) && (y >= 0 && y < height);
+    }
+
+    /**
+     * Returns true if tile can't be entered. Out of bounds tiles are always blocked.
+     */
+
+    public boolean blocksMovement(int x, int y) {
+        return !inBounds(x, y) || get(blocksMovement, x, y);
+    }
+
+    public boolean blocksSight(int x, int y) {
+        return inBounds(x, y) && get(blocksSight, x, y);
+    }
+
+    public boolean isWater(int x, int y) {
+        return inBounds(x, y) && get(isWater, x, y);
+    }
+
+    public boolean isIndoor(int x, int y) {
+        return inBounds(x, y) && get(isIndoor, x, y);
+    }
+
+    /*
+    ---------------------------------------------
+     Bit helpers
+    ---------------------------------------------
+    */
+
+    private boolean get(long[] bits, int x, int y) {
+        int index = y * width + x;
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private void set(long[] bits, int x, int y, boolean value) {
+        int index = y * width + x;
+
+        if (value) {
+            bits[index >>> 6] |= (1L << index);
+        }
+        else {
+            bits[index >>> 6] &= ~(1L << index);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.sonicmax.bloodrogue.engine.collisions;
+
+import com.sonicmax.bloodrogue.utils.Log;
+import com.sonicmax.bloodrogue.utils.collections.LongIntMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ *  Computes line of sight for every AI actor in one batch. Viewers are registered for the turn
+ *  using addViewer(), then compute() shadowcasts from each of them over the shared TileFlags.
+ *
+ *  Results for each viewer are stored as a bitset window (MAX_RADIUS * 2 + 1 tiles wide) centred
+ *  on their position, packed into a single long array - memory use is fixed per viewer regardless
+ *  of map size. Radius is clamped to MAX_RADIUS.
+ *
+ *  Large batches are split between a pool of worker threads. TileFlags must not be modified while
+ *  compute() is running (this is fine as long as it's called from the game thread).
+ */
+
+public class VisibilityService {
+    private final String LOG_TAG = this.getClass().getSimpleName();
+
+    public static final int MAX_RADIUS = 12;
+    private static final int WINDOW_SIZE = MAX_RADIUS * 2 + 1;
+    private static final int WORDS_PER_VIEWER = ((WINDOW_SIZE * WINDOW_SIZE) + 63) >>> 6;
+
+    // Batches smaller than this are cheaper to cast on calling thread
+    private static final int MIN_PARALLEL_BATCH = 16;
+
+    private TileFlags tileFlags;
+
+    private LongIntMap viewerSlots;
+    private long[] viewers;
+    private int[] originX;
+    private int[] originY;
+    private int[] radii;
+    private long[] visible;
+    private int viewerCount;
+
+    private int workerCount;
+    private ShadowCaster[] casters;
+    private ArrayList<CastTask> tasks;
+    private ExecutorService executor;
+
+    // Metrics
+    private long lastCalculationNanos;
+
+    public VisibilityService(int workerCount) {
+        this.workerCount = Math.max(1, workerCount);
+        this.viewerSlots = new LongIntMap();
+
+        resize(32);
+
+        this.casters = new ShadowCaster[this.workerCount];
+        this.tasks = new ArrayList<>(this.workerCount);
+
+        for (int i = 0; i < this.workerCount; i++) {
+            casters[i] = new ShadowCaster();
+            tasks.add(new CastTask(casters[i]));
+        }
+    }
+
+    /**
+     * Clears viewers from previous turn.
+     */
+
+    public void begin(TileFlags tileFlags) {
+        this.tileFlags = tileFlags;
+        this.viewerSlots.clear();
+        this.viewerCount = 0;
+    }
+
+    public void addViewer(long entity, int x, int y, int radius) {
+        if (viewerSlots.containsKey(entity)) return;
+
+        if (viewerCount == viewers.length) {
+            resize(viewerCount << 1);
+        }
+
+        int slot = viewerCount++;
+        viewers[slot] = entity;
+        originX[slot] = x;
+        originY[slot] = y;
+        radii[slot] = Math.max(0, Math.min(radius, MAX_RADIUS));
+        viewerSlots.put(entity, slot);
+    }
+
+    public int getViewerCount() {
+        return viewerCount;
+    }
+
+    /**
+     * Casts from every viewer added since begin().
+     */
+
+    public void compute() {
+        long start = System.nanoTime();
+
+        Arrays.fill(visible, 0, viewerCount * WORDS_PER_VIEWER, 0L);
+
+        if (workerCount == 1 || viewerCount < MIN_PARALLEL_BATCH) {
+            castRange(casters[0], 0, viewerCount);
+        }
+        else {
+            castInParallel();
+        }
+
+        lastCalculationNanos = System.nanoTime() - start;
+    }
+
+    /*
+    ---------------------------------------------
+     Queries
+    ---------------------------------------------
+    */
+
+    public boolean hasViewer(long entity) {
+        return viewerSlots.containsKey(entity);
+    }
+
+    /**
+     * Returns true if entity could see tile (x, y) when compute() was last called. Entities which
+     * weren't added as viewers can't see anything.
+     */
+
+    public boolean canSee(long entity, int x, int y) {
+        int slot = viewerSlots.get(entity);
+
+        if (slot == LongIntMap.NO_VALUE) return false;
+
+        int dx = x - originX[slot];
+        int dy = y - originY[slot];
+
+        if (Math.abs(dx) > MAX_RADIUS || Math.abs(dy) > MAX_RADIUS) return false;
+
+        int index = (dy + MAX_RADIUS) * WINDOW_SIZE + (dx + MAX_RADIUS);
+        return (visible[slot * WORDS_PER_VIEWER + (index >>> 6)] & (1L << index)) != 0;
+    }
+
+    /**
+     * Returns time spent in last call to compute() in milliseconds.
+     */
+
+    public float getLastCalculationTime() {
+        return lastCalculationNanos / 1000000f;
+    }
+
+    /**
+     * Stops worker threads. Service will cast on calling thread after this is called.
+     */
+
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+
+        workerCount = 1;
+    }
+
+    /*
+    ---------------------------------------------
+     Helper methods
+    ---------------------------------------------
+    */
+
+    private void castRange(ShadowCaster caster, int from, int to) {
+        for (int slot = from; slot < to; slot++) {
+            caster.cast(tileFlags, originX[slot], originY[slot], radii[slot],
+                    visible, slot * WORDS_PER_VIEWER, MAX_RADIUS);
+        }
+    }
+
+    private void castInParallel() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(workerCount, new WorkerThreadFactory());
+        }
+
+        // Each worker gets a contiguous range of slots, so they never write to the same words
+        for (int i = 0; i < workerCount; i++) {
+            CastTask task = tasks.get(i);
+            task.from = (viewerCount * i) / workerCount;
+            task.to = (viewerCount * (i + 1)) / workerCount;
+        }
+
+        try {
+            for (Future<Void> result : executor.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Log.w(LOG_TAG, "Interrupted while casting, falling back to single thread");
+            Arrays.fill(visible, 0, viewerCount * WORDS_PER_VIEWER, 0L);
+            castRange(casters[0], 0, viewerCount);
+        } catch (ExecutionException e) {
+            // Failed range would be left with stale or partial bits, so cast everything again
+            Log.e(LOG_TAG, "Error while casting, falling back to single thread", e.getCause());
+            Arrays.fill(visible, 0, viewerCount * WORDS_PER_VIEWER, 0L);
+            castRange(casters[0], 0, viewerCount);
+        }
+    }
+
+    private void resize(int capacity) {
+        if (viewers == null) {
+            viewers = new long[capacity];
+            originX = new int[capacity];
+            originY = new int[capacity];
+            radii = new int[capacity];
+            visible = new long[capacity * WORDS_PER_VIEWER];
+        }
+        else {
+            viewers = Arrays.copyOf(viewers, capacity);
+            originX = Arrays.copyOf(originX, capacity);
+            originY = Arrays.copyOf(originY, capacity);
+            radii = Arrays.copyOf(radii, capacity);
+            visible = Arrays.copyOf(visible, capacity * WORDS_PER_VIEWER);
+        }
+    }
+
+    private class CastTask implements Callable<Void> {
+        private final ShadowCaster caster;
+        int from;
+        int to;
+
+        CastTask(ShadowCaster caster) {
+            this.caster = caster;
+        }
+
+        @Override
+        public Void call() {
+            castRange(caster, from, to);
+            return null;
+        }
+    }
+
+    /**
+     * Creates daemon threads, so that idle workers don't keep the process alive.
+     */
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private int count = 0;
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "VisibilityWorker-" + (count++));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
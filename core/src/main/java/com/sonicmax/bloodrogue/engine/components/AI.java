@@ -17,11 +17,14 @@ public class AI extends Component {
     public static final int ENEMY = 1;
     public static final int NEUTRAL = 2;
 
+    public static final int DEFAULT_SIGHT_RADIUS = 8;
+
     public boolean computerControlled;
     public ArrayList<Vector2D> path;
     public boolean canInteract;
     public int dijkstra;
     public int playerInterest;
+    public int sightRadius;
     public int state;
     public int affinity;
 
@@ -30,5 +33,6 @@ public class AI extends Component {
         this.path = new ArrayList<>();
         this.computerControlled = true;
         this.dijkstra = 0;
+        this.sightRadius = DEFAULT_SIGHT_RADIUS;
     }
 }
@@ -1,9 +1,8 @@
 package com.sonicmax.bloodrogue.engine.environment;
 
 
-import android.util.Log;
-
 import com.sonicmax.bloodrogue.renderer.FrameCounter;
+import com.sonicmax.bloodrogue.utils.Log;
 import com.sonicmax.bloodrogue.utils.maths.RandomNumberGenerator;
 
 import java.util.ArrayList;
@@ -296,6 +295,19 @@ public class WeatherManager {
         puddleEntities.clear();
     }
 
+    /**
+     * Stops tracking entity that was removed from floor without going through weather (eg. when a
+     * streamed exterior chunk is unloaded).
+     */
+
+    public void forgetEntity(long entity) {
+        if (puddleState.remove(entity) != null) {
+            puddleEntities.remove(entity);
+        }
+
+        treeSnowState.remove(entity);
+    }
+
     public int getRainIntensity() {
         return rainIntensity;
     }
@@ -0,0 +1,362 @@
+package com.sonicmax.bloodrogue.engine.pathfinding;
+
+import com.sonicmax.bloodrogue.engine.collisions.TileFlags;
+
+import java.util.Arrays;
+
+/**
+ *  Dijkstra map (aka desire map) stored in a flat int array. Each tile holds the number of steps
+ *  to the nearest goal, plus the goal's starting value - AI can walk towards a goal by moving to
+ *  the adjacent tile with the lowest value. Tiles which can't be reached (or are further away
+ *  than maxValue) hold maxValue.
+ *
+ *  Maps are flooded breadth-first from all goals at once. Goals are merged into the frontier in
+ *  order of their starting value, which keeps the queue sorted without needing a priority queue.
+ *  Results are written to a back buffer and swapped in when complete.
+ *
+ *  update() only floods the map if goals or TileFlags have changed since the last flood. Maps which
+ *  are restricted to a visibility map are keyed on its version instead of TileFlags.
+ */
+
+public class DesireMap {
+    private static final int[] DX = {0, 1, 1, 1, 0, -1, -1, -1};
+    private static final int[] DY = {1, 1, 0, -1, -1, -1, 0, 1};
+
+    private TileFlags tileFlags;
+    private int width;
+    private int height;
+    private int maxValue;
+
+    private int[] front;
+    private int[] back;
+    private int[] queue;
+
+    // Sources are sorted by value before flooding
+    private int[] sourceNodes;
+    private int[] sourceValues;
+    private int sourceCount;
+    private int[] sortCounts;
+    private int[] sortedNodes;
+    private int[] sortedValues;
+
+    // Goals used to generate current map
+    private int[] goalNodes;
+    private int[] goalValues;
+    private int goalCount;
+    private int[] lastGoalNodes;
+    private int[] lastGoalValues;
+    private int lastGoalCount;
+    private int lastRevision;
+    private int lastVisibilityVersion;
+    private boolean computed;
+
+    private float[] visibility;
+    private int visibilityVersion;
+
+    public DesireMap(TileFlags tileFlags, int maxValue) {
+        this.tileFlags = tileFlags;
+        this.width = tileFlags.getWidth();
+        this.height = tileFlags.getHeight();
+        this.maxValue = maxValue;
+
+        int size = width * height;
+
+        this.front = new int[size];
+        this.back = new int[size];
+        // Tiles can be queued twice if a source overwrites a value set by the flood
+        this.queue = new int[size * 2];
+        this.sourceNodes = new int[size];
+        this.sourceValues = new int[size];
+        this.sortedNodes = new int[size];
+        this.sortedValues = new int[size];
+        this.sortCounts = new int[0];
+
+        this.goalNodes = new int[8];
+        this.goalValues = new int[8];
+        this.lastGoalNodes = new int[8];
+        this.lastGoalValues = new int[8];
+
+        reset();
+    }
+
+    public int getMaxValue() {
+        return maxValue;
+    }
+
+    /**
+     * Returns desire value for tile. Out of bounds tiles return maxValue.
+     */
+
+    public int get(int x, int y) {
+        if (!tileFlags.inBounds(x, y)) return maxValue;
+        return front[y * width + x];
+    }
+
+    /**
+     * Fills map with maxValue and forces next call to update() to flood the map.
+     */
+
+    public void reset() {
+        Arrays.fill(front, maxValue);
+        computed = false;
+    }
+
+    /**
+     * Restricts flood to tiles where visibility is non-zero (eg. field of vision of seeking actor).
+     * Array should be indexed by y * width + x. Pass null to flood whole map.
+     *
+     * @param version Should change whenever contents of visibility change
+     *                (eg. FieldOfVisionCalculator.getCalculationCount())
+     */
+
+    public void setVisibility(float[] visibility, int version) {
+        this.visibility = visibility;
+        this.visibilityVersion = version;
+    }
+
+    /*
+    ---------------------------------------------
+     Goals
+    ---------------------------------------------
+    */
+
+    public void clearGoals() {
+        goalCount = 0;
+    }
+
+    /**
+     * Adds goal to map. Lower values are more desirable - eg. a goal with value 0 will attract AI
+     * from further away than a goal with value 5.
+     */
+
+    public void addGoal(int x, int y, int value) {
+        if (!tileFlags.inBounds(x, y)) return;
+
+        if (goalCount == goalNodes.length) {
+            goalNodes = Arrays.copyOf(goalNodes, goalCount << 1);
+            goalValues = Arrays.copyOf(goalValues, goalCount << 1);
+        }
+
+        goalNodes[goalCount] = y * width + x;
+        goalValues[goalCount] = value;
+        goalCount++;
+    }
+
+    /**
+     * Floods map if goals or tile flags have changed since last flood.
+     *
+     * @return True if map was recalculated
+     */
+
+    public boolean update() {
+        if (computed && tilesUnchanged() && goalsUnchanged()) {
+            return false;
+        }
+
+        compute();
+        return true;
+    }
+
+    /**
+     * Floods map from current goals.
+     */
+
+    public void compute() {
+        sourceCount = 0;
+
+        for (int i = 0; i < goalCount; i++) {
+            addSource(goalNodes[i], goalValues[i]);
+        }
+
+        sortSources();
+        flood();
+        rememberGoals();
+    }
+
+    /**
+     * Generates flee map from another desire map. Values in source map are multiplied by a negative
+     * coefficient (so that tiles furthest from the goal become most desirable) and then rescanned,
+     * which makes AI prefer escape routes that lead away from danger rather than into corners.
+     * Coefficients around 1.2 work well.
+     *
+     * @param source Desire map to flee from
+     * @param coefficient Positive multiplier - higher values make AI braver about passing goals
+     */
+
+    public void computeFleeMap(DesireMap source, float coefficient) {
+        sourceCount = 0;
+
+        int size = width * height;
+        int sourceMax = source.maxValue;
+
+        for (int node = 0; node < size; node++) {
+            int value = source.front[node];
+
+            if (value < sourceMax) {
+                addSource(node, (int) (-coefficient * value));
+            }
+        }
+
+        sortSources();
+        flood();
+
+        // Flee maps depend on another map, so they are never considered up to date
+        computed = false;
+    }
+
+    /*
+    ---------------------------------------------
+     Flooding
+    ---------------------------------------------
+    */
+
+    private void addSource(int node, int value) {
+        sourceNodes[sourceCount] = node;
+        sourceValues[sourceCount] = value;
+        sourceCount++;
+    }
+
+    private void flood() {
+        int[] grid = back;
+        Arrays.fill(grid, maxValue);
+
+        int head = 0;
+        int tail = 0;
+        int nextSource = 0;
+
+        while (head < tail || nextSource < sourceCount) {
+            // Merge any sources which are at least as desirable as the head of the queue. This
+            // keeps queue sorted by value, so each tile only needs to be expanded once.
+            int headValue = (head < tail) ? grid[queue[head]] : sourceValues[nextSource];
+
+            while (nextSource < sourceCount && sourceValues[nextSource] <= headValue) {
+                int node = sourceNodes[nextSource];
+                int value = sourceValues[nextSource];
+                nextSource++;
+
+                if (value < grid[node]) {
+                    grid[node] = value;
+                    queue[tail++] = node;
+                }
+            }
+
+            if (head == tail) continue;
+
+            int node = queue[head++];
+            int next = grid[node] + 1;
+
+            if (next >= maxValue) continue;
+
+            int x = node % width;
+            int y = node / width;
+
+            for (int i = 0; i < 8; i++) {
+                int nx = x + DX[i];
+                int ny = y + DY[i];
+
+                if (tileFlags.blocksMovement(nx, ny)) continue;
+
+                int neighbour = ny * width + nx;
+
+                if (visibility != null && visibility[neighbour] == 0) continue;
+
+                if (next < grid[neighbour]) {
+                    grid[neighbour] = next;
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+
+        back = front;
+        front = grid;
+    }
+
+    /**
+     * Counting sort by source value. Goals usually only contain a handful of sources, but flee maps
+     * use every reachable tile as a source.
+     */
+
+    private void sortSources() {
+        if (sourceCount < 2) return;
+
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+
+        for (int i = 0; i < sourceCount; i++) {
+            min = Math.min(min, sourceValues[i]);
+            max = Math.max(max, sourceValues[i]);
+        }
+
+        int range = max - min + 1;
+
+        if (sortCounts.length < range + 1) {
+            sortCounts = new int[range + 1];
+        }
+
+        Arrays.fill(sortCounts, 0, range + 1, 0);
+
+        for (int i = 0; i < sourceCount; i++) {
+            sortCounts[sourceValues[i] - min + 1]++;
+        }
+
+        for (int i = 1; i <= range; i++) {
+            sortCounts[i] += sortCounts[i - 1];
+        }
+
+        for (int i = 0; i < sourceCount; i++) {
+            int index = sortCounts[sourceValues[i] - min]++;
+            sortedNodes[index] = sourceNodes[i];
+            sortedValues[index] = sourceValues[i];
+        }
+
+        int[] swap = sourceNodes;
+        sourceNodes = sortedNodes;
+        sortedNodes = swap;
+
+        swap = sourceValues;
+        sourceValues = sortedValues;
+        sortedValues = swap;
+    }
+
+    /*
+    ---------------------------------------------
+     Change tracking
+    ---------------------------------------------
+    */
+
+    private boolean tilesUnchanged() {
+        if (visibility != null) {
+            // Visibility is recalculated when sight is blocked or unblocked nearby. Movement flags
+            // change whenever an actor moves, so keying on TileFlags revision would flood every turn
+            return visibilityVersion == lastVisibilityVersion;
+        }
+
+        return lastRevision == tileFlags.getRevision();
+    }
+
+    private boolean goalsUnchanged() {
+        if (goalCount != lastGoalCount) return false;
+
+        for (int i = 0; i < goalCount; i++) {
+            if (goalNodes[i] != lastGoalNodes[i] || goalValues[i] != lastGoalValues[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void rememberGoals() {
+        if (lastGoalNodes.length < goalCount) {
+            lastGoalNodes = new int[goalNodes.length];
+            lastGoalValues = new int[goalValues.length];
+        }
+
+        System.arraycopy(goalNodes, 0, lastGoalNodes, 0, goalCount);
+        System.arraycopy(goalValues, 0, lastGoalValues, 0, goalCount);
+        lastGoalCount = goalCount;
+        lastRevision = tileFlags.getRevision();
+        lastVisibilityVersion = visibilityVersion;
+        computed = true;
+    }
+}
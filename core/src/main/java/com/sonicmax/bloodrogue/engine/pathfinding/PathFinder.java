@@ -0,0 +1,397 @@
+package com.sonicmax.bloodrogue.engine.pathfinding;
+
+import com.sonicmax.bloodrogue.engine.collisions.TileFlags;
+import com.sonicmax.bloodrogue.utils.collections.IntMinHeap;
+import com.sonicmax.bloodrogue.utils.maths.Vector2D;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ *  A* pathfinder which operates on TileFlags. Nodes are stored as int ids (y * width + x) and all
+ *  per-node data lives in flat arrays which are reused between searches - a search id is stamped
+ *  onto nodes instead of clearing the arrays, so search() doesn't allocate.
+ *
+ *  Uses octile distance as heuristic (straight moves cost 10, diagonal moves cost 14). Diagonal
+ *  moves are only allowed if both adjacent orthogonal tiles are free, so paths never cut corners.
+ *
+ *  Jump point search can be enabled for open maps (eg. exterior floors), where it expands far fewer
+ *  nodes than plain A*. Both modes return optimal paths with identical cost.
+ */
+
+public class PathFinder {
+    private final int STRAIGHT_COST = 10;
+    private final int DIAGONAL_COST = 14;
+
+    private static final int[] DX = {0, 1, 1, 1, 0, -1, -1, -1};
+    private static final int[] DY = {1, 1, 0, -1, -1, -1, 0, 1};
+
+    private TileFlags tileFlags;
+    private int width;
+    private int height;
+
+    private int[] gScore;
+    private int[] parent;
+    private int[] openStamp;
+    private int[] closedStamp;
+    private int searchId;
+    private IntMinHeap open;
+
+    private int[] chain;
+    private int[] path;
+    private int pathLength;
+
+    private int goalX;
+    private int goalY;
+
+    private boolean jumpPointSearch;
+    private int nodesExpanded;
+
+    public PathFinder(TileFlags tileFlags) {
+        this.tileFlags = tileFlags;
+        this.width = tileFlags.getWidth();
+        this.height = tileFlags.getHeight();
+
+        int size = width * height;
+
+        this.gScore = new int[size];
+        this.parent = new int[size];
+        this.openStamp = new int[size];
+        this.closedStamp = new int[size];
+        this.chain = new int[size];
+        this.path = new int[size];
+        this.open = new IntMinHeap(1024);
+
+        this.searchId = 0;
+        this.jumpPointSearch = false;
+    }
+
+    public void setJumpPointSearch(boolean enabled) {
+        this.jumpPointSearch = enabled;
+    }
+
+    public boolean isJumpPointSearch() {
+        return jumpPointSearch;
+    }
+
+    /**
+     * Returns number of nodes taken from open list during last search (for profiling).
+     */
+
+    public int getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    public int getPathX(int index) {
+        return path[index] % width;
+    }
+
+    public int getPathY(int index) {
+        return path[index] / width;
+    }
+
+    /**
+     * Convenience method for callers that store paths as vectors. Returned path excludes both
+     * start and goal positions, and is empty if goal can't be reached.
+     *
+     * @param start Start position
+     * @param goal Goal position
+     * @return ArrayList of steps between start and goal
+     */
+
+    public ArrayList<Vector2D> findPath(Vector2D start, Vector2D goal) {
+        ArrayList<Vector2D> steps = new ArrayList<>();
+
+        if (search(start.x(), start.y(), goal.x(), goal.y())) {
+            // Last step in path is goal
+            for (int i = 0; i < pathLength - 1; i++) {
+                steps.add(new Vector2D(getPathX(i), getPathY(i)));
+            }
+        }
+
+        return steps;
+    }
+
+    /**
+     * Finds shortest path between start and goal. Goal tile is always treated as walkable (as it will
+     * usually be occupied by the actor we're seeking). Results can be read using getPathLength(),
+     * getPathX() and getPathY() - path includes goal but not start.
+     *
+     * @return True if path was found
+     */
+
+    public boolean search(int startX, int startY, int goalX, int goalY) {
+        pathLength = 0;
+        nodesExpanded = 0;
+
+        if (!tileFlags.inBounds(startX, startY) || !tileFlags.inBounds(goalX, goalY)) {
+            return false;
+        }
+
+        if (startX == goalX && startY == goalY) {
+            return true;
+        }
+
+        this.goalX = goalX;
+        this.goalY = goalY;
+
+        nextSearchId();
+        open.clear();
+
+        int start = startY * width + startX;
+        int goal = goalY * width + goalX;
+
+        gScore[start] = 0;
+        parent[start] = -1;
+        openStamp[start] = searchId;
+        open.push(start, heuristic(startX, startY));
+
+        while (!open.isEmpty()) {
+            int node = open.pop();
+
+            // Skip stale entries left behind when a node was pushed again with lower cost
+            if (closedStamp[node] == searchId) continue;
+
+            closedStamp[node] = searchId;
+            nodesExpanded++;
+
+            if (node == goal) {
+                buildPath(start, goal);
+                return true;
+            }
+
+            if (jumpPointSearch) {
+                expandJumpPoints(node);
+            }
+            else {
+                expandNeighbours(node);
+            }
+        }
+
+        return false;
+    }
+
+    private void nextSearchId() {
+        if (searchId == Integer.MAX_VALUE) {
+            Arrays.fill(openStamp, 0);
+            Arrays.fill(closedStamp, 0);
+            searchId = 0;
+        }
+
+        searchId++;
+    }
+
+    /*
+    ---------------------------------------------
+     A*
+    ---------------------------------------------
+    */
+
+    private void expandNeighbours(int node) {
+        int x = node % width;
+        int y = node / width;
+
+        for (int i = 0; i < 8; i++) {
+            int dx = DX[i];
+            int dy = DY[i];
+
+            if (canStep(x, y, dx, dy)) {
+                int cost = (dx != 0 && dy != 0) ? DIAGONAL_COST : STRAIGHT_COST;
+                relax(node, (y + dy) * width + (x + dx), cost);
+            }
+        }
+    }
+
+    private void relax(int node, int next, int cost) {
+        if (closedStamp[next] == searchId) return;
+
+        int g = gScore[node] + cost;
+
+        if (openStamp[next] != searchId || g < gScore[next]) {
+            gScore[next] = g;
+            parent[next] = node;
+            openStamp[next] = searchId;
+            open.push(next, g + heuristic(next % width, next / width));
+        }
+    }
+
+    /*
+    ---------------------------------------------
+     Jump point search
+    ---------------------------------------------
+    */
+
+    private void expandJumpPoints(int node) {
+        int x = node % width;
+        int y = node / width;
+        int parentNode = parent[node];
+
+        if (parentNode == -1) {
+            for (int i = 0; i < 8; i++) {
+                if (canStep(x, y, DX[i], DY[i])) {
+                    jumpFrom(node, x, y, DX[i], DY[i]);
+                }
+            }
+
+            return;
+        }
+
+        int dx = Integer.signum(x - parentNode % width);
+        int dy = Integer.signum(y - parentNode / width);
+
+        // Prune neighbours which can be reached more cheaply without passing through this node
+        if (dx != 0 && dy != 0) {
+            boolean vertical = walkable(x, y + dy);
+            boolean horizontal = walkable(x + dx, y);
+
+            if (vertical) jumpFrom(node, x, y, 0, dy);
+            if (horizontal) jumpFrom(node, x, y, dx, 0);
+            if (vertical && horizontal) jumpFrom(node, x, y, dx, dy);
+        }
+
+        else if (dx != 0) {
+            boolean next = walkable(x + dx, y);
+            boolean up = walkable(x, y + 1);
+            boolean down = walkable(x, y - 1);
+
+            if (next) {
+                jumpFrom(node, x, y, dx, 0);
+                if (up) jumpFrom(node, x, y, dx, 1);
+                if (down) jumpFrom(node, x, y, dx, -1);
+            }
+
+            if (up) jumpFrom(node, x, y, 0, 1);
+            if (down) jumpFrom(node, x, y, 0, -1);
+        }
+
+        else {
+            boolean next = walkable(x, y + dy);
+            boolean right = walkable(x + 1, y);
+            boolean left = walkable(x - 1, y);
+
+            if (next) {
+                jumpFrom(node, x, y, 0, dy);
+                if (right) jumpFrom(node, x, y, 1, dy);
+                if (left) jumpFrom(node, x, y, -1, dy);
+            }
+
+            if (right) jumpFrom(node, x, y, 1, 0);
+            if (left) jumpFrom(node, x, y, -1, 0);
+        }
+    }
+
+    private void jumpFrom(int node, int x, int y, int dx, int dy) {
+        int jumpPoint = jump(x + dx, y + dy, dx, dy);
+
+        if (jumpPoint != -1) {
+            int jx = jumpPoint % width;
+            int jy = jumpPoint / width;
+            relax(node, jumpPoint, octile(Math.abs(jx - x), Math.abs(jy - y)));
+        }
+    }
+
+    /**
+     * Moves from (x, y) in direction (dx, dy) until we find a tile with a forced neighbour, the goal,
+     * or an obstacle. Diagonal moves check both straight directions at each step.
+     *
+     * @return Node id of jump point, or -1 if there isn't one
+     */
+
+    private int jump(int x, int y, int dx, int dy) {
+        while (true) {
+            if (!walkable(x, y)) return -1;
+
+            if (x == goalX && y == goalY) return y * width + x;
+
+            if (dx != 0 && dy != 0) {
+                if (jump(x + dx, y, dx, 0) != -1 || jump(x, y + dy, 0, dy) != -1) {
+                    return y * width + x;
+                }
+            }
+
+            else if (dx != 0) {
+                if ((walkable(x, y - 1) && !walkable(x - dx, y - 1))
+                        || (walkable(x, y + 1) && !walkable(x - dx, y + 1))) {
+                    return y * width + x;
+                }
+            }
+
+            else {
+                if ((walkable(x - 1, y) && !walkable(x - 1, y - dy))
+                        || (walkable(x + 1, y) && !walkable(x + 1, y - dy))) {
+                    return y * width + x;
+                }
+            }
+
+            if (!canStep(x, y, dx, dy)) return -1;
+
+            x += dx;
+            y += dy;
+        }
+    }
+
+    /*
+    ---------------------------------------------
+     Helper methods
+    ---------------------------------------------
+    */
+
+    private boolean walkable(int x, int y) {
+        return (x == goalX && y == goalY) || !tileFlags.blocksMovement(x, y);
+    }
+
+    private boolean canStep(int x, int y, int dx, int dy) {
+        if (!walkable(x + dx, y + dy)) return false;
+
+        // Don't allow diagonal moves to squeeze between two blocked tiles
+        if (dx != 0 && dy != 0) {
+            return walkable(x + dx, y) && walkable(x, y + dy);
+        }
+
+        return true;
+    }
+
+    private int heuristic(int x, int y) {
+        return octile(Math.abs(x - goalX), Math.abs(y - goalY));
+    }
+
+    private int octile(int dx, int dy) {
+        return STRAIGHT_COST * (dx + dy) + (DIAGONAL_COST - 2 * STRAIGHT_COST) * Math.min(dx, dy);
+    }
+
+    /**
+     * Follows parent nodes back from goal and writes each individual step to path array. Jump points
+     * are always in a straight or diagonal line from their parent, so we can fill in the gaps by
+     * stepping towards them.
+     */
+
+    private void buildPath(int start, int goal) {
+        int chainLength = 0;
+        int node = goal;
+
+        while (node != start) {
+            chain[chainLength++] = node;
+            node = parent[node];
+        }
+
+        int x = start % width;
+        int y = start / width;
+
+        for (int i = chainLength - 1; i >= 0; i--) {
+            int targetX = chain[i] % width;
+            int targetY = chain[i] / width;
+            int dx = Integer.signum(targetX - x);
+            int dy = Integer.signum(targetY - y);
+
+            while (x != targetX || y != targetY) {
+                x += dx;
+                y += dy;
+                path[pathLength++] = y * width + x;
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.sonicmax.bloodrogue.engine.systems;
+
+import com.sonicmax.bloodrogue.engine.ComponentManager;
+import com.sonicmax.bloodrogue.engine.ComponentTypes;
+import com.sonicmax.bloodrogue.engine.components.Dexterity;
+import com.sonicmax.bloodrogue.engine.components.Energy;
+
+/**
+ *  Works out how often entities get to act, based on their Energy and Dexterity components.
+ *  Time is measured in ticks - a standard action (eg. player moving one tile) costs ACTION_COST.
+ */
+
+public class EnergySystem {
+    public static final int ACTION_COST = 100;
+
+    private static final int BASE_SPEED = 100;
+    private static final int MIN_SPEED = 25;
+    private static final int MAX_SPEED = 400;
+
+    private static final int AGILITY_SPEED = 10;
+    private static final int SKILL_SPEED = 5;
+
+    /**
+     *  Returns number of ticks until entity can act again. Entities without Energy or Dexterity
+     *  components act once per standard action.
+     */
+
+    public static int getActionDelay(ComponentManager componentManager, long entity) {
+        Energy energy = (Energy) componentManager.getEntityComponent(entity, ComponentTypes.ENERGY);
+        Dexterity dex = (Dexterity) componentManager.getEntityComponent(entity, ComponentTypes.DEXTERITY);
+
+        int speed = BASE_SPEED;
+
+        if (energy != null) {
+            // Hungry entities slow down
+            speed += energy.agility * AGILITY_SPEED - energy.hunger;
+        }
+
+        if (dex != null) {
+            speed += dex.skill * SKILL_SPEED;
+        }
+
+        speed = Math.max(MIN_SPEED, Math.min(MAX_SPEED, speed));
+
+        return ACTION_COST * BASE_SPEED / speed;
+    }
+}
@@ -1,7 +1,5 @@
 package com.sonicmax.bloodrogue.engine.systems;
 
-import android.util.Log;
-
 import com.sonicmax.bloodrogue.engine.ComponentManager;
 import com.sonicmax.bloodrogue.engine.components.Collectable;
 import com.sonicmax.bloodrogue.engine.components.Damage;
@@ -9,6 +7,7 @@ import com.sonicmax.bloodrogue.engine.components.Knowledge;
 import com.sonicmax.bloodrogue.engine.components.Name;
 import com.sonicmax.bloodrogue.engine.components.Usable;
 import com.sonicmax.bloodrogue.engine.components.Vitality;
+import com.sonicmax.bloodrogue.utils.Log;
 import com.sonicmax.bloodrogue.utils.maths.RandomNumberGenerator;
 
 import org.json.JSONException;
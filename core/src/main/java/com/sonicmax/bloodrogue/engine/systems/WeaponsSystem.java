@@ -1,12 +1,11 @@
 package com.sonicmax.bloodrogue.engine.systems;
 
-import android.util.Log;
-
 import com.sonicmax.bloodrogue.engine.ComponentManager;
 import com.sonicmax.bloodrogue.engine.components.Dexterity;
 import com.sonicmax.bloodrogue.engine.components.Sprite;
 import com.sonicmax.bloodrogue.engine.components.Wieldable;
 import com.sonicmax.bloodrogue.tilesets.WeaponTileset;
+import com.sonicmax.bloodrogue.utils.Log;
 
 /**
  *  Provides some helper methods for dealing with weapon entities.
@@ -0,0 +1,307 @@
+package com.sonicmax.bloodrogue.generator;
+
+import com.sonicmax.bloodrogue.generator.tools.BitGrid;
+import com.sonicmax.bloodrogue.generator.tools.CellularAutomata;
+import com.sonicmax.bloodrogue.generator.tools.PoissonDiskSampler;
+import com.sonicmax.bloodrogue.tilesets.ExteriorTileset;
+import com.sonicmax.bloodrogue.utils.Log;
+import com.sonicmax.bloodrogue.utils.maths.CounterRandom;
+import com.sonicmax.bloodrogue.utils.maths.RandomNumberGenerator;
+import com.sonicmax.bloodrogue.utils.maths.Vector2D;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ *  Plans local detail for exterior floors (grass, scattered trees, forests, flowers and goat herds)
+ *  one chunk at a time. Each chunk gets its own seed, derived from floor seed and chunk position,
+ *  and planning only reads the map size - so chunks can be planned in any order, on any number of
+ *  threads, and every plan will be the same.
+ *
+ *  Plans are plain data. ProceduralGenerator applies them afterwards on its own thread, in chunk
+ *  order, which is where entities are created and where features that cross chunk borders are
+ *  resolved (eg. trees from neighbouring chunks which are too close together).
+ *
+ *  Forests, flowers and herds are grown with cellular automata, which are seeded by floor seed and
+ *  world position instead of chunk seed. Each chunk runs them over itself plus a margin on each
+ *  side, and keeps only the cells inside the chunk. Neighbouring chunks start with identical cells
+ *  where their margins overlap, and the margin is wider than the number of smoothing steps, so each
+ *  chunk ends up with exactly the cells a single run over the whole map would give. Regions that
+ *  cross chunk borders join up without any merging.
+ *
+ *  Planners created with createUnbounded() don't clip the margin to a map, for streamed exteriors
+ *  where chunks can be anywhere (including negative coordinates).
+ */
+
+public class ExteriorChunkPlanner {
+    private static final String LOG_TAG = "ExteriorChunkPlanner";
+
+    public static final int CHUNK_SIZE = 32;
+    public static final int TREE_MIN_DISTANCE = 3;
+
+    // Must be more than number of smoothing steps, so that automata border can't reach chunk
+    private static final int AUTOMATA_MARGIN = 8;
+
+    // Automata layers, used to derive a separate world key for each
+    private static final int LAYER_FOREST = 1;
+    private static final int LAYER_FLOWERS = 2;
+    private static final int LAYER_GOATS = 3;
+
+    // Same proportion of trees to available space as whole map version used
+    private static final double TREE_FILTER = 0.7;
+
+    private static ExecutorService executor;
+
+    private final int mapWidth;
+    private final int mapHeight;
+    private final int theme;
+    private final boolean bounded;
+
+    public ExteriorChunkPlanner(int mapWidth, int mapHeight, int theme) {
+        this.mapWidth = mapWidth;
+        this.mapHeight = mapHeight;
+        this.theme = theme;
+        this.bounded = true;
+    }
+
+    private ExteriorChunkPlanner(int theme) {
+        this.mapWidth = 0;
+        this.mapHeight = 0;
+        this.theme = theme;
+        this.bounded = false;
+    }
+
+    public static ExteriorChunkPlanner createUnbounded(int theme) {
+        return new ExteriorChunkPlanner(theme);
+    }
+
+    /**
+     * Detail for a single chunk. Masks use world coordinates and cover the chunk. Texture lists
+     * have one entry for each set tile in their mask, in row order.
+     */
+
+    public static class Plan {
+        public final Chunk chunk;
+        public final String[][] grass;
+        public final ArrayList<Vector2D> trees = new ArrayList<>();
+        public final ArrayList<String> treeTextures = new ArrayList<>();
+        public BitGrid forest;
+        public final ArrayList<String> forestTextures = new ArrayList<>();
+        public BitGrid flowers;
+        public final ArrayList<String> flowerTextures = new ArrayList<>();
+        public BitGrid goats;
+
+        Plan(Chunk chunk) {
+            this.chunk = chunk;
+            this.grass = new String[chunk.width][chunk.height];
+        }
+    }
+
+    /**
+     * Splits area into chunks of CHUNK_SIZE (chunks on right and top edges may be smaller), in row
+     * order. Plans are applied in this order.
+     */
+
+    public static ArrayList<Chunk> split(Chunk area) {
+        ArrayList<Chunk> chunks = new ArrayList<>();
+
+        for (int y = area.y; y < area.y + area.height; y += CHUNK_SIZE) {
+            for (int x = area.x; x < area.x + area.width; x += CHUNK_SIZE) {
+                int width = Math.min(CHUNK_SIZE, area.x + area.width - x);
+                int height = Math.min(CHUNK_SIZE, area.y + area.height - y);
+                chunks.add(new Chunk(x, y, width, height));
+            }
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Returns seed for chunk. Depends only on floor seed and chunk position.
+     */
+
+    public static long getChunkSeed(long floorSeed, int chunkX, int chunkY) {
+        long position = ((long) chunkX << 32) ^ (chunkY & 0xFFFFFFFFL);
+        return CounterRandom.mix(floorSeed ^ CounterRandom.mix(position));
+    }
+
+    /**
+     * Plans every chunk. Plans are returned in same order as chunks.
+     *
+     * @param workerCount Number of chunks to plan at once. If 1, chunks are planned on calling thread
+     */
+
+    public ArrayList<Plan> planAll(final ArrayList<Chunk> chunks, final long floorSeed, int workerCount) {
+        final Plan[] plans = new Plan[chunks.size()];
+        int tasks = Math.max(1, Math.min(workerCount, chunks.size()));
+
+        if (tasks == 1) {
+            planRange(chunks, floorSeed, plans, 0, chunks.size());
+        }
+        else {
+            ArrayList<Callable<Void>> ranges = new ArrayList<>(tasks);
+
+            // Each task plans a contiguous range of chunks and only writes to its own slots
+            for (int i = 0; i < tasks; i++) {
+                final int from = (chunks.size() * i) / tasks;
+                final int to = (chunks.size() * (i + 1)) / tasks;
+
+                ranges.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        planRange(chunks, floorSeed, plans, from, to);
+                        return null;
+                    }
+                });
+            }
+
+            try {
+                for (Future<Void> result : getExecutor().invokeAll(ranges)) {
+                    result.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                Log.w(LOG_TAG, "Interrupted while planning chunks, falling back to single thread");
+                planRange(chunks, floorSeed, plans, 0, chunks.size());
+            } catch (ExecutionException e) {
+                throw new Error("Error while planning chunks", e.getCause());
+            }
+        }
+
+        ArrayList<Plan> result = new ArrayList<>(plans.length);
+
+        for (Plan plan : plans) {
+            result.add(plan);
+        }
+
+        return result;
+    }
+
+    private void planRange(ArrayList<Chunk> chunks, long floorSeed, Plan[] plans, int from, int to) {
+        for (int i = from; i < to; i++) {
+            Chunk chunk = chunks.get(i);
+            plans[i] = plan(chunk, floorSeed);
+        }
+    }
+
+    /**
+     * Plans detail for a single chunk. Same chunk and floor seed always give the same plan.
+     */
+
+    public Plan plan(Chunk chunk, long floorSeed) {
+        RandomNumberGenerator rng = new RandomNumberGenerator(getChunkSeed(floorSeed, chunk.x, chunk.y));
+        Tiler tiler = new Tiler(ExteriorTileset.KEY, rng);
+        Plan plan = new Plan(chunk);
+
+        for (int x = 0; x < chunk.width; x++) {
+            for (int y = 0; y < chunk.height; y++) {
+                plan.grass[x][y] = tiler.getFloorTile(theme);
+            }
+        }
+
+        planTrees(plan, rng);
+
+        CellularAutomata automata = new CellularAutomata(rng);
+        automata.setParams(4, 3, 2, 0.3f);
+
+        plan.forest = runAutomata(automata, chunk, getLayerKey(floorSeed, LAYER_FOREST));
+        addTextures(plan.forest, plan.forestTextures, ExteriorTileset.TREES, rng);
+
+        plan.flowers = runAutomata(automata, chunk, getLayerKey(floorSeed, LAYER_FLOWERS));
+        addTextures(plan.flowers, plan.flowerTextures, ExteriorTileset.DECALS, rng);
+
+        plan.goats = runAutomata(automata, chunk, getLayerKey(floorSeed, LAYER_GOATS));
+
+        return plan;
+    }
+
+    private void planTrees(Plan plan, RandomNumberGenerator rng) {
+        Chunk chunk = plan.chunk;
+        PoissonDiskSampler sampler = new PoissonDiskSampler(rng);
+
+        // Roughly guess how many trees will fit, and reduce this amount by a percentage
+        // (as we are also placing forest regions)
+        int treeCount = (int) ((chunk.width / TREE_MIN_DISTANCE) * (chunk.height / TREE_MIN_DISTANCE) * TREE_FILTER);
+
+        for (Vector2D cell : sampler.generateNoise(chunk.width, chunk.height, TREE_MIN_DISTANCE, treeCount)) {
+            // Sampler can return points on far edge, which belong to next chunk
+            if (cell.x >= chunk.width || cell.y >= chunk.height) continue;
+
+            plan.trees.add(new Vector2D(chunk.x + cell.x, chunk.y + cell.y));
+            plan.treeTextures.add(ExteriorTileset.TREES[rng.getRandomInt(0, ExteriorTileset.TREES.length - 1)]);
+        }
+    }
+
+    /**
+     * Runs automata over chunk plus margin (clipped to map if bounded) and returns cells inside chunk.
+     */
+
+    private BitGrid runAutomata(CellularAutomata automata, Chunk chunk, long worldKey) {
+        int left = chunk.x - AUTOMATA_MARGIN;
+        int bottom = chunk.y - AUTOMATA_MARGIN;
+        int right = chunk.x + chunk.width + AUTOMATA_MARGIN;
+        int top = chunk.y + chunk.height + AUTOMATA_MARGIN;
+
+        if (bounded) {
+            left = Math.max(0, left);
+            bottom = Math.max(0, bottom);
+            right = Math.min(mapWidth, right);
+            top = Math.min(mapHeight, top);
+        }
+
+        boolean[][] cells = automata.generate(new Chunk(left, bottom, right - left, top - bottom), worldKey);
+        BitGrid mask = new BitGrid(chunk.x, chunk.y, chunk.width, chunk.height);
+
+        for (int x = chunk.x; x < chunk.x + chunk.width; x++) {
+            for (int y = chunk.y; y < chunk.y + chunk.height; y++) {
+                if (cells[x - left][y - bottom]) {
+                    mask.set(x, y);
+                }
+            }
+        }
+
+        return mask;
+    }
+
+    private static long getLayerKey(long floorSeed, int layer) {
+        return CounterRandom.mix(floorSeed ^ CounterRandom.mix(layer));
+    }
+
+    private void addTextures(BitGrid mask, ArrayList<String> textures, String[] choices, RandomNumberGenerator rng) {
+        int count = mask.count();
+
+        for (int i = 0; i < count; i++) {
+            textures.add(choices[rng.getRandomInt(0, choices.length - 1)]);
+        }
+    }
+
+    /**
+     * Pool is shared by every planner (a new generator is created for each floor). Threads are
+     * daemons, so that idle workers don't keep the process alive.
+     */
+
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+            executor = Executors.newFixedThreadPool(threads, new WorkerThreadFactory());
+        }
+
+        return executor;
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private int count = 0;
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "ChunkPlanner-" + (count++));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
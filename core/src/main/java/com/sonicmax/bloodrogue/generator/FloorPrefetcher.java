@@ -0,0 +1,202 @@
+package com.sonicmax.bloodrogue.generator;
+
+import com.sonicmax.bloodrogue.data.AssetSource;
+import com.sonicmax.bloodrogue.utils.Log;
+
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ *  Generates the next floor on a background thread while the player explores the current one.
+ *  Each ProceduralGenerator stores its entities in its own staging World, so a finished generator
+ *  can be imported into the live world as soon as the player descends.
+ *
+ *  Only one floor is prefetched at a time. Prefetching a different floor (or cancelling) discards
+ *  the previous result, and retires the entity ids it used.
+ */
+
+public class FloorPrefetcher {
+    private static final String LOG_TAG = "FloorPrefetcher";
+
+    private final int width;
+    private final int height;
+    private final AssetSource assetSource;
+    private final HashMap<String, Integer> spriteIndexes;
+    private final ExecutorService worker;
+
+    // Seed passed to generators. Unset unless setSeed() is called
+    private volatile long seed;
+    private volatile boolean seeded;
+
+    private Future<?> pending;
+    private int pendingFloor;
+    private int pendingType;
+
+    // Result of pending task. Tasks only store their result if nothing was requested in the meantime
+    private ProceduralGenerator completed;
+    private int request;
+
+    // Metrics
+    private volatile long lastGenerationTime;
+
+    public FloorPrefetcher(int width, int height, AssetSource assetSource, HashMap<String, Integer> spriteIndexes) {
+        this.width = width;
+        this.height = height;
+        this.assetSource = assetSource;
+        this.spriteIndexes = spriteIndexes;
+        this.worker = Executors.newSingleThreadExecutor(new PrefetchThreadFactory());
+        this.pendingFloor = -1;
+    }
+
+    /**
+     * Sets seed for floors generated from now on (see ProceduralGenerator.setSeed()).
+     */
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+        this.seeded = true;
+    }
+
+    /**
+     * Starts generating floor in the background. Does nothing if floor is already being prefetched.
+     *
+     * @param floorIndex Index of floor to generate
+     * @param type ProceduralGenerator.MANSION, ProceduralGenerator.RUINS, etc
+     */
+
+    public synchronized void prefetch(final int floorIndex, final int type) {
+        if (pending != null && pendingFloor == floorIndex && pendingType == type) return;
+
+        cancel();
+
+        final int taskRequest = ++request;
+
+        pendingFloor = floorIndex;
+        pendingType = type;
+        pending = worker.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                long start = System.currentTimeMillis();
+
+                ProceduralGenerator generator = new ProceduralGenerator(width, height, assetSource);
+                generator.setFloor(floorIndex);
+                generator.setSpriteIndexes(spriteIndexes);
+
+                if (seeded) {
+                    generator.setSeed(seed);
+                }
+
+                generator.generate(type);
+
+                lastGenerationTime = System.currentTimeMillis() - start;
+
+                complete(taskRequest, generator);
+                return null;
+            }
+        });
+    }
+
+    private synchronized void complete(int taskRequest, ProceduralGenerator generator) {
+        if (taskRequest == request) {
+            completed = generator;
+        }
+        else {
+            // Cancelled while generating
+            generator.getWorld().discard();
+        }
+    }
+
+    /**
+     * Returns generator for floor if it was prefetched, waiting for it to finish if necessary.
+     * Returns null if floor wasn't prefetched or generation failed - caller should generate the
+     * floor itself.
+     */
+
+    public ProceduralGenerator take(int floorIndex, int type) {
+        Future<?> result;
+
+        synchronized (this) {
+            if (pending == null || pendingFloor != floorIndex || pendingType != type) return null;
+            result = pending;
+        }
+
+        // Task takes lock to store its result, so we have to wait without holding it
+        try {
+            result.get();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Log.w(LOG_TAG, "Interrupted while waiting for floor " + floorIndex);
+            return null;
+
+        } catch (ExecutionException e) {
+            Log.e(LOG_TAG, "Error while prefetching floor " + floorIndex, e.getCause());
+            return null;
+        }
+
+        synchronized (this) {
+            // Cancelled while we were waiting
+            if (pending != result) return null;
+
+            ProceduralGenerator generator = completed;
+            completed = null;
+            pending = null;
+            pendingFloor = -1;
+
+            return generator;
+        }
+    }
+
+    /**
+     * Discards prefetched floor. If generation has already started, it runs to completion but the
+     * result is thrown away.
+     */
+
+    public synchronized void cancel() {
+        request++;
+
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+            pendingFloor = -1;
+        }
+
+        if (completed != null) {
+            completed.getWorld().discard();
+            completed = null;
+        }
+    }
+
+    public void shutdown() {
+        cancel();
+        worker.shutdown();
+    }
+
+    /**
+     * Returns time taken to generate last prefetched floor in milliseconds.
+     */
+
+    public long getLastGenerationTime() {
+        return lastGenerationTime;
+    }
+
+    /**
+     * Creates a low priority daemon thread, so that generation doesn't hold up the game and render
+     * threads or keep the process alive.
+     */
+
+    private static class PrefetchThreadFactory implements ThreadFactory {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "FloorPrefetcher");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    }
+}
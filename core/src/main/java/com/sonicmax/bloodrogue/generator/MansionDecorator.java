@@ -1,8 +1,6 @@
 package com.sonicmax.bloodrogue.generator;
 
-import android.content.res.AssetManager;
-import android.util.Log;
-
+import com.sonicmax.bloodrogue.data.AssetSource;
 import com.sonicmax.bloodrogue.data.BlueprintParser;
 import com.sonicmax.bloodrogue.engine.ComponentManager;
 import com.sonicmax.bloodrogue.engine.collisions.AxisAlignedBoxTester;
@@ -17,6 +15,8 @@ import com.sonicmax.bloodrogue.generator.tools.GridGeometryHelper;
 import com.sonicmax.bloodrogue.tilesets.BuildingTileset;
 import com.sonicmax.bloodrogue.tilesets.GenericTileset;
 import com.sonicmax.bloodrogue.tilesets.TileCategorySorter;
+import com.sonicmax.bloodrogue.utils.Log;
+import com.sonicmax.bloodrogue.utils.collections.TileOccupancy;
 import com.sonicmax.bloodrogue.utils.maths.GeometryHelper;
 import com.sonicmax.bloodrogue.data.JSONLoader;
 import com.sonicmax.bloodrogue.utils.maths.Vector2D;
@@ -49,31 +49,34 @@ public class MansionDecorator {
     private String themeKey;
 
     private String[][] terrainTiles;
-    private ArrayList<Long>[][] objectEntities;
+    private TileOccupancy objectEntities;
 
     private JSONObject furnitureBlueprints;
     private JSONObject weaponBlueprints;
     private JSONObject potionBlueprints;
 
     private RandomNumberGenerator rng;
-    private AssetManager assetManager;
+    private AssetSource assetSource;
     private ComponentManager componentManager;
 
-    public MansionDecorator(int mapWidth, int mapHeight, int theme, String key, AssetManager assetManager) {
+    public MansionDecorator(int mapWidth, int mapHeight, int theme, String key,
+                            ComponentManager componentManager, AssetSource assetSource,
+                            RandomNumberGenerator rng) {
+
         this.mapWidth = mapWidth;
         this.mapHeight = mapHeight;
         this.theme = theme;
         this.themeKey = key;
-        this.assetManager = assetManager;
-        this.furnitureBlueprints = JSONLoader.loadFurniture(assetManager);
-        this.weaponBlueprints = JSONLoader.loadWeapons(assetManager);
-        this.potionBlueprints = PotionSystem.generateRandomPotionEffects(JSONLoader.loadPotions(assetManager));
-        this.componentManager = ComponentManager.getInstance();
+        this.assetSource = assetSource;
+        this.furnitureBlueprints = JSONLoader.loadFurniture(assetSource);
+        this.weaponBlueprints = JSONLoader.loadWeapons(assetSource);
+        this.potionBlueprints = PotionSystem.generateRandomPotionEffects(JSONLoader.loadPotions(assetSource));
+        this.componentManager = componentManager;
 
-        this.rng = new RandomNumberGenerator();
+        this.rng = rng;
     }
 
-    public void setGeneratorData(String[][] terrainEntities, ArrayList<Long>[][] objectEntities) {
+    public void setGeneratorData(String[][] terrainEntities, TileOccupancy objectEntities) {
         this.terrainTiles = terrainEntities;
         this.objectEntities = objectEntities;
     }
@@ -190,13 +193,13 @@ public class MansionDecorator {
                 int random = rng.getRandomInt(0, paintings.size() - 1);
                 Component[] painting = DecalFactory.createDecal(x, cell.y, paintings.remove(random));
 
-                objectEntities[x][cell.y].add(painting[0].id);
+                objectEntities.add(x, cell.y, painting[0].id);
                 componentManager.sortComponentArray(painting);
 
                 Component[] pedestal = DecalFactory.createDecal(x, cell.y - 1, BuildingTileset.PEDESTAL);
 
                 if (!blocksDoorway(new Vector2D(x, cell.y - 1))) {
-                    objectEntities[x][cell.y - 1].add(pedestal[0].id);
+                    objectEntities.add(x, cell.y - 1, pedestal[0].id);
                     componentManager.sortComponentArray(pedestal);
                 }
             }
@@ -211,7 +214,7 @@ public class MansionDecorator {
                 String tile = BuildingTileset.STATUES[rng.getRandomInt(0, BuildingTileset.STATUES.length - 1)];
 
                 Component[] decal = DecalFactory.createDecal(corner.x, corner.y, tile);
-                objectEntities[corner.x][corner.y].add(decal[0].id);
+                objectEntities.add(corner.x, corner.y, decal[0].id);
                 componentManager.sortComponentArray(decal);
 
                 statueCount++;
@@ -243,7 +246,7 @@ public class MansionDecorator {
                 if (blocksDoorway(corner)) continue;
 
                 Component[] desk = DecalFactory.createDecal(corner.x, corner.y, BuildingTileset.OFFICE_DESK);
-                objectEntities[corner.x][corner.y].add(desk[0].id);
+                objectEntities.add(corner.x, corner.y, desk[0].id);
                 componentManager.sortComponentArray(desk);
 
                 // Find adjacent space to place office chair. Can be skipped
@@ -252,7 +255,7 @@ public class MansionDecorator {
                     Vector2D adjacent = corner.add(direction);
                     if (!detectCollisions(adjacent) && !blocksDoorway(adjacent)) {
                         Component[] chair = DecalFactory.createDecal(adjacent.x, adjacent.y, BuildingTileset.OFFICE_CHAIR);
-                        objectEntities[adjacent.x][adjacent.y].add(chair[0].id);
+                        objectEntities.add(adjacent.x, adjacent.y, chair[0].id);
                         componentManager.sortComponentArray(chair);
                         break;
                     }
@@ -266,7 +269,7 @@ public class MansionDecorator {
                 if (blocksDoorway(corner)) return;
 
                 Component[] cabinet = DecalFactory.createDecal(corner.x, corner.y, BuildingTileset.FILING_CABINET);
-                objectEntities[corner.x][corner.y].add(cabinet[0].id);
+                objectEntities.add(corner.x, corner.y, cabinet[0].id);
                 componentManager.sortComponentArray(cabinet);
 
                 filingCabinetAdded = true;
@@ -277,7 +280,7 @@ public class MansionDecorator {
                 if (blocksDoorway(corner)) return;
 
                 Component[] plant = DecalFactory.createDecal(corner.x, corner.y, BuildingTileset.OFFICE_PLANT);
-                objectEntities[corner.x][corner.y].add(plant[0].id);
+                objectEntities.add(corner.x, corner.y, plant[0].id);
                 componentManager.sortComponentArray(plant);
 
                 String[] floorTiles = new String[] {BuildingTileset.WOOD_FLOOR_1, BuildingTileset.WOOD_FLOOR_2, BuildingTileset.WOOD_FLOOR_3};
@@ -304,7 +307,7 @@ public class MansionDecorator {
                 if (blocksDoorway(corner)) continue;
 
                 Component[] bed = DecalFactory.createDecal(corner.x, corner.y, BuildingTileset.BEDS[rng.getRandomInt(0, 1)]);
-                objectEntities[corner.x][corner.y].add(bed[0].id);
+                objectEntities.add(corner.x, corner.y, bed[0].id);
                 componentManager.sortComponentArray(bed);
 
                 // Find adjacent space to place bedside cabinet. Can be skipped
@@ -313,7 +316,7 @@ public class MansionDecorator {
                     Vector2D adjacent = corner.add(direction);
                     if (!detectCollisions(adjacent) && !blocksDoorway(adjacent)) {
                         Component[] cabinet = DecalFactory.createDecal(adjacent.x, adjacent.y, BuildingTileset.BEDSIDE_CABINET);
-                        objectEntities[adjacent.x][adjacent.y].add(cabinet[0].id);
+                        objectEntities.add(adjacent.x, adjacent.y, cabinet[0].id);
                         componentManager.sortComponentArray(cabinet);
                         break;
                     }
@@ -327,7 +330,7 @@ public class MansionDecorator {
                 if (blocksDoorway(corner)) continue;
 
                 Component[] wardrobe = DecalFactory.createDecal(corner.x, corner.y, BuildingTileset.WARDROBE);
-                objectEntities[corner.x][corner.y].add(wardrobe[0].id);
+                objectEntities.add(corner.x, corner.y, wardrobe[0].id);
                 componentManager.sortComponentArray(wardrobe);
 
                 wardrobeAdded = true;
@@ -338,7 +341,7 @@ public class MansionDecorator {
                 if (blocksDoorway(corner)) continue;
 
                 Component[] plant = DecalFactory.createDecal(corner.x, corner.y, BuildingTileset.OFFICE_PLANT);
-                objectEntities[corner.x][corner.y].add(plant[0].id);
+                objectEntities.add(corner.x, corner.y, plant[0].id);
                 componentManager.sortComponentArray(plant);
 
                 plantAdded = true;
@@ -366,7 +369,7 @@ public class MansionDecorator {
                 if (blocksDoorway(corner)) continue;
 
                 Component[] decal = DecalFactory.createDecal(corner.x, corner.y, BuildingTileset.TOILET);
-                objectEntities[corner.x][corner.y].add(decal[0].id);
+                objectEntities.add(corner.x, corner.y, decal[0].id);
                 componentManager.sortComponentArray(decal);
 
                 toiletAdded = true;
@@ -377,7 +380,7 @@ public class MansionDecorator {
                 if (blocksDoorway(corner)) return;
 
                 Component[] decal = DecalFactory.createDecal(corner.x, corner.y, BuildingTileset.SINK);
-                objectEntities[corner.x][corner.y].add(decal[0].id);
+                objectEntities.add(corner.x, corner.y, decal[0].id);
                 componentManager.sortComponentArray(decal);
 
 
@@ -389,7 +392,7 @@ public class MansionDecorator {
                 if (blocksDoorway(corner)) return;
 
                 Component[] decal = DecalFactory.createDecal(corner.x, corner.y, BuildingTileset.BATH);
-                objectEntities[corner.x][corner.y].add(decal[0].id);
+                objectEntities.add(corner.x, corner.y, decal[0].id);
                 componentManager.sortComponentArray(decal);
 
                 bathAdded = true;
@@ -486,7 +489,7 @@ public class MansionDecorator {
 
         Component[] decal = DecalFactory.createDecal(itemCoord.x, itemCoord.y,
                 BuildingTileset.DECORATIONS[rng.getRandomInt(0, BuildingTileset.DECORATIONS.length - 1)]);
-        objectEntities[itemCoord.x][itemCoord.y].add(decal[0].id);
+        objectEntities.add(itemCoord.x, itemCoord.y, decal[0].id);
         componentManager.sortComponentArray(decal);
     }
 
@@ -570,7 +573,7 @@ public class MansionDecorator {
                 if (!cellBlocksDoorway(cell, isEven)) {
                     String tile = BuildingTileset.BOOKSHELVES[rng.getRandomInt(0, BuildingTileset.BOOKSHELVES.length - 1)];
                     Component[] decal = DecalFactory.createCubeDecal(cell.x, cell.y, 1, tile, true, true);
-                    objectEntities[cell.x][cell.y].add(decal[0].id);
+                    objectEntities.add(cell.x, cell.y, decal[0].id);
                     componentManager.sortComponentArray(decal);
                 }
             }
@@ -597,7 +600,7 @@ public class MansionDecorator {
                 else if (!cellBlocksDoorway(cell, isEven)) {
                     String tile = BuildingTileset.BOOKSHELVES[rng.getRandomInt(0, BuildingTileset.BOOKSHELVES.length - 1)];
                     Component[] decal = DecalFactory.createCubeDecal(cell.x, cell.y, 1, tile, true, true);
-                    objectEntities[cell.x][cell.y].add(decal[0].id);
+                    objectEntities.add(cell.x, cell.y, decal[0].id);
                     componentManager.sortComponentArray(decal);
                 }
             }
@@ -652,7 +655,7 @@ public class MansionDecorator {
 
         if (!TileCategorySorter.isFloor(terrainTiles[cell.x][cell.y]) && !TileCategorySorter.isDoorway(terrainTiles[cell.x][cell.y])) {
             Component[] lightSource = DecalFactory.createDecal(cell.x, cell.y, getLightSourceTile(bearing));
-            objectEntities[cell.x][cell.y].add(lightSource[0].id);
+            objectEntities.add(cell.x, cell.y, lightSource[0].id);
             componentManager.sortComponentArray(lightSource);
         }
 
@@ -699,9 +702,9 @@ public class MansionDecorator {
                 keyArray.add(keys.next());
             }
 
-            int rng = new RandomNumberGenerator().getRandomInt(0, keyArray.size() - 1);
+            int index = rng.getRandomInt(0, keyArray.size() - 1);
 
-            Component[] chest = BlueprintParser.getComponentArrayForBlueprint(potionBlueprints, keyArray.get(rng));
+            Component[] chest = BlueprintParser.getComponentArrayForBlueprint(potionBlueprints, keyArray.get(index));
             // Component[] chest = BlueprintParser.getComponentArrayForBlueprint(furnitureBlueprints, "chest");
 
             if (chest == null) return;
@@ -711,7 +714,7 @@ public class MansionDecorator {
             position.y = cell.y;
 
             if (!objectBlockingPath(cell)) {
-                objectEntities[cell.x][cell.y].add(chest[0].id);
+                objectEntities.add(cell.x, cell.y, chest[0].id);
                 componentManager.sortComponentArray(chest);
                 return;
             }
@@ -745,9 +748,9 @@ public class MansionDecorator {
                 keyArray.add(keys.next());
             }
 
-            int rng = new RandomNumberGenerator().getRandomInt(0, keyArray.size() - 1);
+            int index = rng.getRandomInt(0, keyArray.size() - 1);
 
-            Component[] chest = BlueprintParser.getComponentArrayForBlueprint(weaponBlueprints, keyArray.get(rng));
+            Component[] chest = BlueprintParser.getComponentArrayForBlueprint(weaponBlueprints, keyArray.get(index));
 
             if (chest == null) return;
 
@@ -756,7 +759,7 @@ public class MansionDecorator {
             position.y = cell.y;
 
             if (!objectBlockingPath(cell)) {
-                objectEntities[cell.x][cell.y].add(chest[0].id);
+                objectEntities.add(cell.x, cell.y, chest[0].id);
                 componentManager.sortComponentArray(chest);
                 return;
             }
@@ -895,7 +898,7 @@ public class MansionDecorator {
             }
         }
 
-        JSONObject enemyBlueprints = JSONLoader.loadEnemies(assetManager);
+        JSONObject enemyBlueprints = JSONLoader.loadEnemies(assetSource);
         int size = enemyBlueprints.length();
 
         Iterator<String> keys = enemyBlueprints.keys();
@@ -919,7 +922,7 @@ public class MansionDecorator {
             Component[] enemy = BlueprintParser.getComponentArrayForBlueprint(enemyBlueprints, keyArray.get(type));
 
             if (enemy != null) {
-                objectEntities[vector.x][vector.y].add(enemy[0].id);
+                objectEntities.add(vector.x, vector.y, enemy[0].id);
                 componentManager.sortComponentArray(enemy);
 
                 Position positionComponent = (Position) componentManager.getEntityComponent(enemy[0].id, Position.class.getSimpleName());
@@ -1014,10 +1017,8 @@ public class MansionDecorator {
             return true;
         }
 
-        ArrayList<Long> objectStack = objectEntities[x][y];
-
-        for (Long object : objectStack) {
-
+        for (int node = objectEntities.first(x, y); node != TileOccupancy.NONE; node = objectEntities.next(node)) {
+            long object = objectEntities.get(node);
             Physics physics = (Physics) componentManager.getEntityComponent(object, Physics.class.getSimpleName());
 
             if (physics == null) {
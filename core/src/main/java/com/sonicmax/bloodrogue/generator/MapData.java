@@ -1,18 +1,17 @@
 package com.sonicmax.bloodrogue.generator;
 
+import com.sonicmax.bloodrogue.utils.collections.TileOccupancy;
 import com.sonicmax.bloodrogue.utils.maths.Vector2D;
 
-import java.util.ArrayList;
-
 public class MapData {
     private int[][] terrainEntities;
-    private ArrayList<Long>[][] objectEntities;
+    private TileOccupancy objectEntities;
 
     private Vector2D entrancePosition;
     private Vector2D exitPosition;
     private int type;
 
-    public MapData(int[][] terrainEntities, ArrayList<Long>[][] objectEntities, Vector2D entrance, Vector2D exit, int type) {
+    public MapData(int[][] terrainEntities, TileOccupancy objectEntities, Vector2D entrance, Vector2D exit, int type) {
 
         this.terrainEntities = terrainEntities;
         this.objectEntities = objectEntities;
@@ -26,7 +25,7 @@ public class MapData {
         return this.terrainEntities;
     }
 
-    public ArrayList<Long>[][] getObjectEntities() {
+    public TileOccupancy getObjectEntities() {
         return this.objectEntities;
     }
 
@@ -0,0 +1,163 @@
+package com.sonicmax.bloodrogue.generator;
+
+import com.sonicmax.bloodrogue.generator.tools.BitGrid;
+import com.sonicmax.bloodrogue.generator.tools.GridGeometryHelper;
+import com.sonicmax.bloodrogue.utils.maths.Vector2D;
+
+import java.util.ArrayList;
+
+/**
+ * Class which can be used to define a region of the map. Tiles are stored in a BitGrid mask, so
+ * checking whether region contains a tile is O(1). Mask grows as tiles are added outside of it.
+ *
+ * Vectors, corners and sides are worked out from mask when first requested and cached until region
+ * changes. Cached lists are replaced rather than modified, so it's safe to keep iterating over a
+ * list after changing region.
+ */
+
+public class MapRegion {
+    private final String LOG_TAG = this.getClass().getSimpleName();
+
+    // Extra space added to each side of mask when it needs to grow
+    private static final int GROWTH_MARGIN = 8;
+
+    private BitGrid mask;
+    private ArrayList<Vector2D> vectors;
+    private ArrayList<Vector2D> corners;
+    private ArrayList<Vector2D[]> sides;
+
+    public MapRegion() {
+        this.mask = new BitGrid(0, 0);
+    }
+
+    public MapRegion(BitGrid mask) {
+        this.mask = mask.copy();
+    }
+
+    /**
+     * Returns tiles in region, ordered by row and then column.
+     */
+
+    public ArrayList<Vector2D> getVectors() {
+        if (vectors == null) {
+            vectors = mask.toVectors();
+        }
+
+        return vectors;
+    }
+
+    public ArrayList<Vector2D> getCorners() {
+        if (corners == null) {
+            corners = GridGeometryHelper.findCorners(mask);
+        }
+
+        return corners;
+    }
+
+    public ArrayList<Vector2D[]> getSides() {
+        if (sides == null) {
+            if (getCorners().size() == 4) {
+                sides = GridGeometryHelper.findRectSides(corners);
+            }
+            else {
+                sides = GridGeometryHelper.findSides(mask);
+            }
+        }
+
+        return sides;
+    }
+
+    public BitGrid getMask() {
+        return mask;
+    }
+
+    public int size() {
+        return mask.count();
+    }
+
+    public void set(ArrayList<Vector2D> region) {
+        this.mask = BitGrid.fromVectors(region);
+        onChanged();
+    }
+
+    public void add(Vector2D vector) {
+        ensureCapacity(vector.x, vector.y, 1, 1);
+        mask.set(vector.x, vector.y);
+        onChanged();
+    }
+
+    public void addChunk(Chunk chunk) {
+        ensureCapacity(chunk.x, chunk.y, chunk.width, chunk.height);
+        mask.setRect(chunk.x, chunk.y, chunk.width, chunk.height);
+        onChanged();
+    }
+
+    public void remove(Vector2D vector) {
+        mask.clear(vector.x, vector.y);
+        onChanged();
+    }
+
+    public void remove(Chunk chunk) {
+        mask.clearRect(chunk.x, chunk.y, chunk.width, chunk.height);
+        onChanged();
+    }
+
+    public void addAll(ArrayList<Vector2D> vectors) {
+        if (vectors.isEmpty()) return;
+
+        Chunk bounds = GridGeometryHelper.getBoundingBox(vectors);
+        ensureCapacity(bounds.x, bounds.y, bounds.width + 1, bounds.height + 1);
+
+        for (Vector2D vector : vectors) {
+            mask.set(vector.x, vector.y);
+        }
+
+        onChanged();
+    }
+
+    /**
+     * Check if map region contains provided Vector.
+     *
+     * @param vector Vector to check
+     * @return True if region contains Vector
+     */
+
+    public boolean contains(Vector2D vector) {
+        return mask.get(vector.x, vector.y);
+    }
+
+    private void ensureCapacity(int x, int y, int width, int height) {
+        int left = mask.getOriginX();
+        int bottom = mask.getOriginY();
+        int right = left + mask.getWidth();
+        int top = bottom + mask.getHeight();
+
+        if (x >= left && y >= bottom && x + width <= right && y + height <= top) return;
+
+        if (mask.getWidth() == 0 || mask.getHeight() == 0) {
+            left = x;
+            bottom = y;
+            right = x + width;
+            top = y + height;
+        }
+        else {
+            left = Math.min(left, x);
+            bottom = Math.min(bottom, y);
+            right = Math.max(right, x + width);
+            top = Math.max(top, y + height);
+        }
+
+        left -= GROWTH_MARGIN;
+        bottom -= GROWTH_MARGIN;
+        right += GROWTH_MARGIN;
+        top += GROWTH_MARGIN;
+
+        mask = mask.resize(left, bottom, right - left, top - bottom);
+    }
+
+    private void onChanged() {
+        vectors = null;
+        corners = null;
+        sides = null;
+    }
+}
@@ -1,11 +1,11 @@
 package com.sonicmax.bloodrogue.generator;
 
-import android.content.res.AssetManager;
-import android.util.Log;
-
+import com.sonicmax.bloodrogue.data.AssetSource;
 import com.sonicmax.bloodrogue.data.BlueprintParser;
 import com.sonicmax.bloodrogue.data.JSONLoader;
 import com.sonicmax.bloodrogue.engine.ComponentManager;
+import com.sonicmax.bloodrogue.engine.ComponentTypes;
+import com.sonicmax.bloodrogue.engine.World;
 import com.sonicmax.bloodrogue.engine.Directions;
 import com.sonicmax.bloodrogue.engine.collisions.AxisAlignedBoxTester;
 import com.sonicmax.bloodrogue.engine.Component;
@@ -17,21 +17,27 @@ import com.sonicmax.bloodrogue.generator.buildings.HouseWithYard;
 import com.sonicmax.bloodrogue.generator.enemies.EnemyBlueprintKeys;
 import com.sonicmax.bloodrogue.generator.enemies.EnemyPlacer;
 import com.sonicmax.bloodrogue.generator.factories.DecalFactory;
+import com.sonicmax.bloodrogue.generator.streaming.ExteriorChunk;
 import com.sonicmax.bloodrogue.engine.systems.ComponentFinder;
+import com.sonicmax.bloodrogue.generator.tools.BitGrid;
 import com.sonicmax.bloodrogue.generator.tools.CellularAutomata;
+import com.sonicmax.bloodrogue.generator.tools.DistanceField;
 import com.sonicmax.bloodrogue.generator.tools.GridGeometryHelper;
 import com.sonicmax.bloodrogue.generator.tools.MazeGenerator;
 import com.sonicmax.bloodrogue.generator.tools.PoissonDiskSampler;
+import com.sonicmax.bloodrogue.generator.tools.RegionLabeler;
 import com.sonicmax.bloodrogue.generator.tools.SimplexNoiseGenerator;
 import com.sonicmax.bloodrogue.tilesets.BuildingTileset;
 import com.sonicmax.bloodrogue.tilesets.ExteriorTileset;
 import com.sonicmax.bloodrogue.tilesets.RuinsTileset;
 import com.sonicmax.bloodrogue.tilesets.TileCategorySorter;
+import com.sonicmax.bloodrogue.utils.Log;
 import com.sonicmax.bloodrogue.utils.maths.GeometryHelper;
 import com.sonicmax.bloodrogue.utils.maths.Vector2D;
 import com.sonicmax.bloodrogue.generator.buildings.Room;
 import com.sonicmax.bloodrogue.tilesets.GenericTileset;
 import com.sonicmax.bloodrogue.utils.Array2DHelper;
+import com.sonicmax.bloodrogue.utils.collections.TileOccupancy;
 import com.sonicmax.bloodrogue.utils.maths.RandomNumberGenerator;
 
 import org.json.JSONObject;
@@ -69,6 +75,13 @@ public class ProceduralGenerator {
 
     private Vector2D floorEntrance;
     private Vector2D floorExit;
+    private DistanceField entranceDistances;
+
+    // Entrance used for floors without rooms (nearest walkable tile is used if this is blocked)
+    private final Vector2D DEFAULT_ENTRANCE = new Vector2D(0, 30);
+
+    // Enemies placed closer than this (in moves) to entrance are removed
+    private final int ENTRANCE_SAFE_DISTANCE = 8;
     private int type;
 
     private int mapWidth;
@@ -100,6 +113,9 @@ public class ProceduralGenerator {
     private int maxRoomHeight = 9;
     private int roomDensity = 2000;
 
+    // Number of chunks planned at once when generating exterior detail. Doesn't affect output
+    private int workerCount = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
     private int floorType;
     private int theme;
     private String themeKey;
@@ -108,8 +124,9 @@ public class ProceduralGenerator {
     private MansionDecorator decorator;
     private Tiler tiler;
     private RandomNumberGenerator rng;
-    private AssetManager assetManager;
+    private AssetSource assetSource;
     private JSONObject furnitureBlueprints;
+    private World world;
     private ComponentManager componentManager;
 
     private MazeGenerator mazeGenerator;
@@ -119,16 +136,20 @@ public class ProceduralGenerator {
     private boolean[][] blockedTiles;
 
     private String[][] terrainTiles;
-    private ArrayList<Long>[][] objectEntities;
+    private TileOccupancy objectEntities;
     private int currentFloor;
     private boolean[][] indoorRegions;
     private boolean[][] waterRegions;
 
     private final long DEBUG_SEED = 42L;
 
+    // Every random choice made during generation comes from rng, which is reseeded from this
+    // (plus floor index) before each floor is generated
+    private long seed;
+
     private HashMap<String, Integer> spriteIndexes;
 
-    public ProceduralGenerator(int width, int height, AssetManager assetManager) {
+    public ProceduralGenerator(int width, int height, AssetSource assetSource) {
         this.mapWidth = width;
         this.mapHeight = height;
 
@@ -137,21 +158,28 @@ public class ProceduralGenerator {
         this.terrainTiles = new String[width][height];
         this.objectEntities = Array2DHelper.create2dLongStack(width, height);
 
-        this.assetManager = assetManager;
-        this.furnitureBlueprints = JSONLoader.loadFurniture(assetManager);
-        this.mazeGenerator = new MazeGenerator();
-        this.automata = new CellularAutomata();
-        this.enemyPlacer = new EnemyPlacer(objectEntities, assetManager);
-        this.componentManager = ComponentManager.getInstance();
+        this.assetSource = assetSource;
+        this.furnitureBlueprints = JSONLoader.loadFurniture(assetSource);
+        this.seed = DEBUG_SEED;
+        this.rng = new RandomNumberGenerator(seed);
+        this.mazeGenerator = new MazeGenerator(rng);
+        this.automata = new CellularAutomata(rng);
 
-        // We should have emptied the component manager already, but just to be sure:
-        this.componentManager.clear();
+        // Generated entities are stored in a staging world rather than the live one used by
+        // GameEngine, so that floors can be generated on a background thread (or several at once).
+        // GameEngine imports them when the floor is entered (see World.importWorld()).
+        this.world = World.createStaging();
+        this.componentManager = world.getComponentManager();
+        this.enemyPlacer = new EnemyPlacer(objectEntities, componentManager, assetSource);
 
         this.doors = new HashMap<>();
-        this.rng = new RandomNumberGenerator(DEBUG_SEED);
         this.currentFloor = 1;
     }
 
+    public World getWorld() {
+        return world;
+    }
+
     public boolean[][] getIndoorRegions() {
         return indoorRegions;
     }
@@ -180,6 +208,27 @@ public class ProceduralGenerator {
         this.currentFloor = floor;
     }
 
+    /**
+     * Sets seed used to generate floors. Generators with the same seed produce identical layouts
+     * for each floor index.
+     */
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets number of threads used to plan exterior chunks. Output is identical for any count.
+     */
+
+    public void setWorkerCount(int workerCount) {
+        this.workerCount = Math.max(1, workerCount);
+    }
+
     public MapData getMapData() {
 	    // Todo: this won't really work for saving purposes as sprite indexes will change whenever sprites are added to sprite folder
 	    int[][] terrainIndices = Array2DHelper.fillIntArray(mapWidth, mapHeight, -1);
@@ -192,7 +241,7 @@ public class ProceduralGenerator {
             }
         }
 
-        return new MapData(terrainIndices, objectEntities, new Vector2D(0, 30), floorExit, type);
+        return new MapData(terrainIndices, objectEntities, floorEntrance, floorExit, type);
     }
 
     /*
@@ -255,12 +304,24 @@ public class ProceduralGenerator {
      */
 
     public void generate(int type) {
+        // Make sure that entities created by factories get ids from staging world
+        World previous = world.bind();
+
+        try {
+            generateFloor(type);
+        } finally {
+            World.restore(previous);
+        }
+    }
+
+    private void generateFloor(int type) {
         floorType = type;
+        rng.initRandomWithSeed(seed + currentFloor);
 
         switch(type) {
             case EXTERIOR:
                 setThemeAsExterior();
-                tiler = new Tiler(themeKey);
+                tiler = new Tiler(themeKey, rng);
                 initGrids();
                 generateExterior();
                 break;
@@ -272,7 +333,7 @@ public class ProceduralGenerator {
 
             case MANSION:
                 setThemeAsMansion();
-                tiler = new Tiler(themeKey);
+                tiler = new Tiler(themeKey, rng);
                 initGrids();
                 generateMansion();
                 break;
@@ -289,6 +350,8 @@ public class ProceduralGenerator {
     }
 
     public void generateDungeon() {
+        rooms = new ArrayList<>();
+
         Chunk chunk = new Chunk(0, 0, mapWidth, mapHeight);
         generateRandomRooms(chunk);
         carveRooms();
@@ -301,7 +364,7 @@ public class ProceduralGenerator {
 
         calculateGoals();
 
-        decorator = new MansionDecorator(mapWidth, mapHeight, theme, themeKey, assetManager);
+        decorator = new MansionDecorator(mapWidth, mapHeight, theme, themeKey, componentManager, assetSource, rng);
         decorator.setGeneratorData(terrainTiles, objectEntities);
         // decorator.decorateRooms(rooms);
 
@@ -346,12 +409,14 @@ public class ProceduralGenerator {
             generateCaverns(mapHalves.get(1));
         }*/
 
-        decorator = new MansionDecorator(mapWidth, mapHeight, theme, themeKey, assetManager);
+        decorator = new MansionDecorator(mapWidth, mapHeight, theme, themeKey, componentManager, assetSource, rng);
         decorator.setGeneratorData(terrainTiles, objectEntities);
         // decorator.decorateRooms(rooms);
     }
 
     private void generateRuins() {
+        rooms = new ArrayList<>();
+
         Chunk chunk = new Chunk(0, 0, mapWidth, mapHeight);
         generateRandomRooms(chunk);
         carveRooms();
@@ -378,7 +443,7 @@ public class ProceduralGenerator {
     private void generateExterior() {
         this.rooms = new ArrayList<>();
         setThemeAsMansion();
-        this.tiler = new Tiler(themeKey);
+        this.tiler = new Tiler(themeKey, rng);
         this.blockedTiles = new boolean[mapWidth][mapHeight];
 
         // The first stage of terrain generation is to add roads and place buildings and other landmarks.
@@ -389,15 +454,12 @@ public class ProceduralGenerator {
         addRoadsAndBuildingLocations(world);
 
         // The second stage of terrain generation is to add grass tiles and other vegetation, water regions,
-        // enemies, etc. This is more costly and should only be generated for a section of the map at a time
-        // Todo: 64x64 or 128x128?
+        // enemies, etc. This is more costly, so it is planned in chunks on worker threads (see ExteriorChunkPlanner)
         // Todo: accounting for z axis, maybe 32 * 32 * 8?
 
-        Chunk startingChunk = new Chunk(0, 0, 128, 128);
-
         heightMap = generateIslandHeightMap(world);
-        addWorldDetails(startingChunk);
-        setElevationSpecificTerrain(startingChunk);
+        addWorldDetails(world);
+        setElevationSpecificTerrain(world);
 
         checkForBrokenDoors();
         calculateGoals();
@@ -421,26 +483,136 @@ public class ProceduralGenerator {
         }
     }
 
-    private void addWorldDetails(Chunk chunk) {
+    private void addWorldDetails(Chunk area) {
         tiler.setTileset(ExteriorTileset.KEY);
 
+        ExteriorChunkPlanner planner = new ExteriorChunkPlanner(mapWidth, mapHeight, theme);
+        ArrayList<Chunk> chunks = ExteriorChunkPlanner.split(area);
+        ArrayList<ExteriorChunkPlanner.Plan> plans = planner.planAll(chunks, seed + currentFloor, workerCount);
+
+        // Apply each kind of detail to every chunk before moving on to the next kind, so that
+        // collisions are checked against earlier details in neighbouring chunks too
+
+        for (ExteriorChunkPlanner.Plan plan : plans) {
+            addPlannedGrass(plan);
+        }
+
+        boolean[][] treeTiles = new boolean[mapWidth][mapHeight];
+
+        for (ExteriorChunkPlanner.Plan plan : plans) {
+            addPlannedTrees(plan, treeTiles);
+        }
+
+        for (ExteriorChunkPlanner.Plan plan : plans) {
+            addPlannedForest(plan);
+        }
+
+        for (ExteriorChunkPlanner.Plan plan : plans) {
+            addPlannedFlowers(plan);
+        }
+
+        for (ExteriorChunkPlanner.Plan plan : plans) {
+            addPlannedGoats(plan);
+        }
+
+        // Bears are spread across whole map, so they aren't planned per chunk
+        addBears(area);
+    }
+
+    private void addPlannedGrass(ExteriorChunkPlanner.Plan plan) {
+        Chunk chunk = plan.chunk;
+
         // Replace empty terrain tiles with random grass
-        for (int x = chunk.x; x < chunk.x + chunk.width; x++) {
-            for (int y = chunk.y; y < chunk.y + chunk.height; y++) {
-                if (terrainTiles[x][y] == null) {
-                    setTerrain(x, y, tiler.getFloorTile(theme));
+        for (int x = 0; x < chunk.width; x++) {
+            for (int y = 0; y < chunk.height; y++) {
+                if (terrainTiles[chunk.x + x][chunk.y + y] == null) {
+                    setTerrain(chunk.x + x, chunk.y + y, plan.grass[x][y]);
+                }
+            }
+        }
+    }
+
+    private void addPlannedTrees(ExteriorChunkPlanner.Plan plan, boolean[][] treeTiles) {
+        for (int i = 0; i < plan.trees.size(); i++) {
+            Vector2D cell = plan.trees.get(i);
+
+            if (!inBounds(cell)) continue;
+            if (indoorRegions[cell.x][cell.y]) continue;
+
+            // Trees are spaced out within each chunk, but trees near the border may be too close
+            // to trees in a neighbouring chunk. Earlier chunks win
+            if (isNearTree(cell, treeTiles)) continue;
+
+            Component[] tree = DecalFactory.createDecal(cell.x, cell.y, plan.treeTextures.get(i));
+            treeEntities.add(tree[0].id);
+            objectEntities.add(cell.x, cell.y, tree[0].id);
+            componentManager.sortComponentArray(tree);
+            treeTiles[cell.x][cell.y] = true;
+        }
+    }
+
+    private boolean isNearTree(Vector2D cell, boolean[][] treeTiles) {
+        int minDistance = ExteriorChunkPlanner.TREE_MIN_DISTANCE;
+        int range = minDistance - 1;
+
+        for (int x = Math.max(0, cell.x - range); x <= Math.min(mapWidth - 1, cell.x + range); x++) {
+            for (int y = Math.max(0, cell.y - range); y <= Math.min(mapHeight - 1, cell.y + range); y++) {
+                int dx = x - cell.x;
+                int dy = y - cell.y;
+
+                if (treeTiles[x][y] && dx * dx + dy * dy < minDistance * minDistance) {
+                    return true;
                 }
             }
         }
 
-        placeRandomTreesInChunk(chunk);
-        addForestRegions(chunk);
-        addFloralRegions(chunk);
-        addOutdoorMobs(chunk);
+        return false;
+    }
+
+    private void addPlannedForest(ExteriorChunkPlanner.Plan plan) {
+        ArrayList<Vector2D> forest = plan.forest.toVectors();
+
+        for (int i = 0; i < forest.size(); i++) {
+            Vector2D cell = forest.get(i);
+
+            if (!indoorRegions[cell.x][cell.y] && !detectCollisions(cell)) {
+                Component[] tree = DecalFactory.createFovBlockingDecal(cell.x, cell.y, plan.forestTextures.get(i));
+                treeEntities.add(tree[0].id);
+                objectEntities.add(cell.x, cell.y, tree[0].id);
+                componentManager.sortComponentArray(tree);
+            }
+        }
+    }
+
+    private void addPlannedFlowers(ExteriorChunkPlanner.Plan plan) {
+        ArrayList<Vector2D> flowers = plan.flowers.toVectors();
+
+        for (int i = 0; i < flowers.size(); i++) {
+            Vector2D cell = flowers.get(i);
+
+            if (!indoorRegions[cell.x][cell.y] && !detectCollisions(cell)) {
+                Component[] flower = DecalFactory.createTraversableDecoration(cell.x, cell.y, plan.flowerTextures.get(i));
+                objectEntities.add(cell.x, cell.y, flower[0].id);
+                componentManager.sortComponentArray(flower);
+            }
+        }
+    }
+
+    private void addPlannedGoats(ExteriorChunkPlanner.Plan plan) {
+        // Add herds of bad goats
+        for (Vector2D cell : plan.goats.toVectors()) {
+            if (!indoorRegions[cell.x][cell.y] && !detectCollisions(cell)) {
+                enemyPlacer.placeEnemy(cell.x, cell.y, EnemyBlueprintKeys.GOAT);
+            }
+        }
     }
 
     private float[][] heightMap;
 
+    // Elevations used to decide where water and sand go
+    private final float SEA_LEVEL = 0.25f;
+    private final float GRASS_LEVEL = 0.4f;
+
     private float[][] generateIslandHeightMap(Chunk chunk) {
         /*
             Development notes:
@@ -453,7 +625,7 @@ public class ProceduralGenerator {
         final float coastHeight = 1.13f;
         final float dropOffFactor = 3.4f;
 
-        return generateIslandHeightMap(chunk, DEBUG_SEED, baseElevation, coastHeight, dropOffFactor);
+        return generateIslandHeightMap(chunk, seed + currentFloor, baseElevation, coastHeight, dropOffFactor);
     }
 
     /**
@@ -481,10 +653,7 @@ public class ProceduralGenerator {
                 float nx = (float) x / width - 0.5f;
                 float ny = (float) y / height - 0.5f;
 
-                // Generate elevation using three octaves of noise
-                float noise = (1 * generator.noise2D(1 * nx, 1 * ny))
-                        + (0.5f * generator.noise2D(2 * nx, 2 * ny))
-                        + (0.25f * generator.noise2D(4 * nx, 2 * ny));
+                float noise = getElevationNoise(generator, nx, ny);
 
                 // Convert simplex noise to be within range of 0 to 1
                 // (add 1 to convert from -1,1 to 0,2, then halve to get 0,1)
@@ -514,14 +683,146 @@ public class ProceduralGenerator {
         return heightMap;
     }
 
+    /**
+     * Generates elevation using three octaves of noise. Result is roughly in range of -1.75 to 1.75
+     */
+
+    private float getElevationNoise(SimplexNoiseGenerator generator, float nx, float ny) {
+        return (1 * generator.noise2D(1 * nx, 1 * ny))
+                + (0.5f * generator.noise2D(2 * nx, 2 * ny))
+                + (0.25f * generator.noise2D(4 * nx, 2 * ny));
+    }
+
     public float[][] getHeightMap() {
         return heightMap;
     }
 
+/*
+    ------------------------------------------------------------------------------------------
+    Streamed exterior chunks
+
+    Used by ChunkStreamer for exteriors which don't have fixed bounds. Each chunk only depends on
+    seed, floor index and chunk position, so chunks can be generated in any order, thrown away
+    and generated again later with the same result.
+
+    Roads, buildings and bears are laid out over the whole map in generateExterior(), so streamed
+    chunks only get terrain detail, water and goats.
+    ------------------------------------------------------------------------------------------
+*/
+
+    // Number of tiles covered by one unit of noise. Same as fixed size exterior, so that hills
+    // and lakes are a similar size
+    private final float STREAMED_NOISE_SCALE = 128f;
+
+    /**
+     * Generates chunk of streamed exterior. Doesn't read or modify grids, rng or world of this
+     * generator (only seed and floor index), so it's safe to call from a background thread.
+     *
+     * @param chunkX Chunk x coord (see ExteriorChunk.toChunk())
+     * @param chunkY Chunk y coord
+     */
+
+    public ExteriorChunk generateExteriorChunk(int chunkX, int chunkY) {
+        ExteriorChunk chunk = new ExteriorChunk(chunkX, chunkY);
+        Chunk area = new Chunk(chunk.getOriginX(), chunk.getOriginY(), ExteriorChunk.SIZE, ExteriorChunk.SIZE);
+        long floorSeed = seed + currentFloor;
+
+        ExteriorChunkPlanner planner = ExteriorChunkPlanner.createUnbounded(RoomStyles.MANSION);
+        ExteriorChunkPlanner.Plan plan = planner.plan(area, floorSeed);
+
+        generateStreamedHeights(chunk, floorSeed);
+
+        for (int x = 0; x < area.width; x++) {
+            for (int y = 0; y < area.height; y++) {
+                float elevation = chunk.heights[x][y];
+
+                if (elevation < SEA_LEVEL) {
+                    chunk.terrain[x][y] = ExteriorTileset.SAND_1;
+                    chunk.water.set(area.x + x, area.y + y);
+                }
+                else if (elevation <= GRASS_LEVEL) {
+                    chunk.terrain[x][y] = ExteriorTileset.SAND_1;
+                }
+                else {
+                    chunk.terrain[x][y] = plan.grass[x][y];
+                }
+            }
+        }
+
+        // Tiles with blocking objects. Nothing is placed in water
+        BitGrid blocked = chunk.water.copy();
+
+        for (int i = 0; i < plan.trees.size(); i++) {
+            Vector2D cell = plan.trees.get(i);
+
+            if (!blocked.get(cell.x, cell.y)) {
+                chunk.addObject(ExteriorChunk.TREE, cell.x, cell.y, plan.treeTextures.get(i));
+                blocked.set(cell.x, cell.y);
+            }
+        }
+
+        ArrayList<Vector2D> forest = plan.forest.toVectors();
+
+        for (int i = 0; i < forest.size(); i++) {
+            Vector2D cell = forest.get(i);
+
+            if (!blocked.get(cell.x, cell.y)) {
+                chunk.addObject(ExteriorChunk.FOREST, cell.x, cell.y, plan.forestTextures.get(i));
+                blocked.set(cell.x, cell.y);
+            }
+        }
+
+        // Flowers are traversable, so goats can still be placed on top of them
+        ArrayList<Vector2D> flowers = plan.flowers.toVectors();
+
+        for (int i = 0; i < flowers.size(); i++) {
+            Vector2D cell = flowers.get(i);
+
+            if (!blocked.get(cell.x, cell.y)) {
+                chunk.addObject(ExteriorChunk.FLOWERS, cell.x, cell.y, plan.flowerTextures.get(i));
+            }
+        }
+
+        for (Vector2D cell : plan.goats.toVectors()) {
+            if (!blocked.get(cell.x, cell.y)) {
+                chunk.addObject(ExteriorChunk.GOAT, cell.x, cell.y, null);
+            }
+        }
+
+        return chunk;
+    }
+
+    /**
+     * Samples noise at world position of each vertex, without island drop off. Neighbouring chunks
+     * sample the same points along shared edges, so their heights match.
+     */
+
+    private void generateStreamedHeights(ExteriorChunk chunk, long seed) {
+        SimplexNoiseGenerator generator = new SimplexNoiseGenerator(seed);
+
+        for (int x = 0; x <= ExteriorChunk.SIZE; x++) {
+            for (int y = 0; y <= ExteriorChunk.SIZE; y++) {
+                float nx = (chunk.getOriginX() + x) / STREAMED_NOISE_SCALE;
+                float ny = (chunk.getOriginY() + y) / STREAMED_NOISE_SCALE;
+
+                // Convert from range of [-1,1] to [0, 2], then halve to get [0, 1]
+                float elevation = (getElevationNoise(generator, nx, ny) + 1) / 2;
+
+                // Same adjustment as setElevationSpecificTerrain(). Done for every vertex (not just
+                // tiles) so that shared edges still match
+                if (elevation == SEA_LEVEL) {
+                    elevation -= 0.001f;
+                }
+
+                chunk.heights[x][y] = elevation;
+            }
+        }
+    }
+
     private void generateExterior2() {
         this.rooms = new ArrayList<>();
         setThemeAsMansion();
-        this.tiler = new Tiler(themeKey);
+        this.tiler = new Tiler(themeKey, rng);
         this.blockedTiles = new boolean[mapWidth][mapHeight];
 
         Chunk map = new Chunk(0, 0, mapWidth, mapHeight);
@@ -559,7 +860,7 @@ public class ProceduralGenerator {
 
         for (Chunk seed : debugSeedslol) {
             Component[] tree = DecalFactory.createDecal(seed.x, seed.y, GenericTileset.LIGHT_SOURCE);
-            objectEntities[seed.x][seed.y].add(tree[0].id);
+            objectEntities.add(seed.x, seed.y, tree[0].id);
             componentManager.sortComponentArray(tree);
         }
 
@@ -599,7 +900,7 @@ public class ProceduralGenerator {
     }
 
     private void placeRandomTreesInChunk(Chunk chunk) {
-        PoissonDiskSampler sampler = new PoissonDiskSampler();
+        PoissonDiskSampler sampler = new PoissonDiskSampler(rng);
         int minDistance = 3;
         // Roughly guess how many trees will fit, and reduce this amount by a percentage
         // (as we are also placing forest regions)
@@ -614,7 +915,7 @@ public class ProceduralGenerator {
 
             Component[] tree = DecalFactory.createDecal(cell.x, cell.y, ExteriorTileset.TREES[rng.getRandomInt(0, ExteriorTileset.TREES.length - 1)]);
             treeEntities.add(tree[0].id);
-            objectEntities[cell.x][cell.y].add(tree[0].id);
+            objectEntities.add(cell.x, cell.y, tree[0].id);
             componentManager.sortComponentArray(tree);
         }
     }
@@ -627,9 +928,6 @@ public class ProceduralGenerator {
     private void setElevationSpecificTerrain(Chunk chunk) {
         // To add lakes we will use the height map to find regions that are below sea level
 
-        final float SEA_LEVEL = 0.25f;
-        final float GRASS_LEVEL = 0.4f;
-
         // TODO: handle smaller chunks that don't equal size of whole map
 
         for (int x = 0; x < chunk.width; x++) {
@@ -663,68 +961,42 @@ public class ProceduralGenerator {
         automata.setParams(4, 3, 3, 0.3f);
         boolean[][] lakes = automata.generate(chunk);
 
-        ArrayList<Vector2D> lakeVectors = new ArrayList<>();
+        BitGrid lakeMask = BitGrid.fromArray(lakes);
+        BitGrid openLake = new BitGrid(lakeMask.getWidth(), lakeMask.getHeight());
 
         for (int x = 0; x < lakes.length; x++) {
             for (int y = 0; y < lakes[0].length; y++) {
-                Vector2D vector = new Vector2D(x, y);
                 // Remember to translate position on grid to position in world
-                Vector2D translatedVec = vector.subtract(offset);
-                if (lakes[x][y] && !detectCollisions(translatedVec)) {
-                    lakeVectors.add(vector);
+                if (lakes[x][y] && !detectCollisions(new Vector2D(x, y).subtract(offset))) {
+                    openLake.set(x, y);
                 }
             }
         }
 
-        // Now we should locate adjacent lake tiles and separate into regions
-
-        if (lakeVectors.size() == 0) {
+        if (openLake.isEmpty()) {
             return;
         }
 
-        ArrayList<MapRegion> lakeRegions = new ArrayList<>();
-        ArrayList<Vector2D> checkedVectors = new ArrayList<>();
-
-        for (Vector2D vector : lakeVectors) {
+        // Now separate lake tiles into cardinally connected regions. Only keep regions which touch
+        // at least one lake tile that isn't blocked
 
-            for (Vector2D direction : Directions.All.values()) {
-                Vector2D adjacent = vector.add(direction);
+        BitGrid nearOpenLake = openLake.dilate(true);
+        nearOpenLake.and(lakeMask);
 
-                if (checkedVectors.contains(adjacent)) {
-                    continue;
-                }
-
-                if (inBounds(adjacent, 0, 0, lakes.length, lakes[0].length)) {
-                    if (lakes[adjacent.x][adjacent.y]) {
-                        MapRegion region = new MapRegion();
-                        ArrayList<Vector2D> regionVecs = getRegionVectors(adjacent, lakes);
-                        region.addAll(regionVecs);
-                        checkedVectors.addAll(regionVecs);
-                        lakeRegions.add(region);
-                    }
-                    else {
-                        checkedVectors.add(adjacent);
-                    }
-                }
-                else {
-                    checkedVectors.add(adjacent);
-                }
-            }
-        }
+        RegionLabeler labeler = new RegionLabeler();
+        int regionCount = labeler.label(lakeMask, false);
 
         // Find lake regions that are big enough, fill with water and add any special terrain/mobs
 
-        Iterator<MapRegion> it = lakeRegions.iterator();
+        for (int i = 0; i < regionCount; i++) {
+            if (labeler.getSize(i) <= 2) continue;
 
-        while (it.hasNext()) {
-            MapRegion region = it.next();
-            if (region.getVectors().size() > 2) {
-                fillLakeRegion(region, offset);
-                addLakeDecorations(region, offset);
-            }
-            else {
-                it.remove();
-            }
+            BitGrid regionMask = labeler.getRegion(i);
+            if (!regionMask.intersects(nearOpenLake)) continue;
+
+            MapRegion region = new MapRegion(regionMask);
+            fillLakeRegion(region, offset);
+            addLakeDecorations(region, offset);
         }
     }
 
@@ -769,7 +1041,7 @@ public class ProceduralGenerator {
             Vector2D location = lakeVectors.get(random).subtract(offset);
             String texture = rng.getRandomItemFromStringArray(ExteriorTileset.POND_LILIES);
             Component[] flower = DecalFactory.createTraversableDecoration(location.x, location.y, texture);
-            objectEntities[location.x][location.y].add(flower[0].id);
+            objectEntities.add(location.x, location.y, flower[0].id);
             componentManager.sortComponentArray(flower);
         }
 
@@ -784,38 +1056,6 @@ public class ProceduralGenerator {
         }
     }
 
-    private ArrayList<Vector2D> getRegionVectors(Vector2D start, boolean[][] tiles) {
-        ArrayList<Vector2D> region = new ArrayList<>();
-        ArrayList<Vector2D> queue = new ArrayList<>();
-        ArrayList<Vector2D> checked = new ArrayList<>();
-
-        queue.add(start);
-        region.add(start);
-
-        while (queue.size() > 0) {
-            Vector2D vector = queue.remove(0);
-
-            if (checked.contains(vector)) continue;
-
-            for (Vector2D direction : Directions.Cardinal.values()) {
-                Vector2D adjacent = vector.add(direction);
-
-                if (checked.contains(adjacent)) continue;
-
-                if (inBounds(adjacent, 0, 0, tiles.length, tiles[0].length) && tiles[adjacent.x][adjacent.y]) {
-                    region.add(adjacent);
-                    queue.add(adjacent);
-                }
-                else {
-                    checked.add(adjacent);
-                }
-            }
-
-            checked.add(vector);
-        }
-
-        return region;
-    }
 
     private boolean chunkContainsVector(Vector2D vector, Chunk chunk) {
         return (vector.x >= chunk.x && vector.x < chunk.x + chunk.width)
@@ -838,7 +1078,7 @@ public class ProceduralGenerator {
 
                     Component[] tree = DecalFactory.createFovBlockingDecal(x, y, ExteriorTileset.TREES[rng.getRandomInt(0, ExteriorTileset.TREES.length - 1)]);
                     treeEntities.add(tree[0].id);
-                    objectEntities[x][y].add(tree[0].id);
+                    objectEntities.add(x, y, tree[0].id);
                     componentManager.sortComponentArray(tree);
                 }
             }
@@ -853,7 +1093,7 @@ public class ProceduralGenerator {
                 if (flowers[x][y] && !indoorRegions[x][y] && !detectCollisions(new Vector2D(x, y))) {
                     String texture = ExteriorTileset.DECALS[rng.getRandomInt(0, ExteriorTileset.DECALS.length - 1)];
                     Component[] flower = DecalFactory.createTraversableDecoration(x, y, texture);
-                    objectEntities[x][y].add(flower[0].id);
+                    objectEntities.add(x, y, flower[0].id);
                     componentManager.sortComponentArray(flower);
                 }
             }
@@ -874,8 +1114,12 @@ public class ProceduralGenerator {
             }
         }
 
+        addBears(chunk);
+    }
+
+    private void addBears(Chunk chunk) {
         // Add mama bears
-        PoissonDiskSampler sampler = new PoissonDiskSampler();
+        PoissonDiskSampler sampler = new PoissonDiskSampler(rng);
         int minDistance = mapWidth / 2;
         int bearCount = 4;
         ArrayList<Vector2D> treePositions = sampler.generateNoise(chunk.width, chunk.height, minDistance, bearCount);
@@ -927,7 +1171,7 @@ public class ProceduralGenerator {
         int roomSeedCount = rng.getRandomInt(MIN_ROOM_SEEDS, maxRoomSeeds);
 
         ArrayList<Chunk> seeds = new ArrayList<>();
-        PoissonDiskSampler sampler = new PoissonDiskSampler();
+        PoissonDiskSampler sampler = new PoissonDiskSampler(rng);
         sampler.setDensity(100);
         int minDistance = chunk.width / minRoomWidth;
 
@@ -1379,7 +1623,7 @@ public class ProceduralGenerator {
 
                     // Either clear objects from the road, or replace a road tile with a dirt tile.
                     for (int y = splitY - 1; y <= splitY + 1; y++) {
-                        if (objectEntities[x][y].size() > 0) {
+                        if (!objectEntities.isEmpty(x, y)) {
                             waterRegions[x][y] = false;
 
                             if (rng.coinflip()) {
@@ -1445,7 +1689,7 @@ public class ProceduralGenerator {
 
                     // Either clear objects from the road, or replace a road tile with a dirt tile
                     for (int x = splitX - 1; x <= splitX + 1; x++) {
-                        if (objectEntities[x][y].size() > 0) {
+                        if (!objectEntities.isEmpty(x, y)) {
                             waterRegions[x][y] = false;
 
                             if (rng.coinflip()) {
@@ -1798,7 +2042,7 @@ public class ProceduralGenerator {
         addExteriorWallFeatures(rooms, building);
 
         tiler.setTileset(BuildingTileset.KEY);
-        decorator = new MansionDecorator(mapWidth, mapHeight, theme, themeKey, assetManager);
+        decorator = new MansionDecorator(mapWidth, mapHeight, theme, themeKey, componentManager, assetSource, rng);
         decorator.setGeneratorData(terrainTiles, objectEntities);
         decorator.decorateRooms(rooms, building.width, building.height);
 
@@ -1841,7 +2085,7 @@ public class ProceduralGenerator {
         addExteriorWallFeatures(rooms, building);
 
         tiler.setTileset(BuildingTileset.KEY);
-        decorator = new MansionDecorator(mapWidth, mapHeight, theme, themeKey, assetManager);
+        decorator = new MansionDecorator(mapWidth, mapHeight, theme, themeKey, componentManager, assetSource, rng);
         decorator.setGeneratorData(terrainTiles, objectEntities);
         decorator.decorateRooms(rooms, building.width, building.height);
 
@@ -1952,7 +2196,7 @@ public class ProceduralGenerator {
                     String windowTex = getMatchingWindowTexture(x, y);
 
                     Component[] window = DecalFactory.createCubeDecal(x, y, z, windowTex, false, false);
-                    objectEntities[x][y].add(window[0].id);
+                    objectEntities.add(x, y, window[0].id);
                     componentManager.sortComponentArray(window);
 
                     windowsInRoom++;
@@ -1975,7 +2219,7 @@ public class ProceduralGenerator {
                     setTerrain(x, y, tiler.getFloorTile(currentRoomTheme));
                     String windowTex = getMatchingWindowTexture(x, y);
                     Component[] window = DecalFactory.createCubeDecal(x, y, z, windowTex, false, false);
-                    objectEntities[x][y].add(window[0].id);
+                    objectEntities.add(x, y, window[0].id);
                     componentManager.sortComponentArray(window);
 
                     windowsInRoom++;
@@ -2070,7 +2314,7 @@ public class ProceduralGenerator {
             }
 
             Component[] wall = DecalFactory.createCubeDecal(x, chunk.y, 1, brickTiles[brickIndex], true, true);
-            objectEntities[x][chunk.y].add(wall[0].id);
+            objectEntities.add(x, chunk.y, wall[0].id);
             componentManager.sortComponentArray(wall);
         }
 
@@ -2085,7 +2329,7 @@ public class ProceduralGenerator {
             }
 
             Component[] wall = DecalFactory.createCubeDecal(x, chunk.y + chunk.height - 1, 1, brickTiles[brickIndex], true, true);
-            objectEntities[x][chunk.y + chunk.height - 1].add(wall[0].id);
+            objectEntities.add(x, chunk.y + chunk.height - 1, wall[0].id);
             componentManager.sortComponentArray(wall);
         }
 
@@ -2102,7 +2346,7 @@ public class ProceduralGenerator {
             }
 
             Component[] wall = DecalFactory.createCubeDecal(left.x, left.y, 1, brickTiles[brickIndex], true, true);
-            objectEntities[left.x][left.y].add(wall[0].id);
+            objectEntities.add(left.x, left.y, wall[0].id);
             componentManager.sortComponentArray(wall);
         }
 
@@ -2119,7 +2363,7 @@ public class ProceduralGenerator {
             }
 
             Component[] wall = DecalFactory.createCubeDecal(right.x, right.y, 1, brickTiles[brickIndex], true, true);
-            objectEntities[right.x][right.y].add(wall[0].id);
+            objectEntities.add(right.x, right.y, wall[0].id);
             componentManager.sortComponentArray(wall);
         }
     }
@@ -2329,77 +2573,237 @@ public class ProceduralGenerator {
         }
     }
 
+    /**
+     * Places entrance and exit stairs. Entrance is placed in a random room which has a walkable
+     * route to at least one other room, and exit in the room furthest from it (by walking distance).
+     * Floors without rooms (eg. exterior) use DEFAULT_ENTRANCE and place exit on the furthest
+     * reachable tile instead.
+     *
+     * Walking distances from entrance are kept in entranceDistances, so that anything placed after
+     * this can be placed by depth.
+     */
+
     private void calculateGoals() {
-        if (rooms.size() < 2) {
-            floorEntrance = new Vector2D(1, 1);
-            floorExit = new Vector2D(3, 3);
+        boolean[] traversable = getTraversableTiles();
+        entranceDistances = new DistanceField(mapWidth, mapHeight);
+
+        Room startRoom = findStartRoom(traversable);
+
+        if (startRoom != null) {
+            startRoom.setEntrance();
+            floorEntrance = startRoom.roundedCentre();
+            floorExit = findFurthestRoomCentre(startRoom);
         }
+
         else {
-            Room startRoom = rooms.get(rng.getRandomInt(0, rooms.size() - 1));
+            if (rooms.size() > 1) {
+                Log.w(LOG_TAG, "No room was connected to another room, placing stairs in open area");
+            }
+
+            floorEntrance = findNearestTraversableTile(traversable, DEFAULT_ENTRANCE);
+            entranceDistances.build(traversable, floorEntrance.x, floorEntrance.y);
+            floorExit = findFurthestEmptyTile();
+        }
+
+        placeStairs("entranceStairs", floorEntrance, currentFloor - 1);
+
+        if (floorExit != null) {
+            placeStairs("exitStairs", floorExit, currentFloor + 1);
+            Log.v(LOG_TAG, "path from start to finish was "
+                    + entranceDistances.getDistance(floorExit.x, floorExit.y) + " moves");
+        }
+        else {
+            Log.e(LOG_TAG, "Couldn't find location to place exit");
+        }
+
+        clearEnemiesNearEntrance();
+    }
+
+    /**
+     * Tries rooms in random order until one is found with a walkable route to another room. Leaves
+     * entranceDistances built from centre of returned room.
+     *
+     * @return Start room, or null if no room was connected to another
+     */
+
+    private Room findStartRoom(boolean[] traversable) {
+        int roomCount = rooms.size();
+        if (roomCount < 2) return null;
+
+        int[] order = new int[roomCount];
+
+        for (int i = 0; i < roomCount; i++) {
+            order[i] = i;
+        }
 
-            int count = 0;
-            int roomCount = rooms.size();
+        for (int i = roomCount - 1; i > 0; i--) {
+            int j = rng.getRandomInt(0, i);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+
+        for (int i = 0; i < roomCount; i++) {
+            Room room = rooms.get(order[i]);
+            Vector2D centre = room.roundedCentre();
+
+            if (!room.isAccessible || !traversable[centre.y * mapWidth + centre.x]) continue;
 
-            // Make sure that starting room is accessible
-            while (!startRoom.isAccessible && count < roomCount) {
-                startRoom = rooms.get(rng.getRandomInt(0, rooms.size() - 1));
-                count++;
+            entranceDistances.build(traversable, centre.x, centre.y);
+
+            if (findFurthestRoomCentre(room) != null) {
+                return room;
             }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns centre of reachable room furthest from entrance (other than start room), or null if
+     * no other room can be reached.
+     */
 
-            if (!startRoom.isAccessible) {
-                // Todo: to handle this error, we should regenerate the terrain
-                throw new Error("Start room was inaccessible!");
+    private Vector2D findFurthestRoomCentre(Room startRoom) {
+        int furthest = 0;
+        Vector2D furthestRoomCentre = null;
+
+        for (Room room : rooms) {
+            if (room == startRoom) continue;
+
+            Vector2D centre = room.roundedCentre();
+            int distance = entranceDistances.getDistance(centre.x, centre.y);
+
+            if (distance > furthest) {
+                furthestRoomCentre = centre;
+                furthest = distance;
             }
+        }
 
-            startRoom.setEntrance();
-            floorEntrance = startRoom.roundedCentre();
+        return furthestRoomCentre;
+    }
+
+    private Vector2D findFurthestEmptyTile() {
+        // Tiles are stored in order of distance, so search backwards from furthest
+        for (int i = entranceDistances.getReachedCount() - 1; i > 0; i--) {
+            int tile = entranceDistances.getReachedTile(i);
+            int x = tile % mapWidth;
+            int y = tile / mapWidth;
+
+            if (objectEntities.isEmpty(x, y)) {
+                return new Vector2D(x, y);
+            }
+        }
 
-            Component[] entrance = BlueprintParser.getComponentArrayForBlueprint(furnitureBlueprints, "entranceStairs");
-            Position position = ComponentFinder.getPositionComponent(entrance);
-            position.x = floorEntrance.x;
-            position.y = floorEntrance.y;
-            Portal portal = ComponentFinder.getPortalComponent(entrance);
-            portal.destFloor = currentFloor - 1;
+        return null;
+    }
 
-            objectEntities[position.x][position.y].add(position.id);
-            componentManager.sortComponentArray(entrance);
+    /**
+     * Returns closest traversable tile to position (searching in expanding squares), or position
+     * itself if map has no traversable tiles.
+     */
 
-            int furthest = 0;
-            Vector2D furthestRoomCentre = null;
+    private Vector2D findNearestTraversableTile(boolean[] traversable, Vector2D position) {
+        int maxRadius = Math.max(mapWidth, mapHeight);
 
-            for (Room room : rooms) {
-                Vector2D centre = room.roundedCentre();
-                ArrayList<Vector2D> path = findShortestPath(floorEntrance, centre);
-                int distance = path.size();
-                if (distance > furthest) {
-                    furthestRoomCentre = centre;
-                    furthest = distance;
+        for (int radius = 0; radius < maxRadius; radius++) {
+            for (int x = position.x - radius; x <= position.x + radius; x++) {
+                for (int y = position.y - radius; y <= position.y + radius; y++) {
+                    // Only check tiles on edge of square - inner tiles were checked by smaller radius
+                    if (Math.abs(x - position.x) != radius && Math.abs(y - position.y) != radius) continue;
+                    if (x < 0 || x >= mapWidth || y < 0 || y >= mapHeight) continue;
+
+                    if (traversable[y * mapWidth + x]) {
+                        return new Vector2D(x, y);
+                    }
                 }
             }
+        }
 
-            if (furthestRoomCentre != null) {
-                Component[] exit = BlueprintParser.getComponentArrayForBlueprint(furnitureBlueprints, "exitStairs");
+        return position;
+    }
 
-                position = ComponentFinder.getPositionComponent(exit);
-                position.x = furthestRoomCentre.x;
-                position.y = furthestRoomCentre.y;
-                portal = ComponentFinder.getPortalComponent(exit);
-                portal.destFloor = currentFloor + 1;
+    private void placeStairs(String key, Vector2D location, int destFloor) {
+        Component[] stairs = BlueprintParser.getComponentArrayForBlueprint(furnitureBlueprints, key);
+        Position position = ComponentFinder.getPositionComponent(stairs);
+        position.x = location.x;
+        position.y = location.y;
+        Portal portal = ComponentFinder.getPortalComponent(stairs);
+        portal.destFloor = destFloor;
 
-                floorExit = furthestRoomCentre;
+        objectEntities.add(position.x, position.y, position.id);
+        componentManager.sortComponentArray(stairs);
+    }
 
-                objectEntities[position.x][position.y].add(position.id);
-                componentManager.sortComponentArray(exit);
+    /**
+     * Removes any enemies placed within ENTRANCE_SAFE_DISTANCE moves of entrance, so that player
+     * isn't attacked as soon as they arrive on floor.
+     */
 
-                Log.v(LOG_TAG, "path from start to finish was " + furthest + " moves");
-            } else {
-                Log.e(LOG_TAG, "Couldn't find room to place exit");
+    private void clearEnemiesNearEntrance() {
+        for (int i = 0; i < entranceDistances.getReachedCount(); i++) {
+            int tile = entranceDistances.getReachedTile(i);
+            int x = tile % mapWidth;
+            int y = tile / mapWidth;
+
+            if (entranceDistances.getDistance(x, y) > ENTRANCE_SAFE_DISTANCE) break;
+
+            int node = objectEntities.first(x, y);
+
+            while (node != TileOccupancy.NONE) {
+                long entity = objectEntities.get(node);
+
+                // Get next node before current node can be removed
+                node = objectEntities.next(node);
+
+                if (componentManager.has(entity, ComponentTypes.AI)) {
+                    objectEntities.remove(x, y, entity);
+                    componentManager.destroyEntity(entity);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns flat array (y * width + x) of tiles that can be walked through once floor is entered.
+     * Doors and enemies block movement, but are counted as traversable (doors can be opened, and
+     * enemies move or can be killed).
+     */
+
+    private boolean[] getTraversableTiles() {
+        boolean[] traversable = new boolean[mapWidth * mapHeight];
+
+        for (int y = 0; y < mapHeight; y++) {
+            for (int x = 0; x < mapWidth; x++) {
+                traversable[y * mapWidth + x] = isTraversableTile(x, y);
             }
         }
+
+        return traversable;
     }
 
-    private ArrayList<Vector2D> findShortestPath(Vector2D startNode, Vector2D goalNode) {
-        return findShortestPath(startNode, goalNode, Directions.All.values(), new boolean[mapWidth][mapHeight]);
+    private boolean isTraversableTile(int x, int y) {
+        if (terrainTiles[x][y] != null && TileCategorySorter.isWall(terrainTiles[x][y])) {
+            return false;
+        }
+
+        for (int node = objectEntities.first(x, y); node != TileOccupancy.NONE; node = objectEntities.next(node)) {
+            long entity = objectEntities.get(node);
+            Physics physics = (Physics) componentManager.getEntityComponent(entity, ComponentTypes.PHYSICS);
+
+            if (physics != null && !physics.isTraversable
+                    && !componentManager.has(entity, ComponentTypes.BARRIER)
+                    && !componentManager.has(entity, ComponentTypes.AI)) {
+
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public DistanceField getEntranceDistances() {
+        return entranceDistances;
     }
 
     private ArrayList<Vector2D> buildPath(Vector2D startNode, Vector2D goalNode, boolean[][] exclusions) {
@@ -2480,73 +2884,6 @@ public class ProceduralGenerator {
         }
     }
 
-    private ArrayList<Vector2D> findShortestPath(Vector2D startNode, Vector2D goalNode, Collection<Vector2D> directions, boolean[][] exclusions) {
-        ArrayList<Vector2D> optimalPath = new ArrayList<>();
-        ArrayList<Vector2D> openNodes = new ArrayList<>();
-        ArrayList<String> checkedNodes = new ArrayList<>();
-
-        if (startNode.equals(goalNode)) {
-            return optimalPath;
-        }
-
-        openNodes.add(startNode);
-
-        Vector2D lastNode = null;
-
-        while (openNodes.size() > 0) {
-            Vector2D currentNode = openNodes.remove(openNodes.size() - 1);
-
-            if (lastNode != null && lastNode.equals(currentNode)) {
-                // This probably shouldn't happen
-                Log.d(LOG_TAG, "Duplicate node in findShortestPath at " + lastNode.toString());
-                break;
-            }
-
-            Vector2D closestNode = null;
-            double bestDistance = Double.MAX_VALUE;
-
-            // Find adjacent node which is closest to goal
-            for (Vector2D direction : directions) {
-                Vector2D adjacentNode = currentNode.add(direction);
-
-                if (!inBounds(adjacentNode)) continue;
-
-                if (checkedNodes.contains(adjacentNode.toString())) continue;
-
-                if (detectCollisions(adjacentNode)) continue;
-
-                if (exclusions[adjacentNode.x][adjacentNode.y]) continue;
-
-                double distanceToGoal = GeometryHelper.getDistance(adjacentNode, goalNode);
-
-                if (distanceToGoal < bestDistance) {
-                    bestDistance = distanceToGoal;
-                    closestNode = adjacentNode;
-                }
-            }
-
-            if (closestNode == null || closestNode.equals(goalNode)) {
-                return optimalPath;
-            }
-
-            else {
-                checkedNodes.add(currentNode.toString());
-                lastNode = currentNode;
-                optimalPath.add(closestNode);
-                openNodes.add(closestNode);
-            }
-        }
-
-        if (lastNode == null || !lastNode.equals(goalNode)) {
-            Log.e(LOG_TAG, "Couldn't find path between nodes: " + startNode.toString() + " to " + goalNode.toString());
-            return new ArrayList<>();
-        }
-
-        else {
-            return optimalPath;
-        }
-    }
-
     private boolean detectCollisions(Vector2D position) {
         int x = position.x();
         int y = position.y();
@@ -2558,14 +2895,8 @@ public class ProceduralGenerator {
             }
         }
 
-        ArrayList<Long> objectStack = objectEntities[x][y];
-
-        if (objectStack == null || objectStack.size() == 0) {
-            return false;
-        }
-
-        for (Long entity : objectStack) {
-
+        for (int node = objectEntities.first(x, y); node != TileOccupancy.NONE; node = objectEntities.next(node)) {
+            long entity = objectEntities.get(node);
             Physics physics = (Physics) componentManager.getEntityComponent(entity, Physics.class.getSimpleName());
 
             if (physics.isBlocking || !physics.isTraversable) {
@@ -2596,15 +2927,10 @@ public class ProceduralGenerator {
             return false;
         }*/
 
-        ArrayList<Long> objectStack = objectEntities[x][y];
-
-        if (objectStack == null || objectStack.size() == 0) {
-            // At this point, we have already determined that terrain entity can be built over,
-            // and there are no objects to check
-            return true;
-        }
-
-        for (Long entity : objectStack) {
+        // At this point, we have already determined that terrain entity can be built over,
+        // so we just need to check objects
+        for (int node = objectEntities.first(x, y); node != TileOccupancy.NONE; node = objectEntities.next(node)) {
+            long entity = objectEntities.get(node);
             Physics physics = (Physics) componentManager.getEntityComponent(entity, Physics.class.getSimpleName());
 
             if (!physics.isTraversable && !physics.isDestructable) {
@@ -2627,7 +2953,7 @@ public class ProceduralGenerator {
 */
 
     private void generateCaverns(Chunk chunk) {
-        CellularAutomata automata = new CellularAutomata();
+        CellularAutomata automata = new CellularAutomata(rng);
         boolean[][] cavern = automata.generate(chunk);
 
         for (int x = 1; x < chunk.width - 1; x++) {
@@ -2684,7 +3010,7 @@ public class ProceduralGenerator {
             return;
         }
 
-        objectEntities[cell.x][cell.y].add(door[0].id);
+        objectEntities.add(cell.x, cell.y, door[0].id);
         componentManager.sortComponentArray(door);
 
         Position position = (Position) componentManager.getEntityComponent(door[0].id, Position.class.getSimpleName());
@@ -2768,16 +3094,16 @@ public class ProceduralGenerator {
         if (replace) {
             clearObjects(cell.x, cell.y);
         }
-        objectEntities[cell.x][cell.y].add(tile[0].id);
+        objectEntities.add(cell.x, cell.y, tile[0].id);
         componentManager.sortComponentArray(tile);
     }
 
     private void clearObjects(int x, int y) {
-        for (long entity : objectEntities[x][y]) {
-            componentManager.removeEntityComponents(entity);
+        for (int node = objectEntities.first(x, y); node != TileOccupancy.NONE; node = objectEntities.next(node)) {
+            componentManager.destroyEntity(objectEntities.get(node));
         }
 
-        objectEntities[x][y].clear();
+        objectEntities.clear(x, y);
     }
 
     private void addBorderToChunk(Chunk chunk, String[] borderTiles) {
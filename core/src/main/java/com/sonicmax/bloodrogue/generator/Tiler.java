@@ -13,9 +13,15 @@ import com.sonicmax.bloodrogue.utils.maths.RandomNumberGenerator;
 
 public class Tiler {
     private String tileset;
+    private RandomNumberGenerator rng;
 
     public Tiler(String theme) {
+        this(theme, new RandomNumberGenerator());
+    }
+
+    public Tiler(String theme, RandomNumberGenerator rng) {
         this.tileset = theme;
+        this.rng = rng;
     }
 
     public void setTileset(String tileset) {
@@ -75,7 +81,7 @@ public class Tiler {
                 return RuinsTileset.FLOOR;
 
             case ExteriorTileset.KEY:
-                return ExteriorTileset.GRASS[new RandomNumberGenerator().getRandomInt(0, ExteriorTileset.GRASS.length - 1)];
+                return ExteriorTileset.GRASS[rng.getRandomInt(0, ExteriorTileset.GRASS.length - 1)];
 
             default:
                 return BuildingTileset.FLOOR;
@@ -127,7 +133,7 @@ public class Tiler {
                 return RuinsTileset.BORDER;
 
             case ExteriorTileset.KEY:
-                return ExteriorTileset.TREES[new RandomNumberGenerator().getRandomInt(0, ExteriorTileset.TREES.length - 1)];
+                return ExteriorTileset.TREES[rng.getRandomInt(0, ExteriorTileset.TREES.length - 1)];
 
             default:
                 return GenericTileset.TRANSPARENT;
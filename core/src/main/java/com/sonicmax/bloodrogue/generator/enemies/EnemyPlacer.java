@@ -1,12 +1,12 @@
 package com.sonicmax.bloodrogue.generator.enemies;
 
-import android.content.res.AssetManager;
-
+import com.sonicmax.bloodrogue.data.AssetSource;
 import com.sonicmax.bloodrogue.data.BlueprintParser;
 import com.sonicmax.bloodrogue.data.JSONLoader;
 import com.sonicmax.bloodrogue.engine.Component;
 import com.sonicmax.bloodrogue.engine.ComponentManager;
 import com.sonicmax.bloodrogue.engine.components.Position;
+import com.sonicmax.bloodrogue.utils.collections.TileOccupancy;
 
 import org.json.JSONObject;
 
@@ -14,16 +14,16 @@ import java.util.ArrayList;
 import java.util.Iterator;
 
 public class EnemyPlacer {
-    private ArrayList<Long>[][] objectEntities;
+    private TileOccupancy objectEntities;
 
     private JSONObject enemyBlueprints;
     private ArrayList<String> allKeys;
     private ComponentManager componentManager;
 
-    public EnemyPlacer(ArrayList<Long>[][] objectEntities, AssetManager assetManager) {
+    public EnemyPlacer(TileOccupancy objectEntities, ComponentManager componentManager, AssetSource assetSource) {
         this.objectEntities = objectEntities;
-        this.componentManager = ComponentManager.getInstance();
-        this.enemyBlueprints = JSONLoader.loadEnemies(assetManager);
+        this.componentManager = componentManager;
+        this.enemyBlueprints = JSONLoader.loadEnemies(assetSource);
 
         Iterator<String> keys = enemyBlueprints.keys();
         this.allKeys = new ArrayList<>();
@@ -33,12 +33,18 @@ public class EnemyPlacer {
         }
     }
 
-    public void placeEnemy(int x, int y, String key) {
+    /**
+     * Creates enemy from blueprint and adds it to object grid at (x, y).
+     *
+     * @return Entity of new enemy
+     */
+
+    public long placeEnemy(int x, int y, String key) {
         Component[] enemy = getComponentsFromBlueprint(key);
         long entity = enemy[0].id;
         componentManager.sortComponentArray(enemy);
 
-        objectEntities[x][y].add(entity);
+        objectEntities.add(x, y, entity);
         componentManager.sortComponentArray(enemy);
 
         Position positionComponent = (Position) componentManager.getEntityComponent(entity, Position.class.getSimpleName());
@@ -47,6 +53,8 @@ public class EnemyPlacer {
             positionComponent.x = x;
             positionComponent.y = y;
         }
+
+        return entity;
     }
 
     private Component[] getComponentsFromBlueprint(String key) {
@@ -0,0 +1,470 @@
+package com.sonicmax.bloodrogue.generator.streaming;
+
+import com.sonicmax.bloodrogue.data.save.ChunkCodec;
+import com.sonicmax.bloodrogue.data.save.ChunkStore;
+import com.sonicmax.bloodrogue.generator.ProceduralGenerator;
+import com.sonicmax.bloodrogue.utils.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Keeps the chunks of an unbounded exterior around the player in memory, and everything else on
+ *  disk (or nowhere, if it can be generated again).
+ *
+ *  update() is called from the engine thread whenever the player moves:
+ *      - Chunks within load radius of the player's chunk must be resident. Missing chunks are read
+ *        from disk, or generated by ProceduralGenerator if they have never been stored.
+ *      - Chunks in the ring just outside of load radius are read/generated on a background thread,
+ *        so they're usually ready before the player crosses into them.
+ *      - If resident chunks use more than the memory budget, least recently used chunks outside of
+ *        load radius are evicted. Chunks which were changed are written to disk first, unchanged
+ *        chunks are simply dropped (they were either read from disk or can be regenerated exactly).
+ *
+ *  Reading, generating and writing all happen on one worker thread, in the order they were
+ *  queued, so a chunk is never read back before its last write has finished. Chunks are only
+ *  handed to the engine thread once complete, and resident chunks are only accessed from the
+ *  engine thread.
+ */
+
+public class ChunkStreamer {
+    private static final String LOG_TAG = "ChunkStreamer";
+
+    private final ProceduralGenerator generator;
+    private final ChunkStore store;
+    private final int loadRadius;
+    private final int prefetchRadius;
+    private final long memoryBudget;
+    private final ExecutorService worker;
+
+    // Access ordered, so iteration starts with least recently used chunk
+    private final LinkedHashMap<Long, ExteriorChunk> resident;
+    private final HashMap<Long, Future<ExteriorChunk>> pending;
+    private long residentSize;
+    private boolean warnedAboutBudget;
+
+    // Chunk containing player at last update
+    private int centreX;
+    private int centreY;
+
+    // Metrics. Counts are updated on worker thread
+    private volatile int generatedCount;
+    private volatile int readCount;
+    private volatile int writeCount;
+    private int evictedCount;
+    private long lastUpdateTime;
+
+    /**
+     * @param generator Generator used for missing chunks. Its seed and floor decide the world
+     * @param directory Directory where changed chunks are stored
+     * @param loadRadius Chunks within this many chunks of the player (in each direction) are kept resident
+     * @param memoryBudget Bytes which resident chunks can use before they are evicted (see ExteriorChunk.estimateSize())
+     */
+
+    public ChunkStreamer(ProceduralGenerator generator, File directory, int loadRadius, long memoryBudget) {
+        this.generator = generator;
+        this.store = new ChunkStore(directory);
+        this.loadRadius = Math.max(0, loadRadius);
+        this.prefetchRadius = this.loadRadius + 1;
+        this.memoryBudget = memoryBudget;
+        this.worker = Executors.newSingleThreadExecutor(new StreamerThreadFactory());
+        this.resident = new LinkedHashMap<>(64, 0.75f, true);
+        this.pending = new HashMap<>();
+    }
+
+    /*
+    ---------------------------------------------
+     Streaming
+    ---------------------------------------------
+    */
+
+    /**
+     * Loads chunks around player and evicts chunks over memory budget. Player position is in world
+     * coordinates.
+     */
+
+    public void update(int playerX, int playerY) {
+        long start = System.nanoTime();
+
+        centreX = ExteriorChunk.toChunk(playerX);
+        centreY = ExteriorChunk.toChunk(playerY);
+
+        collectFinished();
+
+        // Chunks nearest to player first, in case we have to wait for them
+        for (int radius = 0; radius <= loadRadius; radius++) {
+            for (long key : getRing(centreX, centreY, radius)) {
+                require(key);
+            }
+        }
+
+        for (long key : getRing(centreX, centreY, prefetchRadius)) {
+            if (!resident.containsKey(key) && !pending.containsKey(key)) {
+                pending.put(key, submitLoad(key));
+            }
+        }
+
+        evict();
+
+        lastUpdateTime = System.nanoTime() - start;
+    }
+
+    private void require(long key) {
+        if (resident.get(key) != null) return;
+
+        Future<ExteriorChunk> load = pending.remove(key);
+
+        if (load == null) {
+            load = submitLoad(key);
+        }
+
+        ExteriorChunk chunk;
+
+        try {
+            chunk = load.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Log.w(LOG_TAG, "Interrupted while waiting for chunk, loading on engine thread");
+            chunk = loadOrGenerate(getChunkX(key), getChunkY(key));
+        } catch (ExecutionException e) {
+            throw new Error("Error while loading chunk", e.getCause());
+        }
+
+        addResident(chunk);
+    }
+
+    /**
+     * Moves finished background loads into resident chunks. Loads for chunks which are no longer
+     * near the player are dropped - nothing was changed, so nothing is lost.
+     */
+
+    private void collectFinished() {
+        Iterator<Map.Entry<Long, Future<ExteriorChunk>>> iterator = pending.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Future<ExteriorChunk>> entry = iterator.next();
+            Future<ExteriorChunk> load = entry.getValue();
+
+            if (!load.isDone()) continue;
+
+            iterator.remove();
+
+            if (getDistance(entry.getKey()) > prefetchRadius) continue;
+
+            try {
+                addResident(load.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                throw new Error("Error while loading chunk", e.getCause());
+            }
+        }
+    }
+
+    private void addResident(ExteriorChunk chunk) {
+        chunk.residentSize = chunk.estimateSize();
+        resident.put(chunk.getKey(), chunk);
+        residentSize += chunk.residentSize;
+    }
+
+    private void evict() {
+        if (residentSize <= memoryBudget) return;
+
+        Iterator<ExteriorChunk> iterator = resident.values().iterator();
+
+        while (residentSize > memoryBudget && iterator.hasNext()) {
+            ExteriorChunk chunk = iterator.next();
+
+            if (getDistance(chunk.getKey()) <= loadRadius) continue;
+
+            if (!chunk.isStored()) {
+                submitWrite(chunk);
+            }
+
+            iterator.remove();
+            residentSize -= chunk.residentSize;
+            evictedCount++;
+        }
+
+        if (residentSize > memoryBudget && !warnedAboutBudget) {
+            Log.w(LOG_TAG, "Chunks within load radius use " + residentSize + " bytes, budget is " + memoryBudget);
+            warnedAboutBudget = true;
+        }
+    }
+
+    /**
+     * Writes every changed resident chunk to disk and waits for writes to finish. Chunks stay
+     * resident.
+     */
+
+    public void flush() {
+        for (ExteriorChunk chunk : resident.values()) {
+            if (!chunk.isStored()) {
+                submitWrite(chunk);
+            }
+        }
+
+        waitForWorker();
+    }
+
+    /**
+     * Flushes changed chunks and stops worker thread. Streamer can't be used afterwards.
+     */
+
+    public void shutdown() {
+        flush();
+        worker.shutdown();
+
+        try {
+            worker.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Deletes stored chunks, eg. when starting a new game. Resident chunks are discarded too.
+     */
+
+    public void clear() {
+        waitForWorker();
+        pending.clear();
+        resident.clear();
+        residentSize = 0;
+
+        worker.submit(new Runnable() {
+            @Override
+            public void run() {
+                store.clear();
+            }
+        });
+
+        waitForWorker();
+    }
+
+    /*
+    ---------------------------------------------
+     Worker tasks
+    ---------------------------------------------
+    */
+
+    private Future<ExteriorChunk> submitLoad(long key) {
+        final int chunkX = getChunkX(key);
+        final int chunkY = getChunkY(key);
+
+        return worker.submit(new Callable<ExteriorChunk>() {
+            @Override
+            public ExteriorChunk call() {
+                return loadOrGenerate(chunkX, chunkY);
+            }
+        });
+    }
+
+    private ExteriorChunk loadOrGenerate(int chunkX, int chunkY) {
+        ExteriorChunk chunk = null;
+
+        try {
+            chunk = store.read(chunkX, chunkY);
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Error while reading chunk " + chunkX + ", " + chunkY + ", generating it again", e);
+        }
+
+        if (chunk != null) {
+            readCount++;
+        }
+        else {
+            chunk = generator.generateExteriorChunk(chunkX, chunkY);
+            generatedCount++;
+        }
+
+        chunk.setStored(true);
+        return chunk;
+    }
+
+    private void submitWrite(ExteriorChunk chunk) {
+        // Encode on engine thread, so the engine can keep changing chunk while it's written
+        final byte[] data = ChunkCodec.encode(chunk);
+        final int chunkX = chunk.chunkX;
+        final int chunkY = chunk.chunkY;
+
+        chunk.setStored(true);
+
+        worker.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    store.write(chunkX, chunkY, data);
+                    writeCount++;
+                } catch (IOException e) {
+                    Log.e(LOG_TAG, "Error while writing chunk " + chunkX + ", " + chunkY, e);
+                }
+            }
+        });
+    }
+
+    private void waitForWorker() {
+        Future<?> marker = worker.submit(new Runnable() {
+            @Override
+            public void run() {}
+        });
+
+        try {
+            marker.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new Error("Error while waiting for chunk worker", e.getCause());
+        }
+    }
+
+    /*
+    ---------------------------------------------
+     Chunk-addressed access
+
+     Methods take world coordinates. Tiles in chunks which aren't resident are treated as empty.
+    ---------------------------------------------
+    */
+
+    /**
+     * Returns resident chunk containing tile, or null.
+     */
+
+    public ExteriorChunk getChunkAt(int x, int y) {
+        return resident.get(ExteriorChunk.getKey(ExteriorChunk.toChunk(x), ExteriorChunk.toChunk(y)));
+    }
+
+    public String getTerrain(int x, int y) {
+        ExteriorChunk chunk = getChunkAt(x, y);
+        if (chunk == null) return null;
+
+        return chunk.terrain[ExteriorChunk.toLocal(x)][ExteriorChunk.toLocal(y)];
+    }
+
+    public float getHeight(int x, int y) {
+        ExteriorChunk chunk = getChunkAt(x, y);
+        if (chunk == null) return 0f;
+
+        return chunk.heights[ExteriorChunk.toLocal(x)][ExteriorChunk.toLocal(y)];
+    }
+
+    public boolean isWater(int x, int y) {
+        ExteriorChunk chunk = getChunkAt(x, y);
+        return chunk != null && chunk.water.get(x, y);
+    }
+
+    public boolean isIndoor(int x, int y) {
+        ExteriorChunk chunk = getChunkAt(x, y);
+        return chunk != null && chunk.indoor.get(x, y);
+    }
+
+    /**
+     * Returns resident chunks, least recently used first. List is a copy.
+     */
+
+    public ArrayList<ExteriorChunk> getResidentChunks() {
+        return new ArrayList<>(resident.values());
+    }
+
+    /*
+    ---------------------------------------------
+     Metrics
+    ---------------------------------------------
+    */
+
+    public int getResidentCount() {
+        return resident.size();
+    }
+
+    public long getResidentSize() {
+        return residentSize;
+    }
+
+    public int getGeneratedCount() {
+        return generatedCount;
+    }
+
+    public int getReadCount() {
+        return readCount;
+    }
+
+    public int getWriteCount() {
+        return writeCount;
+    }
+
+    public int getEvictedCount() {
+        return evictedCount;
+    }
+
+    public long getLastUpdateTime() {
+        return lastUpdateTime;
+    }
+
+    /*
+    ---------------------------------------------
+     Helper methods/classes
+    ---------------------------------------------
+    */
+
+    private static int getChunkX(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static int getChunkY(long key) {
+        return (int) key;
+    }
+
+    /**
+     * Returns Chebyshev distance in chunks between chunk and player's chunk.
+     */
+
+    private int getDistance(long key) {
+        return Math.max(Math.abs(getChunkX(key) - centreX), Math.abs(getChunkY(key) - centreY));
+    }
+
+    /**
+     * Returns keys of chunks at exactly this distance from centre chunk.
+     */
+
+    private static ArrayList<Long> getRing(int centreX, int centreY, int radius) {
+        ArrayList<Long> ring = new ArrayList<>();
+
+        if (radius == 0) {
+            ring.add(ExteriorChunk.getKey(centreX, centreY));
+            return ring;
+        }
+
+        for (int x = centreX - radius; x <= centreX + radius; x++) {
+            ring.add(ExteriorChunk.getKey(x, centreY - radius));
+            ring.add(ExteriorChunk.getKey(x, centreY + radius));
+        }
+
+        for (int y = centreY - radius + 1; y < centreY + radius; y++) {
+            ring.add(ExteriorChunk.getKey(centreX - radius, y));
+            ring.add(ExteriorChunk.getKey(centreX + radius, y));
+        }
+
+        return ring;
+    }
+
+    private static class StreamerThreadFactory implements ThreadFactory {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "ChunkStreamer");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.sonicmax.bloodrogue.generator.streaming;
+
+import com.sonicmax.bloodrogue.generator.ExteriorChunkPlanner;
+import com.sonicmax.bloodrogue.generator.tools.BitGrid;
+import com.sonicmax.bloodrogue.utils.maths.Vector2D;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ *  One chunk of a streamed exterior: terrain, heights, indoor/water masks and the objects placed
+ *  on it. Objects are stored as plain data (kind, position and texture) rather than entities, so
+ *  chunks can be generated on a background thread, written to disk and read back without touching
+ *  a World - the engine creates entities when a chunk becomes active.
+ *
+ *  Terrain and height arrays are indexed by local coordinates [x][y]. Heights are per vertex, so
+ *  they have one extra row and column which overlaps the next chunk (both chunks sample the same
+ *  point, so meshes line up). Masks and object positions use world coordinates.
+ */
+
+public class ExteriorChunk {
+    public static final int SIZE = ExteriorChunkPlanner.CHUNK_SIZE;
+
+    // Chunk coordinates are world coordinates shifted right by this amount
+    public static final int SHIFT = Integer.numberOfTrailingZeros(SIZE);
+
+    public static final int TREE = 0;
+    public static final int FOREST = 1;
+    public static final int FLOWERS = 2;
+    public static final int GOAT = 3;
+
+    public final int chunkX;
+    public final int chunkY;
+    public final String[][] terrain;
+    public final float[][] heights;
+    public final BitGrid indoor;
+    public final BitGrid water;
+
+    // Objects in order they were placed. Goats don't have a texture
+    public final ArrayList<Vector2D> objectPositions = new ArrayList<>();
+    public final ArrayList<Integer> objectKinds = new ArrayList<>();
+    public final ArrayList<String> objectTextures = new ArrayList<>();
+
+    // True if disk copy matches this one (or chunk can be regenerated exactly from its seed)
+    private boolean stored;
+
+    // Size counted towards streamer's memory budget when chunk became resident
+    int residentSize;
+
+    public ExteriorChunk(int chunkX, int chunkY) {
+        this.chunkX = chunkX;
+        this.chunkY = chunkY;
+        this.terrain = new String[SIZE][SIZE];
+        this.heights = new float[SIZE + 1][SIZE + 1];
+        this.indoor = new BitGrid(getOriginX(), getOriginY(), SIZE, SIZE);
+        this.water = new BitGrid(getOriginX(), getOriginY(), SIZE, SIZE);
+    }
+
+    public static int toChunk(int world) {
+        // Arithmetic shift rounds down, so negative coordinates end up in the right chunk
+        return world >> SHIFT;
+    }
+
+    public static int toLocal(int world) {
+        return world & (SIZE - 1);
+    }
+
+    public static long getKey(int chunkX, int chunkY) {
+        return ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+    }
+
+    public int getOriginX() {
+        return chunkX << SHIFT;
+    }
+
+    public int getOriginY() {
+        return chunkY << SHIFT;
+    }
+
+    public long getKey() {
+        return getKey(chunkX, chunkY);
+    }
+
+    public void addObject(int kind, int x, int y, String texture) {
+        objectPositions.add(new Vector2D(x, y));
+        objectKinds.add(kind);
+        objectTextures.add(texture);
+    }
+
+    /**
+     * Replaces objects with those left on chunk when it stops being active (eg. after goats have
+     * moved or been killed). Chunk is only marked as changed if the set of objects differs.
+     */
+
+    public void replaceObjects(ArrayList<Vector2D> positions, ArrayList<Integer> kinds, ArrayList<String> textures) {
+        ArrayList<String> before = getObjectKeys(objectPositions, objectKinds, objectTextures);
+        ArrayList<String> after = getObjectKeys(positions, kinds, textures);
+
+        objectPositions.clear();
+        objectKinds.clear();
+        objectTextures.clear();
+
+        objectPositions.addAll(positions);
+        objectKinds.addAll(kinds);
+        objectTextures.addAll(textures);
+
+        if (!before.equals(after)) {
+            markChanged();
+        }
+    }
+
+    private static ArrayList<String> getObjectKeys(ArrayList<Vector2D> positions, ArrayList<Integer> kinds, ArrayList<String> textures) {
+        ArrayList<String> keys = new ArrayList<>(positions.size());
+
+        for (int i = 0; i < positions.size(); i++) {
+            Vector2D position = positions.get(i);
+            keys.add(kinds.get(i) + ":" + position.x + ":" + position.y + ":" + textures.get(i));
+        }
+
+        Collections.sort(keys);
+        return keys;
+    }
+
+    /**
+     * Should be called after chunk is modified (eg. object destroyed) so that it gets written to
+     * disk before being evicted.
+     */
+
+    public void markChanged() {
+        stored = false;
+    }
+
+    public boolean isStored() {
+        return stored;
+    }
+
+    void setStored(boolean stored) {
+        this.stored = stored;
+    }
+
+    /**
+     * Rough number of bytes used by chunk. Terrain strings are shared tileset paths, so only
+     * references are counted.
+     */
+
+    public int estimateSize() {
+        final int reference = 4;
+        final int objectSize = 48;
+
+        int terrainSize = SIZE * (SIZE * reference + 16);
+        int heightSize = (SIZE + 1) * ((SIZE + 1) * 4 + 16);
+        int maskSize = 2 * (SIZE * ((SIZE + 63) >>> 6) * 8 + 32);
+
+        return terrainSize + heightSize + maskSize + objectPositions.size() * objectSize;
+    }
+}
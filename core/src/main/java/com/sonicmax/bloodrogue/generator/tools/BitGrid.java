@@ -0,0 +1,613 @@
+package com.sonicmax.bloodrogue.generator.tools;
+
+import com.sonicmax.bloodrogue.utils.maths.Vector2D;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ *  Grid of bits packed 64 per long, one row after another. Used as a mask for map regions: testing
+ *  and changing membership is O(1), and set operations, neighbour tests, borders and corners are
+ *  worked out a whole word (64 tiles) at a time instead of tile by tile.
+ *
+ *  Methods take world coordinates. Grid covers the rectangle starting at (originX, originY), and
+ *  tiles outside of it are treated as unset.
+ */
+
+public class BitGrid {
+    private final int originX;
+    private final int originY;
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+
+    // Valid bits of last word in each row. Bits past the width are always kept clear
+    private final long lastWordMask;
+    private final long[] words;
+
+    public BitGrid(int width, int height) {
+        this(0, 0, width, height);
+    }
+
+    public BitGrid(int originX, int originY, int width, int height) {
+        this.originX = originX;
+        this.originY = originY;
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.lastWordMask = ((width & 63) == 0) ? -1L : (1L << (width & 63)) - 1;
+        this.words = new long[wordsPerRow * height];
+    }
+
+    /**
+     * Creates grid from array indexed [x][y], with origin at 0, 0.
+     */
+
+    public static BitGrid fromArray(boolean[][] tiles) {
+        int width = tiles.length;
+        int height = (width > 0) ? tiles[0].length : 0;
+        BitGrid grid = new BitGrid(width, height);
+
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (tiles[x][y]) {
+                    grid.setLocal(x, y);
+                }
+            }
+        }
+
+        return grid;
+    }
+
+    /**
+     * Creates grid covering bounding box of vectors, with each vector set.
+     */
+
+    public static BitGrid fromVectors(Collection<Vector2D> vectors) {
+        if (vectors.isEmpty()) {
+            return new BitGrid(0, 0);
+        }
+
+        int left = Integer.MAX_VALUE;
+        int right = Integer.MIN_VALUE;
+        int bottom = Integer.MAX_VALUE;
+        int top = Integer.MIN_VALUE;
+
+        for (Vector2D vector : vectors) {
+            left = Math.min(left, vector.x);
+            right = Math.max(right, vector.x);
+            bottom = Math.min(bottom, vector.y);
+            top = Math.max(top, vector.y);
+        }
+
+        BitGrid grid = new BitGrid(left, bottom, right - left + 1, top - bottom + 1);
+
+        for (Vector2D vector : vectors) {
+            grid.set(vector.x, vector.y);
+        }
+
+        return grid;
+    }
+
+    public int getOriginX() {
+        return originX;
+    }
+
+    public int getOriginY() {
+        return originY;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean inBounds(int x, int y) {
+        return x >= originX && x < originX + width && y >= originY && y < originY + height;
+    }
+
+    /*
+    ---------------------------------------------
+     Single tiles
+    ---------------------------------------------
+    */
+
+    public boolean get(int x, int y) {
+        return inBounds(x, y) && getLocal(x - originX, y - originY);
+    }
+
+    /**
+     * Sets tile. Tiles outside of grid are ignored.
+     */
+
+    public void set(int x, int y) {
+        if (inBounds(x, y)) {
+            setLocal(x - originX, y - originY);
+        }
+    }
+
+    public void set(int x, int y, boolean value) {
+        if (value) {
+            set(x, y);
+        }
+        else {
+            clear(x, y);
+        }
+    }
+
+    public void clear(int x, int y) {
+        if (inBounds(x, y)) {
+            int localX = x - originX;
+            words[(y - originY) * wordsPerRow + (localX >>> 6)] &= ~(1L << localX);
+        }
+    }
+
+    boolean getLocal(int x, int y) {
+        return (words[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    void setLocal(int x, int y) {
+        words[y * wordsPerRow + (x >>> 6)] |= 1L << x;
+    }
+
+    /*
+    ---------------------------------------------
+     Rectangles and rows
+    ---------------------------------------------
+    */
+
+    /**
+     * Sets every tile in rectangle (clipped to grid).
+     */
+
+    public void setRect(int x, int y, int rectWidth, int rectHeight) {
+        fillRect(x, y, rectWidth, rectHeight, true);
+    }
+
+    public void clearRect(int x, int y, int rectWidth, int rectHeight) {
+        fillRect(x, y, rectWidth, rectHeight, false);
+    }
+
+    private void fillRect(int x, int y, int rectWidth, int rectHeight, boolean value) {
+        int left = Math.max(x, originX) - originX;
+        int right = Math.min(x + rectWidth, originX + width) - originX;
+        int bottom = Math.max(y, originY) - originY;
+        int top = Math.min(y + rectHeight, originY + height) - originY;
+
+        if (left >= right) return;
+
+        for (int row = bottom; row < top; row++) {
+            fillRun(row, left, right, value);
+        }
+    }
+
+    /**
+     * Sets or clears local tiles [start, end) in row, one word at a time.
+     */
+
+    void fillRun(int row, int start, int end, boolean value) {
+        int base = row * wordsPerRow;
+        int firstWord = start >>> 6;
+        int lastWord = (end - 1) >>> 6;
+
+        for (int w = firstWord; w <= lastWord; w++) {
+            long mask = -1L;
+
+            if (w == firstWord) mask &= -1L << start;
+            if (w == lastWord) mask &= -1L >>> (63 - ((end - 1) & 63));
+
+            if (value) {
+                words[base + w] |= mask;
+            }
+            else {
+                words[base + w] &= ~mask;
+            }
+        }
+    }
+
+    /**
+     * Returns first set local x in row at or after fromX, or -1.
+     */
+
+    int nextSetBit(int row, int fromX) {
+        if (fromX >= width) return -1;
+
+        int base = row * wordsPerRow;
+        int w = fromX >>> 6;
+        long word = words[base + w] & (-1L << fromX);
+
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+
+            if (++w == wordsPerRow) return -1;
+
+            word = words[base + w];
+        }
+    }
+
+    /**
+     * Returns first clear local x in row at or after fromX, or width if rest of row is set.
+     */
+
+    int nextClearBit(int row, int fromX) {
+        if (fromX >= width) return width;
+
+        int base = row * wordsPerRow;
+        int w = fromX >>> 6;
+        long word = ~words[base + w] & (-1L << fromX);
+
+        while (true) {
+            if (word != 0) {
+                return Math.min(width, (w << 6) + Long.numberOfTrailingZeros(word));
+            }
+
+            if (++w == wordsPerRow) return width;
+
+            word = ~words[base + w];
+        }
+    }
+
+    /*
+    ---------------------------------------------
+     Whole grid
+    ---------------------------------------------
+    */
+
+    public void clear() {
+        for (int i = 0; i < words.length; i++) {
+            words[i] = 0;
+        }
+    }
+
+    public int count() {
+        int count = 0;
+
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+
+        return count;
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) return false;
+        }
+
+        return true;
+    }
+
+    public BitGrid copy() {
+        BitGrid copy = new BitGrid(originX, originY, width, height);
+        System.arraycopy(words, 0, copy.words, 0, words.length);
+        return copy;
+    }
+
+    /**
+     * Returns copy of grid covering given rectangle. Tiles outside of this grid are unset, and set
+     * tiles outside of the new rectangle are dropped.
+     */
+
+    public BitGrid resize(int newOriginX, int newOriginY, int newWidth, int newHeight) {
+        BitGrid resized = new BitGrid(newOriginX, newOriginY, newWidth, newHeight);
+
+        for (int row = 0; row < height; row++) {
+            int y = row + originY;
+            if (y < newOriginY || y >= newOriginY + newHeight) continue;
+
+            int start = nextSetBit(row, 0);
+
+            while (start != -1) {
+                int end = nextClearBit(row, start);
+                int left = Math.max(start + originX, newOriginX) - newOriginX;
+                int right = Math.min(end + originX, newOriginX + newWidth) - newOriginX;
+
+                if (left < right) {
+                    resized.fillRun(y - newOriginY, left, right, true);
+                }
+
+                start = nextSetBit(row, end);
+            }
+        }
+
+        return resized;
+    }
+
+    /**
+     * Returns copy of grid with margin of unset tiles added around each edge.
+     */
+
+    public BitGrid expand(int margin) {
+        return resize(originX - margin, originY - margin, width + margin * 2, height + margin * 2);
+    }
+
+    public void and(BitGrid other) {
+        checkSameBounds(other);
+
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= other.words[i];
+        }
+    }
+
+    public void or(BitGrid other) {
+        checkSameBounds(other);
+
+        for (int i = 0; i < words.length; i++) {
+            words[i] |= other.words[i];
+        }
+    }
+
+    public void andNot(BitGrid other) {
+        checkSameBounds(other);
+
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= ~other.words[i];
+        }
+    }
+
+    public boolean intersects(BitGrid other) {
+        checkSameBounds(other);
+
+        for (int i = 0; i < words.length; i++) {
+            if ((words[i] & other.words[i]) != 0) return true;
+        }
+
+        return false;
+    }
+
+    private void checkSameBounds(BitGrid other) {
+        if (other.originX != originX || other.originY != originY || other.width != width || other.height != height) {
+            throw new Error("Grids must cover the same area");
+        }
+    }
+
+    /**
+     * Returns every set tile, ordered by row and then column.
+     */
+
+    public ArrayList<Vector2D> toVectors() {
+        ArrayList<Vector2D> vectors = new ArrayList<>();
+
+        for (int row = 0; row < height; row++) {
+            int base = row * wordsPerRow;
+
+            for (int w = 0; w < wordsPerRow; w++) {
+                long word = words[base + w];
+
+                while (word != 0) {
+                    int x = (w << 6) + Long.numberOfTrailingZeros(word);
+                    vectors.add(new Vector2D(x + originX, row + originY));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        return vectors;
+    }
+
+    /**
+     * Returns set tile with lowest y (and lowest x in that row), or null if grid is empty.
+     */
+
+    public Vector2D getFirstTile() {
+        for (int row = 0; row < height; row++) {
+            int x = nextSetBit(row, 0);
+
+            if (x != -1) {
+                return new Vector2D(x + originX, row + originY);
+            }
+        }
+
+        return null;
+    }
+
+    /*
+    ---------------------------------------------
+     Neighbourhood operations
+    ---------------------------------------------
+    */
+
+    /**
+     * Returns word of row where bit i is set if tile (i + dx, row + dy) is set. dx must be -1, 0 or 1.
+     */
+
+    private long neighbours(int row, int w, int dx, int dy) {
+        int r = row + dy;
+        if (r < 0 || r >= height) return 0;
+
+        int base = r * wordsPerRow;
+        long word = words[base + w];
+
+        if (dx > 0) {
+            long next = (w + 1 < wordsPerRow) ? words[base + w + 1] : 0;
+            return (word >>> 1) | (next << 63);
+        }
+
+        else if (dx < 0) {
+            long previous = (w > 0) ? words[base + w - 1] : 0;
+            return (word << 1) | (previous >>> 63);
+        }
+
+        return word;
+    }
+
+    private long validBits(int w) {
+        return (w == wordsPerRow - 1) ? lastWordMask : -1L;
+    }
+
+    /**
+     * Returns grid with every set tile grown into its neighbours (clipped to grid).
+     *
+     * @param diagonal Also grow into diagonal neighbours
+     */
+
+    public BitGrid dilate(boolean diagonal) {
+        BitGrid result = new BitGrid(originX, originY, width, height);
+
+        for (int row = 0; row < height; row++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                long word = words[row * wordsPerRow + w]
+                        | neighbours(row, w, 1, 0) | neighbours(row, w, -1, 0)
+                        | neighbours(row, w, 0, 1) | neighbours(row, w, 0, -1);
+
+                if (diagonal) {
+                    word |= neighbours(row, w, 1, 1) | neighbours(row, w, -1, 1)
+                            | neighbours(row, w, 1, -1) | neighbours(row, w, -1, -1);
+                }
+
+                result.words[row * wordsPerRow + w] = word & validBits(w);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns set tiles which have at least one unset neighbour (tiles outside grid count as unset).
+     *
+     * @param diagonal Also check diagonal neighbours
+     */
+
+    public BitGrid getInnerBorder(boolean diagonal) {
+        BitGrid result = new BitGrid(originX, originY, width, height);
+
+        for (int row = 0; row < height; row++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                long surrounded = neighbours(row, w, 1, 0) & neighbours(row, w, -1, 0)
+                        & neighbours(row, w, 0, 1) & neighbours(row, w, 0, -1);
+
+                if (diagonal) {
+                    surrounded &= neighbours(row, w, 1, 1) & neighbours(row, w, -1, 1)
+                            & neighbours(row, w, 1, -1) & neighbours(row, w, -1, -1);
+                }
+
+                result.words[row * wordsPerRow + w] = words[row * wordsPerRow + w] & ~surrounded;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns unset tiles which are cardinally adjacent to a set tile. Grid is expanded by one tile
+     * on each side, so tiles just outside this grid are included.
+     */
+
+    public BitGrid getOuterBorder() {
+        BitGrid expanded = expand(1);
+        BitGrid border = expanded.dilate(false);
+        border.andNot(expanded);
+        return border;
+    }
+
+    /**
+     * Returns corner tiles of region. Tiles with two unset cardinal neighbours are outer corners,
+     * and tiles with a single unset diagonal neighbour are inner corners. Neighbours are counted
+     * for 64 tiles at once with bit-sliced adders.
+     */
+
+    public BitGrid getCorners() {
+        BitGrid result = new BitGrid(originX, originY, width, height);
+
+        for (int row = 0; row < height; row++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                long twoCardinalSpaces = exactlyTwo(
+                        ~neighbours(row, w, 1, 0), ~neighbours(row, w, -1, 0),
+                        ~neighbours(row, w, 0, 1), ~neighbours(row, w, 0, -1));
+
+                long oneDiagonalSpace = exactlyOne(
+                        ~neighbours(row, w, 1, 1), ~neighbours(row, w, -1, 1),
+                        ~neighbours(row, w, 1, -1), ~neighbours(row, w, -1, -1));
+
+                result.words[row * wordsPerRow + w] = words[row * wordsPerRow + w] & (twoCardinalSpaces | oneDiagonalSpace);
+            }
+        }
+
+        return result;
+    }
+
+    private static long exactlyOne(long a, long b, long c, long d) {
+        long sumAB = a ^ b;
+        long carryAB = a & b;
+        long sumCD = c ^ d;
+        long carryCD = c & d;
+
+        long ones = sumAB ^ sumCD;
+        long twos = (sumAB & sumCD) ^ carryAB ^ carryCD;
+        long fours = carryAB & carryCD;
+
+        return ones & ~twos & ~fours;
+    }
+
+    private static long exactlyTwo(long a, long b, long c, long d) {
+        long sumAB = a ^ b;
+        long carryAB = a & b;
+        long sumCD = c ^ d;
+        long carryCD = c & d;
+
+        long ones = sumAB ^ sumCD;
+        long twos = (sumAB & sumCD) ^ carryAB ^ carryCD;
+        long fours = carryAB & carryCD;
+
+        return ~ones & twos & ~fours;
+    }
+
+    /**
+     * Returns region of set tiles which are cardinally connected to given tile (empty if tile isn't
+     * set). Fills whole runs of each row at a time.
+     */
+
+    public BitGrid floodFill(int x, int y) {
+        BitGrid filled = new BitGrid(originX, originY, width, height);
+
+        if (!get(x, y)) return filled;
+
+        int[] stack = new int[64];
+        int size = 0;
+
+        stack[size++] = x - originX;
+        stack[size++] = y - originY;
+
+        while (size > 0) {
+            int row = stack[--size];
+            int localX = stack[--size];
+
+            if (filled.getLocal(localX, row)) continue;
+
+            // Find run of set tiles containing seed
+            int start = localX;
+            while (start > 0 && getLocal(start - 1, row)) start--;
+            int end = nextClearBit(row, localX);
+
+            filled.fillRun(row, start, end, true);
+
+            // Push first tile of each unfilled run that touches this run in rows above and below
+            for (int next = row - 1; next <= row + 1; next += 2) {
+                if (next < 0 || next >= height) continue;
+
+                int runStart = nextSetBit(next, start);
+
+                while (runStart != -1 && runStart < end) {
+                    if (!filled.getLocal(runStart, next)) {
+                        if (size + 2 > stack.length) {
+                            stack = Arrays.copyOf(stack, stack.length << 1);
+                        }
+
+                        stack[size++] = runStart;
+                        stack[size++] = next;
+                    }
+
+                    runStart = nextSetBit(next, nextClearBit(next, runStart));
+                }
+            }
+        }
+
+        return filled;
+    }
+}
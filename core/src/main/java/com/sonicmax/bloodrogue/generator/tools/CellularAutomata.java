@@ -0,0 +1,600 @@
+package com.sonicmax.bloodrogue.generator.tools;
+
+import com.sonicmax.bloodrogue.generator.Chunk;
+import com.sonicmax.bloodrogue.utils.Array2DHelper;
+import com.sonicmax.bloodrogue.utils.maths.CounterRandom;
+import com.sonicmax.bloodrogue.utils.maths.RandomNumberGenerator;
+import com.sonicmax.bloodrogue.utils.maths.Vector2D;
+
+import java.util.ArrayList;
+
+/**
+ *  Cellular automaton used for caverns, lakes, forests and snow cover.
+ *
+ *  Cells are packed 64 to a long, one row after another. Neighbour counts are kept as four bit
+ *  planes (bits 0-3 of the count for every cell) which are worked out with bit-sliced adders, so
+ *  birth/death rules and the edge map are calculated for 64 cells at once. Current and next cells
+ *  are double-buffered, so steps don't allocate.
+ *
+ *  Only words whose neighbourhood changed in the last step are stepped again - with deterministic
+ *  rules other cells can't change, so this gives exactly the same result as stepping every cell.
+ *  This only holds while rules stay the same, so the step after a rule changes visits every cell.
+ *  When random birth/death is enabled every cell is stepped, unless dirty region mode is on (in
+ *  which case random births and deaths also only happen near cells that changed).
+ *
+ *  Random numbers come from CounterRandom, keyed from the generator passed in and counted by step
+ *  and word, so they don't depend on which words were stepped.
+ *
+ *  Border cells are always dead, and the edge map is -1 for dead cells. Living cells get 0-3 in
+ *  edge map depending on how many living neighbours they have (0, 1-3, 4-6 or 7-8).
+ */
+
+public class CellularAutomata {
+    private final String LOG_TAG = this.getClass().getSimpleName();
+    private final int NONE = -1;
+
+    // Random bits are generated with 16 bit precision (see getRandomMask())
+    private static final int CHANCE_BITS = 16;
+    private static final int ONE = 1 << CHANCE_BITS;
+
+    // Separate counter streams for each use of random numbers
+    private static final int STREAM_START_ALIVE = 0;
+    private static final int STREAM_DIE = 1;
+    private static final int STREAM_RESURRECT = 2;
+    private static final int STREAM_COUNT = 3;
+
+    private int birthLimit;
+    private int deathLimit;
+    private int numberOfSmoothingSteps;
+    private float chanceToStartAlive;
+    private float chanceToDie;
+    private float chanceToResurrect;
+    private boolean bringAlive;
+    private boolean killAlive;
+    private boolean dirtyRegionMode;
+
+    // Set when a rule changes. Cells which were stable under old rules may not be under new ones
+    private boolean rulesChanged;
+
+    private int width;
+    private int height;
+    private int wordsPerRow;
+    private long[] interiorMask;
+
+    private long[] cells;
+    private long[] nextCells;
+
+    // Neighbour count of each cell, one bit plane per bit of count
+    private long[] count0;
+    private long[] count1;
+    private long[] count2;
+    private long[] count3;
+
+    // Words whose neighbourhood changed in last step
+    private boolean[] active;
+    private boolean[] nextActive;
+
+    // Packed copy of what edge map currently holds, so that only changed tiles are written
+    private long[] edgeAlive;
+    private long[] edgeHigh;
+    private long[] edgeLow;
+    private boolean edgeMapStale;
+
+    private int[][] edgeMap;
+    private Chunk chunk;
+    private RandomNumberGenerator rng;
+    private long key;
+    private long step;
+
+    public CellularAutomata() {
+        this(new RandomNumberGenerator());
+    }
+
+    /**
+     * @param rng Generator used to seed initial cells. Pass a seeded generator to get the same map each time.
+     */
+
+    public CellularAutomata(RandomNumberGenerator rng) {
+        this.rng = rng;
+        useDefaultParams();
+    }
+
+    public void setParams(int birthLimit, int deathLimit, int numberOfSmoothingSteps, float chanceToStartAlive) {
+        setBirthLimit(birthLimit);
+        setDeathLimit(deathLimit);
+        this.numberOfSmoothingSteps = numberOfSmoothingSteps;
+        this.chanceToStartAlive = chanceToStartAlive;
+    }
+
+    public CellularAutomata setBirthLimit(int limit) {
+        rulesChanged |= (birthLimit != limit);
+        birthLimit = limit;
+        return this;
+    }
+
+    public CellularAutomata setDeathLimit(int limit) {
+        rulesChanged |= (deathLimit != limit);
+        deathLimit = limit;
+        return this;
+    }
+
+    public CellularAutomata setChanceToStartAlive(float chance) {
+        chanceToStartAlive = chance;
+        return this;
+    }
+
+    public CellularAutomata setChanceToDie(float chance) {
+        rulesChanged |= (chanceToDie != chance);
+        chanceToDie = chance;
+        return this;
+    }
+
+    public CellularAutomata setChanceToResurrect(float chance) {
+        rulesChanged |= (chanceToResurrect != chance);
+        chanceToResurrect = chance;
+        return this;
+    }
+
+    public CellularAutomata setBringAlive(boolean value) {
+        rulesChanged |= (bringAlive != value);
+        bringAlive = value;
+        return this;
+    }
+
+    public CellularAutomata setKillAlive(boolean value) {
+        rulesChanged |= (killAlive != value);
+        killAlive = value;
+        return this;
+    }
+
+    /**
+     * When enabled, steps with random birth/death rules only visit cells near cells that changed in
+     * the previous step (instead of every cell). Steps with deterministic rules always do this.
+     */
+
+    public CellularAutomata setDirtyRegionMode(boolean value) {
+        dirtyRegionMode = value;
+        return this;
+    }
+
+    public void useDefaultParams() {
+        setBirthLimit(4);
+        setDeathLimit(3);
+        numberOfSmoothingSteps = 2;
+        chanceToStartAlive = 0.4f;
+        setChanceToDie(0.0f);
+        setBringAlive(false);
+        setKillAlive(false);
+        dirtyRegionMode = false;
+    }
+
+    /**
+     * Returns edge map (indexed [x][y]). Same array is updated in place by each step until
+     * simulation is prepared again.
+     */
+
+    public int[][] getEdgeMap() {
+        return edgeMap;
+    }
+
+    public boolean[][] generate(Chunk chunk) {
+        prepareSimulation(chunk);
+
+        for (int i = 0; i < numberOfSmoothingSteps; i++) {
+            doSimulationStep();
+        }
+
+        return getCellMap();
+    }
+
+    /**
+     * Same as generate(chunk), but starting cells are chosen by world position (see
+     * prepareSimulation(Chunk, long)).
+     */
+
+    public boolean[][] generate(Chunk chunk, long worldKey) {
+        prepareSimulation(chunk, worldKey);
+
+        for (int i = 0; i < numberOfSmoothingSteps; i++) {
+            doSimulationStep();
+        }
+
+        return getCellMap();
+    }
+
+    public void prepareSimulation(Chunk chunk) {
+        allocate(chunk);
+        key = rng.getRandomLong();
+        initialiseCellMap();
+    }
+
+    /**
+     * Prepares simulation with starting cells chosen by world position rather than by position in
+     * chunk. Overlapping areas prepared with the same key start with the same cells where they
+     * overlap, so a large area can be simulated in separate chunks (each with a margin wider than
+     * the number of steps) and every chunk still matches a single run over the whole area.
+     *
+     * @param chunk Area to simulate, in world coordinates
+     * @param worldKey Key for starting cells and random rules (eg. derived from floor seed)
+     */
+
+    public void prepareSimulation(Chunk chunk, long worldKey) {
+        allocate(chunk);
+        key = worldKey;
+
+        int threshold = Math.round(chanceToStartAlive * ONE);
+
+        for (int y = 1; y < height - 1; y++) {
+            for (int x = 1; x < width - 1; x++) {
+                long position = ((long) (chunk.x + x) << 32) ^ ((chunk.y + y) & 0xFFFFFFFFL);
+
+                // Top CHANCE_BITS bits, so same precision as getRandomMask()
+                if ((CounterRandom.get(worldKey, position) >>> (64 - CHANCE_BITS)) < threshold) {
+                    cells[y * wordsPerRow + (x >>> 6)] |= 1L << x;
+                }
+            }
+        }
+
+        initialiseCounts();
+    }
+
+    private void allocate(Chunk chunk) {
+        this.chunk = chunk;
+        this.width = chunk.width;
+        this.height = chunk.height;
+        this.wordsPerRow = (width + 63) >>> 6;
+
+        int size = wordsPerRow * height;
+
+        cells = new long[size];
+        nextCells = new long[size];
+        count0 = new long[size];
+        count1 = new long[size];
+        count2 = new long[size];
+        count3 = new long[size];
+        active = new boolean[size];
+        nextActive = new boolean[size];
+        edgeAlive = new long[size];
+        edgeHigh = new long[size];
+        edgeLow = new long[size];
+
+        interiorMask = new long[wordsPerRow];
+
+        for (int x = 1; x < width - 1; x++) {
+            interiorMask[x >>> 6] |= 1L << x;
+        }
+
+        edgeMap = Array2DHelper.fillIntArray(width, height, NONE);
+        edgeMapStale = true;
+        step = 0;
+    }
+
+    /**
+     * Returns copy of current cells (indexed [x][y]).
+     */
+
+    public boolean[][] getCellMap() {
+        boolean[][] cellMap = new boolean[width][height];
+
+        for (int y = 0; y < height; y++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                long word = cells[y * wordsPerRow + w];
+
+                while (word != 0) {
+                    cellMap[(w << 6) + Long.numberOfTrailingZeros(word)][y] = true;
+                    word &= word - 1;
+                }
+            }
+        }
+
+        return cellMap;
+    }
+
+    public ArrayList<Vector2D> getVectors() {
+        ArrayList<Vector2D> vectors = new ArrayList<>();
+        boolean[][] cellMap = getCellMap();
+
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (cellMap[x][y]) {
+                    vectors.add(new Vector2D(x, y));
+                }
+            }
+        }
+
+        return vectors;
+    }
+
+    private void initialiseCellMap() {
+        for (int y = 1; y < height - 1; y++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                int i = y * wordsPerRow + w;
+                cells[i] = getRandomMask(i, STREAM_START_ALIVE, chanceToStartAlive) & interiorMask[w];
+            }
+        }
+
+        initialiseCounts();
+    }
+
+    private void initialiseCounts() {
+        for (int y = 1; y < height - 1; y++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                int i = y * wordsPerRow + w;
+                countNeighbours(i, w);
+                active[i] = true;
+            }
+        }
+    }
+
+    /*
+    ---------------------------------------------
+     Simulation
+    ---------------------------------------------
+    */
+
+    public void doSimulationStep() {
+        boolean random = (killAlive && chanceToDie > 0) || (bringAlive && chanceToResurrect > 0);
+        boolean stepAll = (random && !dirtyRegionMode) || rulesChanged;
+
+        rulesChanged = false;
+
+        for (int i = 0; i < nextActive.length; i++) {
+            nextActive[i] = false;
+        }
+
+        for (int y = 1; y < height - 1; y++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                int i = y * wordsPerRow + w;
+
+                if (!stepAll && !active[i]) {
+                    nextCells[i] = cells[i];
+                    continue;
+                }
+
+                nextCells[i] = applyRules(i, w);
+
+                long changed = nextCells[i] ^ cells[i];
+
+                if (changed != 0) {
+                    markNeighbourhood(y, w, changed);
+                }
+            }
+        }
+
+        long[] swapCells = cells;
+        cells = nextCells;
+        nextCells = swapCells;
+
+        boolean[] swapActive = active;
+        active = nextActive;
+        nextActive = swapActive;
+
+        // Neighbour counts can only change near cells which changed
+        for (int y = 1; y < height - 1; y++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                int i = y * wordsPerRow + w;
+
+                if (active[i]) {
+                    countNeighbours(i, w);
+                }
+
+                if (active[i] || edgeMapStale) {
+                    updateEdgeMap(i, y, w);
+                }
+            }
+        }
+
+        edgeMapStale = false;
+        step++;
+    }
+
+    private long applyRules(int i, int w) {
+        long alive = cells[i];
+
+        // Living cells die if they have fewer than deathLimit neighbours, and dead cells are born if
+        // they have more than birthLimit neighbours
+        long survives = alive & atLeast(i, deathLimit);
+        long born = ~alive & atLeast(i, birthLimit + 1);
+
+        if (killAlive) {
+            survives &= ~getRandomMask(i, STREAM_DIE, chanceToDie);
+        }
+
+        if (bringAlive) {
+            born |= ~alive & getRandomMask(i, STREAM_RESURRECT, chanceToResurrect);
+        }
+
+        return (survives | born) & interiorMask[w];
+    }
+
+    /**
+     * Marks words which have changed cell within their neighbourhood.
+     */
+
+    private void markNeighbourhood(int y, int w, long changed) {
+        boolean left = w > 0 && (changed & 1L) != 0;
+        boolean right = w < wordsPerRow - 1 && (changed & (1L << 63)) != 0;
+
+        for (int row = Math.max(1, y - 1); row <= Math.min(height - 2, y + 1); row++) {
+            int i = row * wordsPerRow + w;
+            nextActive[i] = true;
+            if (left) nextActive[i - 1] = true;
+            if (right) nextActive[i + 1] = true;
+        }
+    }
+
+    /*
+    ---------------------------------------------
+     Neighbour counting
+    ---------------------------------------------
+    */
+
+    /**
+     * Counts living neighbours of each cell in word, storing count in bit planes. Cells must be
+     * in interior rows, so rows above and below always exist.
+     */
+
+    private void countNeighbours(int i, int w) {
+        int above = i + wordsPerRow;
+        int below = i - wordsPerRow;
+
+        long aboveLeft = shiftLeft(above, w);
+        long aboveRight = shiftRight(above, w);
+        long aboveSum = aboveLeft ^ cells[above] ^ aboveRight;
+        long aboveCarry = (aboveLeft & cells[above]) | (aboveRight & (aboveLeft ^ cells[above]));
+
+        long belowLeft = shiftLeft(below, w);
+        long belowRight = shiftRight(below, w);
+        long belowSum = belowLeft ^ cells[below] ^ belowRight;
+        long belowCarry = (belowLeft & cells[below]) | (belowRight & (belowLeft ^ cells[below]));
+
+        long left = shiftLeft(i, w);
+        long right = shiftRight(i, w);
+        long middleSum = left ^ right;
+        long middleCarry = left & right;
+
+        // Add the three rows: ones first, then the four carries which are each worth two
+        long ones = aboveSum ^ belowSum ^ middleSum;
+        long onesCarry = (aboveSum & belowSum) | (middleSum & (aboveSum ^ belowSum));
+
+        long sumA = aboveCarry ^ belowCarry;
+        long carryA = aboveCarry & belowCarry;
+        long sumB = middleCarry ^ onesCarry;
+        long carryB = middleCarry & onesCarry;
+
+        count0[i] = ones;
+        count1[i] = sumA ^ sumB;
+        count2[i] = (sumA & sumB) ^ carryA ^ carryB;
+        count3[i] = carryA & carryB;
+    }
+
+    /**
+     * Returns word where each bit is the state of the cell to its left.
+     */
+
+    private long shiftLeft(int i, int w) {
+        long previous = (w > 0) ? cells[i - 1] >>> 63 : 0;
+        return (cells[i] << 1) | previous;
+    }
+
+    /**
+     * Returns word where each bit is the state of the cell to its right.
+     */
+
+    private long shiftRight(int i, int w) {
+        long next = (w < wordsPerRow - 1) ? cells[i + 1] << 63 : 0;
+        return (cells[i] >>> 1) | next;
+    }
+
+    /**
+     * Returns mask of cells in word with at least given number of neighbours. Compares bit planes
+     * against limit from most significant bit down.
+     */
+
+    private long atLeast(int i, int limit) {
+        if (limit <= 0) return -1L;
+        if (limit > 8) return 0;
+
+        long greater = 0;
+        long equal = -1L;
+
+        if ((limit & 8) != 0) {
+            equal &= count3[i];
+        }
+        else {
+            greater |= equal & count3[i];
+            equal &= ~count3[i];
+        }
+
+        if ((limit & 4) != 0) {
+            equal &= count2[i];
+        }
+        else {
+            greater |= equal & count2[i];
+            equal &= ~count2[i];
+        }
+
+        if ((limit & 2) != 0) {
+            equal &= count1[i];
+        }
+        else {
+            greater |= equal & count1[i];
+            equal &= ~count1[i];
+        }
+
+        if ((limit & 1) != 0) {
+            equal &= count0[i];
+        }
+        else {
+            greater |= equal & count0[i];
+            equal &= ~count0[i];
+        }
+
+        return greater | equal;
+    }
+
+    private void updateEdgeMap(int i, int y, int w) {
+        long alive = cells[i];
+
+        // Intensity 0-3 as two bits: high for 4+ neighbours, low for 1-3 or 7-8 neighbours
+        long four = atLeast(i, 4);
+        long high = four;
+        long low = (atLeast(i, 1) & ~four) | atLeast(i, 7);
+
+        long changed = (alive ^ edgeAlive[i]) | (alive & ((high ^ edgeHigh[i]) | (low ^ edgeLow[i])));
+
+        while (changed != 0) {
+            int bit = Long.numberOfTrailingZeros(changed);
+            int x = (w << 6) + bit;
+
+            if ((alive >>> bit & 1L) != 0) {
+                edgeMap[x][y] = (int) ((high >>> bit & 1L) << 1 | (low >>> bit & 1L));
+            }
+            else {
+                edgeMap[x][y] = NONE;
+            }
+
+            changed &= changed - 1;
+        }
+
+        edgeAlive[i] = alive;
+        edgeHigh[i] = high;
+        edgeLow[i] = low;
+    }
+
+    /*
+    ---------------------------------------------
+     Random numbers
+    ---------------------------------------------
+    */
+
+    /**
+     * Returns word where each bit is set with given chance. Random words are combined one bit of
+     * chance at a time (OR for set bits, AND for clear bits, from least significant upwards), so
+     * probability is chance rounded to 16 bits and only a few random words are needed per 64 cells.
+     */
+
+    private long getRandomMask(int i, int stream, float chance) {
+        int threshold = Math.round(chance * ONE);
+
+        if (threshold <= 0) return 0;
+        if (threshold >= ONE) return -1L;
+
+        long counter = ((step * cells.length + i) * STREAM_COUNT + stream) * CHANCE_BITS;
+        long mask = 0;
+
+        // Clear bits below lowest set bit would AND with an empty mask, so skip them
+        for (int bit = Integer.numberOfTrailingZeros(threshold); bit < CHANCE_BITS; bit++) {
+            long random = CounterRandom.get(key, counter + bit);
+
+            if ((threshold & (1 << bit)) != 0) {
+                mask |= random;
+            }
+            else {
+                mask &= random;
+            }
+        }
+
+        return mask;
+    }
+}
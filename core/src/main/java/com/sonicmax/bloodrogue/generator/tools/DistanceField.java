@@ -0,0 +1,130 @@
+package com.sonicmax.bloodrogue.generator.tools;
+
+import java.util.Arrays;
+
+/**
+ *  Walking distances from a single origin tile to every other tile, found with one breadth-first
+ *  flood over a flat traversability array (indexed y * width + x). Moves are 8-directional, same as
+ *  the player, so distances are exact numbers of moves. Diagonal moves can't cut corners (same as
+ *  PathFinder).
+ *
+ *  Tiles are also recorded in the order they were reached, which is in order of increasing
+ *  distance - so nearest/furthest tiles matching some condition can be found without sorting.
+ */
+
+public class DistanceField {
+    public static final int UNREACHABLE = -1;
+
+    private static final int[] DX = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final int[] DY = {-1, -1, -1, 0, 0, 1, 1, 1};
+
+    private final int width;
+    private final int height;
+    private final int[] distances;
+    private final int[] order;
+    private int reachedCount;
+    private int origin;
+
+    public DistanceField(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.distances = new int[width * height];
+        this.order = new int[width * height];
+        this.origin = -1;
+    }
+
+    /**
+     * Floods outwards from origin. Origin is always reached, even if it isn't traversable itself.
+     *
+     * @param traversable Flat array (y * width + x) of tiles that can be walked through
+     */
+
+    public void build(boolean[] traversable, int originX, int originY) {
+        Arrays.fill(distances, UNREACHABLE);
+
+        origin = originY * width + originX;
+        distances[origin] = 0;
+        order[0] = origin;
+
+        int head = 0;
+        int tail = 1;
+
+        while (head < tail) {
+            int tile = order[head++];
+            int x = tile % width;
+            int y = tile / width;
+            int nextDistance = distances[tile] + 1;
+
+            for (int i = 0; i < DX.length; i++) {
+                int nx = x + DX[i];
+                int ny = y + DY[i];
+
+                if (nx < 0 || nx >= width || ny < 0 || ny >= height) continue;
+
+                int next = ny * width + nx;
+
+                if (distances[next] != UNREACHABLE || !traversable[next]) continue;
+
+                // Don't allow diagonal moves to squeeze past blocked tiles
+                if (DX[i] != 0 && DY[i] != 0
+                        && (!traversable[y * width + nx] || !traversable[ny * width + x])) continue;
+
+                distances[next] = nextDistance;
+                order[tail++] = next;
+            }
+        }
+
+        reachedCount = tail;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getOriginX() {
+        return origin % width;
+    }
+
+    public int getOriginY() {
+        return origin / width;
+    }
+
+    /**
+     * Returns number of moves from origin to tile, or UNREACHABLE.
+     */
+
+    public int getDistance(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) return UNREACHABLE;
+
+        return distances[y * width + x];
+    }
+
+    public boolean isReachable(int x, int y) {
+        return getDistance(x, y) != UNREACHABLE;
+    }
+
+    /**
+     * Returns number of tiles reached from origin (including origin).
+     */
+
+    public int getReachedCount() {
+        return reachedCount;
+    }
+
+    /**
+     * Returns index (y * width + x) of nth tile reached. Tiles are in order of increasing distance,
+     * so getReachedTile(0) is the origin and getReachedTile(getReachedCount() - 1) is furthest away.
+     */
+
+    public int getReachedTile(int n) {
+        return order[n];
+    }
+
+    public int getMaxDistance() {
+        return distances[order[reachedCount - 1]];
+    }
+}
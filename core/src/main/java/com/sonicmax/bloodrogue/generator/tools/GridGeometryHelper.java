@@ -0,0 +1,220 @@
+package com.sonicmax.bloodrogue.generator.tools;
+
+import com.sonicmax.bloodrogue.generator.Chunk;
+import com.sonicmax.bloodrogue.generator.MapRegion;
+import com.sonicmax.bloodrogue.utils.Log;
+import com.sonicmax.bloodrogue.utils.maths.Vector2D;
+
+import java.util.ArrayList;
+
+/**
+ * Contains some methods to aid in geometric grid calculations (eg. finding corners in a region,
+ * finding sides, finding adjacent sides, etc)
+ */
+
+public class GridGeometryHelper {
+    public static final String LOG_TAG = "GridGeometryHelper";
+
+    // Directions used when walking edge of region, in anticlockwise order (east, north, west, south)
+    private static final int[] SIDE_DX = {1, 0, -1, 0};
+    private static final int[] SIDE_DY = {0, 1, 0, -1};
+
+    /**
+     * Given an array of grid squares, finds corner tiles and returns as array.
+     * Note: assumes that region contains a contiguous region of tiles. Will probably give
+     * bad results otherwise.
+     *
+     * @param region Array of vectors to test
+     * @return Array of corners
+     */
+
+    public static ArrayList<Vector2D> findCorners(ArrayList<Vector2D> region) {
+        return findCorners(BitGrid.fromVectors(region));
+    }
+
+    /**
+     * Finds corner tiles of region mask. Tiles with two empty cardinal neighbours are outer corners,
+     * and tiles with a single empty diagonal neighbour are inner corners.
+     *
+     * @param region Mask of region
+     * @return Array of corners, ordered by row and then column
+     */
+
+    public static ArrayList<Vector2D> findCorners(BitGrid region) {
+        return region.getCorners().toVectors();
+    }
+
+    /**
+     * Finds corner tiles and returns array of inner corners (ie. inside corner of room vs. corner of wall).
+     * Rooms don't include their walls, so these are the same tiles as findCorners()
+     */
+
+    public static ArrayList<Vector2D> findInsideCorners(ArrayList<Vector2D> region) {
+        return findCorners(BitGrid.fromVectors(region));
+    }
+
+    /**
+     * Returns empty tiles which are cardinally adjacent to region, each one listed once.
+     */
+
+    public static ArrayList<Vector2D> getBorderVectorsFromRegion(MapRegion region) {
+        return region.getMask().getOuterBorder().toVectors();
+    }
+
+    public static ArrayList<Vector2D[]> findRectSides(ArrayList<Vector2D> corners) {
+        ArrayList<Vector2D[]> sides = new ArrayList<>();
+
+        int lowestX = Integer.MAX_VALUE;
+        int highestX = Integer.MIN_VALUE;
+        int lowestY = Integer.MAX_VALUE;
+        int highestY = Integer.MIN_VALUE;
+
+        for (Vector2D corner : corners) {
+            if (corner.x < lowestX) {
+                lowestX = corner.x;
+            }
+
+            if (corner.x > highestX) {
+                highestX = corner.x;
+            }
+
+            if (corner.y < lowestY) {
+                lowestY = corner.y;
+            }
+
+            if (corner.y > highestY) {
+                highestY = corner.y;
+            }
+        }
+
+        Vector2D topLeft = new Vector2D(lowestX, highestY);
+        Vector2D topRight = new Vector2D(highestX, highestY);
+        Vector2D bottomLeft = new Vector2D(lowestX, lowestY);
+        Vector2D bottomRight = new Vector2D(highestX, lowestY);
+
+        sides.add(new Vector2D[] {topLeft, topRight});
+        sides.add(new Vector2D[] {topRight, bottomRight});
+        sides.add(new Vector2D[] {bottomRight, bottomLeft});
+        sides.add(new Vector2D[] {bottomLeft, topLeft});
+
+        return sides;
+    }
+
+    public static Chunk getBoundingBox(ArrayList<Vector2D> corners) {
+        ArrayList<Vector2D[]> sides = new ArrayList<>();
+
+        int lowestX = Integer.MAX_VALUE;
+        int highestX = Integer.MIN_VALUE;
+        int lowestY = Integer.MAX_VALUE;
+        int highestY = Integer.MIN_VALUE;
+
+        for (Vector2D corner : corners) {
+            if (corner.x < lowestX) {
+                lowestX = corner.x;
+            }
+
+            if (corner.x > highestX) {
+                highestX = corner.x;
+            }
+
+            if (corner.y < lowestY) {
+                lowestY = corner.y;
+            }
+
+            if (corner.y > highestY) {
+                highestY = corner.y;
+            }
+        }
+
+        Vector2D bottomLeft = new Vector2D(lowestX, lowestY);
+
+        int width = highestX - lowestX;
+        int height = highestY - lowestY;
+
+        return new Chunk(bottomLeft.x, bottomLeft.y, width, height);
+    }
+
+    public static ArrayList<Vector2D[]> findSides(ArrayList<Vector2D> region) {
+        return findSides(BitGrid.fromVectors(region));
+    }
+
+    /**
+     * Walks around edge of region and returns each straight side as a pair of corners. Walk starts
+     * from bottom-left tile (which is always a corner) heading east, and keeps outside of region on
+     * its right: at each tile it turns right if it can, otherwise carries on straight, otherwise
+     * turns left. A side is recorded every time walk passes a corner, and walk ends when it gets back
+     * to start.
+     *
+     * Todo: this assumes that shape has at least 2 tile width/height, and that it has no holes
+     *
+     * @param region Mask of region
+     * @return Array of sides
+     */
+
+    public static ArrayList<Vector2D[]> findSides(BitGrid region) {
+        ArrayList<Vector2D[]> sides = new ArrayList<>();
+
+        Vector2D start = region.getFirstTile();
+
+        if (start == null) {
+            Log.e(LOG_TAG, "Couldn't find start position? (region is empty)");
+            return sides;
+        }
+
+        BitGrid corners = region.getCorners();
+
+        int x = start.x;
+        int y = start.y;
+        int direction = 0;
+        Vector2D lastCorner = start;
+
+        // Each edge tile is passed at most twice (once for each side it belongs to)
+        int maxSteps = region.getInnerBorder(true).count() * 2 + 4;
+
+        for (int step = 0; step < maxSteps; step++) {
+            int next = -1;
+
+            // Try right, straight, left and then back
+            for (int turn = 3; turn <= 6; turn++) {
+                int candidate = (direction + turn) % 4;
+
+                if (region.get(x + SIDE_DX[candidate], y + SIDE_DY[candidate])) {
+                    next = candidate;
+                    break;
+                }
+            }
+
+            if (next == -1) {
+                // Single tile region
+                break;
+            }
+
+            direction = next;
+            x += SIDE_DX[direction];
+            y += SIDE_DY[direction];
+
+            if (x == start.x && y == start.y) {
+                sides.add(new Vector2D[] {lastCorner, start});
+                return sides;
+            }
+
+            if (corners.get(x, y)) {
+                Vector2D corner = new Vector2D(x, y);
+                sides.add(new Vector2D[] {lastCorner, corner});
+                lastCorner = corner;
+            }
+        }
+
+        Log.e(LOG_TAG, "Couldn't find next corner?");
+        Log.v(LOG_TAG, "found " + sides.size() + " sides");
+        return sides;
+    }
+
+    public static boolean inBoundingBox(Vector2D cell, int width, int height) {
+        return (cell.x >= 0 && cell.x < width && cell.y >= 0 && cell.y < height);
+    }
+
+    public static float getDistance(int ax, int ay, int bx, int by) {
+        return (float) Math.sqrt(Math.pow(ax - bx, 2) + Math.pow(ay - by, 2));
+    }
+}
@@ -1,13 +1,11 @@
 package com.sonicmax.bloodrogue.generator.tools;
 
-import android.util.Log;
-import android.util.SparseIntArray;
-
 import com.sonicmax.bloodrogue.engine.collisions.AxisAlignedBoxTester;
 import com.sonicmax.bloodrogue.generator.Cell;
 import com.sonicmax.bloodrogue.generator.Chunk;
 import com.sonicmax.bloodrogue.generator.MapRegion;
 import com.sonicmax.bloodrogue.utils.Array2DHelper;
+import com.sonicmax.bloodrogue.utils.Log;
 import com.sonicmax.bloodrogue.utils.maths.RandomNumberGenerator;
 import com.sonicmax.bloodrogue.utils.maths.Vector2D;
 
@@ -50,7 +48,15 @@ public class MazeGenerator {
     private int windingPercent;
 
     public MazeGenerator() {
-        rng = new RandomNumberGenerator();
+        this(new RandomNumberGenerator());
+    }
+
+    /**
+     * @param rng Generator used to carve maze. Pass a seeded generator to get the same maze each time.
+     */
+
+    public MazeGenerator(RandomNumberGenerator rng) {
+        this.rng = rng;
         extraConnectorChance = 40;
         windingPercent = 35;
     }
@@ -251,11 +257,11 @@ public class MazeGenerator {
         ArrayList<Vector2D> connectors = new ArrayList<>(connectorRegions.keySet());
 
         // Keep track of which regions have been merged. This maps an original region index to the one it has been merged to.
-        SparseIntArray merged = new SparseIntArray();
+        int[] merged = new int[currentRegion + 1];
         Set<Integer> openRegions = new HashSet<>();
 
         for (int i = 0; i <= currentRegion; i++) {
-            merged.put(i, i);
+            merged[i] = i;
             openRegions.add(i);
         }
 
@@ -271,7 +277,7 @@ public class MazeGenerator {
             ArrayList<Integer> regions = new ArrayList<>();
 
             for (int region : arrayFromConnector) {
-                regions.add(merged.get(region));
+                regions.add(merged[region]);
             }
 
             int dest = regions.get(0);
@@ -281,8 +287,8 @@ public class MazeGenerator {
             // regions because other regions may have previously been merged with
             // some of the ones we're merging now.
             for (int i = 0; i <= currentRegion; i++) {
-                if (sources.contains(merged.get(i))) {
-                    merged.put(i, dest);
+                if (sources.contains(merged[i])) {
+                    merged[i] = dest;
                 }
             }
 
@@ -309,7 +315,7 @@ public class MazeGenerator {
                 HashSet<Integer> spannedRegions = new HashSet<>();
 
                 for (int region : regionsArray) {
-                    spannedRegions.add(merged.get(region));
+                    spannedRegions.add(merged[region]);
                 }
 
                 if (spannedRegions.size() <= 1)  {
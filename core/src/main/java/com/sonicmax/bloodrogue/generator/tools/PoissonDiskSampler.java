@@ -16,7 +16,15 @@ public class PoissonDiskSampler {
     private int density;
 
     public PoissonDiskSampler() {
-        rng = new RandomNumberGenerator();
+        this(new RandomNumberGenerator());
+    }
+
+    /**
+     * @param rng Generator to draw samples from. Pass a seeded generator to get the same noise each time.
+     */
+
+    public PoissonDiskSampler(RandomNumberGenerator rng) {
+        this.rng = rng;
         density = 10;
     }
 
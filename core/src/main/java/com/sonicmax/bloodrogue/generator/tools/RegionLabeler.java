@@ -0,0 +1,205 @@
+package com.sonicmax.bloodrogue.generator.tools;
+
+import java.util.Arrays;
+
+/**
+ *  Connected-component labelling for BitGrid masks. Each row is split into runs of set tiles, runs
+ *  which touch a run in the row below are joined with union-find, and then each run is given the
+ *  label of its set. One pass over the words of the grid and one over the runs - no per-tile
+ *  flood fill and no recursion.
+ *
+ *  Labels go from 0 to getCount() - 1, in order of the first tile of each region when scanning rows
+ *  from bottom to top, so output is deterministic for a given mask.
+ */
+
+public class RegionLabeler {
+    public static final int NONE = -1;
+
+    private BitGrid grid;
+    private int count;
+    private int[] sizes;
+
+    // Runs of set tiles. Start is inclusive and end exclusive, both in local coordinates
+    private int runCount;
+    private int[] runRows = new int[64];
+    private int[] runStarts = new int[64];
+    private int[] runEnds = new int[64];
+    private int[] runLabels = new int[64];
+    private int[] parents = new int[64];
+
+    // Index of first run in each row (plus one extra entry for end of last row)
+    private int[] rowFirstRun = new int[0];
+
+    /**
+     * Labels regions of set tiles in grid.
+     *
+     * @param diagonal Treat diagonally adjacent tiles as connected
+     * @return Number of regions found
+     */
+
+    public int label(BitGrid grid, boolean diagonal) {
+        this.grid = grid;
+        this.runCount = 0;
+
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+        int reach = diagonal ? 1 : 0;
+
+        if (rowFirstRun.length < height + 1) {
+            rowFirstRun = new int[height + 1];
+        }
+
+        for (int row = 0; row < height; row++) {
+            rowFirstRun[row] = runCount;
+
+            int previous = (row > 0) ? rowFirstRun[row - 1] : 0;
+            int previousEnd = runCount;
+
+            int start = grid.nextSetBit(row, 0);
+
+            while (start != -1) {
+                int end = grid.nextClearBit(row, start);
+                int run = addRun(row, start, end);
+
+                // Skip runs in row below that finish before this one starts. They can't touch any
+                // later run in this row either
+                while (previous < previousEnd && runEnds[previous] + reach <= start) {
+                    previous++;
+                }
+
+                for (int other = previous; other < previousEnd && runStarts[other] < end + reach; other++) {
+                    union(run, other);
+                }
+
+                start = (end < width) ? grid.nextSetBit(row, end) : -1;
+            }
+        }
+
+        rowFirstRun[height] = runCount;
+
+        assignLabels();
+
+        return count;
+    }
+
+    private int addRun(int row, int start, int end) {
+        if (runCount == parents.length) {
+            int capacity = runCount << 1;
+            runRows = Arrays.copyOf(runRows, capacity);
+            runStarts = Arrays.copyOf(runStarts, capacity);
+            runEnds = Arrays.copyOf(runEnds, capacity);
+            runLabels = Arrays.copyOf(runLabels, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+        }
+
+        runRows[runCount] = row;
+        runStarts[runCount] = start;
+        runEnds[runCount] = end;
+        parents[runCount] = runCount;
+
+        return runCount++;
+    }
+
+    private int find(int run) {
+        while (parents[run] != run) {
+            // Path halving
+            parents[run] = parents[parents[run]];
+            run = parents[run];
+        }
+
+        return run;
+    }
+
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+
+        // Keep earliest run as root, so that roots are always the first run of their region
+        if (rootA < rootB) {
+            parents[rootB] = rootA;
+        }
+        else if (rootB < rootA) {
+            parents[rootA] = rootB;
+        }
+    }
+
+    private void assignLabels() {
+        count = 0;
+
+        if (sizes == null || sizes.length < runCount) {
+            sizes = new int[Math.max(16, runCount)];
+        }
+
+        // Roots are first run of their region, so they are always labelled before rest of region
+        for (int run = 0; run < runCount; run++) {
+            int root = find(run);
+
+            if (root == run) {
+                runLabels[run] = count;
+                sizes[count] = 0;
+                count++;
+            }
+            else {
+                runLabels[run] = runLabels[root];
+            }
+
+            sizes[runLabels[run]] += runEnds[run] - runStarts[run];
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getSize(int label) {
+        return sizes[label];
+    }
+
+    /**
+     * Returns label of region containing tile, or NONE if tile isn't set.
+     */
+
+    public int getLabel(int x, int y) {
+        if (!grid.inBounds(x, y)) return NONE;
+
+        int row = y - grid.getOriginY();
+        int localX = x - grid.getOriginX();
+
+        // Runs in each row are sorted, so binary search for last run starting at or before x
+        int low = rowFirstRun[row];
+        int high = rowFirstRun[row + 1] - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+
+            if (runStarts[mid] <= localX) {
+                low = mid + 1;
+            }
+            else {
+                high = mid - 1;
+            }
+        }
+
+        if (high >= rowFirstRun[row] && localX < runEnds[high]) {
+            return runLabels[high];
+        }
+
+        return NONE;
+    }
+
+    /**
+     * Returns mask containing only tiles of given region, covering same area as labelled grid.
+     */
+
+    public BitGrid getRegion(int label) {
+        BitGrid region = new BitGrid(grid.getOriginX(), grid.getOriginY(), grid.getWidth(), grid.getHeight());
+
+        for (int run = 0; run < runCount; run++) {
+            if (runLabels[run] == label) {
+                region.fillRun(runRows[run], runStarts[run], runEnds[run], true);
+            }
+        }
+
+        return region;
+    }
+}
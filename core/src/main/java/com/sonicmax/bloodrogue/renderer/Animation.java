@@ -1,6 +1,6 @@
 package com.sonicmax.bloodrogue.renderer;
 
-import android.util.Log;
+import com.sonicmax.bloodrogue.utils.Log;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -59,6 +59,18 @@ public class Animation implements Serializable {
         length = frames.size();
     }
 
+    public ArrayList<String> getFrames() {
+        return frames;
+    }
+
+    public boolean isRepeating() {
+        return repeating;
+    }
+
+    public float getFrameLength() {
+        return timeTilNextFrame;
+    }
+
     public boolean isFinished() {
         return finished;
     }
@@ -1,11 +1,14 @@
 package com.sonicmax.bloodrogue.tilesets;
 
 /**
- * Provides various helper methods to determine what type of tile a given sprite path should be handled as
+ * Provides various helper methods to determine what type of tile a given sprite path should be handled as.
+ * Null paths (tiles which haven't been carved) don't belong to any category.
  */
 
 public class TileCategorySorter {
     public static boolean isWall(String tile) {
+        if (tile == null) return false;
+
         switch (tile) {
             case BuildingTileset.WALL:
             case BuildingTileset.WALLPAPER_1:
@@ -31,6 +34,8 @@ public class TileCategorySorter {
     }
 
     public static boolean isFloor(String tile) {
+        if (tile == null) return false;
+
         switch (tile) {
             case BuildingTileset.FLOOR:
             case BuildingTileset.MARBLE_FLOOR_1:
@@ -46,6 +51,8 @@ public class TileCategorySorter {
     }
 
     public static boolean isBorder(String tile) {
+        if (tile == null) return false;
+
         switch (tile) {
             default:
                 return false;
@@ -53,6 +60,8 @@ public class TileCategorySorter {
     }
 
     public static boolean isDoorway(String tile) {
+        if (tile == null) return false;
+
         switch (tile) {
             case BuildingTileset.DOORWAY:
                 return true;
@@ -1,6 +1,6 @@
 package com.sonicmax.bloodrogue.tilesets;
 
-import android.util.Log;
+import com.sonicmax.bloodrogue.utils.Log;
 
 public class WeaponTileset {
     private static final String LOG_TAG = WeaponTileset.class.getSimpleName();
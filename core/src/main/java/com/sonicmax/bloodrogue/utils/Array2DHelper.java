@@ -3,6 +3,8 @@ package com.sonicmax.bloodrogue.utils;
 import com.sonicmax.bloodrogue.engine.Component;
 import com.sonicmax.bloodrogue.engine.components.Sprite;
 import com.sonicmax.bloodrogue.renderer.Animation;
+import com.sonicmax.bloodrogue.utils.collections.TileOccupancy;
+import com.sonicmax.bloodrogue.utils.collections.TileStack;
 
 import java.util.ArrayList;
 
@@ -20,16 +22,8 @@ public class Array2DHelper {
         return array;
     }
 
-    public static ArrayList<Sprite>[][] create2DSpriteArray(int width, int height) {
-        ArrayList<Sprite>[][] array = new ArrayList[width][height];
-
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                array[x][y] = new ArrayList<>();
-            }
-        }
-
-        return array;
+    public static TileStack<Sprite> create2DSpriteArray(int width, int height) {
+        return new TileStack<>(width, height);
     }
 
     public static ArrayList<Animation>[][] create2DAnimationArray(int width, int height) {
@@ -44,16 +38,8 @@ public class Array2DHelper {
         return array;
     }
 
-    public static ArrayList<Long>[][] create2dLongStack(int width, int height) {
-        ArrayList<Long>[][] array = new ArrayList[width][height];
-
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                array[x][y] = new ArrayList<>();
-            }
-        }
-
-        return array;
+    public static TileOccupancy create2dLongStack(int width, int height) {
+        return new TileOccupancy(width, height);
     }
 
     public static int[][] fillIntArray(int width, int height, int value) {
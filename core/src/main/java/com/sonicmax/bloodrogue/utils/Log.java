@@ -0,0 +1,80 @@
+package com.sonicmax.bloodrogue.utils;
+
+/**
+ *  Logging for engine and generator code, with the same methods as android.util.Log so that it can
+ *  be used as a drop-in replacement. Messages are passed to the current LogSink - by default they
+ *  are written to System.err, and messages below minPriority are ignored.
+ */
+
+public class Log {
+    private static volatile LogSink sink = new StandardErrorSink();
+    private static volatile int minPriority = LogSink.INFO;
+
+    public static void setSink(LogSink logSink) {
+        sink = logSink;
+    }
+
+    /**
+     * Ignores messages below given priority. Only applies to default sink - other sinks receive
+     * every message and can do their own filtering.
+     */
+
+    public static void setMinPriority(int priority) {
+        minPriority = priority;
+    }
+
+    public static void v(String tag, String message) {
+        sink.log(LogSink.VERBOSE, tag, message, null);
+    }
+
+    public static void v(String tag, String message, Throwable throwable) {
+        sink.log(LogSink.VERBOSE, tag, message, throwable);
+    }
+
+    public static void d(String tag, String message) {
+        sink.log(LogSink.DEBUG, tag, message, null);
+    }
+
+    public static void d(String tag, String message, Throwable throwable) {
+        sink.log(LogSink.DEBUG, tag, message, throwable);
+    }
+
+    public static void i(String tag, String message) {
+        sink.log(LogSink.INFO, tag, message, null);
+    }
+
+    public static void i(String tag, String message, Throwable throwable) {
+        sink.log(LogSink.INFO, tag, message, throwable);
+    }
+
+    public static void w(String tag, String message) {
+        sink.log(LogSink.WARN, tag, message, null);
+    }
+
+    public static void w(String tag, String message, Throwable throwable) {
+        sink.log(LogSink.WARN, tag, message, throwable);
+    }
+
+    public static void e(String tag, String message) {
+        sink.log(LogSink.ERROR, tag, message, null);
+    }
+
+    public static void e(String tag, String message, Throwable throwable) {
+        sink.log(LogSink.ERROR, tag, message, throwable);
+    }
+
+    private static class StandardErrorSink implements LogSink {
+        private static final String LEVELS = "??VDIWE";
+
+        @Override
+        public void log(int priority, String tag, String message, Throwable throwable) {
+            if (priority < minPriority) return;
+
+            System.err.println(LEVELS.charAt(priority) + "/" + tag + ": " + message);
+
+            if (throwable != null) {
+                throwable.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.sonicmax.bloodrogue.utils;
+
+/**
+ *  Destination for messages written with Log. The Android app forwards them to android.util.Log,
+ *  and anything running on a plain JVM can use the default sink (see Log).
+ */
+
+public interface LogSink {
+    int VERBOSE = 2;
+    int DEBUG = 3;
+    int INFO = 4;
+    int WARN = 5;
+    int ERROR = 6;
+
+    /**
+     * @param priority One of the constants above (same values as android.util.Log)
+     * @param tag
+     * @param message
+     * @param throwable May be null
+     */
+
+    void log(int priority, String tag, String message, Throwable throwable);
+}
@@ -0,0 +1,109 @@
+package com.sonicmax.bloodrogue.utils.collections;
+
+import java.util.Arrays;
+
+/**
+ *  Binary min-heap of int values ordered by int priority. Values and priorities are kept in
+ *  parallel primitive arrays, so pushing and popping doesn't allocate once the heap has grown
+ *  to its working size.
+ *
+ *  There is no decrease-key operation - callers should push the same value again with a lower
+ *  priority and ignore stale entries when they are popped.
+ */
+
+public class IntMinHeap {
+    private int[] values;
+    private int[] priorities;
+    private int size;
+
+    public IntMinHeap() {
+        this(256);
+    }
+
+    public IntMinHeap(int initialCapacity) {
+        values = new int[initialCapacity];
+        priorities = new int[initialCapacity];
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void push(int value, int priority) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size << 1);
+            priorities = Arrays.copyOf(priorities, size << 1);
+        }
+
+        // Sift up
+        int index = size++;
+
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+
+            if (priorities[parent] <= priority) break;
+
+            values[index] = values[parent];
+            priorities[index] = priorities[parent];
+            index = parent;
+        }
+
+        values[index] = value;
+        priorities[index] = priority;
+    }
+
+    /**
+     * Returns priority of value at top of heap. Heap must not be empty.
+     */
+
+    public int peekPriority() {
+        return priorities[0];
+    }
+
+    /**
+     * Removes and returns value with lowest priority. Heap must not be empty.
+     */
+
+    public int pop() {
+        int result = values[0];
+        size--;
+
+        if (size > 0) {
+            int value = values[size];
+            int priority = priorities[size];
+
+            // Sift down
+            int index = 0;
+            int half = size >>> 1;
+
+            while (index < half) {
+                int child = (index << 1) + 1;
+                int right = child + 1;
+
+                if (right < size && priorities[right] < priorities[child]) {
+                    child = right;
+                }
+
+                if (priority <= priorities[child]) break;
+
+                values[index] = values[child];
+                priorities[index] = priorities[child];
+                index = child;
+            }
+
+            values[index] = value;
+            priorities[index] = priority;
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,225 @@
+package com.sonicmax.bloodrogue.utils.collections;
+
+import java.util.Arrays;
+
+/**
+ *  Open-addressing hash map from primitive long keys to primitive int values. Avoids boxing entity
+ *  ids into Long objects (and the Entry objects that HashMap creates for each mapping).
+ *
+ *  Uses linear probing with backward-shift deletion, so no tombstones are left behind when
+ *  entities are removed. Key 0 is used to mark empty slots and is stored separately.
+ */
+
+public class LongIntMap {
+    public static final int NO_VALUE = -1;
+
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    public LongIntMap() {
+        this(1024);
+    }
+
+    public LongIntMap(int expectedSize) {
+        int capacity = 16;
+
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Spreads entity ids across table. Ids from Entity are random, but ids taken from int arrays
+     * (eg. terrain grids) are small and sequential, so we can't rely on the low bits.
+     */
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns value for key, or NO_VALUE if key isn't present.
+     */
+
+    public int get(long key) {
+        if (key == EMPTY) {
+            return hasZeroKey ? zeroValue : NO_VALUE;
+        }
+
+        int index = slot(key);
+
+        while (true) {
+            long existing = keys[index];
+
+            if (existing == key) {
+                return values[index];
+            }
+
+            if (existing == EMPTY) {
+                return NO_VALUE;
+            }
+
+            index = (index + 1) & mask;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != NO_VALUE;
+    }
+
+    public void put(long key, int value) {
+        if (key == EMPTY) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+
+            zeroValue = value;
+            return;
+        }
+
+        int index = slot(key);
+
+        while (true) {
+            long existing = keys[index];
+
+            if (existing == key) {
+                values[index] = value;
+                return;
+            }
+
+            if (existing == EMPTY) {
+                keys[index] = key;
+                values[index] = value;
+                size++;
+
+                if (size >= resizeThreshold) {
+                    rehash(keys.length << 1);
+                }
+
+                return;
+            }
+
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Removes mapping for key and returns the removed value (or NO_VALUE if key wasn't present).
+     */
+
+    public int remove(long key) {
+        if (key == EMPTY) {
+            if (!hasZeroKey) {
+                return NO_VALUE;
+            }
+
+            hasZeroKey = false;
+            size--;
+            return zeroValue;
+        }
+
+        int index = slot(key);
+
+        while (true) {
+            long existing = keys[index];
+
+            if (existing == EMPTY) {
+                return NO_VALUE;
+            }
+
+            if (existing == key) {
+                int value = values[index];
+                shiftKeys(index);
+                size--;
+                return value;
+            }
+
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Closes gap left by removed key by moving any displaced keys in the probe chain back towards
+     * their ideal slot.
+     */
+
+    private void shiftKeys(int gap) {
+        int index = (gap + 1) & mask;
+
+        while (true) {
+            long key = keys[index];
+
+            if (key == EMPTY) {
+                keys[gap] = EMPTY;
+                return;
+            }
+
+            int ideal = slot(key);
+
+            // Move key into gap if gap lies cyclically between its ideal slot and current slot
+            boolean canMove = (gap <= index)
+                    ? (ideal <= gap || ideal > index)
+                    : (ideal <= gap && ideal > index);
+
+            if (canMove) {
+                keys[gap] = key;
+                values[gap] = values[index];
+                gap = index;
+            }
+
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+
+        allocate(newCapacity);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+
+            if (key != EMPTY) {
+                int index = slot(key);
+
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        hasZeroKey = false;
+        size = 0;
+    }
+}
@@ -0,0 +1,187 @@
+package com.sonicmax.bloodrogue.utils.collections;
+
+import java.util.Arrays;
+
+/**
+ *  Shared bookkeeping for per-tile stacks. Each tile (indexed by y * width + x) has a head and tail
+ *  node, and nodes are linked together in a single slab which grows as needed. Removed nodes are
+ *  recycled via a free list, so adding and removing doesn't allocate once the slab has grown to
+ *  its working size.
+ *
+ *  Subclasses store the values for each node in a parallel array.
+ */
+
+abstract class TileLinks {
+    public static final int NONE = -1;
+
+    protected final int width;
+    protected final int height;
+
+    private final int[] heads;
+    private final int[] tails;
+    private final int[] counts;
+    private int[] next;
+    private int nodeCount;
+    private int freeNode;
+    private int size;
+
+    TileLinks(int width, int height, int initialCapacity) {
+        this.width = width;
+        this.height = height;
+        this.heads = new int[width * height];
+        this.tails = new int[width * height];
+        this.counts = new int[width * height];
+        this.next = new int[Math.max(initialCapacity, 16)];
+
+        Arrays.fill(heads, NONE);
+        Arrays.fill(tails, NONE);
+        this.freeNode = NONE;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns total number of values stored in all tiles.
+     */
+
+    public int size() {
+        return size;
+    }
+
+    public int size(int x, int y) {
+        return counts[y * width + x];
+    }
+
+    public boolean isEmpty(int x, int y) {
+        return counts[y * width + x] == 0;
+    }
+
+    /**
+     * Returns first node in tile, or NONE if tile is empty. Use with next() to iterate without
+     * allocating an iterator:
+     *
+     *     for (int node = stack.first(x, y); node != NONE; node = stack.next(node)) { ... }
+     */
+
+    public int first(int x, int y) {
+        return heads[y * width + x];
+    }
+
+    public int next(int node) {
+        return next[node];
+    }
+
+    public void clear() {
+        Arrays.fill(heads, NONE);
+        Arrays.fill(tails, NONE);
+        Arrays.fill(counts, 0);
+        clearValues(0, nodeCount);
+        nodeCount = 0;
+        freeNode = NONE;
+        size = 0;
+    }
+
+    public void clear(int x, int y) {
+        int tile = y * width + x;
+        int node = heads[tile];
+
+        while (node != NONE) {
+            int following = next[node];
+            release(node);
+            node = following;
+        }
+
+        heads[tile] = NONE;
+        tails[tile] = NONE;
+        size -= counts[tile];
+        counts[tile] = 0;
+    }
+
+    /*
+    ---------------------------------------------
+     Subclass helpers
+    ---------------------------------------------
+    */
+
+    /**
+     * Links new node to end of tile stack and returns it. Caller should then store value for node.
+     */
+
+    protected int append(int x, int y) {
+        int node;
+
+        if (freeNode != NONE) {
+            node = freeNode;
+            freeNode = next[node];
+        }
+        else {
+            if (nodeCount == next.length) {
+                next = Arrays.copyOf(next, nodeCount << 1);
+                resizeValues(nodeCount << 1);
+            }
+
+            node = nodeCount++;
+        }
+
+        int tile = y * width + x;
+        next[node] = NONE;
+
+        if (tails[tile] == NONE) {
+            heads[tile] = node;
+        }
+        else {
+            next[tails[tile]] = node;
+        }
+
+        tails[tile] = node;
+        counts[tile]++;
+        size++;
+
+        return node;
+    }
+
+    /**
+     * Unlinks node from tile stack. Previous node must be the node preceding it in the stack
+     * (or NONE if node is at head).
+     */
+
+    protected void unlink(int x, int y, int node, int previous) {
+        int tile = y * width + x;
+        int following = next[node];
+
+        if (previous == NONE) {
+            heads[tile] = following;
+        }
+        else {
+            next[previous] = following;
+        }
+
+        if (tails[tile] == node) {
+            tails[tile] = previous;
+        }
+
+        counts[tile]--;
+        size--;
+        release(node);
+    }
+
+    protected abstract void resizeValues(int capacity);
+
+    /**
+     * Called when nodes are released, so that subclasses can drop references to stored objects.
+     */
+
+    protected void clearValues(int from, int to) {}
+
+    private void release(int node) {
+        clearValues(node, node + 1);
+        next[node] = freeNode;
+        freeNode = node;
+    }
+}
@@ -0,0 +1,189 @@
+package com.sonicmax.bloodrogue.utils.collections;
+
+import java.util.Arrays;
+
+/**
+ *  Stores the entities occupying each tile of a floor. Replaces a 2d array of ArrayList<Long>
+ *  stacks - entity ids are kept unboxed in one slab for the whole floor, instead of one list
+ *  object per tile.
+ *
+ *  Entities are kept in insertion order. Adding is O(1); removing is linear in the size of the
+ *  tile's stack (which is almost always tiny).
+ */
+
+public class TileOccupancy extends TileLinks {
+    private long[] entities;
+
+    // Tiles modified by add(), remove() or clear(x, y) since last call to clearChanges()
+    private final boolean[] changed;
+    private final int[] changedTiles;
+    private int changedCount;
+
+    public TileOccupancy(int width, int height) {
+        this(width, height, width * height);
+    }
+
+    public TileOccupancy(int width, int height, int initialCapacity) {
+        super(width, height, initialCapacity);
+        this.entities = new long[Math.max(initialCapacity, 16)];
+        this.changed = new boolean[width * height];
+        this.changedTiles = new int[width * height];
+        this.changedCount = 0;
+    }
+
+    public void add(int x, int y, long entity) {
+        // append() may grow entities array, so it has to be called before array is read
+        int node = append(x, y);
+        entities[node] = entity;
+        markChanged(x, y);
+    }
+
+    /**
+     * Removes first occurrence of entity from tile. If called while iterating over the same tile,
+     * get the next node before removing the current one.
+     *
+     * @return True if entity was found
+     */
+
+    public boolean remove(int x, int y, long entity) {
+        int previous = NONE;
+
+        for (int node = first(x, y); node != NONE; node = next(node)) {
+            if (entities[node] == entity) {
+                unlink(x, y, node, previous);
+                markChanged(x, y);
+                return true;
+            }
+
+            previous = node;
+        }
+
+        return false;
+    }
+
+    public boolean contains(int x, int y, long entity) {
+        for (int node = first(x, y); node != NONE; node = next(node)) {
+            if (entities[node] == entity) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns entity stored in node (see first() and next()).
+     */
+
+    public long get(int node) {
+        return entities[node];
+    }
+
+    /**
+     * Returns entity at index in tile stack. Walks the stack, so prefer first()/next() for loops.
+     */
+
+    public long get(int x, int y, int index) {
+        int node = first(x, y);
+
+        for (int i = 0; i < index; i++) {
+            node = next(node);
+        }
+
+        return entities[node];
+    }
+
+    @Override
+    public void clear(int x, int y) {
+        super.clear(x, y);
+        markChanged(x, y);
+    }
+
+    /*
+    ---------------------------------------------
+     Change tracking
+    ---------------------------------------------
+    */
+
+    /**
+     * Flags tile as changed without modifying its stack. Use when the entities in a tile are the
+     * same, but their components have been added or removed.
+     */
+
+    public void markChanged(int x, int y) {
+        int tile = y * width + x;
+
+        if (!changed[tile]) {
+            changed[tile] = true;
+            changedTiles[changedCount++] = tile;
+        }
+    }
+
+    /**
+     * Returns number of tiles changed since last call to clearChanges().
+     */
+
+    public int getChangedCount() {
+        return changedCount;
+    }
+
+    /**
+     * Returns index (y * width + x) of changed tile.
+     */
+
+    public int getChangedTile(int index) {
+        return changedTiles[index];
+    }
+
+    public void clearChanges() {
+        for (int i = 0; i < changedCount; i++) {
+            changed[changedTiles[i]] = false;
+        }
+
+        changedCount = 0;
+    }
+
+    /*
+    ---------------------------------------------
+     Bulk export
+    ---------------------------------------------
+    */
+
+    public long[] toArray(int x, int y) {
+        long[] result = new long[size(x, y)];
+        int i = 0;
+
+        for (int node = first(x, y); node != NONE; node = next(node)) {
+            result[i++] = entities[node];
+        }
+
+        return result;
+    }
+
+    /**
+     * Copies every entity into a flat array, in tile order (y * width + x), and writes the number of
+     * entities in each tile to counts. Entities array must hold at least size() values and counts
+     * array must hold width * height values.
+     *
+     * @return Number of entities written
+     */
+
+    public int exportTo(long[] out, int[] counts) {
+        int written = 0;
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                counts[y * width + x] = size(x, y);
+
+                for (int node = first(x, y); node != NONE; node = next(node)) {
+                    out[written++] = entities[node];
+                }
+            }
+        }
+
+        return written;
+    }
+
+    @Override
+    protected void resizeValues(int capacity) {
+        entities = Arrays.copyOf(entities, capacity);
+    }
+}
@@ -0,0 +1,75 @@
+package com.sonicmax.bloodrogue.utils.collections;
+
+import java.util.Arrays;
+
+/**
+ *  Object version of TileOccupancy, used for grids of sprites passed to the renderer. Values are
+ *  compared by reference when removing.
+ */
+
+public class TileStack<T> extends TileLinks {
+    private Object[] values;
+
+    public TileStack(int width, int height) {
+        this(width, height, width * height);
+    }
+
+    public TileStack(int width, int height, int initialCapacity) {
+        super(width, height, initialCapacity);
+        this.values = new Object[Math.max(initialCapacity, 16)];
+    }
+
+    public void add(int x, int y, T value) {
+        // append() may grow values array, so it has to be called before array is read
+        int node = append(x, y);
+        values[node] = value;
+    }
+
+    /**
+     * Removes first occurrence of value from tile.
+     *
+     * @return True if value was found
+     */
+
+    public boolean remove(int x, int y, T value) {
+        int previous = NONE;
+
+        for (int node = first(x, y); node != NONE; node = next(node)) {
+            if (values[node] == value) {
+                unlink(x, y, node, previous);
+                return true;
+            }
+
+            previous = node;
+        }
+
+        return false;
+    }
+
+    public boolean contains(int x, int y, T value) {
+        for (int node = first(x, y); node != NONE; node = next(node)) {
+            if (values[node] == value) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns value stored in node (see first() and next()).
+     */
+
+    @SuppressWarnings("unchecked")
+    public T get(int node) {
+        return (T) values[node];
+    }
+
+    @Override
+    protected void resizeValues(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    protected void clearValues(int from, int to) {
+        Arrays.fill(values, from, to, null);
+    }
+}
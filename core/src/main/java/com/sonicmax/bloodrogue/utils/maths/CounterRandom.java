@@ -0,0 +1,40 @@
+package com.sonicmax.bloodrogue.utils.maths;
+
+/**
+ * Counter-based random numbers: each value is a hash of a key and a counter, so there is no state
+ * to advance and any value can be looked up directly. Draws don't depend on how many other draws
+ * were made before them, which makes results repeatable when only part of a grid is processed (or
+ * when it is processed in a different order).
+ */
+
+public final class CounterRandom {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private CounterRandom() {}
+
+    /**
+     * Returns 64 random bits for counter.
+     */
+
+    public static long get(long key, long counter) {
+        return mix(key + counter * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Returns float in range [0, 1) for counter.
+     */
+
+    public static float getFloat(long key, long counter) {
+        return (get(key, counter) >>> 40) * 0x1.0p-24f;
+    }
+
+    /**
+     * SplitMix64 finaliser. Also useful for deriving a new key from an existing key.
+     */
+
+    public static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -41,6 +41,10 @@ public class RandomNumberGenerator {
         return random.nextInt((max - min) + 1) + min;
     }
 
+    public long getRandomLong() {
+        return random.nextLong();
+    }
+
     public float getRandomFloat(float min, float max) {
         return min + random.nextFloat() * (max - min);
     }
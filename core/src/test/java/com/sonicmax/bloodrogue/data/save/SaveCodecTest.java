@@ -0,0 +1,303 @@
+package com.sonicmax.bloodrogue.data.save;
+
+import com.sonicmax.bloodrogue.engine.Component;
+import com.sonicmax.bloodrogue.engine.ComponentTypes;
+import com.sonicmax.bloodrogue.engine.FloorData;
+import com.sonicmax.bloodrogue.engine.GameState;
+import com.sonicmax.bloodrogue.engine.components.Container;
+import com.sonicmax.bloodrogue.engine.components.Name;
+import com.sonicmax.bloodrogue.engine.components.Position;
+import com.sonicmax.bloodrogue.engine.components.Sprite;
+import com.sonicmax.bloodrogue.engine.components.Vitality;
+import com.sonicmax.bloodrogue.utils.Array2DHelper;
+import com.sonicmax.bloodrogue.utils.maths.Vector2D;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SaveCodecTest {
+    private static final long PLAYER = 1;
+    private static final long POTION = 2;
+    private static final long GOAT = 10;
+    private static final long PARKED_GOAT = 20;
+
+    @Test
+    public void decodesEncodedState() throws SaveFormatException {
+        GameState state = createState(true);
+        GameState decoded = SaveCodec.decode(SaveCodec.encode(state));
+
+        assertEquals(1, decoded.getCurrentFloorIndex());
+        checkPlayer(decoded);
+        checkFloor(decoded);
+
+        FloorData floor = decoded.getCurrentFloor();
+        assertEquals(new Vector2D(64, -32), floor.streamedOrigin);
+        assertEquals(1, floor.getParkedObjects().size());
+
+        Component[] parked = floor.getParkedObjects().get(0);
+        assertEquals(PARKED_GOAT, parked[0].id);
+        assertEquals(200, getComponent(parked, Position.class).x);
+        assertEquals(-10, getComponent(parked, Position.class).y);
+        assertEquals(3, getComponent(parked, Vitality.class).hp);
+    }
+
+    @Test
+    public void decodesVersion1Save() throws SaveFormatException {
+        // Version 1 floors end after player entity list. Without a streamed origin or parked
+        // objects, current floors only add a null vector (1 byte) and parked count (1 byte)
+        byte[] data = rewrite(SaveCodec.encode(createState(false)), 1, 2, false);
+        GameState decoded = SaveCodec.decode(data);
+
+        checkPlayer(decoded);
+        checkFloor(decoded);
+
+        FloorData floor = decoded.getCurrentFloor();
+        assertNull(floor.streamedOrigin);
+        assertTrue(floor.getParkedObjects().isEmpty());
+    }
+
+    @Test
+    public void skipsUnknownColumnsAndSections() throws SaveFormatException {
+        byte[] data = rewrite(SaveCodec.encode(createState(true)), SaveCodec.SCHEMA_VERSION, 0, true);
+        GameState decoded = SaveCodec.decode(data);
+
+        checkPlayer(decoded);
+        checkFloor(decoded);
+        assertEquals(1, decoded.getCurrentFloor().getParkedObjects().size());
+    }
+
+    /*
+    ---------------------------------------------
+     Test data
+    ---------------------------------------------
+    */
+
+    private GameState createState(boolean streamed) {
+        Position position = new Position(PLAYER);
+        position.x = 2;
+        position.y = 1;
+
+        Sprite sprite = new Sprite(PLAYER);
+        sprite.path = "sprites/player.png";
+
+        Vitality vitality = new Vitality(PLAYER);
+        vitality.hp = 7;
+
+        Container inventory = new Container(Container.DEFAULT, PLAYER);
+        Sprite potion = new Sprite(POTION);
+        potion.path = "sprites/potion.png";
+        inventory.contents.add(potion);
+
+        Component[] player = new Component[] {position, sprite, vitality, inventory,
+                new Name("Player", "It's you", PLAYER)};
+
+        int[][] terrain = new int[4][3];
+
+        for (int x = 0; x < 4; x++) {
+            for (int y = 0; y < 3; y++) {
+                terrain[x][y] = x * 3 + y - 1;
+            }
+        }
+
+        ArrayList<Component[]>[][] objects = Array2DHelper.createComponentGrid(4, 3);
+        objects[3][2].add(createGoat(GOAT, 3, 2, 10));
+
+        FloorData floor = new FloorData(1, terrain, objects, player);
+        floor.setEntrance(new Vector2D(0, 0));
+        floor.setExit(new Vector2D(3, 0));
+
+        if (streamed) {
+            ArrayList<Component[]> parked = new ArrayList<>();
+            parked.add(createGoat(PARKED_GOAT, 200, -10, 3));
+
+            floor.setStreamedOrigin(new Vector2D(64, -32));
+            floor.setParkedObjects(parked);
+        }
+
+        GameState state = new GameState();
+        state.setPlayer(player);
+        state.addFloor(floor);
+        state.updateFloorIndex(1);
+
+        return state;
+    }
+
+    private Component[] createGoat(long entity, int x, int y, int hp) {
+        Position position = new Position(entity);
+        position.x = x;
+        position.y = y;
+
+        Sprite sprite = new Sprite(entity);
+        sprite.path = "sprites/goat.png";
+
+        Vitality vitality = new Vitality(entity);
+        vitality.hp = hp;
+
+        return new Component[] {position, sprite, vitality, new Name("Goat", "Baa", entity)};
+    }
+
+    private void checkPlayer(GameState state) {
+        Component[] player = state.getPlayer();
+
+        assertEquals(PLAYER, player[0].id);
+        assertEquals(2, getComponent(player, Position.class).x);
+        assertEquals(1, getComponent(player, Position.class).y);
+        assertEquals("sprites/player.png", getComponent(player, Sprite.class).path);
+        assertEquals(7, getComponent(player, Vitality.class).hp);
+        assertEquals("It's you", getComponent(player, Name.class).description);
+
+        ArrayList<Sprite> contents = getComponent(player, Container.class).contents;
+        assertEquals(1, contents.size());
+        assertEquals(POTION, contents.get(0).id);
+        assertEquals("sprites/potion.png", contents.get(0).path);
+    }
+
+    private void checkFloor(GameState state) {
+        FloorData floor = state.getCurrentFloor();
+
+        assertEquals(1, floor.getIndex());
+        assertArrayEquals(createState(false).getCurrentFloor().getTerrain(), floor.getTerrain());
+        assertEquals(new Vector2D(0, 0), floor.entrancePosition);
+        assertEquals(new Vector2D(3, 0), floor.exitPosition);
+
+        // Components shared between player and floor should still be shared after decoding
+        assertSame(state.getPlayer()[0], floor.getPlayer()[0]);
+
+        ArrayList<Component[]>[][] objects = floor.getObjects();
+
+        for (int x = 0; x < 4; x++) {
+            for (int y = 0; y < 3; y++) {
+                assertEquals((x == 3 && y == 2) ? 1 : 0, objects[x][y].size());
+            }
+        }
+
+        Component[] goat = objects[3][2].get(0);
+        assertEquals(GOAT, goat[0].id);
+        assertEquals(4, goat.length);
+        assertEquals(10, getComponent(goat, Vitality.class).hp);
+        assertEquals("Goat", getComponent(goat, Name.class).value);
+    }
+
+    private <T extends Component> T getComponent(Component[] components, Class<T> type) {
+        for (Component component : components) {
+            if (type.isInstance(component)) {
+                return type.cast(component);
+            }
+        }
+
+        throw new AssertionError("Missing " + type.getSimpleName());
+    }
+
+    /*
+    ---------------------------------------------
+     Rewriting saves
+    ---------------------------------------------
+    */
+
+    /**
+     * Copies save written by SaveCodec.encode(), changing header version, dropping bytes from end of
+     * each floor and optionally adding columns and sections which the reader doesn't know about.
+     */
+
+    private byte[] rewrite(byte[] data, int version, int trimFloorBytes, boolean addUnknown)
+            throws SaveFormatException {
+
+        BinaryReader in = new BinaryReader(data);
+        BinaryWriter out = new BinaryWriter();
+
+        out.writeInt(in.readInt());
+        in.readVarInt();
+        out.writeVarInt(version);
+        out.writeBlock(copy(in.readBlock(), 0));
+        out.writeVarInt(in.readVarInt());
+
+        int sectionCount = in.readVarInt();
+        out.writeVarInt(addUnknown ? sectionCount + 1 : sectionCount);
+
+        for (int i = 0; i < sectionCount; i++) {
+            out.writeVarInt(in.readVarInt());
+            BinaryReader section = in.readBlock();
+            out.writeBlock(addUnknown ? addColumn(section) : copy(section, 0));
+        }
+
+        if (addUnknown) {
+            out.writeVarInt(ComponentTypes.COUNT + 5);
+            out.writeBlock(createJunk());
+        }
+
+        // Player entity list
+        out.writeBoolean(in.readBoolean());
+        out.writeSignedLong(in.readSignedLong());
+        int typeCount = in.readVarInt();
+        out.writeVarInt(typeCount);
+
+        for (int i = 0; i < typeCount; i++) {
+            out.writeVarInt(in.readVarInt());
+        }
+
+        int floorCount = in.readVarInt();
+        out.writeVarInt(floorCount);
+
+        for (int i = 0; i < floorCount; i++) {
+            out.writeBlock(copy(in.readBlock(), trimFloorBytes));
+        }
+
+        assertTrue(!in.hasRemaining());
+
+        return out.toByteArray();
+    }
+
+    private BinaryWriter addColumn(BinaryReader section) throws SaveFormatException {
+        BinaryWriter out = new BinaryWriter();
+        int count = section.readVarInt();
+        out.writeVarInt(count);
+
+        for (int i = 0; i < count; i++) {
+            out.writeSignedLong(section.readSignedLong());
+        }
+
+        int columnCount = section.readVarInt();
+        out.writeVarInt(columnCount + 1);
+
+        for (int c = 0; c < columnCount; c++) {
+            out.writeBlock(copy(section.readBlock(), 0));
+        }
+
+        out.writeBlock(createJunk());
+
+        return out;
+    }
+
+    private BinaryWriter createJunk() {
+        BinaryWriter junk = new BinaryWriter();
+
+        for (int i = 0; i < 16; i++) {
+            junk.writeByte(0xFF - i);
+        }
+
+        return junk;
+    }
+
+    private BinaryWriter copy(BinaryReader in, int trimBytes) throws SaveFormatException {
+        ArrayList<Integer> bytes = new ArrayList<>();
+
+        while (in.hasRemaining()) {
+            bytes.add(in.readByte());
+        }
+
+        BinaryWriter out = new BinaryWriter();
+
+        for (int i = 0; i < bytes.size() - trimBytes; i++) {
+            out.writeByte(bytes.get(i));
+        }
+
+        return out;
+    }
+}